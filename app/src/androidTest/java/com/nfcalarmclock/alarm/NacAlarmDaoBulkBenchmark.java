@@ -0,0 +1,307 @@
+package com.nfcalarmclock.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compare the cost per alarm of writing alarms one at a time, where each write
+ * is its own transaction, with writing them with a single bulk DAO call.
+ *
+ * The database is a file, in write ahead logging mode, the same as the app
+ * uses, so that the cost of committing each transaction is counted. The time
+ * per alarm is written to logcat, under the NacAlarmDaoBulkBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NacAlarmDaoBulkBenchmark
+{
+
+	/**
+	 * Tag that the results are written to logcat with.
+	 */
+	private static final String TAG = "NacAlarmDaoBulkBenchmark";
+
+	/**
+	 * Name of the database file.
+	 */
+	private static final String DB_NAME = "NacAlarmDaoBulkBenchmark.db";
+
+	/**
+	 * Numbers of alarms to write.
+	 */
+	private static final int[] COUNTS = new int[] { 100, 10000 };
+
+	/**
+	 * Number of times to time each way of writing the alarms. The median is
+	 * used.
+	 */
+	private static final int RUNS = 3;
+
+	/**
+	 * Context.
+	 */
+	private Context mContext;
+
+	/**
+	 * Database.
+	 */
+	private NacAlarmDatabase mDatabase;
+
+	/**
+	 * Alarm DAO.
+	 */
+	private NacAlarmDao mDao;
+
+	/**
+	 * @return A list of alarms, that have not been inserted yet.
+	 */
+	private static List<NacAlarm> createAlarms(int count)
+	{
+		List<NacAlarm> alarms = new ArrayList<>(count);
+
+		for (int i=0; i < count; i++)
+		{
+			NacAlarm alarm = new NacAlarm.Builder()
+				.setHour(i % 24)
+				.setMinute(i % 60)
+				.setName("Alarm " + i)
+				.build();
+
+			alarms.add(alarm);
+		}
+
+		return alarms;
+	}
+
+	/**
+	 * @return The IDs of a list of alarms.
+	 */
+	private static long[] getIds(List<NacAlarm> alarms)
+	{
+		long[] ids = new long[alarms.size()];
+
+		for (int i=0; i < ids.length; i++)
+		{
+			ids[i] = alarms.get(i).getId();
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Insert alarms in bulk, and set their IDs.
+	 */
+	private void insertAll(List<NacAlarm> alarms)
+	{
+		List<Long> ids = this.mDao.insertAll(alarms);
+
+		for (int i=0; i < ids.size(); i++)
+		{
+			alarms.get(i).setId(ids.get(i));
+		}
+	}
+
+	/**
+	 * @return The median of the times.
+	 */
+	private static long median(long[] times)
+	{
+		long[] sorted = Arrays.copyOf(times, times.length);
+
+		Arrays.sort(sorted);
+		return sorted[sorted.length/2];
+	}
+
+	/**
+	 * Write the time per alarm to logcat, and check that the bulk call costs
+	 * less per alarm.
+	 */
+	private static void report(String name, int count, long singleNanos,
+		long bulkNanos)
+	{
+		double single = singleNanos / 1000.0 / count;
+		double bulk = bulkNanos / 1000.0 / count;
+
+		NacUtility.print(TAG, String.format(Locale.US,
+			"%1$s %2$d alarms: %3$.1f us per alarm one at a time, %4$.1f us per alarm in bulk",
+			name, count, single, bulk));
+		assertTrue(name + " " + count, bulkNanos < singleNanos);
+	}
+
+	/**
+	 * Create the database.
+	 */
+	@Before
+	public void setUp()
+	{
+		this.mContext = InstrumentationRegistry.getInstrumentation()
+			.getTargetContext();
+
+		this.mContext.deleteDatabase(DB_NAME);
+
+		this.mDatabase = Room.databaseBuilder(this.mContext,
+				NacAlarmDatabase.class, DB_NAME)
+			.setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+			.build();
+		this.mDao = this.mDatabase.alarmDao();
+	}
+
+	/**
+	 * Close and delete the database.
+	 */
+	@After
+	public void tearDown()
+	{
+		this.mDatabase.close();
+		this.mContext.deleteDatabase(DB_NAME);
+	}
+
+	/**
+	 * Deleting alarms by their IDs costs less per alarm than deleting them one
+	 * at a time.
+	 */
+	@Test
+	public void testDeleteByIds()
+	{
+		for (int count : COUNTS)
+		{
+			long[] single = new long[RUNS];
+			long[] bulk = new long[RUNS];
+
+			for (int r=0; r < RUNS; r++)
+			{
+				List<NacAlarm> alarms = createAlarms(count);
+
+				this.insertAll(alarms);
+
+				long start = System.nanoTime();
+
+				for (NacAlarm a : alarms)
+				{
+					this.mDao.delete(a);
+				}
+
+				single[r] = System.nanoTime() - start;
+				alarms = createAlarms(count);
+
+				this.insertAll(alarms);
+
+				long[] ids = getIds(alarms);
+				start = System.nanoTime();
+
+				assertEquals(count, this.mDao.deleteByIds(ids));
+
+				bulk[r] = System.nanoTime() - start;
+			}
+
+			report("Delete", count, median(single), median(bulk));
+		}
+	}
+
+	/**
+	 * Inserting a list of alarms costs less per alarm than inserting them one
+	 * at a time.
+	 */
+	@Test
+	public void testInsertAll()
+	{
+		for (int count : COUNTS)
+		{
+			long[] single = new long[RUNS];
+			long[] bulk = new long[RUNS];
+
+			for (int r=0; r < RUNS; r++)
+			{
+				List<NacAlarm> alarms = createAlarms(count);
+				long start = System.nanoTime();
+
+				for (NacAlarm a : alarms)
+				{
+					this.mDao.insert(a);
+				}
+
+				single[r] = System.nanoTime() - start;
+
+				this.mDao.deleteAll();
+
+				alarms = createAlarms(count);
+				start = System.nanoTime();
+
+				assertEquals(count, this.mDao.insertAll(alarms).size());
+
+				bulk[r] = System.nanoTime() - start;
+
+				this.mDao.deleteAll();
+			}
+
+			report("Insert", count, median(single), median(bulk));
+		}
+	}
+
+	/**
+	 * Updating a list of alarms costs less per alarm than updating them one at
+	 * a time.
+	 */
+	@Test
+	public void testUpdateAll()
+	{
+		for (int count : COUNTS)
+		{
+			long[] single = new long[RUNS];
+			long[] bulk = new long[RUNS];
+			List<NacAlarm> alarms = createAlarms(count);
+
+			this.insertAll(alarms);
+
+			for (int r=0; r < RUNS; r++)
+			{
+				for (NacAlarm a : alarms)
+				{
+					a.setSnoozeCount(2*r);
+				}
+
+				long start = System.nanoTime();
+
+				for (NacAlarm a : alarms)
+				{
+					this.mDao.update(a);
+				}
+
+				single[r] = System.nanoTime() - start;
+
+				for (NacAlarm a : alarms)
+				{
+					a.setSnoozeCount(2*r + 1);
+				}
+
+				start = System.nanoTime();
+
+				assertEquals(count, this.mDao.updateAll(alarms));
+
+				bulk[r] = System.nanoTime() - start;
+			}
+
+			this.mDao.deleteAll();
+			report("Update", count, median(single), median(bulk));
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+package com.nfcalarmclock.alarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Time the active alarm lookup, with thousands of alarms in the table.
+ *
+ * The same query is timed with the is_active index, and with SQLite told not
+ * to use any index, so that the two only differ by the index. The time per
+ * lookup is written to logcat, under the NacAlarmDaoIndexBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NacAlarmDaoIndexBenchmark
+{
+
+	/**
+	 * Tag that the results are written to logcat with.
+	 */
+	private static final String TAG = "NacAlarmDaoIndexBenchmark";
+
+	/**
+	 * Name of the database file.
+	 */
+	private static final String DB_NAME = "NacAlarmDaoIndexBenchmark.db";
+
+	/**
+	 * Name of the index on the is_active column.
+	 */
+	private static final String INDEX_NAME = "index_alarm_is_active";
+
+	/**
+	 * Active alarm query, the same as in NacAlarmDao.
+	 */
+	private static final String QUERY = "SELECT * FROM alarm WHERE is_active=1";
+
+	/**
+	 * Active alarm query, that does not use any index.
+	 */
+	private static final String QUERY_NOT_INDEXED =
+		"SELECT * FROM alarm NOT INDEXED WHERE is_active=1";
+
+	/**
+	 * Numbers of alarms in the table.
+	 */
+	private static final int[] COUNTS = new int[] { 1000, 10000 };
+
+	/**
+	 * One in this many alarms is active.
+	 */
+	private static final int ACTIVE_EVERY = 100;
+
+	/**
+	 * Number of lookups in each run.
+	 */
+	private static final int LOOKUPS = 200;
+
+	/**
+	 * Number of runs of each lookup. The median is used.
+	 */
+	private static final int RUNS = 5;
+
+	/**
+	 * Context.
+	 */
+	private Context mContext;
+
+	/**
+	 * Database.
+	 */
+	private NacAlarmDatabase mDatabase;
+
+	/**
+	 * Alarm DAO.
+	 */
+	private NacAlarmDao mDao;
+
+	/**
+	 * @return The number of rows that a query selects, after reading every
+	 *     column of each row.
+	 */
+	private int countRows(String query)
+	{
+		try (Cursor cursor = this.mDatabase.query(query, null))
+		{
+			int columns = cursor.getColumnCount();
+			int count = 0;
+
+			while (cursor.moveToNext())
+			{
+				for (int i=0; i < columns; i++)
+				{
+					cursor.getString(i);
+				}
+
+				count++;
+			}
+
+			return count;
+		}
+	}
+
+	/**
+	 * Insert alarms, one in every ACTIVE_EVERY of which is active.
+	 */
+	private void insertAlarms(int count)
+	{
+		List<NacAlarm> alarms = new ArrayList<>(count);
+
+		for (int i=0; i < count; i++)
+		{
+			NacAlarm alarm = new NacAlarm.Builder()
+				.setHour(i % 24)
+				.setMinute(i % 60)
+				.setName("Alarm " + i)
+				.build();
+
+			alarm.setIsActive((i % ACTIVE_EVERY) == 0);
+			alarms.add(alarm);
+		}
+
+		this.mDao.insertAll(alarms);
+	}
+
+	/**
+	 * @return True if SQLite uses the is_active index for the active alarm
+	 *     query, and False otherwise.
+	 */
+	private boolean isIndexUsed()
+	{
+		try (Cursor cursor = this.mDatabase.query("EXPLAIN QUERY PLAN " + QUERY,
+				null))
+		{
+			int column = cursor.getColumnIndex("detail");
+
+			while (cursor.moveToNext())
+			{
+				if (cursor.getString(column).contains(INDEX_NAME))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * @return The median of the times.
+	 */
+	private static long median(long[] times)
+	{
+		long[] sorted = Arrays.copyOf(times, times.length);
+
+		Arrays.sort(sorted);
+		return sorted[sorted.length/2];
+	}
+
+	/**
+	 * Create the database.
+	 */
+	@Before
+	public void setUp()
+	{
+		this.mContext = InstrumentationRegistry.getInstrumentation()
+			.getTargetContext();
+
+		this.mContext.deleteDatabase(DB_NAME);
+
+		this.mDatabase = Room.databaseBuilder(this.mContext,
+				NacAlarmDatabase.class, DB_NAME)
+			.setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+			.build();
+		this.mDao = this.mDatabase.alarmDao();
+	}
+
+	/**
+	 * Close and delete the database.
+	 */
+	@After
+	public void tearDown()
+	{
+		this.mDatabase.close();
+		this.mContext.deleteDatabase(DB_NAME);
+	}
+
+	/**
+	 * The active alarm lookup uses the is_active index, and is faster than
+	 * the same lookup without it.
+	 */
+	@Test
+	public void testActiveAlarmLookup()
+	{
+		for (int count : COUNTS)
+		{
+			long[] dao = new long[RUNS];
+			long[] indexed = new long[RUNS];
+			long[] scanned = new long[RUNS];
+			int active = (count + ACTIVE_EVERY - 1) / ACTIVE_EVERY;
+
+			this.mDao.deleteAll();
+			this.insertAlarms(count);
+
+			assertTrue(this.isIndexUsed());
+			assertEquals(active, this.mDao.getActiveAlarmsNow().size());
+			assertEquals(active, this.countRows(QUERY));
+			assertEquals(active, this.countRows(QUERY_NOT_INDEXED));
+
+			for (int r=0; r < RUNS; r++)
+			{
+				long start = System.nanoTime();
+
+				for (int i=0; i < LOOKUPS; i++)
+				{
+					this.mDao.getActiveAlarmsNow();
+				}
+
+				dao[r] = System.nanoTime() - start;
+				start = System.nanoTime();
+
+				for (int i=0; i < LOOKUPS; i++)
+				{
+					this.countRows(QUERY);
+				}
+
+				indexed[r] = System.nanoTime() - start;
+				start = System.nanoTime();
+
+				for (int i=0; i < LOOKUPS; i++)
+				{
+					this.countRows(QUERY_NOT_INDEXED);
+				}
+
+				scanned[r] = System.nanoTime() - start;
+			}
+
+			double daoMicros = median(dao) / 1000.0 / LOOKUPS;
+			double indexedMicros = median(indexed) / 1000.0 / LOOKUPS;
+			double scannedMicros = median(scanned) / 1000.0 / LOOKUPS;
+
+			NacUtility.print(TAG, String.format(Locale.US,
+				"%1$d alarms: %2$.1f us per DAO lookup, %3$.1f us per lookup with the index, %4$.1f us per lookup without it",
+				count, daoMicros, indexedMicros, scannedMicros));
+			assertTrue(String.valueOf(count), median(indexed) < median(scanned));
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.nfcalarmclock.system;
+
+import static org.junit.Assert.assertTrue;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compare the size and speed of passing an alarm through a Bundle, when it is
+ * encoded with NacAlarmCodec, and when it is put in as a Parcelable.
+ *
+ * Each Bundle is written to a real Parcel, the same as when it is sent in an
+ * intent, and read back with NacBundle.getAlarm(). The results are written to
+ * logcat, under the NacAlarmCodecBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NacAlarmCodecBenchmark
+{
+
+	/**
+	 * Tag that the results are written to logcat with.
+	 */
+	private static final String TAG = "NacAlarmCodecBenchmark";
+
+	/**
+	 * Number of round trips in each run.
+	 */
+	private static final int ROUND_TRIPS = 10000;
+
+	/**
+	 * Number of runs of each round trip. The median is used.
+	 */
+	private static final int RUNS = 5;
+
+	/**
+	 * @return An alarm with every field set to something other than its
+	 *     default.
+	 */
+	private static NacAlarm createAlarm()
+	{
+		NacAlarm alarm = new NacAlarm.Builder()
+			.setId(1234567L)
+			.setIsEnabled(true)
+			.setHour(23)
+			.setMinute(59)
+			.setDays(NacCalendar.Days.valueToDays(0x7f))
+			.setRepeat(true)
+			.setVibrate(true)
+			.setUseNfc(true)
+			.setNfcTagId("04:A2:3B:7C:11:22:80")
+			.setMediaType(2)
+			.setMediaPath("content://media/external/audio/media/42")
+			.setMediaTitle("Sonne ☀ über dem Meer")
+			.setAudioSource("Alarm")
+			.setName("起床 🔔")
+			.setUseTts(true)
+			.setTtsFrequency(5)
+			.setShouldGraduallyIncreaseVolume(true)
+			.setShouldRestrictVolume(true)
+			.build();
+
+		alarm.setIsActive(true);
+		alarm.setTimeActive(987654321L);
+		alarm.setSnoozeCount(3);
+		alarm.setVolume(75);
+
+		return alarm;
+	}
+
+	/**
+	 * @return The number of bytes that a Bundle takes up in a Parcel.
+	 */
+	private static int getSize(Bundle bundle)
+	{
+		Parcel parcel = Parcel.obtain();
+
+		try
+		{
+			bundle.writeToParcel(parcel, 0);
+			return parcel.dataSize();
+		}
+		finally
+		{
+			parcel.recycle();
+		}
+	}
+
+	/**
+	 * @return The median of the times.
+	 */
+	private static long median(long[] times)
+	{
+		long[] sorted = Arrays.copyOf(times, times.length);
+
+		Arrays.sort(sorted);
+		return sorted[sorted.length/2];
+	}
+
+	/**
+	 * @return The alarm, after it is written to a Parcel in a Bundle, and read
+	 *     back.
+	 */
+	private static NacAlarm roundTrip(Bundle bundle)
+	{
+		Parcel parcel = Parcel.obtain();
+
+		try
+		{
+			bundle.writeToParcel(parcel, 0);
+			parcel.setDataPosition(0);
+
+			Bundle copy = parcel.readBundle(NacAlarm.class.getClassLoader());
+
+			return NacBundle.getAlarm(copy);
+		}
+		finally
+		{
+			parcel.recycle();
+		}
+	}
+
+	/**
+	 * @return A Bundle with the alarm put in as a Parcelable.
+	 */
+	private static Bundle toParcelableBundle(NacAlarm alarm)
+	{
+		Bundle bundle = new Bundle();
+
+		bundle.putParcelable(NacBundle.ALARM_PARCEL_NAME, alarm);
+		return bundle;
+	}
+
+	/**
+	 * Time a round trip through a Parcel, of a Bundle with the encoded alarm,
+	 * and of a Bundle with the Parcelable.
+	 */
+	@Test
+	public void testRoundTripTime()
+	{
+		NacAlarm alarm = createAlarm();
+		long[] encoded = new long[RUNS];
+		long[] parcelable = new long[RUNS];
+
+		assertTrue(alarm.equals(roundTrip(NacBundle.toBundle(alarm))));
+		assertTrue(alarm.equals(roundTrip(toParcelableBundle(alarm))));
+
+		for (int r=0; r < RUNS; r++)
+		{
+			long start = System.nanoTime();
+
+			for (int i=0; i < ROUND_TRIPS; i++)
+			{
+				roundTrip(NacBundle.toBundle(alarm));
+			}
+
+			encoded[r] = System.nanoTime() - start;
+			start = System.nanoTime();
+
+			for (int i=0; i < ROUND_TRIPS; i++)
+			{
+				roundTrip(toParcelableBundle(alarm));
+			}
+
+			parcelable[r] = System.nanoTime() - start;
+		}
+
+		NacUtility.print(TAG, String.format(Locale.US,
+			"Round trip: %1$.2f us encoded, %2$.2f us as a Parcelable",
+			median(encoded) / 1000.0 / ROUND_TRIPS,
+			median(parcelable) / 1000.0 / ROUND_TRIPS));
+	}
+
+	/**
+	 * A Bundle with the encoded alarm is smaller than a Bundle with the
+	 * Parcelable, with every field set, and with default values.
+	 */
+	@Test
+	public void testSize()
+	{
+		NacAlarm[] alarms = new NacAlarm[] { createAlarm(),
+			new NacAlarm.Builder().build() };
+
+		for (NacAlarm a : alarms)
+		{
+			int encodedSize = getSize(NacBundle.toBundle(a));
+			int parcelableSize = getSize(toParcelableBundle(a));
+
+			NacUtility.print(TAG, String.format(Locale.US,
+				"Size: %1$d bytes encoded, %2$d bytes as a Parcelable",
+				encodedSize, parcelableSize));
+			assertTrue(encodedSize + " >= " + parcelableSize,
+				encodedSize < parcelableSize);
+		}
+	}
+
+}
@@ -256,7 +256,7 @@ public class NacActiveAlarmActivity
 		NacAlarm alarm = this.getAlarm();
 		if (alarm != null)
 		{
-			outState.putParcelable(NacBundle.ALARM_PARCEL_NAME, alarm);
+			outState.putAll(NacBundle.toBundle(alarm));
 		}
 	}
 
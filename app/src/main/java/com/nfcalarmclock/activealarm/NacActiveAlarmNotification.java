@@ -13,7 +13,7 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
 import com.nfcalarmclock.alarm.NacAlarm;
-import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.system.NacIntent;
 import com.nfcalarmclock.util.notification.NacNotification;
 import com.nfcalarmclock.shared.NacSharedConstants;
@@ -160,7 +160,7 @@ public class NacActiveAlarmNotification
 		Context context = this.getContext();
 		NacAlarm alarm = this.getAlarm();
 		Calendar now = Calendar.getInstance();
-		String time = NacCalendar.Time.getFullTime(context, now);
+		String time = NacCalendarFormat.Time.getFullTime(context, now);
 		Locale locale = Locale.getDefault();
 		String name = (alarm != null) ? alarm.getName() : "";
 
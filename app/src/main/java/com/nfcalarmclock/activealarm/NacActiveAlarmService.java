@@ -15,6 +15,8 @@ import com.google.firebase.crashlytics.FirebaseCrashlytics;
 
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.alarm.NacAlarmRepository;
+import com.nfcalarmclock.alarm.NacAlarmUpdateBuffer;
+import com.nfcalarmclock.db.NacDatabaseWarmer;
 import com.nfcalarmclock.missedalarm.NacMissedAlarmNotification;
 import com.nfcalarmclock.shared.NacSharedConstants;
 import com.nfcalarmclock.shared.NacSharedPreferences;
@@ -494,10 +496,49 @@ public class NacActiveAlarmService
 		// Setup the service
 		this.setupService(intent);
 
-		// Show the notification
+		// Show the notification, which starts the service in the foreground.
+		// This is done before anything waits on the database
 		FirebaseCrashlytics.getInstance().log("Showing the notification just in case. Never before tried.");
 		this.showNotification();
 
+		// Wait for the database to be warmed up, instead of opening it here,
+		// without blocking the main thread
+		NacDatabaseWarmer.await(this, () -> this.runAction(action));
+
+		// Keep the service going once the alarm is started
+		if ((this.getAlarm() != null) && action.equals(ACTION_START_SERVICE))
+		{
+			return START_STICKY;
+		}
+
+		return START_NOT_STICKY;
+	}
+
+	/**
+	 * Prepare the new service that was started.
+	 */
+	public void prepareNewService()
+	{
+		this.updateTimeActive();
+		this.updateAlarm();
+		this.cleanupAlarmActivity();
+		this.cleanupWakeupProcess();
+		this.cleanupAutoDismiss();
+	}
+
+	/**
+	 * Run the action that the service was started with.
+	 *
+	 * This is called once the database has been warmed up.
+	 *
+	 * @param  action  The action of the service.
+	 */
+	private void runAction(String action)
+	{
+		// Write any buffered alarm updates first, so that they do not overwrite
+		// what the service writes for this alarm
+		NacAlarmUpdateBuffer.getInstance(this).flush();
+
 		// The default case if things go wrong, or if the service should be
 		// dismissed.
 		//
@@ -534,26 +575,11 @@ public class NacActiveAlarmService
 			this.setIsAlarmActive(true);
 			FirebaseCrashlytics.getInstance().log("Update alarm");
 			this.updateAlarm();
+			NacScheduler.scheduleNextAlarm(this);
 			FirebaseCrashlytics.getInstance().log("Wait for auto dismiss");
 			this.waitForAutoDismiss();
 			NacContext.startAlarmActivity(this, this.getAlarm());
-
-			return START_STICKY;
 		}
-
-		return START_NOT_STICKY;
-	}
-
-	/**
-	 * Prepare the new service that was started.
-	 */
-	public void prepareNewService()
-	{
-		this.updateTimeActive();
-		this.updateAlarm();
-		this.cleanupAlarmActivity();
-		this.cleanupWakeupProcess();
-		this.cleanupAutoDismiss();
 	}
 
 	/**
@@ -739,6 +765,10 @@ public class NacActiveAlarmService
 
 	/**
 	 * Update the alarm in the repository.
+	 *
+	 * This does not wait for the update to finish. Reads that are submitted
+	 * after this wait for the writes that were submitted before them, so a
+	 * later read will still see this update.
 	 */
 	private void updateAlarm()
 	{
@@ -749,7 +779,7 @@ public class NacActiveAlarmService
 		if (alarm != null)
 		{
 			NacAlarmRepository repo = this.getAlarmRepository();
-			repo.update(alarm);
+			repo.update(alarm, null);
 		}
 	}
 
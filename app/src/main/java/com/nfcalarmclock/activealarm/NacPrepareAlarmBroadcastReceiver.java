@@ -0,0 +1,55 @@
+package com.nfcalarmclock.activealarm;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.db.NacDatabaseWarmer;
+import com.nfcalarmclock.system.NacIntent;
+
+/**
+ * Receive this signal from AlarmManager shortly before an alarm runs, and
+ * prepare the media player and text-to-speech engine for it.
+ */
+public class NacPrepareAlarmBroadcastReceiver
+	extends BroadcastReceiver
+{
+
+	/**
+	 * Action to prepare an alarm.
+	 */
+	public static final String ACTION_PREPARE_ALARM =
+		"com.nfcalarmclock.ACTION_PREPARE_ALARM";
+
+	/**
+	 * Name of the extra with the time at which the alarm will run.
+	 */
+	public static final String EXTRA_TRIGGER_TIME = "NacTriggerTime";
+
+	/**
+	 * Ensure that the received Intent's action string matches the expected
+	 * value before preparing the alarm.
+	 */
+	@Override
+	public void onReceive(final Context context, Intent intent)
+	{
+		String action = intent.getAction();
+		NacAlarm alarm = NacIntent.getAlarm(intent);
+
+		if (!ACTION_PREPARE_ALARM.equals(action) || (alarm == null)
+			|| NacActiveAlarmService.isRunning(context))
+		{
+			return;
+		}
+
+		long millis = intent.getLongExtra(EXTRA_TRIGGER_TIME,
+			System.currentTimeMillis());
+
+		// Open the database before the alarm runs
+		NacDatabaseWarmer.warm(context);
+
+		NacPreparedWakeup.getInstance(context).prepare(alarm, millis);
+	}
+
+}
@@ -0,0 +1,237 @@
+package com.nfcalarmclock.activealarm;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.media.NacMedia;
+import com.nfcalarmclock.media.NacMediaPlayer;
+import com.nfcalarmclock.shared.NacSharedPreferences;
+import com.nfcalarmclock.tts.NacTextToSpeech;
+
+/**
+ * Media player and text-to-speech engine that were set up shortly before an
+ * alarm runs, so that the wakeup process does not have to wait for them.
+ *
+ * Anything that is not taken by the wakeup process is released once the
+ * alarm should have run, or when the alarm is cancelled, snoozed, or changed.
+ *
+ * This must only be used on the main thread.
+ */
+public class NacPreparedWakeup
+{
+
+	/**
+	 * Amount of time, in milliseconds, after the alarm should have run, to
+	 * keep what was prepared.
+	 */
+	public static final long KEEP_MILLIS = 2L * 60L * 1000L;
+
+	/**
+	 * Singleton instance.
+	 */
+	private static NacPreparedWakeup sInstance;
+
+	/**
+	 * Application context.
+	 */
+	private final Context mContext;
+
+	/**
+	 * Handler to release what was prepared, if it is not used.
+	 */
+	private final Handler mHandler;
+
+	/**
+	 * Alarm that was prepared, or null if nothing is prepared.
+	 */
+	private NacAlarm mAlarm;
+
+	/**
+	 * Media player, with the media of the alarm buffered.
+	 */
+	private NacMediaPlayer mPlayer;
+
+	/**
+	 * Text-to-speech engine.
+	 */
+	private NacTextToSpeech mSpeech;
+
+	/**
+	 */
+	private NacPreparedWakeup(Context context)
+	{
+		this.mContext = context.getApplicationContext();
+		this.mHandler = new Handler(Looper.getMainLooper());
+		this.mAlarm = null;
+		this.mPlayer = null;
+		this.mSpeech = null;
+	}
+
+	/**
+	 * Get the instance.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The instance.
+	 */
+	public static synchronized NacPreparedWakeup getInstance(Context context)
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacPreparedWakeup(context);
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * Check if what was prepared can be used for an alarm.
+	 *
+	 * Only the media and whether text-to-speech is used matter, since nothing
+	 * else about the alarm was used to prepare it.
+	 */
+	private boolean isPreparedFor(NacAlarm alarm)
+	{
+		NacAlarm prepared = this.mAlarm;
+
+		return (prepared != null) && (alarm != null)
+			&& prepared.equalsId(alarm)
+			&& (prepared.getMediaType() == alarm.getMediaType())
+			&& prepared.getMediaPath().equals(alarm.getMediaPath())
+			&& (prepared.shouldUseTts() == alarm.shouldUseTts());
+	}
+
+	/**
+	 * Set up the media player and text-to-speech engine for an alarm.
+	 *
+	 * @param  alarm  Alarm that will run soon.
+	 * @param  millis  Time at which the alarm will run.
+	 */
+	public void prepare(NacAlarm alarm, long millis)
+	{
+		Context context = this.mContext;
+
+		this.release();
+
+		if (alarm == null)
+		{
+			return;
+		}
+
+		this.mAlarm = alarm;
+
+		// Load and buffer the media
+		if (alarm.hasMedia())
+		{
+			NacSharedPreferences shared = new NacSharedPreferences(context);
+			NacMediaPlayer player = new NacMediaPlayer(context);
+
+			if (NacMedia.isDirectory(alarm.getMediaType()))
+			{
+				player.getMediaPlayer().setShuffleModeEnabled(shared.getShuffle());
+			}
+
+			player.prepareAlarm(alarm);
+			this.mPlayer = player;
+		}
+
+		// Start the text-to-speech engine
+		if (alarm.shouldUseTts())
+		{
+			this.mSpeech = new NacTextToSpeech(context, null);
+		}
+
+		// Release everything if the alarm does not run
+		long delay = Math.max(millis - System.currentTimeMillis(), 0)
+			+ KEEP_MILLIS;
+
+		this.mHandler.postDelayed(this::release, delay);
+	}
+
+	/**
+	 * Release what was prepared.
+	 */
+	public void release()
+	{
+		this.mHandler.removeCallbacksAndMessages(null);
+
+		if (this.mPlayer != null)
+		{
+			this.mPlayer.release();
+		}
+
+		if (this.mSpeech != null)
+		{
+			this.mSpeech.shutdown();
+		}
+
+		this.mAlarm = null;
+		this.mPlayer = null;
+		this.mSpeech = null;
+	}
+
+	/**
+	 * Release what was prepared for an alarm, if anything.
+	 *
+	 * This can be called from any thread.
+	 *
+	 * @param  id  Alarm ID.
+	 */
+	public void release(long id)
+	{
+		this.mHandler.post(() -> {
+
+			NacAlarm prepared = this.mAlarm;
+
+			if ((prepared != null) && (prepared.getId() == id))
+			{
+				this.release();
+			}
+
+		});
+	}
+
+	/**
+	 * Take the media player that was prepared for an alarm.
+	 *
+	 * @param  alarm  Alarm that is running.
+	 *
+	 * @return The media player, or null if none was prepared for the alarm.
+	 */
+	public NacMediaPlayer takeMediaPlayer(NacAlarm alarm)
+	{
+		NacMediaPlayer player = this.mPlayer;
+
+		if ((player == null) || !this.isPreparedFor(alarm))
+		{
+			return null;
+		}
+
+		this.mPlayer = null;
+		return player;
+	}
+
+	/**
+	 * Take the text-to-speech engine that was prepared for an alarm.
+	 *
+	 * @param  alarm  Alarm that is running.
+	 *
+	 * @return The text-to-speech engine, or null if none was prepared for the
+	 *     alarm.
+	 */
+	public NacTextToSpeech takeTextToSpeech(NacAlarm alarm)
+	{
+		NacTextToSpeech speech = this.mSpeech;
+
+		if ((speech == null) || !this.isPreparedFor(alarm))
+		{
+			return null;
+		}
+
+		this.mSpeech = null;
+		return speech;
+	}
+
+}
@@ -13,6 +13,7 @@ import com.google.android.exoplayer2.Player;
 
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.media.NacAudioAttributes;
+import com.nfcalarmclock.media.NacGainRamp;
 import com.nfcalarmclock.media.NacMedia;
 import com.nfcalarmclock.media.NacMediaPlayer;
 import com.nfcalarmclock.shared.NacSharedConstants;
@@ -25,6 +26,7 @@ import com.nfcalarmclock.tts.NacTextToSpeech;
 @SuppressWarnings({"RedundantSuppression", "UnnecessaryInterfaceModifier"})
 public class NacWakeupProcess
 	implements NacTextToSpeech.OnSpeakingListener,
+		NacGainRamp.OnGainChangedListener,
 		Player.Listener
 {
 
@@ -76,14 +78,14 @@ public class NacWakeupProcess
 	/**
 	 * Gradually increase the volume.
 	 */
-	private final Handler mGraduallyIncreaseVolumeHandler;
+	private final NacGainRamp mGainRamp;
 
 	/**
 	 * Volume level to restrict any volume changes to.
 	 *
-	 * This is not just the alarm volume, since if the user wants to gradually
-	 * increase the volume, the restricted volume in that case should be lower
-	 * than the alarm volume.
+	 * This is the alarm volume, even when the volume is gradually increased,
+	 * since that is done with the gain of the player and not the stream
+	 * volume.
 	 */
 	private int mVolumeToRestrictChangeTo;
 
@@ -104,7 +106,7 @@ public class NacWakeupProcess
 		this.mSharedPreferences = new NacSharedPreferences(context);
 		this.mVibrateHandler = new Handler(looper);
 		this.mSpeakHandler = new Handler(looper);
-		this.mGraduallyIncreaseVolumeHandler = new Handler(looper);
+		this.mGainRamp = new NacGainRamp(looper);
 		this.mIgnoreNextVolumeChange = false;
 		this.mVolumeToRestrictChangeTo = -1;
 
@@ -128,13 +130,8 @@ public class NacWakeupProcess
 	 */
 	private void cleanupGraduallyIncreaseVolume()
 	{
-		Handler handler = this.getGraduallyIncreaseVolumeHandler();
-
 		// Stop the volume from gradually increasing
-		if (handler != null)
-		{
-			handler.removeCallbacksAndMessages(null);
-		}
+		this.getGainRamp().stop();
 	}
 
 	/**
@@ -234,11 +231,11 @@ public class NacWakeupProcess
 	}
 
 	/**
-	 * @return The handler to gradually increase the volume.
+	 * @return The ramp to gradually increase the volume.
 	 */
-	private Handler getGraduallyIncreaseVolumeHandler()
+	private NacGainRamp getGainRamp()
 	{
-		return this.mGraduallyIncreaseVolumeHandler;
+		return this.mGainRamp;
 	}
 
 	/**
@@ -309,35 +306,6 @@ public class NacWakeupProcess
 		return this.mVolumeToRestrictChangeTo;
 	}
 
-	/**
-	 * Gradually increase the volume.
-	 */
-	private void graduallyIncreaseVolume()
-	{
-		Context context = this.getContext();
-		NacAlarm alarm = this.getAlarm();
-		NacAudioAttributes attrs = this.getAudioAttributes();
-
-		int currentVolume = attrs.getStreamVolume();
-		int alarmVolume = attrs.toStreamVolume();
-		int newVolume = currentVolume + 1;
-
-		// Do not change the volume. It is already at the alarm volume or greater
-		if (currentVolume >= alarmVolume)
-		{
-			return;
-		}
-
-		// Gradually increase the volume by one step
-		this.setIgnoreNextVolumeChange(true);
-		this.setVolumeToRestrictChangeTo(newVolume);
-		attrs.setStreamVolume(newVolume);
-
-		// Wait for a period of time before increasing the volume again
-		Handler handler = this.getGraduallyIncreaseVolumeHandler();
-		handler.postDelayed(this::graduallyIncreaseVolume, 5000);
-	}
-
 	/**
 	 * Called when the device volume is changed.
 	 */
@@ -376,6 +344,28 @@ public class NacWakeupProcess
 		handler.post(this::start);
 	}
 
+	/**
+	 * Called when the gain of the volume ramp changes.
+	 */
+	@Override
+	public void onGainChanged(float gain)
+	{
+		NacMediaPlayer player = this.getMediaPlayer();
+		NacAudioAttributes attrs = this.getAudioAttributes();
+
+		// Text-to-speech picks up the gain the next time it speaks
+		if (attrs != null)
+		{
+			attrs.setGain(gain);
+		}
+
+		// Change the gain of the music
+		if (player != null)
+		{
+			player.getMediaPlayer().setVolume(gain);
+		}
+	}
+
 	/**
 	 * Called when the text-to-speech engine has started.
 	 */
@@ -508,20 +498,24 @@ public class NacWakeupProcess
 
 	/**
 	 * Setup gradually increasing the volume.
+	 *
+	 * The stream is set to the alarm volume, and the gain of the player is
+	 * ramped up from 0, so that the stream volume does not have to be changed
+	 * while the volume increases.
 	 */
 	private void setupGraduallyIncreaseVolume()
 	{
-		Handler handler = this.getGraduallyIncreaseVolumeHandler();
-		NacAudioAttributes attrs = this.getAudioAttributes();
-		long freq = 5000;
+		NacSharedPreferences shared = this.getSharedPreferences();
+		NacGainRamp ramp = this.getGainRamp();
+		int curve = shared.getGraduallyIncreaseVolumeCurve();
+		long duration = shared.getGraduallyIncreaseVolumeSeconds() * 1000L;
 
-		// Set the volume to 0 to start with
-		this.setIgnoreNextVolumeChange(true);
-		this.setVolumeToRestrictChangeTo(0);
-		attrs.setStreamVolume(0);
+		// Set the alarm volume
+		this.setVolume();
 
-		// Periodically increase the volume
-		handler.postDelayed(this::graduallyIncreaseVolume, freq);
+		// Ramp up the gain, starting from 0
+		ramp.setOnGainChangedListener(this);
+		ramp.start(curve, duration);
 	}
 
 	/**
@@ -539,8 +533,15 @@ public class NacWakeupProcess
 			return;
 		}
 
-		// Create the media player
-		NacMediaPlayer player = new NacMediaPlayer(context);
+		// Use the media player that was prepared for the alarm, if any, or
+		// create the media player
+		NacMediaPlayer player = NacPreparedWakeup.getInstance(context)
+			.takeMediaPlayer(alarm);
+
+		if (player == null)
+		{
+			player = new NacMediaPlayer(context);
+		}
 
 		// Set the listener for any changes. Only the volume change method is
 		// handled
@@ -565,8 +566,21 @@ public class NacWakeupProcess
 			return;
 		}
 
-		// Create the TTS engine
-		this.mSpeech = new NacTextToSpeech(context, this);
+		// Use the TTS engine that was prepared for the alarm, if any, or create
+		// the TTS engine
+		NacTextToSpeech speech = NacPreparedWakeup.getInstance(context)
+			.takeTextToSpeech(alarm);
+
+		if (speech != null)
+		{
+			speech.setOnSpeakingListener(this);
+		}
+		else
+		{
+			speech = new NacTextToSpeech(context, this);
+		}
+
+		this.mSpeech = speech;
 	}
 
 	/**
@@ -662,6 +676,9 @@ public class NacWakeupProcess
 		this.setupTextToSpeech();
 		this.setupVibrator();
 
+		// Release anything that was prepared for another alarm
+		NacPreparedWakeup.getInstance(this.getContext()).release();
+
 		// Set the volume (if going to use text-to-speech or play music)
 		// TODO: Make this into a method?
 		if (alarm.shouldUseTts() || alarm.hasMedia())
@@ -11,6 +11,7 @@ import com.nfcalarmclock.media.NacMedia;
 import com.nfcalarmclock.util.NacUtility;
 import com.nfcalarmclock.shared.NacSharedPreferences;
 import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 
 import java.lang.Comparable;
 import java.util.Calendar;
@@ -23,6 +24,7 @@ import java.util.Locale;
 @Entity(tableName="alarm")
 public class NacAlarm
 	implements Comparable<NacAlarm>,
+		NacAlarmTime,
 		Parcelable
 {
 
@@ -38,7 +40,7 @@ public class NacAlarm
 	/**
 	 * Flag indicating whether the alarm is currently active or not.
 	 */
-	@ColumnInfo(name="is_active")
+	@ColumnInfo(name="is_active", index=true)
 	private boolean mIsActive;
 
 	/**
@@ -58,7 +60,7 @@ public class NacAlarm
 	/**
 	 * Flag indicating whether the alarm is enabled or not.
 	 */
-	@ColumnInfo(name="is_enabled")
+	@ColumnInfo(name="is_enabled", index=true)
 	private boolean mIsEnabled;
 
 	/**
@@ -633,10 +635,11 @@ public class NacAlarm
 	 */
 	public int compareDay(NacAlarm alarm)
 	{
-		Calendar cal = NacCalendar.getNextAlarmDay(this);
-		Calendar otherCal = NacCalendar.getNextAlarmDay(alarm);
+		long now = System.currentTimeMillis();
+		long millis = NacCalendar.Trigger.getNext(this, now);
+		long otherMillis = NacCalendar.Trigger.getNext(alarm, now);
 
-		return cal.compareTo(otherCal);
+		return Long.compare(millis, otherMillis);
 	}
 
 	/**
@@ -875,7 +878,7 @@ public class NacAlarm
 	{
 		int hour = this.getHour();
 		int minute = this.getMinute();
-		return NacCalendar.Time.getClockTime(context, hour, minute);
+		return NacCalendarFormat.Time.getClockTime(context, hour, minute);
 	}
 
 	/**
@@ -892,7 +895,7 @@ public class NacAlarm
 	public String getFullTime(Context context)
 	{
 		Calendar next = NacCalendar.getNextAlarmDay(this);
-		return NacCalendar.Time.getFullTime(context, next);
+		return NacCalendarFormat.Time.getFullTime(context, next);
 	}
 
 	/**
@@ -943,7 +946,7 @@ public class NacAlarm
 	public String getMeridian(Context context)
 	{
 		int hour = this.getHour();
-		return NacCalendar.Time.getMeridian(context, hour);
+		return NacCalendarFormat.Time.getMeridian(context, hour);
 	}
 
 	/**
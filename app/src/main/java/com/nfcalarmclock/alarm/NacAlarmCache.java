@@ -0,0 +1,336 @@
+package com.nfcalarmclock.alarm;
+
+import android.content.Context;
+import android.util.LongSparseArray;
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.db.NacDatabaseExecutor;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory cache of all alarms, keyed by alarm ID.
+ *
+ * The cache is reloaded in the background whenever the alarm table changes.
+ * While it is being reloaded, reads return null, and the caller should go to
+ * the database instead.
+ *
+ * Alarms returned by the cache are copies, so they can be changed without
+ * affecting the cache.
+ */
+public class NacAlarmCache
+{
+
+	/**
+	 * Singleton instance of the cache.
+	 */
+	private static volatile NacAlarmCache sInstance;
+
+	/**
+	 * Lock object for the single instance.
+	 */
+	private static final Object LOCK = new Object();
+
+	/**
+	 * Data access object for an alarm.
+	 */
+	private final NacAlarmDao mAlarmDao;
+
+	/**
+	 * Alarms keyed by ID, or null if the cache is not warm.
+	 *
+	 * This is never modified once it is set, so it can be read from any thread.
+	 */
+	private volatile LongSparseArray<NacAlarm> mAlarms;
+
+	/**
+	 * Number of times the cache has been invalidated.
+	 *
+	 * A load that was queued before the most recent invalidation is thrown
+	 * away.
+	 */
+	private long mGeneration;
+
+	/**
+	 * Generation of the load that is queued, or -1 if no load is queued.
+	 */
+	private long mLoadingGeneration;
+
+	/**
+	 * Observer that invalidates the cache when the alarm table changes.
+	 */
+	private final InvalidationTracker.Observer mObserver =
+		new InvalidationTracker.Observer("alarm")
+	{
+
+		/**
+		 */
+		@Override
+		public void onInvalidated(@NonNull Set<String> tables)
+		{
+			invalidate();
+		}
+
+	};
+
+	/**
+	 */
+	private NacAlarmCache(Context context)
+	{
+		NacAlarmDatabase db = NacAlarmDatabase.getInstance(context);
+
+		this.mAlarmDao = db.alarmDao();
+		this.mAlarms = null;
+		this.mGeneration = 0;
+		this.mLoadingGeneration = -1;
+
+		db.getInvalidationTracker().addObserver(this.mObserver);
+	}
+
+	/**
+	 * Create a copy of an alarm, including the ID and active state.
+	 *
+	 * @param  alarm  Alarm to copy.
+	 *
+	 * @return A copy of the alarm.
+	 */
+	public static NacAlarm copy(NacAlarm alarm)
+	{
+		NacAlarm copy = alarm.copy();
+
+		copy.setId(alarm.getId());
+		copy.setIsActive(alarm.isActive());
+		copy.setTimeActive(alarm.getTimeActive());
+		copy.setSnoozeCount(alarm.getSnoozeCount());
+		copy.setSnoozeHour(alarm.getSnoozeHour());
+		copy.setSnoozeMinute(alarm.getSnoozeMinute());
+		copy.setDays(EnumSet.copyOf(alarm.getDays()));
+
+		return copy;
+	}
+
+	/**
+	 * Find an alarm in the cache.
+	 *
+	 * @param  id  The ID of the alarm to find.
+	 *
+	 * @return A copy of the alarm, or null if the alarm was not found or the
+	 *     cache is not warm.
+	 */
+	public NacAlarm findAlarm(long id)
+	{
+		LongSparseArray<NacAlarm> alarms = this.mAlarms;
+
+		if (alarms == null)
+		{
+			return null;
+		}
+
+		NacAlarm alarm = alarms.get(id);
+
+		return (alarm != null) ? NacAlarmCache.copy(alarm) : null;
+	}
+
+	/**
+	 * Get all active alarms in the cache.
+	 *
+	 * @return A copy of all active alarms, or null if the cache is not warm.
+	 */
+	public List<NacAlarm> getActiveAlarms()
+	{
+		LongSparseArray<NacAlarm> alarms = this.mAlarms;
+
+		if (alarms == null)
+		{
+			return null;
+		}
+
+		List<NacAlarm> activeAlarms = new ArrayList<>();
+
+		for (int i=0; i < alarms.size(); i++)
+		{
+			NacAlarm a = alarms.valueAt(i);
+
+			if (a.isActive())
+			{
+				activeAlarms.add(NacAlarmCache.copy(a));
+			}
+		}
+
+		return activeAlarms;
+	}
+
+	/**
+	 * Get all alarms in the cache.
+	 *
+	 * @return A copy of all alarms, or null if the cache is not warm.
+	 */
+	public List<NacAlarm> getAllAlarms()
+	{
+		LongSparseArray<NacAlarm> alarms = this.mAlarms;
+
+		if (alarms == null)
+		{
+			return null;
+		}
+
+		int size = alarms.size();
+		List<NacAlarm> allAlarms = new ArrayList<>(size);
+
+		for (int i=0; i < size; i++)
+		{
+			allAlarms.add(NacAlarmCache.copy(alarms.valueAt(i)));
+		}
+
+		return allAlarms;
+	}
+
+	/**
+	 * Get the cache instance.
+	 *
+	 * This will start loading the cache, if it has not been loaded yet.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The cache instance.
+	 */
+	public static NacAlarmCache getInstance(Context context)
+	{
+		if (sInstance == null)
+		{
+			synchronized (LOCK)
+			{
+				if (sInstance == null)
+				{
+					NacAlarmCache cache = new NacAlarmCache(context);
+
+					cache.warm();
+					sInstance = cache;
+				}
+			}
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * Invalidate the cache, and reload it in the background.
+	 */
+	public void invalidate()
+	{
+		synchronized (this)
+		{
+			this.mAlarms = null;
+			this.mGeneration++;
+		}
+
+		this.warm();
+	}
+
+	/**
+	 * @return True if the cache is loaded, and False otherwise.
+	 */
+	public boolean isWarm()
+	{
+		return this.mAlarms != null;
+	}
+
+	/**
+	 * Load all alarms from the database.
+	 *
+	 * @param  generation  Generation of the cache when the load was queued.
+	 */
+	private void load(long generation)
+	{
+		LongSparseArray<NacAlarm> alarms;
+
+		try
+		{
+			List<NacAlarm> list = this.mAlarmDao.getAllAlarmsNow();
+			alarms = new LongSparseArray<>(list.size());
+
+			for (NacAlarm a : list)
+			{
+				alarms.put(a.getId(), a);
+			}
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				if (this.mLoadingGeneration == generation)
+				{
+					this.mLoadingGeneration = -1;
+				}
+			}
+		}
+
+		synchronized (this)
+		{
+			// The alarm table changed since the load was queued, so another load
+			// is queued
+			if (generation != this.mGeneration)
+			{
+				return;
+			}
+
+			this.mAlarms = alarms;
+		}
+	}
+
+	/**
+	 * Load the cache in the background, if it is not already loaded or being
+	 * loaded.
+	 */
+	public void warm()
+	{
+		long generation;
+
+		synchronized (this)
+		{
+			generation = this.mGeneration;
+
+			if ((this.mAlarms != null) || (this.mLoadingGeneration == generation))
+			{
+				return;
+			}
+
+			this.mLoadingGeneration = generation;
+		}
+
+		// Reads wait for the writes that were submitted before them, so this
+		// load sees every write that caused an invalidation
+		NacAlarmDatabase.getReadExecutor().submit(() -> {
+			this.load(generation);
+			return null;
+		}, NacDatabaseExecutor.PRIORITY_ALARM);
+	}
+
+	/**
+	 * Load the cache on the calling thread, if it is not already loaded.
+	 *
+	 * This blocks, and so should not be called from the main thread.
+	 */
+	public void warmNow()
+	{
+		long generation;
+
+		synchronized (this)
+		{
+			if (this.isWarm())
+			{
+				return;
+			}
+
+			generation = this.mGeneration;
+		}
+
+		this.load(generation);
+	}
+
+}
@@ -34,6 +34,16 @@ public interface NacAlarmDao
 	@Query("DELETE FROM alarm")
 	int deleteAll();
 
+	/**
+	 * Delete all alarms with the given IDs, in a single transaction.
+	 *
+	 * @param  ids  The IDs of the alarms to delete.
+	 *
+	 * @return The number of rows deleted.
+	 */
+	@Query("DELETE FROM alarm WHERE id IN (:ids)")
+	int deleteByIds(long[] ids);
+
 	/**
 	 * Find an alarm.
 	 *
@@ -44,6 +54,16 @@ public interface NacAlarmDao
 	@Query("SELECT * FROM alarm WHERE id=:id")
 	NacAlarm findAlarm(long id);
 
+	/**
+	 * Find all alarms with the given IDs.
+	 *
+	 * @param  ids  The IDs of the alarms to find.
+	 *
+	 * @return The alarms with the IDs.
+	 */
+	@Query("SELECT * FROM alarm WHERE id IN (:ids)")
+	List<NacAlarm> findAlarms(long[] ids);
+
 	/**
 	 * Get an active alarm.
 	 *
@@ -88,6 +108,18 @@ public interface NacAlarmDao
 	@Query("SELECT * FROM alarm")
 	List<NacAlarm> getAllAlarmsNow();
 
+	/**
+	 * Get the schedule of all alarms.
+	 *
+	 * This only selects the columns needed to schedule an alarm, and will wait
+	 * until all alarms are selected.
+	 *
+	 * @return The schedule of all alarms.
+	 */
+	@Query("SELECT id, is_active, is_enabled, hour, minute, snooze_hour, "
+		+ "snooze_minute, snooze_count, days, should_repeat FROM alarm")
+	List<NacAlarmSchedule> getAllSchedulesNow();
+
 	/**
 	 * Insert an alarm.
 	 *
@@ -98,6 +130,16 @@ public interface NacAlarmDao
 	@Insert()
 	long insert(NacAlarm alarm);
 
+	/**
+	 * Insert a list of alarms, in a single transaction.
+	 *
+	 * @param  alarms  The alarms to insert.
+	 *
+	 * @return The row IDs of the alarms that were inserted.
+	 */
+	@Insert()
+	List<Long> insertAll(List<NacAlarm> alarms);
+
 	/**
 	 * Update an existing alarm
 	 *
@@ -108,4 +150,14 @@ public interface NacAlarmDao
 	@Update
 	int update(NacAlarm alarm);
 
+	/**
+	 * Update a list of existing alarms, in a single transaction.
+	 *
+	 * @param  alarms  The alarms to update.
+	 *
+	 * @return The number of alarms updated.
+	 */
+	@Update
+	int updateAll(List<NacAlarm> alarms);
+
 }
@@ -5,9 +5,12 @@ import android.content.Context;
 import androidx.lifecycle.LiveData;
 
 import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.db.NacDatabaseExecutor;
 import com.nfcalarmclock.db.NacRepository;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,6 +25,16 @@ public class NacAlarmRepository
 	 */
 	private final NacAlarmDao mAlarmDao;
 
+	/**
+	 * Alarm database.
+	 */
+	private final NacAlarmDatabase mDatabase;
+
+	/**
+	 * In-memory cache of all alarms.
+	 */
+	private final NacAlarmCache mAlarmCache;
+
 	/**
 	 * Live data list of all alarms.
 	 */
@@ -35,6 +48,8 @@ public class NacAlarmRepository
 		NacAlarmDao dao = db.alarmDao();
 
 		this.mAlarmDao = dao;
+		this.mDatabase = db;
+		this.mAlarmCache = NacAlarmCache.getInstance(app);
 		this.mAllAlarms = dao.getAllAlarms();
 	}
 
@@ -46,7 +61,7 @@ public class NacAlarmRepository
 	}
 
 	/**
-	 * Copy an alarm, asynchronously, into the database.
+	 * Copy an alarm into the database, and wait for it to finish.
 	 *
 	 * TODO: Be sure to test this when swiping.
 	 *
@@ -68,7 +83,37 @@ public class NacAlarmRepository
 	}
 
 	/**
-	 * Delete an alarm, asynchronously, from the database.
+	 * Copy an alarm into the database, without blocking the calling thread.
+	 *
+	 * @param  copiedAlarm  Alarm that has been copied.
+	 * @param  listener  Called with the row ID of the inserted alarm, or null
+	 *     if it could not be inserted.
+	 */
+	public void copy(NacAlarm copiedAlarm, OnResultListener<Long> listener)
+	{
+		if (copiedAlarm == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		this.insert(copiedAlarm, id -> {
+
+			if (id != null)
+			{
+				copiedAlarm.setId(id);
+			}
+
+			if (listener != null)
+			{
+				listener.onResult(id);
+			}
+
+		});
+	}
+
+	/**
+	 * Delete an alarm from the database, and wait for it to finish.
 	 *
 	 * @return The number of rows deleted.
 	 */
@@ -84,6 +129,54 @@ public class NacAlarmRepository
 		return NacRepository.getIntegerFromFuture(future);
 	}
 
+	/**
+	 * Delete an alarm from the database, without blocking the calling thread.
+	 *
+	 * @param  alarm  Alarm to delete.
+	 * @param  listener  Called with the number of rows deleted, or null if the
+	 *     alarm could not be deleted.
+	 */
+	public void delete(NacAlarm alarm, OnResultListener<Integer> listener)
+	{
+		if (alarm == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<Integer> task = () -> dao.delete(alarm);
+
+		this.doWrite(task, listener);
+	}
+
+	/**
+	 * Delete all alarms with the given IDs from the database, in a single
+	 * transaction, without blocking the calling thread.
+	 *
+	 * @param  ids  The IDs of the alarms to delete.
+	 * @param  listener  Called with the number of rows deleted, or null if the
+	 *     alarms could not be deleted.
+	 */
+	public void delete(long[] ids, OnResultListener<Integer> listener)
+	{
+		if (ids == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+		else if (ids.length == 0)
+		{
+			NacRepository.postResult(listener, 0);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<Integer> task = () -> dao.deleteByIds(ids);
+
+		this.doWrite(task, listener);
+	}
+
 	/**
 	 * Delete an alarm, asynchronously, from the database.
 	 */
@@ -95,11 +188,16 @@ public class NacAlarmRepository
 		}
 
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(() -> dao.delete(alarm));
+		Callable<Integer> task = () -> dao.delete(alarm);
+
+		return this.doWrite(task);
 	}
 
 	/**
 	 * Find an alarm with the given ID.
+	 *
+	 * This is run ahead of other reads since it is needed when an alarm goes
+	 * off.
 	 */
 	public Future<?> doFindAlarm(long id)
 	{
@@ -109,7 +207,8 @@ public class NacAlarmRepository
 		}
 
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(() -> dao.findAlarm(id));
+		return NacAlarmDatabase.getReadExecutor().submit(() -> dao.findAlarm(id),
+			NacDatabaseExecutor.PRIORITY_ALARM);
 	}
 
 	/**
@@ -129,7 +228,8 @@ public class NacAlarmRepository
 	public Future<?> doGetActiveAlarmsNow()
 	{
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(dao::getActiveAlarmsNow);
+		return NacAlarmDatabase.getReadExecutor().submit(dao::getActiveAlarmsNow,
+			NacDatabaseExecutor.PRIORITY_ALARM);
 	}
 
 	/**
@@ -140,7 +240,7 @@ public class NacAlarmRepository
 	public Future<?> doGetAllAlarmsNow()
 	{
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(dao::getAllAlarmsNow);
+		return NacAlarmDatabase.getReadExecutor().submit(dao::getAllAlarmsNow);
 	}
 
 	/**
@@ -154,7 +254,9 @@ public class NacAlarmRepository
 		}
 
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(() -> dao.insert(alarm));
+		Callable<Long> task = () -> dao.insert(alarm);
+
+		return this.doWrite(task);
 	}
 
 	/**
@@ -168,7 +270,43 @@ public class NacAlarmRepository
 		}
 
 		NacAlarmDao dao = this.getAlarmDao();
-		return NacAlarmDatabase.getExecutor().submit(() -> dao.update(alarm));
+		Callable<Integer> task = () -> dao.update(alarm);
+
+		return this.doWrite(task);
+	}
+
+	/**
+	 * Submit a write to the alarm table.
+	 *
+	 * The cache is invalidated as soon as the write is submitted. Reads that
+	 * come after wait for the write, so they, and the cache once it is loaded
+	 * again, never see the alarm from before the write.
+	 *
+	 * @param  write  The write to the alarm table.
+	 *
+	 * @return A Future representing the pending result of the write.
+	 */
+	private <T> Future<T> doWrite(Callable<T> write)
+	{
+		Future<T> future = NacAlarmDatabase.getWriteExecutor().submit(write);
+
+		this.getAlarmCache().invalidate();
+		return future;
+	}
+
+	/**
+	 * Submit a write to the alarm table, without blocking the calling thread.
+	 *
+	 * @see #doWrite(Callable)
+	 *
+	 * @param  write  The write to the alarm table.
+	 * @param  listener  Called with the result of the write.
+	 */
+	private <T> void doWrite(Callable<T> write, OnResultListener<T> listener)
+	{
+		NacRepository.doAsync(NacAlarmDatabase.getWriteExecutor(), write,
+			NacDatabaseExecutor.PRIORITY_DEFAULT, listener);
+		this.getAlarmCache().invalidate();
 	}
 
 	/**
@@ -181,11 +319,46 @@ public class NacAlarmRepository
 			return null;
 		}
 
+		NacAlarm cachedAlarm = this.getAlarmCache().findAlarm(id);
+
+		if (cachedAlarm != null)
+		{
+			return cachedAlarm;
+		}
+
 		Future<?> future = this.doFindAlarm(id);
 
 		return NacRepository.getAlarmFromFuture(future);
 	}
 
+	/**
+	 * Find an alarm with the given ID, without blocking the calling thread.
+	 *
+	 * @param  id  The ID of the alarm to find.
+	 * @param  listener  Called with the alarm, or null if it was not found.
+	 */
+	public void findAlarm(long id, OnResultListener<NacAlarm> listener)
+	{
+		if (id < 0)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		NacAlarm cachedAlarm = this.getAlarmCache().findAlarm(id);
+
+		if (cachedAlarm != null)
+		{
+			NacRepository.postResult(listener, cachedAlarm);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			() -> dao.findAlarm(id), NacDatabaseExecutor.PRIORITY_ALARM,
+			listener);
+	}
+
 	/**
 	 * @see #findAlarm(long)
 	 */
@@ -195,6 +368,21 @@ public class NacAlarmRepository
 		return this.findAlarm(id);
 	}
 
+	/**
+	 * Find all alarms with the given IDs, without blocking the calling thread.
+	 *
+	 * @param  ids  The IDs of the alarms to find.
+	 * @param  listener  Called with the alarms that were found, or null if
+	 *     they could not be read.
+	 */
+	public void findAlarms(long[] ids, OnResultListener<List<NacAlarm>> listener)
+	{
+		NacAlarmDao dao = this.getAlarmDao();
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			() -> dao.findAlarms(ids), NacDatabaseExecutor.PRIORITY_ALARM,
+			listener);
+	}
+
 	/**
 	 * Get an active alarm.
 	 *
@@ -222,11 +410,55 @@ public class NacAlarmRepository
 	 */
 	public List<NacAlarm> getActiveAlarmsNow()
 	{
+		List<NacAlarm> cachedAlarms = this.getAlarmCache().getActiveAlarms();
+
+		if (cachedAlarms != null)
+		{
+			return cachedAlarms;
+		}
+
 		Future<?> future = this.doGetActiveAlarmsNow();
 
 		return NacRepository.getAlarmListFromFuture(future);
 	}
 
+	/**
+	 * Get the list of active alarms, without blocking the calling thread.
+	 *
+	 * @param  listener  Called with the list of active alarms.
+	 */
+	public void getActiveAlarmsNow(OnResultListener<List<NacAlarm>> listener)
+	{
+		List<NacAlarm> cachedAlarms = this.getAlarmCache().getActiveAlarms();
+
+		if (cachedAlarms != null)
+		{
+			NacRepository.postResult(listener, cachedAlarms);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			dao::getActiveAlarmsNow, NacDatabaseExecutor.PRIORITY_ALARM,
+			listener);
+	}
+
+	/**
+	 * @return The in-memory cache of all alarms.
+	 */
+	public NacAlarmCache getAlarmCache()
+	{
+		return this.mAlarmCache;
+	}
+
+	/**
+	 * @return The alarm database.
+	 */
+	public NacAlarmDatabase getDatabase()
+	{
+		return this.mDatabase;
+	}
+
 	/**
 	 * Get the data access object for the alarm.
 	 *
@@ -259,13 +491,58 @@ public class NacAlarmRepository
 	 */
 	public List<NacAlarm> getAllAlarmsNow()
 	{
+		List<NacAlarm> cachedAlarms = this.getAlarmCache().getAllAlarms();
+
+		if (cachedAlarms != null)
+		{
+			return cachedAlarms;
+		}
+
 		Future<?> future = this.doGetAllAlarmsNow();
 
 		return NacRepository.getAlarmListFromFuture(future);
 	}
 
 	/**
-	 * Insert an alarm, asynchronously, into the database.
+	 * Get all alarms in the database, without blocking the calling thread.
+	 *
+	 * @param  listener  Called with the list of all alarms.
+	 */
+	public void getAllAlarmsNow(OnResultListener<List<NacAlarm>> listener)
+	{
+		List<NacAlarm> cachedAlarms = this.getAlarmCache().getAllAlarms();
+
+		if (cachedAlarms != null)
+		{
+			NacRepository.postResult(listener, cachedAlarms);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			dao::getAllAlarmsNow, NacDatabaseExecutor.PRIORITY_DEFAULT,
+			listener);
+	}
+
+	/**
+	 * Get the schedule of all alarms, without blocking the calling thread.
+	 *
+	 * This only reads the columns needed to schedule an alarm, so it is much
+	 * cheaper than reading the full alarms.
+	 *
+	 * @param  listener  Called with the schedule of all alarms, or null if it
+	 *     could not be read.
+	 */
+	public void getAllSchedulesNow(OnResultListener<List<NacAlarmSchedule>> listener)
+	{
+		NacAlarmDao dao = this.getAlarmDao();
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			dao::getAllSchedulesNow, NacDatabaseExecutor.PRIORITY_ALARM,
+			listener);
+	}
+
+	/**
+	 * Insert an alarm into the database, and wait for it to finish.
 	 *
 	 * @param  alarm  Alarm to insert.
 	 *
@@ -284,7 +561,74 @@ public class NacAlarmRepository
 	}
 
 	/**
-	 * Update an alarm, asynchronously, in the database.
+	 * Insert an alarm into the database, without blocking the calling thread.
+	 *
+	 * @param  alarm  Alarm to insert.
+	 * @param  listener  Called with the row ID of the inserted alarm, or null
+	 *     if it could not be inserted.
+	 */
+	public void insert(NacAlarm alarm, OnResultListener<Long> listener)
+	{
+		if (alarm == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<Long> task = () -> dao.insert(alarm);
+
+		this.doWrite(task, listener);
+	}
+
+	/**
+	 * Insert a list of alarms into the database, in a single transaction,
+	 * without blocking the calling thread.
+	 *
+	 * @param  alarms  Alarms to insert.
+	 * @param  listener  Called with the row IDs of the inserted alarms, or null
+	 *     if they could not be inserted.
+	 */
+	public void insert(List<NacAlarm> alarms, OnResultListener<List<Long>> listener)
+	{
+		if (alarms == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+		else if (alarms.isEmpty())
+		{
+			NacRepository.postResult(listener, new ArrayList<>());
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<List<Long>> task = () -> dao.insertAll(alarms);
+
+		this.doWrite(task, listener);
+	}
+
+	/**
+	 * Run multiple database calls in a single transaction, without blocking the
+	 * calling thread.
+	 *
+	 * Use this to group writes that would otherwise each be their own
+	 * transaction, such as restoring or enabling many alarms at once.
+	 *
+	 * @param  body  Database calls to run in the transaction.
+	 * @param  listener  Called with the result of the transaction, or null if
+	 *     it failed.
+	 */
+	public <T> void runInTransaction(Callable<T> body, OnResultListener<T> listener)
+	{
+		NacAlarmDatabase db = this.getDatabase();
+		Callable<T> task = () -> db.runInTransaction(body);
+
+		this.doWrite(task, listener);
+	}
+
+	/**
+	 * Update an alarm in the database, and wait for it to finish.
 	 *
 	 * @param  alarm  Alarm to update.
 	 *
@@ -302,4 +646,52 @@ public class NacAlarmRepository
 		return NacRepository.getIntegerFromFuture(future);
 	}
 
+	/**
+	 * Update an alarm in the database, without blocking the calling thread.
+	 *
+	 * @param  alarm  Alarm to update.
+	 * @param  listener  Called with the number of alarms updated, or null if
+	 *     the alarm could not be updated.
+	 */
+	public void update(NacAlarm alarm, OnResultListener<Integer> listener)
+	{
+		if (alarm == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<Integer> task = () -> dao.update(alarm);
+
+		this.doWrite(task, listener);
+	}
+
+	/**
+	 * Update a list of alarms in the database, in a single transaction, without
+	 * blocking the calling thread.
+	 *
+	 * @param  alarms  Alarms to update.
+	 * @param  listener  Called with the number of alarms updated, or null if
+	 *     the alarms could not be updated.
+	 */
+	public void update(List<NacAlarm> alarms, OnResultListener<Integer> listener)
+	{
+		if (alarms == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+		else if (alarms.isEmpty())
+		{
+			NacRepository.postResult(listener, 0);
+			return;
+		}
+
+		NacAlarmDao dao = this.getAlarmDao();
+		Callable<Integer> task = () -> dao.updateAll(alarms);
+
+		this.doWrite(task, listener);
+	}
+
 }
@@ -0,0 +1,261 @@
+package com.nfcalarmclock.alarm;
+
+import androidx.room.ColumnInfo;
+
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.EnumSet;
+
+/**
+ * Only the columns of an alarm that are needed to schedule it.
+ *
+ * This is much smaller than a full alarm, which also has the media, name,
+ * NFC tag, and text-to-speech columns.
+ */
+public class NacAlarmSchedule
+	implements NacAlarmTime
+{
+
+	/**
+	 * Unique alarm ID.
+	 */
+	@ColumnInfo(name="id")
+	private long mId;
+
+	/**
+	 * Flag indicating whether the alarm is currently active or not.
+	 */
+	@ColumnInfo(name="is_active")
+	private boolean mIsActive;
+
+	/**
+	 * Number of times the alarm has been snoozed.
+	 */
+	@ColumnInfo(name="snooze_count")
+	private int mSnoozeCount;
+
+	/**
+	 * Flag indicating whether the alarm is enabled or not.
+	 */
+	@ColumnInfo(name="is_enabled")
+	private boolean mIsEnabled;
+
+	/**
+	 * Hour at which to run the alarm.
+	 */
+	@ColumnInfo(name="hour")
+	private int mHour;
+
+	/**
+	 * Minute at which to run the alarm.
+	 */
+	@ColumnInfo(name="minute")
+	private int mMinute;
+
+	/**
+	 * Hour at which to run the alarm, when it is snoozed.
+	 */
+	@ColumnInfo(name="snooze_hour")
+	private int mSnoozeHour;
+
+	/**
+	 * Minute at which to run the alarm, when it is snoozed
+	 */
+	@ColumnInfo(name="snooze_minute")
+	private int mSnoozeMinute;
+
+	/**
+	 * Days on which to run the alarm.
+	 */
+	@ColumnInfo(name="days")
+	private EnumSet<NacCalendar.Day> mDays;
+
+	/**
+	 * Flag indicating whether the alarm should be repeated or not.
+	 */
+	@ColumnInfo(name="should_repeat")
+	private boolean mRepeat;
+
+	/**
+	 * @return True if any days are selected, and False otherwise.
+	 */
+	@Override
+	public boolean areDaysSelected()
+	{
+		return !this.getDays().isEmpty();
+	}
+
+	/**
+	 * @return The days on which to run the alarm.
+	 */
+	@Override
+	public EnumSet<NacCalendar.Day> getDays()
+	{
+		return this.mDays;
+	}
+
+	/**
+	 * @return The hour at which to run the alarm.
+	 */
+	@Override
+	public int getHour()
+	{
+		return this.mHour;
+	}
+
+	/**
+	 * @return The alarm ID.
+	 */
+	@Override
+	public long getId()
+	{
+		return this.mId;
+	}
+
+	/**
+	 * @return The minute at which to run the alarm.
+	 */
+	@Override
+	public int getMinute()
+	{
+		return this.mMinute;
+	}
+
+	/**
+	 * @return Whether the alarm should be repeated or not.
+	 */
+	public boolean getRepeat()
+	{
+		return this.mRepeat;
+	}
+
+	/**
+	 * @return The number of times the alarm has been snoozed.
+	 */
+	public int getSnoozeCount()
+	{
+		return this.mSnoozeCount;
+	}
+
+	/**
+	 * @return The snooze hour.
+	 */
+	public int getSnoozeHour()
+	{
+		return this.mSnoozeHour;
+	}
+
+	/**
+	 * @return The snooze minute.
+	 */
+	public int getSnoozeMinute()
+	{
+		return this.mSnoozeMinute;
+	}
+
+	/**
+	 * @return True if the alarm is active, and False otherwise.
+	 */
+	public boolean isActive()
+	{
+		return this.mIsActive;
+	}
+
+	/**
+	 * @return True if the alarm is enabled, and False otherwise.
+	 */
+	@Override
+	public boolean isEnabled()
+	{
+		return this.mIsEnabled;
+	}
+
+	/**
+	 * @return True if the alarm is snoozed, and False otherwise.
+	 */
+	public boolean isSnoozed()
+	{
+		return this.getSnoozeCount() > 0;
+	}
+
+	/**
+	 * Set the days on which to run the alarm.
+	 */
+	public void setDays(EnumSet<NacCalendar.Day> days)
+	{
+		this.mDays = days;
+	}
+
+	/**
+	 * Set the hour at which to run the alarm.
+	 */
+	public void setHour(int hour)
+	{
+		this.mHour = hour;
+	}
+
+	/**
+	 * Set the alarm ID.
+	 */
+	public void setId(long id)
+	{
+		this.mId = id;
+	}
+
+	/**
+	 * Set whether the alarm is active or not.
+	 */
+	public void setIsActive(boolean active)
+	{
+		this.mIsActive = active;
+	}
+
+	/**
+	 * Set whether the alarm is enabled or not.
+	 */
+	public void setIsEnabled(boolean enabled)
+	{
+		this.mIsEnabled = enabled;
+	}
+
+	/**
+	 * Set the minute at which to run the alarm.
+	 */
+	public void setMinute(int minute)
+	{
+		this.mMinute = minute;
+	}
+
+	/**
+	 * Set whether the alarm should be repeated or not.
+	 */
+	public void setRepeat(boolean repeat)
+	{
+		this.mRepeat = repeat;
+	}
+
+	/**
+	 * Set the number of times the alarm has been snoozed.
+	 */
+	public void setSnoozeCount(int count)
+	{
+		this.mSnoozeCount = count;
+	}
+
+	/**
+	 * Set the snooze hour.
+	 */
+	public void setSnoozeHour(int hour)
+	{
+		this.mSnoozeHour = hour;
+	}
+
+	/**
+	 * Set the snooze minute.
+	 */
+	public void setSnoozeMinute(int minute)
+	{
+		this.mSnoozeMinute = minute;
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.nfcalarmclock.alarm;
+
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.EnumSet;
+
+/**
+ * The parts of an alarm that are needed to figure out when it will run next.
+ */
+public interface NacAlarmTime
+{
+
+	/**
+	 * @return True if any days are selected, and False otherwise.
+	 */
+	public boolean areDaysSelected();
+
+	/**
+	 * @return The days on which to run the alarm.
+	 */
+	public EnumSet<NacCalendar.Day> getDays();
+
+	/**
+	 * @return The hour at which to run the alarm.
+	 */
+	public int getHour();
+
+	/**
+	 * @return The alarm ID.
+	 */
+	public long getId();
+
+	/**
+	 * @return The minute at which to run the alarm.
+	 */
+	public int getMinute();
+
+	/**
+	 * @return True if the alarm is enabled, and False otherwise.
+	 */
+	public boolean isEnabled();
+
+}
@@ -0,0 +1,206 @@
+package com.nfcalarmclock.alarm;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer updates to alarms so that a burst of changes to the same alarm, such
+ * as tapping several day buttons in a row, is written to the database only
+ * once.
+ *
+ * Only the write is buffered. The caller should reschedule the alarm right
+ * away, so that the alarm runs at the right time even if it goes off before
+ * the buffer is flushed.
+ *
+ * This should only be used from the main thread.
+ */
+public class NacAlarmUpdateBuffer
+{
+
+	/**
+	 * Amount of time, in milliseconds, to wait for more updates before writing
+	 * the buffered alarms.
+	 */
+	public static final long FLUSH_DELAY = 750L;
+
+	/**
+	 * Singleton instance of the buffer.
+	 */
+	private static NacAlarmUpdateBuffer sInstance;
+
+	/**
+	 * Alarm repository.
+	 */
+	private final NacAlarmRepository mRepository;
+
+	/**
+	 * Alarms waiting to be written, keyed by alarm ID.
+	 */
+	private final LongSparseArray<NacAlarm> mPendingAlarms;
+
+	/**
+	 * Handler to flush the buffer after a delay.
+	 */
+	private final Handler mHandler;
+
+	/**
+	 * Flush the buffer.
+	 */
+	private final Runnable mFlushRunnable = this::flush;
+
+	/**
+	 */
+	private NacAlarmUpdateBuffer(Context context)
+	{
+		Context appContext = context.getApplicationContext();
+
+		this.mRepository = new NacAlarmRepository(appContext);
+		this.mPendingAlarms = new LongSparseArray<>();
+		this.mHandler = new Handler(Looper.getMainLooper());
+	}
+
+	/**
+	 * Add an alarm to the buffer.
+	 *
+	 * If the alarm is already in the buffer, it is replaced, and the delay
+	 * until the buffer is flushed is not restarted.
+	 *
+	 * @param  alarm  Alarm that was updated.
+	 */
+	public void add(NacAlarm alarm)
+	{
+		if (alarm == null)
+		{
+			return;
+		}
+
+		LongSparseArray<NacAlarm> pending = this.getPendingAlarms();
+		boolean wasEmpty = (pending.size() == 0);
+
+		pending.put(alarm.getId(), alarm);
+
+		if (wasEmpty)
+		{
+			this.getHandler().postDelayed(this.mFlushRunnable, FLUSH_DELAY);
+		}
+	}
+
+	/**
+	 * Replace any alarm in the list with its buffered version, if there is one.
+	 *
+	 * This way, the alarms read from the database do not undo changes that
+	 * have not been written yet.
+	 *
+	 * @param  alarms  List of alarms.
+	 */
+	public void apply(List<NacAlarm> alarms)
+	{
+		LongSparseArray<NacAlarm> pending = this.getPendingAlarms();
+
+		if ((alarms == null) || (pending.size() == 0))
+		{
+			return;
+		}
+
+		for (int i=0; i < alarms.size(); i++)
+		{
+			NacAlarm a = pending.get(alarms.get(i).getId());
+
+			if (a != null)
+			{
+				alarms.set(i, a);
+			}
+		}
+	}
+
+	/**
+	 * Write all buffered alarms to the database, in a single transaction.
+	 */
+	public void flush()
+	{
+		LongSparseArray<NacAlarm> pending = this.getPendingAlarms();
+		int size = pending.size();
+
+		this.getHandler().removeCallbacks(this.mFlushRunnable);
+
+		if (size == 0)
+		{
+			return;
+		}
+
+		List<NacAlarm> alarms = new ArrayList<>(size);
+
+		for (int i=0; i < size; i++)
+		{
+			alarms.add(pending.valueAt(i));
+		}
+
+		pending.clear();
+		this.getRepository().update(alarms, null);
+	}
+
+	/**
+	 * @return The handler to flush the buffer after a delay.
+	 */
+	private Handler getHandler()
+	{
+		return this.mHandler;
+	}
+
+	/**
+	 * Get the buffer instance.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The buffer instance.
+	 */
+	public static NacAlarmUpdateBuffer getInstance(Context context)
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacAlarmUpdateBuffer(context);
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * @return The alarms waiting to be written.
+	 */
+	private LongSparseArray<NacAlarm> getPendingAlarms()
+	{
+		return this.mPendingAlarms;
+	}
+
+	/**
+	 * @return The alarm repository.
+	 */
+	private NacAlarmRepository getRepository()
+	{
+		return this.mRepository;
+	}
+
+	/**
+	 * Remove an alarm from the buffer, without writing it.
+	 *
+	 * This should be called when an alarm is deleted, so that it does not get
+	 * written back.
+	 *
+	 * @param  alarm  Alarm to remove.
+	 */
+	public void remove(NacAlarm alarm)
+	{
+		if (alarm == null)
+		{
+			return;
+		}
+
+		this.getPendingAlarms().remove(alarm.getId());
+	}
+
+}
@@ -5,6 +5,7 @@ import android.content.Context;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 
+import com.nfcalarmclock.db.NacRepository;
 import com.nfcalarmclock.scheduler.NacScheduler;
 
 import java.util.List;
@@ -27,6 +28,16 @@ public class NacAlarmViewModel
 	 */
 	private LiveData<List<NacAlarm>> mAllAlarms;
 
+	/**
+	 * Index of alarms, ordered by when they will run next.
+	 */
+	private final NacNextAlarmIndex mNextAlarmIndex;
+
+	/**
+	 * Whether the index of alarms has been loaded or not.
+	 */
+	private boolean mIsNextAlarmIndexLoaded;
+
 	/**
 	 */
 	public NacAlarmViewModel(Application app)
@@ -37,6 +48,8 @@ public class NacAlarmViewModel
 
 		this.mAlarmRepository = repo;
 		this.mAllAlarms = repo.getAllAlarms();
+		this.mNextAlarmIndex = new NacNextAlarmIndex();
+		this.mIsNextAlarmIndexLoaded = false;
 	}
 
 	/**
@@ -55,15 +68,25 @@ public class NacAlarmViewModel
 	/**
 	 * Delete an alarm from the database, and cancel its scheduled run time.
 	 *
+	 * This does not wait for the alarm to be deleted.
+	 *
 	 * @param  context  Context.
 	 * @param  alarm  Alarm to delete.
-	 *
-	 * @return The number of rows deleted.
 	 */
-	public int delete(Context context, NacAlarm alarm)
+	public void delete(Context context, NacAlarm alarm)
 	{
+		this.getUpdateBuffer().remove(alarm);
+		this.getNextAlarmIndex().remove(alarm.getId());
 		NacScheduler.cancel(context, alarm);
-		return this.getRepository().delete(alarm);
+		this.getRepository().delete(alarm, null);
+	}
+
+	/**
+	 * Write any buffered alarm updates to the database.
+	 */
+	public void flushUpdates()
+	{
+		this.getUpdateBuffer().flush();
 	}
 
 	/**
@@ -86,6 +109,17 @@ public class NacAlarmViewModel
 		return this.getRepository().findAlarm(alarm);
 	}
 
+	/**
+	 * Find an alarm, without blocking the calling thread.
+	 *
+	 * @param  id  The ID of the alarm to find.
+	 * @param  listener  Called with the alarm that was found.
+	 */
+	public void findAlarm(long id, NacRepository.OnResultListener<NacAlarm> listener)
+	{
+		this.getRepository().findAlarm(id, listener);
+	}
+
 	/**
 	 * Get an active alarm.
 	 *
@@ -116,6 +150,20 @@ public class NacAlarmViewModel
 		return this.mAllAlarms;
 	}
 
+	/**
+	 * Get the index of alarms, ordered by when they will run next.
+	 *
+	 * The index is kept up to date with the alarms that are inserted, updated,
+	 * and deleted through this view model. Alarms that change elsewhere must
+	 * be loaded again with loadNextAlarmIndex().
+	 *
+	 * @return The index of alarms.
+	 */
+	public NacNextAlarmIndex getNextAlarmIndex()
+	{
+		return this.mNextAlarmIndex;
+	}
+
 	/**
 	 * Get the database repository.
 	 *
@@ -126,6 +174,14 @@ public class NacAlarmViewModel
 		return this.mAlarmRepository;
 	}
 
+	/**
+	 * @return The buffer of alarm updates.
+	 */
+	public NacAlarmUpdateBuffer getUpdateBuffer()
+	{
+		return NacAlarmUpdateBuffer.getInstance(getApplication());
+	}
+
 	/**
 	 * Insert an alarm into the database, and schedule the alarm to run.
 	 *
@@ -152,29 +208,126 @@ public class NacAlarmViewModel
 				alarm.setId(rowId);
 			}
 
+			this.getNextAlarmIndex().update(alarm);
 			NacScheduler.update(context, alarm);
 		}
 
 		return rowId;
 	}
 
+	/**
+	 * Insert an alarm into the database, and schedule the alarm to run, without
+	 * blocking the calling thread.
+	 *
+	 * @param  context  Context.
+	 * @param  alarm  The alarm to insert.
+	 * @param  listener  Called with the row ID of the alarm that was inserted,
+	 *     or null if it could not be inserted.
+	 */
+	public void insert(Context context, NacAlarm alarm,
+		NacRepository.OnResultListener<Long> listener)
+	{
+		if (alarm == null)
+		{
+			NacRepository.postResult(listener, null);
+			return;
+		}
+
+		long alarmId = alarm.getId();
+
+		this.getRepository().insert(alarm, rowId -> {
+
+			// Alarm was inserted
+			if ((rowId != null) && (rowId > 0))
+			{
+				if (alarmId == 0)
+				{
+					alarm.setId(rowId);
+				}
+
+				this.getNextAlarmIndex().update(alarm);
+				NacScheduler.update(context, alarm);
+			}
+
+			if (listener != null)
+			{
+				listener.onResult(rowId);
+			}
+
+		});
+	}
+
+	/**
+	 * @return True if the index of alarms has been loaded, and False
+	 *     otherwise.
+	 */
+	public boolean isNextAlarmIndexLoaded()
+	{
+		return this.mIsNextAlarmIndexLoaded;
+	}
+
+	/**
+	 * Load the index of alarms with a list of all alarms.
+	 *
+	 * Only alarms that were added, changed, or removed since the index was last
+	 * loaded have their trigger time computed again.
+	 *
+	 * @param  alarms  List of all alarms.
+	 */
+	public void loadNextAlarmIndex(List<NacAlarm> alarms)
+	{
+		this.getNextAlarmIndex().apply(alarms);
+		this.mIsNextAlarmIndexLoaded = true;
+	}
+
 	/**
 	 * Update an alarm in the database, and schedule the alarm to run.
 	 *
+	 * This does not wait for the alarm to be updated.
+	 *
 	 * @param  context  Context.
 	 * @param  alarm  The alarm to update.
-	 *
-	 * @return The number of alarms updated.
 	 */
-	public int update(Context context, NacAlarm alarm)
+	public void update(Context context, NacAlarm alarm)
 	{
 		if (alarm == null)
 		{
-			return 0;
+			return;
 		}
 
+		this.getNextAlarmIndex().update(alarm);
 		NacScheduler.update(context, alarm);
-		return this.getRepository().update(alarm);
+		this.getRepository().update(alarm, null);
+	}
+
+	/**
+	 * Schedule the alarm to run, and update it in the database after a short
+	 * delay.
+	 *
+	 * Multiple updates to the same alarm within the delay are combined into a
+	 * single write.
+	 *
+	 * @param  alarm  The alarm to update.
+	 */
+	public void updateBuffered(NacAlarm alarm)
+	{
+		if (alarm == null)
+		{
+			return;
+		}
+
+		this.getNextAlarmIndex().update(alarm);
+		NacScheduler.update(getApplication(), alarm);
+		this.getUpdateBuffer().add(alarm);
+	}
+
+	/**
+	 */
+	@Override
+	protected void onCleared()
+	{
+		super.onCleared();
+		this.flushUpdates();
 	}
 
 }
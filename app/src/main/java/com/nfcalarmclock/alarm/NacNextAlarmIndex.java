@@ -0,0 +1,622 @@
+package com.nfcalarmclock.alarm;
+
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of enabled alarms, ordered by the next time each alarm will run.
+ *
+ * The alarms are kept in a binary heap, and each alarm can be found in the
+ * heap by its ID, so that adding, changing, or removing an alarm only takes
+ * O(log n), and only the trigger time of that alarm is computed again. The
+ * alarm that will run next is always at the top of the heap.
+ *
+ * If snoozes are used, an alarm that is snoozed runs at its snooze time,
+ * instead of its next scheduled time, until the snooze time has passed.
+ *
+ * Trigger times of all alarms are only computed again when the time zone or
+ * locale changes. An alarm at the top of the heap whose trigger time has
+ * already passed is moved to its next trigger time when the next alarm is
+ * asked for.
+ *
+ * This is not thread safe, so access from more than one thread must be
+ * synchronized.
+ */
+public class NacNextAlarmIndex
+{
+
+	/**
+	 * An alarm in the index.
+	 */
+	private static class Entry
+	{
+
+		/**
+		 * The alarm.
+		 */
+		NacAlarm alarm;
+
+		/**
+		 * Hour of the alarm when the trigger time was computed.
+		 */
+		int hour;
+
+		/**
+		 * Minute of the alarm when the trigger time was computed.
+		 */
+		int minute;
+
+		/**
+		 * Days of the alarm when the trigger time was computed.
+		 */
+		int days;
+
+		/**
+		 * Snooze hour of the alarm, or -1 if it is not snoozed.
+		 */
+		int snoozeHour;
+
+		/**
+		 * Snooze minute of the alarm, or -1 if it is not snoozed.
+		 */
+		int snoozeMinute;
+
+		/**
+		 * Whether the snooze time has already passed or not.
+		 */
+		boolean isSnoozeDone;
+
+		/**
+		 * Next time the alarm will run, in epoch milliseconds.
+		 */
+		long millis;
+
+		/**
+		 * Index of the entry in the heap.
+		 */
+		int index;
+
+		/**
+		 * Number of the last call to apply() that the alarm was in.
+		 */
+		int stamp;
+
+	}
+
+	/**
+	 * Longest time, in milliseconds, that a snooze time can be away.
+	 */
+	private static final long MAX_SNOOZE_MILLIS = 12L * 60L * 60L * 1000L;
+
+	/**
+	 * Entries keyed by alarm ID.
+	 */
+	private final Map<Long, Entry> mEntries;
+
+	/**
+	 * Heap of entries, with the soonest trigger time at the top.
+	 */
+	private final List<Entry> mHeap;
+
+	/**
+	 * Trigger generation that the trigger times were computed in.
+	 */
+	private int mGeneration;
+
+	/**
+	 * Number of calls to apply().
+	 */
+	private int mStamp;
+
+	/**
+	 * Whether a snoozed alarm runs at its snooze time or not.
+	 */
+	private final boolean mUseSnooze;
+
+	/**
+	 */
+	public NacNextAlarmIndex(boolean useSnooze)
+	{
+		this.mEntries = new HashMap<>();
+		this.mHeap = new ArrayList<>();
+		this.mGeneration = NacCalendar.Trigger.getGeneration();
+		this.mStamp = 0;
+		this.mUseSnooze = useSnooze;
+	}
+
+	/**
+	 */
+	public NacNextAlarmIndex()
+	{
+		this(false);
+	}
+
+	/**
+	 * Bring the index up to date with a list of all alarms.
+	 *
+	 * Only alarms that were added, changed, or removed since the last time the
+	 * index was updated have their trigger time computed again.
+	 *
+	 * @param  alarms  List of all alarms.
+	 */
+	public void apply(List<NacAlarm> alarms)
+	{
+		this.apply(alarms, System.currentTimeMillis());
+	}
+
+	/**
+	 * @see #apply(List)
+	 *
+	 * @param  alarms  List of all alarms.
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public void apply(List<NacAlarm> alarms, long now)
+	{
+		int stamp = ++this.mStamp;
+
+		for (NacAlarm a : alarms)
+		{
+			Entry entry = this.mEntries.get(a.getId());
+
+			if (a.isEnabled() && (entry != null) && this.isSame(entry, a))
+			{
+				entry.alarm = a;
+				entry.stamp = stamp;
+				continue;
+			}
+
+			this.update(a, -1, now);
+
+			if (a.isEnabled())
+			{
+				this.mEntries.get(a.getId()).stamp = stamp;
+			}
+		}
+
+		// Remove alarms that are no longer in the list
+		List<Long> removed = new ArrayList<>();
+
+		for (Entry e : this.mHeap)
+		{
+			if (e.stamp != stamp)
+			{
+				removed.add(e.alarm.getId());
+			}
+		}
+
+		for (long id : removed)
+		{
+			this.remove(id);
+		}
+	}
+
+	/**
+	 * Remove all alarms from the index.
+	 */
+	public void clear()
+	{
+		this.mEntries.clear();
+		this.mHeap.clear();
+	}
+
+	/**
+	 * Compute the next time an entry will run.
+	 */
+	private long computeMillis(Entry entry, long now)
+	{
+		if ((entry.snoozeHour >= 0) && !entry.isSnoozeDone)
+		{
+			long millis = NacCalendar.Trigger.getNext(entry.snoozeHour,
+				entry.snoozeMinute, 0, now);
+
+			// A snooze is always a short time away, so a snooze time that is
+			// far away is one that has already passed
+			if (millis - now <= MAX_SNOOZE_MILLIS)
+			{
+				return millis;
+			}
+
+			entry.isSnoozeDone = true;
+		}
+
+		return NacCalendar.Trigger.getNext(entry.hour, entry.minute, entry.days,
+			now);
+	}
+
+	/**
+	 * Get all alarms in the index, ordered by the next time each alarm will
+	 * run.
+	 *
+	 * @return All alarms in the index.
+	 */
+	public List<NacAlarm> getAlarms()
+	{
+		return this.getAlarms(System.currentTimeMillis());
+	}
+
+	/**
+	 * @see #getAlarms()
+	 *
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public List<NacAlarm> getAlarms(long now)
+	{
+		// Move alarms that already ran, so that every entry is in the future
+		this.getTop(now);
+
+		List<Entry> entries = new ArrayList<>(this.mHeap);
+		List<NacAlarm> alarms = new ArrayList<>(entries.size());
+
+		Collections.sort(entries, (a, b) -> Long.compare(a.millis, b.millis));
+
+		for (Entry e : entries)
+		{
+			alarms.add(e.alarm);
+		}
+
+		return alarms;
+	}
+
+	/**
+	 * Get the alarm that will run next.
+	 *
+	 * @return The alarm that will run next, or null if no alarms are enabled.
+	 */
+	public NacAlarm getNextAlarm()
+	{
+		Entry top = this.getTop(System.currentTimeMillis());
+
+		return (top != null) ? top.alarm : null;
+	}
+
+	/**
+	 * Get all the alarms that will run next, at the same time.
+	 *
+	 * @return The alarms that will run next, which is empty if no alarms are
+	 *     enabled.
+	 */
+	public List<NacAlarm> getNextAlarms()
+	{
+		return this.getNextAlarms(System.currentTimeMillis());
+	}
+
+	/**
+	 * @see #getNextAlarms()
+	 *
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public List<NacAlarm> getNextAlarms(long now)
+	{
+		List<NacAlarm> alarms = new ArrayList<>();
+		Entry top = this.getTop(now);
+
+		if (top != null)
+		{
+			this.getNextAlarms(0, top.millis, alarms);
+		}
+
+		return alarms;
+	}
+
+	/**
+	 * Add the alarms that run at a given time, in the part of the heap under an
+	 * index, to a list.
+	 */
+	private void getNextAlarms(int index, long millis, List<NacAlarm> alarms)
+	{
+		if ((index >= this.mHeap.size()) || (this.mHeap.get(index).millis != millis))
+		{
+			return;
+		}
+
+		alarms.add(this.mHeap.get(index).alarm);
+		this.getNextAlarms(2*index + 1, millis, alarms);
+		this.getNextAlarms(2*index + 2, millis, alarms);
+	}
+
+	/**
+	 * Get the time at which the next alarm will run.
+	 *
+	 * @return The time at which the next alarm will run, in epoch
+	 *     milliseconds, or -1 if no alarms are enabled.
+	 */
+	public long getNextMillis()
+	{
+		return this.getNextMillis(System.currentTimeMillis());
+	}
+
+	/**
+	 * @see #getNextMillis()
+	 *
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public long getNextMillis(long now)
+	{
+		Entry top = this.getTop(now);
+
+		return (top != null) ? top.millis : -1;
+	}
+
+	/**
+	 * @return The entry at the top of the heap, after moving alarms that
+	 *     already ran to their next trigger time, or null if the heap is empty.
+	 */
+	private Entry getTop(long now)
+	{
+		if (this.mHeap.isEmpty())
+		{
+			return null;
+		}
+
+		this.rebuildIfNeeded(now);
+
+		Entry top = this.mHeap.get(0);
+
+		while (top.millis < now)
+		{
+			// The snooze has passed, so go back to the usual schedule
+			top.isSnoozeDone = true;
+			top.millis = this.computeMillis(top, now);
+
+			this.siftDown(0);
+			top = this.mHeap.get(0);
+		}
+
+		return top;
+	}
+
+	/**
+	 * @return The snooze hour of an alarm, or -1 if it is not snoozed, or if
+	 *     snoozes are not used.
+	 */
+	private int getSnoozeHour(NacAlarm alarm)
+	{
+		return (this.mUseSnooze && alarm.isSnoozed())
+			? alarm.getSnoozeHour() : -1;
+	}
+
+	/**
+	 * @return The snooze minute of an alarm, or -1 if it is not snoozed, or
+	 *     if snoozes are not used.
+	 */
+	private int getSnoozeMinute(NacAlarm alarm)
+	{
+		return (this.mUseSnooze && alarm.isSnoozed())
+			? alarm.getSnoozeMinute() : -1;
+	}
+
+	/**
+	 * @return True if the entry has the same trigger time as the alarm, and
+	 *     False otherwise.
+	 */
+	private boolean isSame(Entry entry, NacAlarm alarm)
+	{
+		return (entry.hour == alarm.getHour())
+			&& (entry.minute == alarm.getMinute())
+			&& (entry.days == NacCalendar.Days.daysToValue(alarm.getDays()))
+			&& (entry.snoozeHour == this.getSnoozeHour(alarm))
+			&& (entry.snoozeMinute == this.getSnoozeMinute(alarm));
+	}
+
+	/**
+	 * Compute the trigger times of all alarms again, if the time zone or
+	 * locale has changed.
+	 */
+	private void rebuildIfNeeded(long now)
+	{
+		int generation = NacCalendar.Trigger.getGeneration();
+
+		if (generation == this.mGeneration)
+		{
+			return;
+		}
+
+		this.mGeneration = generation;
+
+		for (Entry e : this.mHeap)
+		{
+			// The clock moved past the snooze time
+			if (e.millis < now)
+			{
+				e.isSnoozeDone = true;
+			}
+
+			e.millis = this.computeMillis(e, now);
+		}
+
+		for (int i=this.mHeap.size()/2-1; i >= 0; i--)
+		{
+			this.siftDown(i);
+		}
+	}
+
+	/**
+	 * Remove an alarm from the index.
+	 *
+	 * @param  id  ID of the alarm to remove.
+	 */
+	public void remove(long id)
+	{
+		Entry entry = this.mEntries.get(id);
+
+		if (entry == null)
+		{
+			return;
+		}
+
+		int index = entry.index;
+		int last = this.mHeap.size() - 1;
+
+		this.mEntries.remove(id);
+		this.swap(index, last);
+		this.mHeap.remove(last);
+
+		if (index < last)
+		{
+			this.siftDown(index);
+			this.siftUp(index);
+		}
+	}
+
+	/**
+	 * Move an entry down the heap until it is in order.
+	 */
+	private void siftDown(int index)
+	{
+		int size = this.mHeap.size();
+
+		while (true)
+		{
+			int left = 2*index + 1;
+			int right = left + 1;
+			int smallest = index;
+
+			if ((left < size) && (this.mHeap.get(left).millis
+				< this.mHeap.get(smallest).millis))
+			{
+				smallest = left;
+			}
+
+			if ((right < size) && (this.mHeap.get(right).millis
+				< this.mHeap.get(smallest).millis))
+			{
+				smallest = right;
+			}
+
+			if (smallest == index)
+			{
+				return;
+			}
+
+			this.swap(index, smallest);
+			index = smallest;
+		}
+	}
+
+	/**
+	 * Move an entry up the heap until it is in order.
+	 */
+	private void siftUp(int index)
+	{
+		while (index > 0)
+		{
+			int parent = (index - 1) / 2;
+
+			if (this.mHeap.get(parent).millis <= this.mHeap.get(index).millis)
+			{
+				return;
+			}
+
+			this.swap(index, parent);
+			index = parent;
+		}
+	}
+
+	/**
+	 * @return The number of alarms in the index.
+	 */
+	public int size()
+	{
+		return this.mHeap.size();
+	}
+
+	/**
+	 * Swap two entries in the heap.
+	 */
+	private void swap(int i, int j)
+	{
+		Entry first = this.mHeap.get(i);
+		Entry second = this.mHeap.get(j);
+
+		this.mHeap.set(i, second);
+		this.mHeap.set(j, first);
+		first.index = j;
+		second.index = i;
+	}
+
+	/**
+	 * Add an alarm to the index, or change its trigger time if it is already
+	 * in the index.
+	 *
+	 * This should be called whenever an alarm is added, changed, dismissed, or
+	 * snoozed. A disabled alarm is removed from the index.
+	 *
+	 * @param  alarm  The alarm.
+	 */
+	public void update(NacAlarm alarm)
+	{
+		this.update(alarm, -1);
+	}
+
+	/**
+	 * Add an alarm to the index, or change its trigger time if it is already
+	 * in the index, with a given trigger time.
+	 *
+	 * @param  alarm  The alarm.
+	 * @param  millis  Time at which the alarm will run next, or -1 to compute
+	 *     it from the alarm.
+	 */
+	public void update(NacAlarm alarm, long millis)
+	{
+		this.update(alarm, millis, System.currentTimeMillis());
+	}
+
+	/**
+	 * @see #update(NacAlarm, long)
+	 *
+	 * @param  alarm  The alarm.
+	 * @param  millis  Time at which the alarm will run next, or -1 to compute
+	 *     it from the alarm.
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public void update(NacAlarm alarm, long millis, long now)
+	{
+		long id = alarm.getId();
+
+		if (!alarm.isEnabled())
+		{
+			this.remove(id);
+			return;
+		}
+
+		Entry entry = this.mEntries.get(id);
+
+		this.rebuildIfNeeded(now);
+
+		if (entry == null)
+		{
+			entry = new Entry();
+			entry.index = this.mHeap.size();
+
+			this.mEntries.put(id, entry);
+			this.mHeap.add(entry);
+		}
+
+		int snoozeHour = this.getSnoozeHour(alarm);
+		int snoozeMinute = this.getSnoozeMinute(alarm);
+
+		// A new snooze time has not passed yet
+		if ((snoozeHour != entry.snoozeHour) || (snoozeMinute != entry.snoozeMinute)
+			|| (millis >= 0))
+		{
+			entry.isSnoozeDone = false;
+		}
+
+		entry.alarm = alarm;
+		entry.hour = alarm.getHour();
+		entry.minute = alarm.getMinute();
+		entry.days = NacCalendar.Days.daysToValue(alarm.getDays());
+		entry.snoozeHour = snoozeHour;
+		entry.snoozeMinute = snoozeMinute;
+		entry.millis = (millis >= 0) ? millis : this.computeMillis(entry, now);
+
+		this.siftDown(entry.index);
+		this.siftUp(entry.index);
+	}
+
+}
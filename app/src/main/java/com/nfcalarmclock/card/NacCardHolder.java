@@ -29,6 +29,7 @@ import com.google.android.material.button.MaterialButton;
 import com.nfcalarmclock.activealarm.NacActiveAlarmService;
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.system.NacContext;
 import com.nfcalarmclock.dayofweek.NacDayButton;
 import com.nfcalarmclock.dayofweek.NacDayOfWeek;
@@ -2499,7 +2500,7 @@ public class NacCardHolder
 		TextView tv = this.getSummaryDaysView();
 
 		int start = shared.getStartWeekOn();
-		String string = NacCalendar.Days.toString(cons, alarm, start);
+		String string = NacCalendarFormat.Days.toString(cons, alarm, start);
 		String text = tv.getText().toString();
 
 		if (!text.equals(string))
@@ -2788,7 +2789,7 @@ public class NacCardHolder
 		NacAlarm alarm = this.getAlarm();
 		int hour = alarm.getHour();
 		int minute = alarm.getMinute();
-		boolean is24HourFormat = NacCalendar.Time.is24HourFormat(context);
+		boolean is24HourFormat = NacCalendarFormat.Time.is24HourFormat(context);
 
 		//FragmentManager fragmentManager = ((AppCompatActivity)context)
 		//	.getSupportFragmentManager();
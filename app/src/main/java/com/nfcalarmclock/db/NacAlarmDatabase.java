@@ -15,6 +15,8 @@ import com.nfcalarmclock.alarm.NacAlarmDao;
 import com.nfcalarmclock.alarm.NacAlarmTypeConverters;
 import com.nfcalarmclock.shared.NacSharedPreferences;
 import com.nfcalarmclock.statistics.NacAlarmCreatedStatistic;
+import com.nfcalarmclock.statistics.NacAlarmDailyStatistic;
+import com.nfcalarmclock.statistics.NacAlarmDailyStatisticDao;
 import com.nfcalarmclock.statistics.NacAlarmCreatedStatisticDao;
 import com.nfcalarmclock.statistics.NacAlarmDeletedStatistic;
 import com.nfcalarmclock.statistics.NacAlarmDeletedStatisticDao;
@@ -24,13 +26,13 @@ import com.nfcalarmclock.statistics.NacAlarmMissedStatistic;
 import com.nfcalarmclock.statistics.NacAlarmMissedStatisticDao;
 import com.nfcalarmclock.statistics.NacAlarmSnoozedStatistic;
 import com.nfcalarmclock.statistics.NacAlarmSnoozedStatisticDao;
+import com.nfcalarmclock.statistics.NacAlarmStatisticHistogramDao;
+import com.nfcalarmclock.statistics.NacAlarmStatisticSummary;
+import com.nfcalarmclock.statistics.NacAlarmStatisticSummaryDao;
 import com.nfcalarmclock.statistics.NacStatisticTypeConverters;
 import com.nfcalarmclock.scheduler.NacScheduler;
 
 import java.io.File;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
-import java.util.List;
 
 /**
  * Store alarms in a Room database.
@@ -38,16 +40,21 @@ import java.util.List;
 //@Database(version=1, exportSchema=true,
 //	entities={NacAlarm.class})
 //@TypeConverters({NacAlarmTypeConverters.class})
-@Database(version=6,
+@Database(version=10,
 		entities={NacAlarm.class, NacAlarmCreatedStatistic.class,
 		NacAlarmDeletedStatistic.class, NacAlarmDismissedStatistic.class,
-		NacAlarmMissedStatistic.class, NacAlarmSnoozedStatistic.class},
+		NacAlarmMissedStatistic.class, NacAlarmSnoozedStatistic.class,
+		NacAlarmStatisticSummary.class, NacAlarmDailyStatistic.class},
 	autoMigrations={
 			@AutoMigration(from=1, to=2),
 			@AutoMigration(from=2, to=3, spec=NacAlarmDatabase.ClearAllStatisticsMigration.class),
 			@AutoMigration(from=3, to=4),
 			@AutoMigration(from=4, to=5),
-			@AutoMigration(from=5, to=6)
+			@AutoMigration(from=5, to=6),
+			@AutoMigration(from=6, to=7),
+			@AutoMigration(from=7, to=8, spec=NacAlarmDatabase.CreateStatisticSummaryMigration.class),
+			@AutoMigration(from=8, to=9),
+			@AutoMigration(from=9, to=10)
 		})
 @TypeConverters({NacAlarmTypeConverters.class,
 	NacStatisticTypeConverters.class})
@@ -60,6 +67,11 @@ public abstract class NacAlarmDatabase
 	 */
 	public abstract NacAlarmDao alarmDao();
 
+	/**
+	 * Store the daily totals of alarm statistics in the database.
+	 */
+	public abstract NacAlarmDailyStatisticDao alarmDailyStatisticDao();
+
 	/**
 	 * Store created alarm statistics in the database.
 	 */
@@ -85,6 +97,16 @@ public abstract class NacAlarmDatabase
 	 */
 	public abstract NacAlarmSnoozedStatisticDao alarmSnoozedStatisticDao();
 
+	/**
+	 * Query histograms of alarm statistics in the database.
+	 */
+	public abstract NacAlarmStatisticHistogramDao alarmStatisticHistogramDao();
+
+	/**
+	 * Store the running totals of all alarm statistics in the database.
+	 */
+	public abstract NacAlarmStatisticSummaryDao alarmStatisticSummaryDao();
+
 	/**
 	 * Name of the database.
 	 */
@@ -96,11 +118,31 @@ public abstract class NacAlarmDatabase
 	private static final Object LOCK = new Object();
 
 	/**
-	 * Executor service.
+	 * Number of threads that can read from the database at the same time.
 	 */
-	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
-	//private static final ExecutorService EXECUTOR =
-	//	Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+	private static final int NUMBER_OF_READ_THREADS = 3;
+
+	/**
+	 * Executor for writing to the database.
+	 *
+	 * SQLite only allows one writer at a time, so writes are serialized. Writes
+	 * are run in the order they are submitted, regardless of priority, so that
+	 * a later write to an alarm always wins.
+	 */
+	private static final NacDatabaseExecutor WRITE_EXECUTOR =
+		new NacDatabaseExecutor(1, "NacDatabaseWrite", true, null);
+
+	/**
+	 * Executor for reading from the database.
+	 *
+	 * The database uses write-ahead logging, so reads can run concurrently with
+	 * each other and with the single writer. Each read first waits for the
+	 * writes that were submitted before it, so a read never sees an older
+	 * alarm than the caller last wrote.
+	 */
+	private static final NacDatabaseExecutor READ_EXECUTOR =
+		new NacDatabaseExecutor(NUMBER_OF_READ_THREADS, "NacDatabaseRead", false,
+			WRITE_EXECUTOR);
 
 	/**
 	 * Singleton instance of the database.
@@ -135,11 +177,7 @@ public abstract class NacAlarmDatabase
 			if (NacOldDatabase.exists(context))
 			{
 				cancelOldAlarms(context);
-				migrateOldDatabase(context);
-				deleteOldDatabase(context);
 			}
-
-			sContext = null;
 		}
 
 		/**
@@ -149,11 +187,45 @@ public abstract class NacAlarmDatabase
 		{
 			super.onOpen(db);
 
+			Context context = getContext();
+
+			// Start, or resume, migrating alarms from the old database
+			if ((context != null) && NacOldDatabase.exists(context))
+			{
+				migrateOldDatabase(context);
+			}
+
 			sContext = null;
 		}
 
 	};
 
+	/**
+	 * Fill in the running totals from the existing statistics when
+	 * auto-migrating.
+	 */
+	static class CreateStatisticSummaryMigration
+		implements AutoMigrationSpec
+	{
+
+		/**
+		 */
+		@Override
+		public void onPostMigrate(@NonNull SupportSQLiteDatabase db)
+		{
+			db.execSQL("INSERT OR REPLACE INTO alarm_statistic_summary (id, created_count, first_created_timestamp, deleted_count, dismissed_count, dismissed_with_nfc_count, missed_count, snoozed_count, snoozed_total_duration) VALUES (1, "
+				+ "(SELECT COUNT(id) FROM alarm_created_statistic), "
+				+ "(SELECT IFNULL(MIN(timestamp), 0) FROM alarm_created_statistic), "
+				+ "(SELECT COUNT(id) FROM alarm_deleted_statistic), "
+				+ "(SELECT COUNT(id) FROM alarm_dismissed_statistic), "
+				+ "(SELECT COUNT(id) FROM alarm_dismissed_statistic WHERE used_nfc=1), "
+				+ "(SELECT COUNT(id) FROM alarm_missed_statistic), "
+				+ "(SELECT COUNT(id) FROM alarm_snoozed_statistic), "
+				+ "(SELECT IFNULL(SUM(duration), 0) FROM alarm_snoozed_statistic))");
+		}
+
+	}
+
 	/**
 	 * Clear all statistics when auto-migrating.
 	 */
@@ -235,11 +307,19 @@ public abstract class NacAlarmDatabase
 	}
 
 	/**
-	 * @return The application context.
+	 * @return The executor for reading from the database.
 	 */
-	public static ExecutorService getExecutor()
+	public static NacDatabaseExecutor getReadExecutor()
 	{
-		return EXECUTOR;
+		return READ_EXECUTOR;
+	}
+
+	/**
+	 * @return The executor for writing to the database.
+	 */
+	public static NacDatabaseExecutor getWriteExecutor()
+	{
+		return WRITE_EXECUTOR;
 	}
 
 	/**
@@ -264,12 +344,28 @@ public abstract class NacAlarmDatabase
 			if (sInstance == null)
 			{
 				Context appContext = context.getApplicationContext();
-				sInstance = Room.databaseBuilder(appContext, NacAlarmDatabase.class,
-					DB_NAME)
+				NacSharedPreferences shared = new NacSharedPreferences(appContext);
+				RoomDatabase.Builder<NacAlarmDatabase> builder = Room.databaseBuilder(
+					appContext, NacAlarmDatabase.class, DB_NAME)
 					//.allowMainThreadQueries()
-					.addCallback(sDatabaseCallback)
+					.setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+					.setQueryExecutor(getReadExecutor())
+					.setTransactionExecutor(getWriteExecutor())
+					.addCallback(sDatabaseCallback);
 					//.fallbackToDestructiveMigration()
-					.build();
+
+				// Time each statement on the thread that runs it. Room wraps the
+				// database when a query callback is set, so only do this when
+				// timings are wanted
+				if (shared.getRecordDatabaseTimings())
+				{
+					NacDatabaseTimings.setEnabled(true);
+					builder.setQueryCallback(
+						(sql, args) -> NacDatabaseTimings.onQuery(sql),
+						Runnable::run);
+				}
+
+				sInstance = builder.build();
 
 				sContext = appContext;
 			}
@@ -280,6 +376,11 @@ public abstract class NacAlarmDatabase
 
 	/**
 	 * Migrate data from the old database into the new database.
+	 *
+	 * This is done in the background, and the old database is deleted once it
+	 * is done.
+	 *
+	 * @see NacOldDatabaseMigrator
 	 */
 	protected static void migrateOldDatabase(Context context)
 	{
@@ -288,17 +389,9 @@ public abstract class NacAlarmDatabase
 			return;
 		}
 
-		NacAlarmDatabase db = getInstance();
-		NacAlarmDao dao = db.alarmDao();
-		List<NacAlarm> alarms = NacOldDatabase.read(context);
-
-		for (NacAlarm a : alarms)
-		{
-			a.setId(0);
-			getExecutor().execute(() -> dao.insert(a));
-			// TODO: Wouldn't this line cause the same issue as the 8am alarm?
-			//NacScheduler.update(context, a);
-		}
+		// TODO: Migrated alarms are not scheduled here. Wouldn't that cause the
+		// same issue as the 8am alarm?
+		new NacOldDatabaseMigrator(context).start();
 	}
 
 }
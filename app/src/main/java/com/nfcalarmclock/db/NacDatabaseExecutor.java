@@ -0,0 +1,459 @@
+package com.nfcalarmclock.db;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that runs database tasks in order of priority.
+ *
+ * Tasks with the same priority are run in the order they were submitted. An
+ * ordered executor ignores priority, and runs every task in the order it was
+ * submitted.
+ *
+ * An executor can also be given a barrier executor. Each task then waits for
+ * every task that was already submitted to the barrier executor, so that a
+ * read always sees the writes that were submitted before it.
+ */
+public class NacDatabaseExecutor
+	extends ThreadPoolExecutor
+{
+
+	/**
+	 * Priority of a task that is needed when an alarm goes off.
+	 */
+	public static final int PRIORITY_ALARM = 0;
+
+	/**
+	 * Priority of a normal task, such as reads from the UI.
+	 */
+	public static final int PRIORITY_DEFAULT = 1;
+
+	/**
+	 * Priority of a statistics task.
+	 */
+	public static final int PRIORITY_STATISTIC = 2;
+
+	/**
+	 * Sequence number used to keep tasks of the same priority in FIFO order.
+	 */
+	private static final AtomicLong sSequence = new AtomicLong();
+
+	/**
+	 * Task that knows its priority.
+	 */
+	public static class PriorityTask<T>
+		extends FutureTask<T>
+		implements Comparable<PriorityTask<?>>
+	{
+
+		/**
+		 * Priority of the task.
+		 */
+		private final int mPriority;
+
+		/**
+		 * Order in which the task was submitted.
+		 */
+		private long mSequence;
+
+		/**
+		 * Task that must finish before this task runs, or null if there is
+		 * none.
+		 */
+		private Future<?> mBarrier;
+
+		/**
+		 * Time at which the task was created, in nanoseconds.
+		 */
+		private final long mCreateTime;
+
+		/**
+		 * Time at which the task started to run, in nanoseconds.
+		 */
+		private long mStartTime;
+
+		/**
+		 */
+		public PriorityTask(Callable<T> callable, int priority)
+		{
+			super(callable);
+
+			this.mPriority = priority;
+			this.mSequence = sSequence.getAndIncrement();
+			this.mBarrier = null;
+			this.mCreateTime = System.nanoTime();
+		}
+
+		/**
+		 */
+		public PriorityTask(Runnable runnable, T result, int priority)
+		{
+			super(runnable, result);
+
+			this.mPriority = priority;
+			this.mSequence = sSequence.getAndIncrement();
+			this.mBarrier = null;
+			this.mCreateTime = System.nanoTime();
+		}
+
+		/**
+		 */
+		@Override
+		public int compareTo(PriorityTask<?> task)
+		{
+			if (this.getPriority() != task.getPriority())
+			{
+				return (this.getPriority() < task.getPriority()) ? -1 : 1;
+			}
+
+			return Long.compare(this.getSequence(), task.getSequence());
+		}
+
+		/**
+		 * @return The task that must finish before this task runs, or null if
+		 *     there is none.
+		 */
+		public Future<?> getBarrier()
+		{
+			return this.mBarrier;
+		}
+
+		/**
+		 * @return The time at which the task was created, in nanoseconds.
+		 */
+		public long getCreateTime()
+		{
+			return this.mCreateTime;
+		}
+
+		/**
+		 * @return The priority of the task.
+		 */
+		public int getPriority()
+		{
+			return this.mPriority;
+		}
+
+		/**
+		 * @return The order in which the task was submitted.
+		 */
+		public long getSequence()
+		{
+			return this.mSequence;
+		}
+
+		/**
+		 * @return The time at which the task started to run, in nanoseconds.
+		 */
+		public long getStartTime()
+		{
+			return this.mStartTime;
+		}
+
+		/**
+		 * Set the task that must finish before this task runs.
+		 */
+		public void setBarrier(Future<?> barrier)
+		{
+			this.mBarrier = barrier;
+		}
+
+		/**
+		 * Set the order in which the task was submitted.
+		 */
+		public void setSequence(long sequence)
+		{
+			this.mSequence = sequence;
+		}
+
+		/**
+		 * Set the time at which the task started to run, in nanoseconds.
+		 */
+		public void setStartTime(long time)
+		{
+			this.mStartTime = time;
+		}
+
+	}
+
+	/**
+	 * Name of the executor.
+	 */
+	private final String mName;
+
+	/**
+	 * Whether tasks are run in the order they are submitted, regardless of
+	 * their priority.
+	 */
+	private final boolean mIsOrdered;
+
+	/**
+	 * Executor whose submitted tasks must finish before a task on this
+	 * executor runs, or null if there is none.
+	 */
+	private final NacDatabaseExecutor mBarrierExecutor;
+
+	/**
+	 * Last task that was submitted.
+	 */
+	private volatile PriorityTask<?> mLastTask;
+
+	/**
+	 * Create an executor with the given number of threads.
+	 *
+	 * @param  threads  Number of threads.
+	 * @param  name  Name prefix of each thread.
+	 */
+	public NacDatabaseExecutor(int threads, String name)
+	{
+		this(threads, name, false, null);
+	}
+
+	/**
+	 * Create an executor with the given number of threads.
+	 *
+	 * @param  threads  Number of threads.
+	 * @param  name  Name prefix of each thread.
+	 * @param  isOrdered  Whether tasks are run in the order they are
+	 *     submitted, regardless of their priority.
+	 * @param  barrierExecutor  Executor whose submitted tasks must finish
+	 *     before a task on this executor runs, or null if there is none.
+	 */
+	public NacDatabaseExecutor(int threads, String name, boolean isOrdered,
+		NacDatabaseExecutor barrierExecutor)
+	{
+		super(threads, threads, 30L, TimeUnit.SECONDS,
+			new PriorityBlockingQueue<>(), new NamedThreadFactory(name));
+
+		this.mName = name;
+		this.mIsOrdered = isOrdered;
+		this.mBarrierExecutor = barrierExecutor;
+		this.mLastTask = null;
+		this.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Record how long a task ran for, if timings are enabled.
+	 */
+	@Override
+	protected void afterExecute(Runnable runnable, Throwable throwable)
+	{
+		super.afterExecute(runnable, throwable);
+
+		if (NacDatabaseTimings.isEnabled() && (runnable instanceof PriorityTask))
+		{
+			PriorityTask<?> task = (PriorityTask<?>) runnable;
+			long runTime = System.nanoTime() - task.getStartTime();
+
+			NacDatabaseTimings.onTaskEnd(this.getTimingName(task), runTime);
+		}
+	}
+
+	/**
+	 * Wait for the barrier of a task, and record how long the task waited in
+	 * the queue, if timings are enabled.
+	 */
+	@Override
+	protected void beforeExecute(Thread thread, Runnable runnable)
+	{
+		super.beforeExecute(thread, runnable);
+
+		if (runnable instanceof PriorityTask)
+		{
+			this.waitForBarrier((PriorityTask<?>) runnable);
+		}
+
+		if (NacDatabaseTimings.isEnabled() && (runnable instanceof PriorityTask))
+		{
+			PriorityTask<?> task = (PriorityTask<?>) runnable;
+			long now = System.nanoTime();
+
+			task.setStartTime(now);
+			NacDatabaseTimings.onTaskStart(this.getTimingName(task),
+				now - task.getCreateTime());
+		}
+	}
+
+	/**
+	 * Wrap any task that does not have a priority with the default priority.
+	 *
+	 * Room submits plain Runnables when it is used as the query or transaction
+	 * executor, and those need to be comparable in the priority queue.
+	 *
+	 * The task is given its place in the queue here, along with the last task
+	 * of the barrier executor, if there is one.
+	 */
+	@Override
+	public void execute(@NonNull Runnable command)
+	{
+		PriorityTask<?> task = (command instanceof PriorityTask)
+			? (PriorityTask<?>) command
+			: new PriorityTask<Void>(command, null, PRIORITY_DEFAULT);
+		NacDatabaseExecutor barrierExecutor = this.mBarrierExecutor;
+
+		if (barrierExecutor != null)
+		{
+			task.setBarrier(barrierExecutor.getLastTask());
+		}
+
+		// Assign the sequence and queue the task together, so that the last
+		// task is always the one that runs last on an ordered executor
+		synchronized (this)
+		{
+			task.setSequence(sSequence.getAndIncrement());
+			this.mLastTask = task;
+			super.execute(task);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable)
+	{
+		return new PriorityTask<>(callable, PRIORITY_DEFAULT);
+	}
+
+	/**
+	 */
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value)
+	{
+		return new PriorityTask<>(runnable, value, PRIORITY_DEFAULT);
+	}
+
+	/**
+	 * @return The last task that was submitted, or null if none was.
+	 */
+	public Future<?> getLastTask()
+	{
+		return this.mLastTask;
+	}
+
+	/**
+	 * @return The name of the executor.
+	 */
+	public String getName()
+	{
+		return this.mName;
+	}
+
+	/**
+	 * @return The name that timings of a task are recorded under.
+	 */
+	private String getTimingName(PriorityTask<?> task)
+	{
+		return this.getName() + " priority " + task.getPriority();
+	}
+
+	/**
+	 * @return True if tasks are run in the order they are submitted,
+	 *     regardless of their priority, and False otherwise.
+	 */
+	public boolean isOrdered()
+	{
+		return this.mIsOrdered;
+	}
+
+	/**
+	 * Submit a task with the given priority.
+	 *
+	 * @param  task  Task to run.
+	 * @param  priority  Priority of the task. Lower values run first. This is
+	 *     ignored if the executor is ordered.
+	 *
+	 * @return A Future representing the pending result of the task.
+	 */
+	public <T> Future<T> submit(Callable<T> task, int priority)
+	{
+		if (this.isOrdered())
+		{
+			priority = PRIORITY_DEFAULT;
+		}
+
+		PriorityTask<T> future = new PriorityTask<>(task, priority);
+
+		this.execute(future);
+		return future;
+	}
+
+	/**
+	 * Wait for the barrier of a task to finish.
+	 *
+	 * A barrier that failed or was cancelled is still done, so the task can
+	 * run either way.
+	 */
+	private void waitForBarrier(PriorityTask<?> task)
+	{
+		Future<?> barrier = task.getBarrier();
+
+		if (barrier == null)
+		{
+			return;
+		}
+
+		task.setBarrier(null);
+
+		try
+		{
+			barrier.get();
+		}
+		catch (CancellationException | ExecutionException e)
+		{
+			// The barrier is done, which is all that matters
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Thread factory that names each thread, to make them easier to find when
+	 * debugging.
+	 */
+	private static class NamedThreadFactory
+		implements ThreadFactory
+	{
+
+		/**
+		 * Name prefix of each thread.
+		 */
+		private final String mName;
+
+		/**
+		 * Number of threads created.
+		 */
+		private final AtomicInteger mCount = new AtomicInteger();
+
+		/**
+		 */
+		public NamedThreadFactory(String name)
+		{
+			this.mName = name;
+		}
+
+		/**
+		 */
+		@Override
+		public Thread newThread(@NonNull Runnable runnable)
+		{
+			String name = this.mName + "-" + this.mCount.incrementAndGet();
+			return new Thread(runnable, name);
+		}
+
+	}
+
+}
@@ -0,0 +1,419 @@
+package com.nfcalarmclock.db;
+
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings of database queries and tasks, to help find out why the database is
+ * slow on a device.
+ *
+ * Three sets of timings are kept:
+ *
+ *     1. Queue wait: how long a task waited on an executor before it ran,
+ *        for each executor and priority.
+ *     2. Task time: how long a task took to run, for each executor and
+ *        priority.
+ *     3. Query time: how long each SQL statement took, from when Room ran it
+ *        until the next statement, or the end of the task, on the same
+ *        thread. This includes reading the rows of a query.
+ *
+ * Each timing goes into a histogram with buckets that double in size, so
+ * recording a timing only updates a few atomic counters. Nothing is recorded
+ * unless timings are enabled.
+ */
+public class NacDatabaseTimings
+{
+
+	/**
+	 * Histogram of durations, with buckets that double in size.
+	 *
+	 * Bucket 0 holds durations under 1 microsecond, and bucket i holds
+	 * durations from 2^(i-1) up to 2^i microseconds. The last bucket holds
+	 * everything longer.
+	 */
+	public static class Histogram
+	{
+
+		/**
+		 * Number of buckets, which covers durations up to about 67 seconds.
+		 */
+		public static final int BUCKETS = 27;
+
+		/**
+		 * Number of durations in each bucket.
+		 */
+		private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+
+		/**
+		 * Number of durations.
+		 */
+		private final AtomicLong mCount = new AtomicLong();
+
+		/**
+		 * Sum of all durations, in nanoseconds.
+		 */
+		private final AtomicLong mTotal = new AtomicLong();
+
+		/**
+		 * Longest duration, in nanoseconds.
+		 */
+		private final AtomicLong mMax = new AtomicLong();
+
+		/**
+		 * @return The number of durations.
+		 */
+		public long getCount()
+		{
+			return this.mCount.get();
+		}
+
+		/**
+		 * @return The longest duration, in nanoseconds.
+		 */
+		public long getMax()
+		{
+			return this.mMax.get();
+		}
+
+		/**
+		 * Get an upper bound of a percentile of the durations.
+		 *
+		 * @param  percent  Percentile, from 0 to 100.
+		 *
+		 * @return The upper bound of the bucket that the percentile falls in, in
+		 *     nanoseconds.
+		 */
+		public long getPercentile(int percent)
+		{
+			long count = this.getCount();
+			long target = (count*percent + 99) / 100;
+			long seen = 0;
+
+			for (int i=0; i < BUCKETS; i++)
+			{
+				seen += this.mBuckets.get(i);
+
+				if ((seen >= target) && (seen > 0))
+				{
+					return Math.min((1L << i) * 1000L, this.getMax());
+				}
+			}
+
+			return this.getMax();
+		}
+
+		/**
+		 * @return The sum of all durations, in nanoseconds.
+		 */
+		public long getTotal()
+		{
+			return this.mTotal.get();
+		}
+
+		/**
+		 * Record a duration.
+		 *
+		 * @param  nanos  Duration, in nanoseconds.
+		 */
+		public void record(long nanos)
+		{
+			if (nanos < 0)
+			{
+				nanos = 0;
+			}
+
+			long micros = nanos / 1000L;
+			int bucket = (micros == 0) ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+			long max;
+
+			this.mBuckets.incrementAndGet(Math.min(bucket, BUCKETS-1));
+			this.mCount.incrementAndGet();
+			this.mTotal.addAndGet(nanos);
+
+			do
+			{
+				max = this.mMax.get();
+			}
+			while ((nanos > max) && !this.mMax.compareAndSet(max, nanos));
+		}
+
+	}
+
+	/**
+	 * Statement that is currently running on a thread.
+	 */
+	private static class RunningQuery
+	{
+
+		/**
+		 * SQL of the statement, or null if no statement is running.
+		 */
+		String mSql;
+
+		/**
+		 * Time at which the statement started, in nanoseconds.
+		 */
+		long mStartTime;
+
+	}
+
+	/**
+	 * Maximum length of the SQL that is used to group query timings.
+	 */
+	private static final int MAX_SQL_LENGTH = 160;
+
+	/**
+	 * Whether timings are recorded or not.
+	 */
+	private static volatile boolean sIsEnabled = false;
+
+	/**
+	 * Time at which timings were enabled, or last cleared.
+	 */
+	private static volatile long sStartTime = System.currentTimeMillis();
+
+	/**
+	 * Queue wait timings, keyed by executor and priority.
+	 */
+	private static final ConcurrentHashMap<String, Histogram> sQueueWaits =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Task timings, keyed by executor and priority.
+	 */
+	private static final ConcurrentHashMap<String, Histogram> sTasks =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Query timings, keyed by SQL.
+	 */
+	private static final ConcurrentHashMap<String, Histogram> sQueries =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Statement that is currently running on each thread.
+	 */
+	private static final ThreadLocal<RunningQuery> sRunningQuery =
+		new ThreadLocal<RunningQuery>()
+	{
+
+		/**
+		 */
+		@Override
+		protected RunningQuery initialValue()
+		{
+			return new RunningQuery();
+		}
+
+	};
+
+	/**
+	 * Clear all timings.
+	 */
+	public static void clear()
+	{
+		sQueueWaits.clear();
+		sTasks.clear();
+		sQueries.clear();
+		sStartTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Finish timing the statement that is running on this thread, if any.
+	 */
+	private static void finishQuery(long now)
+	{
+		RunningQuery running = sRunningQuery.get();
+
+		if (running.mSql != null)
+		{
+			getHistogram(sQueries, running.mSql).record(now - running.mStartTime);
+			running.mSql = null;
+		}
+	}
+
+	/**
+	 * Get a histogram, creating it if it does not exist.
+	 */
+	private static Histogram getHistogram(
+		ConcurrentHashMap<String, Histogram> map, String key)
+	{
+		Histogram histogram = map.get(key);
+
+		if (histogram == null)
+		{
+			Histogram created = new Histogram();
+			histogram = map.putIfAbsent(key, created);
+
+			if (histogram == null)
+			{
+				histogram = created;
+			}
+		}
+
+		return histogram;
+	}
+
+	/**
+	 * @return True if timings are recorded, and False otherwise.
+	 */
+	public static boolean isEnabled()
+	{
+		return sIsEnabled;
+	}
+
+	/**
+	 * Group statements that only differ by the number of arguments in an IN
+	 * clause, and limit the length of the SQL.
+	 */
+	private static String normalize(String sql)
+	{
+		String key = sql.trim()
+			.replaceAll("\\s+", " ")
+			.replaceAll("\\?(\\s*,\\s*\\?)+", "?...");
+
+		return (key.length() > MAX_SQL_LENGTH)
+			? key.substring(0, MAX_SQL_LENGTH) + "..."
+			: key;
+	}
+
+	/**
+	 * Called by Room, on the thread that runs the statement, right before the
+	 * statement is run.
+	 *
+	 * @param  sql  SQL of the statement.
+	 */
+	public static void onQuery(String sql)
+	{
+		if (!isEnabled() || (sql == null))
+		{
+			return;
+		}
+
+		long now = System.nanoTime();
+		RunningQuery running = sRunningQuery.get();
+
+		finishQuery(now);
+
+		running.mSql = normalize(sql);
+		running.mStartTime = now;
+	}
+
+	/**
+	 * Called by an executor right before a task is run.
+	 *
+	 * @param  name  Name of the executor and priority.
+	 * @param  waitTime  Amount of time the task waited, in nanoseconds.
+	 */
+	public static void onTaskStart(String name, long waitTime)
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+
+		getHistogram(sQueueWaits, name).record(waitTime);
+	}
+
+	/**
+	 * Called by an executor right after a task is run.
+	 *
+	 * @param  name  Name of the executor and priority.
+	 * @param  runTime  Amount of time the task ran, in nanoseconds.
+	 */
+	public static void onTaskEnd(String name, long runTime)
+	{
+		if (!isEnabled())
+		{
+			return;
+		}
+
+		finishQuery(System.nanoTime());
+		getHistogram(sTasks, name).record(runTime);
+	}
+
+	/**
+	 * Enable or disable recording timings.
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		if (enabled && !sIsEnabled)
+		{
+			sStartTime = System.currentTimeMillis();
+		}
+
+		sIsEnabled = enabled;
+	}
+
+	/**
+	 * Append a table of histograms.
+	 */
+	private static void appendTable(StringBuilder text, String title,
+		Map<String, Histogram> map)
+	{
+		List<String> keys = new ArrayList<>(map.keySet());
+		Locale locale = Locale.US;
+
+		Collections.sort(keys);
+		text.append(title).append('\n');
+
+		if (keys.isEmpty())
+		{
+			text.append("  (none)\n\n");
+			return;
+		}
+
+		for (String k : keys)
+		{
+			Histogram h = map.get(k);
+
+			if ((h == null) || (h.getCount() == 0))
+			{
+				continue;
+			}
+
+			text.append("  ").append(k).append('\n');
+			text.append(String.format(locale,
+				"    n=%d mean=%.2fms p50<=%.2fms p90<=%.2fms p99<=%.2fms max=%.2fms%n",
+				h.getCount(),
+				h.getTotal() / (double)h.getCount() / 1e6,
+				h.getPercentile(50) / 1e6,
+				h.getPercentile(90) / 1e6,
+				h.getPercentile(99) / 1e6,
+				h.getMax() / 1e6));
+		}
+
+		text.append('\n');
+	}
+
+	/**
+	 * @return All timings, as text that can be shared.
+	 */
+	public static String toText()
+	{
+		StringBuilder text = new StringBuilder();
+		long elapsed = (System.currentTimeMillis() - sStartTime) / 1000L;
+
+		text.append("Database timings\n");
+		text.append("Device: ").append(Build.MANUFACTURER).append(' ')
+			.append(Build.MODEL).append(", API ").append(Build.VERSION.SDK_INT)
+			.append('\n');
+		text.append("Recording: ").append(isEnabled() ? "on" : "off")
+			.append(", for ").append(elapsed).append(" s\n\n");
+
+		appendTable(text, "Queue wait", sQueueWaits);
+		appendTable(text, "Task time", sTasks);
+		appendTable(text, "Query time", sQueries);
+
+		return text.toString();
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.nfcalarmclock.db;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.nfcalarmclock.alarm.NacAlarmCache;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warm up the database at process start, so that it is not done on the
+ * critical path of an alarm going off.
+ *
+ * Warming up builds the Room database, opens it, which validates the schema
+ * and runs any migrations, and loads the alarm cache, which holds the active
+ * and upcoming alarms. This is only done once per process, on a background
+ * thread.
+ *
+ * Places that start the process, or schedule an alarm, opt in by calling
+ * warm(). The active alarm service then calls await(), which does not block,
+ * and continues once the database is warm.
+ */
+public class NacDatabaseWarmer
+{
+
+	/**
+	 * Maximum amount of time, in milliseconds, to wait for the database to be
+	 * warmed up.
+	 */
+	public static final long AWAIT_TIMEOUT = 5000L;
+
+	/**
+	 * Lock object for the warm up.
+	 */
+	private static final Object LOCK = new Object();
+
+	/**
+	 * Handler for the main thread, which the waiting callbacks are run on.
+	 */
+	private static final Handler sMainHandler =
+		new Handler(Looper.getMainLooper());
+
+	/**
+	 * Callbacks that are waiting for the warm up to be done.
+	 */
+	private static final List<Runnable> sCallbacks = new ArrayList<>();
+
+	/**
+	 * Result of the warm up, or null if it has not been started.
+	 */
+	private static Future<?> sFuture;
+
+	/**
+	 * Whether the database has been warmed up or not.
+	 */
+	private static volatile boolean sIsWarm = false;
+
+	/**
+	 * Wait for the database to be warmed up, starting the warm up if it has not
+	 * been started yet.
+	 *
+	 * This does not block the calling thread. The callback is run once on the
+	 * main thread, when the warm up is done, when it fails, or after
+	 * AWAIT_TIMEOUT, whichever comes first. Check isWarm() to know which.
+	 *
+	 * @param  context  Context.
+	 * @param  callback  Called when the wait is over.
+	 */
+	public static void await(Context context, Runnable callback)
+	{
+		AtomicBoolean isDone = new AtomicBoolean(false);
+
+		// Only run the callback the first time, whether it is from the warm up
+		// or from the timeout
+		Runnable once = () -> {
+
+			if (isDone.compareAndSet(false, true))
+			{
+				callback.run();
+			}
+
+		};
+
+		synchronized (LOCK)
+		{
+			// Already warm
+			if (sIsWarm)
+			{
+				sMainHandler.post(once);
+				return;
+			}
+
+			sCallbacks.add(once);
+		}
+
+		NacDatabaseWarmer.warm(context);
+		sMainHandler.postDelayed(once, AWAIT_TIMEOUT);
+	}
+
+	/**
+	 * Run all the callbacks that are waiting for the warm up, on the main
+	 * thread.
+	 */
+	private static void doneWaiting()
+	{
+		List<Runnable> callbacks;
+
+		synchronized (LOCK)
+		{
+			callbacks = new ArrayList<>(sCallbacks);
+			sCallbacks.clear();
+		}
+
+		for (Runnable c : callbacks)
+		{
+			sMainHandler.post(c);
+		}
+	}
+
+	/**
+	 * Build and open the database, and load the alarm cache.
+	 */
+	private static void doWarm(Context context)
+	{
+		NacAlarmDatabase db = NacAlarmDatabase.getInstance(context);
+
+		// Open the database, which validates the schema and runs any migrations
+		db.getOpenHelper().getWritableDatabase();
+
+		// Load all alarms, including the active and upcoming ones
+		NacAlarmCache.getInstance(context).warmNow();
+
+		synchronized (LOCK)
+		{
+			sIsWarm = true;
+		}
+	}
+
+	/**
+	 * @return True if the database has been warmed up, and False otherwise.
+	 */
+	public static boolean isWarm()
+	{
+		return sIsWarm;
+	}
+
+	/**
+	 * Start warming up the database in the background, if it has not been
+	 * started yet.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The result of the warm up.
+	 */
+	public static Future<?> warm(Context context)
+	{
+		Context appContext = context.getApplicationContext();
+
+		synchronized (LOCK)
+		{
+			if (sFuture == null)
+			{
+				sFuture = NacAlarmDatabase.getReadExecutor().submit(() -> {
+
+					try
+					{
+						NacDatabaseWarmer.doWarm(appContext);
+					}
+					catch (RuntimeException e)
+					{
+						NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH WARM_DATABASE exception!");
+						NacUtility.printf("String  : %s!", e.toString());
+						NacUtility.printf("Message : %s!", e.getMessage());
+
+						// Allow the warm up to be tried again
+						synchronized (LOCK)
+						{
+							sFuture = null;
+						}
+
+						throw e;
+					}
+					finally
+					{
+						// Do not keep anything waiting once the warm up is done
+						// or has failed
+						NacDatabaseWarmer.doneWaiting();
+					}
+
+					return null;
+
+				}, NacDatabaseExecutor.PRIORITY_ALARM);
+			}
+
+			return sFuture;
+		}
+	}
+
+}
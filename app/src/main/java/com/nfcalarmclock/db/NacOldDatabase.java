@@ -562,6 +562,36 @@ public class NacOldDatabase
 		this.mWasUpgraded = true;
 	}
 
+	/**
+	 * Query a chunk of alarms, in order of row ID.
+	 *
+	 * The row ID of each alarm is in the first column of the cursor, and the
+	 * cursor can be converted to an alarm with toAlarm().
+	 *
+	 * @param  db     The SQLite database.
+	 * @param  rowId  Only query alarms with a row ID greater than this.
+	 * @param  limit  Maximum number of alarms to query.
+	 *
+	 * @return A cursor over the chunk of alarms, or null if the query failed.
+	 */
+	public Cursor queryChunk(SQLiteDatabase db, int rowId, int limit)
+	{
+		String table = this.getAlarmTable();
+		String where = Contract.AlarmTable._ID + ">?";
+		String[] whereArgs = new String[] { String.valueOf(rowId) };
+		String orderBy = Contract.AlarmTable._ID;
+
+		try
+		{
+			return db.query(table, null, where, whereArgs, null, null, orderBy,
+				String.valueOf(limit));
+		}
+		catch (SQLiteException e)
+		{
+			return null;
+		}
+	}
+
 	/**
 	 * @see #read(SQLiteDatabase, int)
 	 */
@@ -0,0 +1,321 @@
+package com.nfcalarmclock.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.alarm.NacAlarmDao;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Migrate alarms from the old SQLite database into the Room database.
+ *
+ * Alarms are read from the old database with a cursor, one chunk at a time,
+ * and each chunk is inserted in its own transaction on the write executor.
+ * The row ID of the last alarm that was migrated is saved in the same
+ * transaction, in a single row table that is not a Room entity, similar to
+ * room_master_table. A migration that is interrupted, by the process being
+ * killed, resumes where it left off the next time the database is opened,
+ * and no chunk is ever migrated twice. The old database is only deleted once
+ * every alarm has been migrated.
+ */
+public class NacOldDatabaseMigrator
+{
+
+	/**
+	 * Maximum number of alarms to migrate in a single transaction.
+	 */
+	public static final int CHUNK_SIZE = 100;
+
+	/**
+	 * Name of the table that holds the progress of the migration.
+	 */
+	private static final String PROGRESS_TABLE = "nac_old_database_migration";
+
+	/**
+	 * Create the progress table, if it does not exist.
+	 */
+	private static final String CREATE_PROGRESS_TABLE =
+		"CREATE TABLE IF NOT EXISTS " + PROGRESS_TABLE
+			+ " (id INTEGER PRIMARY KEY, row_id INTEGER NOT NULL)";
+
+	/**
+	 * Delete the progress table.
+	 */
+	private static final String DROP_PROGRESS_TABLE =
+		"DROP TABLE IF EXISTS " + PROGRESS_TABLE;
+
+	/**
+	 * Read the row ID of the last alarm that was migrated.
+	 */
+	private static final String SELECT_PROGRESS =
+		"SELECT row_id FROM " + PROGRESS_TABLE + " WHERE id = 0";
+
+	/**
+	 * Save the row ID of the last alarm that was migrated.
+	 */
+	private static final String WRITE_PROGRESS =
+		"INSERT OR REPLACE INTO " + PROGRESS_TABLE + " (id, row_id) VALUES (0, ?)";
+
+	/**
+	 * Whether a migration is already running or not.
+	 */
+	private static final AtomicBoolean sIsRunning = new AtomicBoolean(false);
+
+	/**
+	 * Application context.
+	 */
+	private final Context mContext;
+
+	/**
+	 * Old database.
+	 */
+	private NacOldDatabase mOldDatabase;
+
+	/**
+	 * Number of alarms migrated by this migrator.
+	 */
+	private int mCount;
+
+	/**
+	 * Time at which the migration was started.
+	 */
+	private long mStartTime;
+
+	/**
+	 */
+	public NacOldDatabaseMigrator(Context context)
+	{
+		Context appContext = context.getApplicationContext();
+
+		this.mContext = appContext;
+		this.mOldDatabase = null;
+		this.mCount = 0;
+		this.mStartTime = 0;
+	}
+
+	/**
+	 * Close the old database, if it is open.
+	 */
+	private void closeOldDatabase()
+	{
+		if (this.mOldDatabase != null)
+		{
+			this.mOldDatabase.close();
+			this.mOldDatabase = null;
+		}
+	}
+
+	/**
+	 * Finish the migration, by deleting the old database and clearing the
+	 * progress.
+	 */
+	private void finish()
+	{
+		long elapsed = SystemClock.elapsedRealtime() - this.mStartTime;
+
+		this.closeOldDatabase();
+		NacAlarmDatabase.deleteOldDatabase(this.getContext());
+
+		// Only cleared once the old database is gone, so that a migration that
+		// is interrupted before this point resumes from the right place
+		this.getDatabase().execSQL(DROP_PROGRESS_TABLE);
+
+		NacUtility.printf("NacOldDatabaseMigrator : Migrated %d alarms in %d ms",
+			this.mCount, elapsed);
+		sIsRunning.set(false);
+	}
+
+	/**
+	 * @return The application context.
+	 */
+	private Context getContext()
+	{
+		return this.mContext;
+	}
+
+	/**
+	 * @return The Room database, which the progress is saved in.
+	 */
+	private SupportSQLiteDatabase getDatabase()
+	{
+		NacAlarmDatabase db = NacAlarmDatabase.getInstance(this.getContext());
+
+		return db.getOpenHelper().getWritableDatabase();
+	}
+
+	/**
+	 * @return The old database.
+	 */
+	private NacOldDatabase getOldDatabase()
+	{
+		if (this.mOldDatabase == null)
+		{
+			this.mOldDatabase = new NacOldDatabase(this.getContext());
+		}
+
+		return this.mOldDatabase;
+	}
+
+	/**
+	 * @return True if a migration is running, and False otherwise.
+	 */
+	public static boolean isRunning()
+	{
+		return sIsRunning.get();
+	}
+
+	/**
+	 * Migrate a single chunk of alarms.
+	 *
+	 * @return The number of alarms that were migrated.
+	 */
+	private int migrateChunk()
+	{
+		SupportSQLiteDatabase roomDb = this.getDatabase();
+		NacOldDatabase oldDb = this.getOldDatabase();
+		SQLiteDatabase sqlDb = oldDb.getWritableDatabase();
+		int version = sqlDb.getVersion();
+		int rowId = NacOldDatabaseMigrator.readProgress(roomDb);
+		List<NacAlarm> alarms = new ArrayList<>();
+		Cursor cursor = oldDb.queryChunk(sqlDb, rowId, CHUNK_SIZE);
+
+		if (cursor == null)
+		{
+			return 0;
+		}
+
+		while (cursor.moveToNext())
+		{
+			NacAlarm alarm = oldDb.toAlarm(cursor, version);
+
+			// Let Room assign a new ID
+			alarm.setId(0);
+			alarms.add(alarm);
+
+			rowId = cursor.getInt(0);
+		}
+
+		cursor.close();
+
+		if (alarms.isEmpty())
+		{
+			return 0;
+		}
+
+		NacAlarmDatabase db = NacAlarmDatabase.getInstance(this.getContext());
+		NacAlarmDao dao = db.alarmDao();
+		int lastRowId = rowId;
+
+		// The progress is saved in the same transaction as the alarms, so
+		// either both are committed, or neither is
+		db.runInTransaction(() -> {
+			dao.insertAll(alarms);
+			NacOldDatabaseMigrator.writeProgress(roomDb, lastRowId);
+		});
+
+		this.mCount += alarms.size();
+		return alarms.size();
+	}
+
+	/**
+	 * Migrate the next chunk of alarms, and queue the chunk after that.
+	 */
+	private void next()
+	{
+		NacAlarmDatabase.getWriteExecutor().submit(() -> {
+
+			int count;
+
+			try
+			{
+				count = this.migrateChunk();
+			}
+			catch (RuntimeException e)
+			{
+				NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH MIGRATE exception!");
+				NacUtility.printf("String  : %s!", e.toString());
+				NacUtility.printf("Message : %s!", e.getMessage());
+				e.printStackTrace();
+				this.closeOldDatabase();
+				sIsRunning.set(false);
+				return null;
+			}
+
+			if (count >= CHUNK_SIZE)
+			{
+				this.next();
+			}
+			else
+			{
+				this.finish();
+			}
+
+			return null;
+
+		}, NacDatabaseExecutor.PRIORITY_ALARM);
+	}
+
+	/**
+	 * Read the row ID of the last alarm that was migrated.
+	 *
+	 * @param  db  The Room database.
+	 *
+	 * @return The row ID of the last alarm that was migrated, or 0 if none
+	 *     have been migrated.
+	 */
+	private static int readProgress(SupportSQLiteDatabase db)
+	{
+		db.execSQL(CREATE_PROGRESS_TABLE);
+
+		Cursor cursor = db.query(SELECT_PROGRESS);
+
+		try
+		{
+			return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+		}
+		finally
+		{
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Start migrating alarms from the old database in the background.
+	 *
+	 * This does nothing if a migration is already running, or if there is no
+	 * old database.
+	 */
+	public void start()
+	{
+		if (!NacOldDatabase.exists(this.getContext())
+			|| !sIsRunning.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		this.mStartTime = SystemClock.elapsedRealtime();
+		this.next();
+	}
+
+	/**
+	 * Save the row ID of the last alarm that was migrated.
+	 *
+	 * This should be called inside the transaction that migrates the alarms.
+	 *
+	 * @param  db  The Room database.
+	 * @param  rowId  The row ID of the last alarm that was migrated.
+	 */
+	private static void writeProgress(SupportSQLiteDatabase db, int rowId)
+	{
+		db.execSQL(WRITE_PROGRESS, new Object[] { rowId });
+	}
+
+}
@@ -1,9 +1,15 @@
 package com.nfcalarmclock.db;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import com.nfcalarmclock.util.NacUtility;
 import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.statistics.NacAlarmStatisticBucket;
+import com.nfcalarmclock.statistics.NacAlarmStatisticSummary;
 
 import java.lang.InterruptedException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -16,6 +22,75 @@ import java.util.List;
 public abstract class NacRepository
 {
 
+	/**
+	 * Listener for when an asynchronous database call is done.
+	 */
+	public interface OnResultListener<T>
+	{
+		public void onResult(T result);
+	}
+
+	/**
+	 * Handler used to call result listeners on the main thread.
+	 */
+	private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+	/**
+	 * Call a result listener on the main thread with a result that is already
+	 * known, such as one from a cache.
+	 *
+	 * @param  listener  Listener for when the task is done.
+	 * @param  result  The result.
+	 */
+	public static <T> void postResult(OnResultListener<T> listener, T result)
+	{
+		if (listener != null)
+		{
+			sMainHandler.post(() -> listener.onResult(result));
+		}
+	}
+
+	/**
+	 * Run a task on an executor, without blocking the calling thread.
+	 *
+	 * The listener, if there is one, is always called on the main thread. It
+	 * is called with the result of the task, or with null if the task fails,
+	 * so that anything that waits on the listener, such as the PendingResult
+	 * of a broadcast receiver, is still finished.
+	 *
+	 * @param  executor  Executor to run the task on.
+	 * @param  task  Task to run.
+	 * @param  priority  Priority of the task.
+	 * @param  listener  Listener for when the task is done.
+	 */
+	public static <T> void doAsync(NacDatabaseExecutor executor, Callable<T> task,
+		int priority, OnResultListener<T> listener)
+	{
+		executor.submit(() -> {
+
+			T result;
+
+			try
+			{
+				result = task.call();
+			}
+			catch (Exception e)
+			{
+				NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH ASYNC exception!");
+				NacUtility.printf("String  : %s!", e.toString());
+				NacUtility.printf("Message : %s!", e.getMessage());
+				e.printStackTrace();
+
+				NacRepository.postResult(listener, null);
+				return null;
+			}
+
+			NacRepository.postResult(listener, result);
+			return result;
+
+		}, priority);
+	}
+
 	/**
 	 * Get a NacAlarm from a Future object.
 	 *
@@ -132,4 +207,68 @@ public abstract class NacRepository
 		return -1;
 	}
 
+	/**
+	 * Get a list of NacAlarmStatisticBucket from a Future object.
+	 *
+	 * @param  future  Future object.
+	 *
+	 * @return A list of NacAlarmStatisticBucket from a Future object.
+	 */
+	public static List<NacAlarmStatisticBucket> getStatisticBucketListFromFuture(
+		Future<?> future)
+	{
+		try
+		{
+			if (future != null)
+			{
+				List<?> list = (List<?>) future.get();
+				List<NacAlarmStatisticBucket> convlist = new ArrayList<>();
+
+				for (Object o : list)
+				{
+					convlist.add((NacAlarmStatisticBucket)o);
+				}
+
+				return convlist;
+			}
+		}
+		catch (CancellationException | ExecutionException | InterruptedException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH GET_STATISTIC_BUCKET_LIST exception!");
+			NacUtility.printf("String  : %s!", e.toString());
+			NacUtility.printf("Message : %s!", e.getMessage());
+			e.printStackTrace();
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Get the running totals of all alarm statistics from a Future object.
+	 *
+	 * @param  future  Future object.
+	 *
+	 * @return The running totals of all alarm statistics from a Future object.
+	 */
+	public static NacAlarmStatisticSummary getStatisticSummaryFromFuture(
+		Future<?> future)
+	{
+		try
+		{
+			if (future != null)
+			{
+				return (NacAlarmStatisticSummary) future.get();
+			}
+		}
+		catch (CancellationException | ExecutionException | InterruptedException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH GET_STATISTIC_SUMMARY exception!");
+			NacUtility.printf("String  : %s!", e.toString());
+			NacUtility.printf("Message : %s!", e.getMessage());
+			e.printStackTrace();
+		}
+
+		return null;
+	}
+
 }
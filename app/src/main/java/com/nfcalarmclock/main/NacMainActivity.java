@@ -31,12 +31,14 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.nfcalarmclock.activealarm.NacActiveAlarmService;
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.alarm.NacAlarmViewModel;
+import com.nfcalarmclock.alarm.NacNextAlarmIndex;
 import com.nfcalarmclock.audiooptions.NacAlarmAudioOptionsDialog;
 import com.nfcalarmclock.audiosource.NacAudioSourceDialog;
 import com.nfcalarmclock.card.NacCardAdapter;
 import com.nfcalarmclock.card.NacCardAdapterLiveData;
 import com.nfcalarmclock.card.NacCardHolder;
 import com.nfcalarmclock.card.NacCardTouchHelper;
+import com.nfcalarmclock.db.NacDatabaseWarmer;
 import com.nfcalarmclock.graduallyincreasevolume.NacGraduallyIncreaseVolumeDialog;
 import com.nfcalarmclock.media.NacMedia;
 import com.nfcalarmclock.mediapicker.NacMediaActivity;
@@ -53,8 +55,11 @@ import com.nfcalarmclock.shared.NacSharedConstants;
 import com.nfcalarmclock.shared.NacSharedPreferences;
 import com.nfcalarmclock.snackbar.NacSnackbar;
 import com.nfcalarmclock.shutdown.NacShutdownBroadcastReceiver;
+import com.nfcalarmclock.statistics.NacAlarmStatisticCompactor;
+import com.nfcalarmclock.statistics.NacAlarmStatisticLog;
 import com.nfcalarmclock.statistics.NacAlarmStatisticRepository;
 import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.system.NacContext;
 import com.nfcalarmclock.system.NacIntent;
 import com.nfcalarmclock.tts.NacTextToSpeechDialog;
@@ -494,6 +499,14 @@ public class NacMainActivity
 		return this.mLastAlarmCardAction;
 	}
 
+	/**
+	 * @return The index of alarms, ordered by when they will run next.
+	 */
+	private NacNextAlarmIndex getNextAlarmIndex()
+	{
+		return this.getAlarmViewModel().getNextAlarmIndex();
+	}
+
 	/**
 	 * Get the NFC tag.
 	 *
@@ -593,25 +606,35 @@ public class NacMainActivity
 	@Override
 	public void onAudioOptionClicked(long alarmId, int which)
 	{
-		this.mAudioOptionsAlarm = this.getAlarmViewModel().findAlarm(alarmId);
+		this.getAlarmViewModel().findAlarm(alarmId, alarm -> {
 
-		switch (which)
-		{
-			case 0:
-				this.showAudioSourceDialog();
-				break;
-			case 1:
-				this.showGraduallyIncreaseVolumeDialog();
-				break;
-			case 2:
-				this.showRestrictVolumeDialog();
-				break;
-			case 3:
-				this.showTextToSpeechDialog();
-				break;
-			default:
-				break;
-		}
+			// The activity went away while the alarm was being found
+			if ((alarm == null) || isFinishing())
+			{
+				return;
+			}
+
+			this.mAudioOptionsAlarm = alarm;
+
+			switch (which)
+			{
+				case 0:
+					this.showAudioSourceDialog();
+					break;
+				case 1:
+					this.showGraduallyIncreaseVolumeDialog();
+					break;
+				case 2:
+					this.showRestrictVolumeDialog();
+					break;
+				case 3:
+					this.showTextToSpeechDialog();
+					break;
+				default:
+					break;
+			}
+
+		});
 	}
 
 	/**
@@ -732,7 +755,7 @@ public class NacMainActivity
 			this.getRecentlyUpdatedAlarmIds().add(id);
 		}
 
-		this.getAlarmViewModel().update(this, alarm);
+		this.getAlarmViewModel().updateBuffered(alarm);
 	}
 
 	/**
@@ -765,9 +788,23 @@ public class NacMainActivity
 	public void onChanged(List<NacAlarm> alarms)
 	{
 		RecyclerView rv = this.getRecyclerView();
+		NacAlarmViewModel viewModel = this.getAlarmViewModel();
+		NacSharedPreferences shared = this.getSharedPreferences();
+
+		// Do not undo any card changes that have not been written yet
+		viewModel.getUpdateBuffer().apply(alarms);
+
+		// Changes made here are already in the index, so the list is only
+		// needed the first time, or when an alarm was dismissed or snoozed
+		// while the activity was not shown
+		if (!viewModel.isNextAlarmIndexLoaded()
+			|| shared.getShouldRefreshMainActivity())
+		{
+			viewModel.loadNextAlarmIndex(alarms);
+		}
 
 		this.setupForAppFirstRun(alarms);
-		this.updateUpcomingNotification(alarms);
+		this.updateUpcomingNotification();
 		this.getAlarmCardAdapter().storeIndicesOfExpandedCards(rv);
 		this.getAlarmCardAdapter().submitList(alarms);
 		this.setupRefreshMainActivity();
@@ -833,6 +870,15 @@ public class NacMainActivity
 		this.mScanNfcTagDialog = null;
 
 		this.getSharedPreferences().editCardIsMeasured(false);
+
+		// Open the database and load the alarms in the background
+		NacDatabaseWarmer.warm(this);
+
+		// Save any statistics left over from a previous process, and roll up
+		// old statistics
+		NacAlarmStatisticLog.getInstance(this);
+		new NacAlarmStatisticCompactor(this).start();
+
 		this.setupLiveDataObservers();
 		this.setupAlarmCardAdapter();
 		this.setupRecyclerView();
@@ -1045,6 +1091,7 @@ public class NacMainActivity
 	{
 		super.onPause();
 
+		this.getAlarmViewModel().flushUpdates();
 		this.setIsActivityShown(false);
 		this.cleanupShutdownBroadcastReceiver();
 		NacNfc.stop(this);
@@ -1248,7 +1295,7 @@ public class NacMainActivity
 		String action = cons.getActionUndo();
 
 		this.getLastAlarmCardAction().set(alarm, NacLastAlarmCardAction.Type.RESTORE);
-		this.getAlarmViewModel().insert(this, alarm);
+		this.getAlarmViewModel().insert(this, alarm, null);
 		this.showSnackbar(message, action, this.mOnSwipeSnackbarActionListener);
 	}
 
@@ -1580,7 +1627,7 @@ public class NacMainActivity
 	{
 		NacSharedConstants cons = this.getSharedConstants();
 		NacSharedPreferences shared = this.getSharedPreferences();
-		String message = NacCalendar.getMessageWillRun(shared, alarm);
+		String message = NacCalendarFormat.getMessageWillRun(shared, alarm);
 		String action = cons.getActionDismiss();
 
 		this.showSnackbar(message, action);
@@ -1633,11 +1680,8 @@ public class NacMainActivity
 	{
 		NacSharedConstants cons = this.getSharedConstants();
 		NacSharedPreferences shared = this.getSharedPreferences();
-		NacCardAdapter cardAdapter = this.getAlarmCardAdapter();
-
-		List<NacAlarm> alarms = cardAdapter.getCurrentList();
-		NacAlarm alarm = NacCalendar.getNextAlarm(alarms);
-		String message = NacCalendar.getMessageNextAlarm(shared, alarm);
+		NacAlarm alarm = this.getNextAlarmIndex().getNextAlarm();
+		String message = NacCalendarFormat.getMessageNextAlarm(shared, alarm);
 		String action = cons.getActionDismiss();
 
 		this.showSnackbar(message, action);
@@ -1760,12 +1804,10 @@ public class NacMainActivity
 	}
 
 	/**
-	 * Update the notification.
-	 *
-	 * TODO: Check if race condition with this being called after submitList?
-	 * Should I just pass a list of alarms to this method?
+	 * Update the notification with the enabled alarms, in the order that they
+	 * will run.
 	 */
-	public void updateUpcomingNotification(List<NacAlarm> alarms)
+	public void updateUpcomingNotification()
 	{
 		NacSharedPreferences shared = this.getSharedPreferences();
 
@@ -1774,22 +1816,11 @@ public class NacMainActivity
 			NacUpcomingAlarmNotification notification =
 				new NacUpcomingAlarmNotification(this);
 
-			notification.setAlarmList(alarms);
+			notification.setAlarmList(this.getNextAlarmIndex().getAlarms());
 			notification.show();
 		}
 	}
 
-	/**
-	 * @see #updateUpcomingNotification(List<NacAlarm>)
-	 */
-	public void updateUpcomingNotification()
-	{
-		NacCardAdapter cardAdapter = this.getAlarmCardAdapter();
-		List<NacAlarm> alarms = cardAdapter.getCurrentList();
-
-		this.updateUpcomingNotification(alarms);
-	}
-
 	/**
 	 * Verify that the card is measured.
 	 *
@@ -43,6 +43,11 @@ public class NacAudioAttributes
 	 */
 	private boolean mWasDucking;
 
+	/**
+	 * Gain that is applied on top of the stream volume, from 0 to 1.
+	 */
+	private float mGain;
+
 	/**
 	 */
 	public NacAudioAttributes(Context context)
@@ -68,6 +73,7 @@ public class NacAudioAttributes
 		this.setUsageFromSource(source);
 		this.setVolumeLevel(-1);
 		this.setWasDucking(false);
+		this.setGain(1.0f);
 	}
 
 	/**
@@ -133,6 +139,14 @@ public class NacAudioAttributes
 		return this.mContext;
 	}
 
+	/**
+	 * @return The gain that is applied on top of the stream volume.
+	 */
+	public float getGain()
+	{
+		return this.mGain;
+	}
+
 	/**
 	 * @return The shared preferences.
 	 */
@@ -267,6 +281,16 @@ public class NacAudioAttributes
 		this.setStreamVolume(previous);
 	}
 
+	/**
+	 * Set the gain that is applied on top of the stream volume.
+	 *
+	 * @param  gain  The gain, from 0 to 1.
+	 */
+	public void setGain(float gain)
+	{
+		this.mGain = gain;
+	}
+
 	/**
 	 * Set the audio usage from the source name.
 	 */
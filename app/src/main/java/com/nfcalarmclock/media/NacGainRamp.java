@@ -0,0 +1,232 @@
+package com.nfcalarmclock.media;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Gradually raise a gain from 0 to 1, along a curve, over a period of time.
+ *
+ * A single runnable is posted on a handler, and it reschedules itself every
+ * tick until the ramp is done. The gain is handed to a listener, which is
+ * expected to apply it to the player, so the steps are small enough that they
+ * are not heard as jumps.
+ */
+public class NacGainRamp
+{
+
+	/**
+	 * Listener for when the gain changes.
+	 */
+	public interface OnGainChangedListener
+	{
+
+		/**
+		 * Called when the gain changes.
+		 *
+		 * @param  gain  The gain, from 0 to 1.
+		 */
+		void onGainChanged(float gain);
+
+	}
+
+	/**
+	 * The gain rises at a constant rate.
+	 */
+	public static final int CURVE_LINEAR = 0;
+
+	/**
+	 * The gain rises quickly at first, and then levels off.
+	 */
+	public static final int CURVE_LOGARITHMIC = 1;
+
+	/**
+	 * The gain rises slowly at first, and then speeds up. The loudness, in
+	 * decibels, rises at a constant rate, which sounds the most even.
+	 */
+	public static final int CURVE_EXPONENTIAL = 2;
+
+	/**
+	 * Amount of time, in milliseconds, between each change in gain.
+	 */
+	public static final long TICK_MILLIS = 50;
+
+	/**
+	 * Range, in decibels, that the exponential curve covers.
+	 */
+	private static final float EXPONENTIAL_RANGE_DB = 60.0f;
+
+	/**
+	 * Gain at the start of the exponential curve, before it is moved down to
+	 * start at 0.
+	 */
+	private static final float EXPONENTIAL_FLOOR =
+		(float) Math.pow(10, -EXPONENTIAL_RANGE_DB/20);
+
+	/**
+	 * Handler that ticks the ramp.
+	 */
+	private final Handler mHandler;
+
+	/**
+	 * Runnable that changes the gain every tick.
+	 */
+	private final Runnable mTick;
+
+	/**
+	 * Listener for when the gain changes.
+	 */
+	private OnGainChangedListener mListener;
+
+	/**
+	 * Curve that the gain rises along.
+	 */
+	private int mCurve;
+
+	/**
+	 * Amount of time, in milliseconds, for the gain to reach 1.
+	 */
+	private long mDuration;
+
+	/**
+	 * Uptime, in milliseconds, at which the ramp started.
+	 */
+	private long mStartTime;
+
+	/**
+	 * Gain that was last handed to the listener.
+	 */
+	private float mGain;
+
+	/**
+	 */
+	public NacGainRamp(Looper looper)
+	{
+		this.mHandler = new Handler(looper);
+		this.mTick = this::tick;
+		this.mListener = null;
+		this.mCurve = CURVE_LINEAR;
+		this.mDuration = 0;
+		this.mStartTime = 0;
+		this.mGain = 1.0f;
+	}
+
+	/**
+	 * Compute the gain at a point along a curve.
+	 *
+	 * @param  curve  The curve.
+	 * @param  fraction  How far along the ramp it is, from 0 to 1.
+	 *
+	 * @return The gain, from 0 to 1.
+	 */
+	public static float computeGain(int curve, float fraction)
+	{
+		float f = Math.max(0.0f, Math.min(fraction, 1.0f));
+
+		// Rises quickly, then levels off
+		if (curve == CURVE_LOGARITHMIC)
+		{
+			return (float) Math.log10(1 + 9*f);
+		}
+		// Rises evenly in decibels, moved down and scaled to start at 0
+		else if (curve == CURVE_EXPONENTIAL)
+		{
+			float gain = (float) Math.pow(10, EXPONENTIAL_RANGE_DB*(f-1)/20);
+
+			return (gain - EXPONENTIAL_FLOOR) / (1 - EXPONENTIAL_FLOOR);
+		}
+		// Linear
+		else
+		{
+			return f;
+		}
+	}
+
+	/**
+	 * @return The gain that was last handed to the listener.
+	 */
+	public float getGain()
+	{
+		return this.mGain;
+	}
+
+	/**
+	 * Hand a gain to the listener, if it changed.
+	 */
+	private void setGain(float gain)
+	{
+		OnGainChangedListener listener = this.mListener;
+
+		if (gain == this.mGain)
+		{
+			return;
+		}
+
+		this.mGain = gain;
+
+		if (listener != null)
+		{
+			listener.onGainChanged(gain);
+		}
+	}
+
+	/**
+	 * Set the listener for when the gain changes.
+	 *
+	 * @param  listener  The listener.
+	 */
+	public void setOnGainChangedListener(OnGainChangedListener listener)
+	{
+		this.mListener = listener;
+	}
+
+	/**
+	 * Start the ramp at a gain of 0.
+	 *
+	 * @param  curve  The curve that the gain rises along.
+	 * @param  duration  Amount of time, in milliseconds, for the gain to
+	 *     reach 1.
+	 */
+	public void start(int curve, long duration)
+	{
+		this.stop();
+
+		this.mCurve = curve;
+		this.mDuration = duration;
+		this.mStartTime = SystemClock.uptimeMillis();
+		this.mGain = -1.0f;
+
+		this.tick();
+	}
+
+	/**
+	 * Stop the ramp, leaving the gain where it is.
+	 */
+	public void stop()
+	{
+		this.mHandler.removeCallbacks(this.mTick);
+	}
+
+	/**
+	 * Change the gain to where it should be now, and schedule the next tick
+	 * if the ramp is not done.
+	 */
+	private void tick()
+	{
+		long elapsed = SystemClock.uptimeMillis() - this.mStartTime;
+		long duration = this.mDuration;
+
+		// Ramp is done
+		if (elapsed >= duration)
+		{
+			this.setGain(1.0f);
+			return;
+		}
+
+		float fraction = (float) elapsed / duration;
+
+		this.setGain(NacGainRamp.computeGain(this.mCurve, fraction));
+		this.mHandler.postDelayed(this.mTick, TICK_MILLIS);
+	}
+
+}
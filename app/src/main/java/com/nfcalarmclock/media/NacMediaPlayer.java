@@ -56,6 +56,11 @@ public class NacMediaPlayer
 	 */
 	private boolean mShouldGainTransientAudioFocus;
 
+	/**
+	 * Whether the media of an alarm was prepared, and has not been played yet.
+	 */
+	private boolean mIsPrepared;
+
 	/**
 	 */
 	public NacMediaPlayer(Context context)
@@ -71,6 +76,7 @@ public class NacMediaPlayer
 		this.mHandler = new Handler(looper);
 		this.mWasPlaying = false;
 		this.mShouldGainTransientAudioFocus = false;
+		this.mIsPrepared = false;
 	}
 
 	/**
@@ -127,6 +133,15 @@ public class NacMediaPlayer
 		return this.mMediaPlayer;
 	}
 
+	/**
+	 * @return True if the media of an alarm was prepared, and has not been
+	 *     played yet, and False otherwise.
+	 */
+	public boolean isPrepared()
+	{
+		return this.mIsPrepared;
+	}
+
 	/**
 	 * Change media state when audio focus changes.
 	 */
@@ -240,6 +255,14 @@ public class NacMediaPlayer
      */
 	public void playAlarm(NacAlarm alarm)
 	{
+		// Media was already loaded and buffered
+		if (this.isPrepared())
+		{
+			this.mIsPrepared = false;
+			this.play();
+			return;
+		}
+
 		NacAudioAttributes attrs = this.getAudioAttributes();
 		int type = alarm.getMediaType();
 		String path = alarm.getMediaPath();
@@ -323,13 +346,61 @@ public class NacMediaPlayer
 		this.playMediaItems(items);
 	}
 
+	/**
+	 * Load and buffer the media associated with the given alarm, without
+	 * playing it.
+	 *
+	 * Audio focus is not requested and the volume is not changed, so nothing
+	 * else that is playing is interrupted. The next call to playAlarm() plays
+	 * what was buffered.
+	 *
+	 * @param  alarm  The alarm to get the media path from.
+	 */
+	public void prepareAlarm(NacAlarm alarm)
+	{
+		Context context = this.getContext();
+		NacAudioAttributes attrs = this.getAudioAttributes();
+		ExoPlayer player = this.getMediaPlayer();
+		int type = alarm.getMediaType();
+		String path = alarm.getMediaPath();
+
+		// Merge alarm with audio attributes
+		attrs.merge(alarm);
+
+		// Load the directory as a playlist
+		if (NacMedia.isDirectory(type))
+		{
+			player.setMediaItems(NacMedia.buildMediaItemsFromDirectory(context,
+				path));
+		}
+		// Load the media
+		else
+		{
+			player.setMediaItem(NacMedia.buildMediaItemFromFile(context,
+				Uri.parse(path)));
+		}
+
+		// Start buffering the media
+		player.setAudioAttributes(attrs.getAudioAttributes(), false);
+		player.setRepeatMode(Player.REPEAT_MODE_ALL);
+		player.prepare();
+
+		this.mIsPrepared = true;
+	}
+
 	/**
 	 * Release the media player.
 	 */
 	public void release()
 	{
-		this.getAudioAttributes().revertVolume();
-		this.abandonAudioFocus();
+		// Media that was only prepared did not change the volume or take audio
+		// focus, so there is nothing to revert
+		if (!this.isPrepared())
+		{
+			this.getAudioAttributes().revertVolume();
+			this.abandonAudioFocus();
+		}
+
 		this.cleanupHandler();
 		this.getMediaPlayer().release();
 	}
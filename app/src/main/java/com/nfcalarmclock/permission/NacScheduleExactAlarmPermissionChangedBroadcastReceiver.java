@@ -6,6 +6,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 
+import com.nfcalarmclock.alarm.NacAlarmRepository;
 import com.nfcalarmclock.scheduler.NacScheduler;
 
 /**
@@ -45,7 +46,25 @@ public class NacScheduleExactAlarmPermissionChangedBroadcastReceiver
 			if (alarmManager.canScheduleExactAlarms())
 			{
 				// Refresh all alarms
-				NacScheduler.refreshAll(context);
+				PendingResult result = goAsync();
+				NacAlarmRepository repo = new NacAlarmRepository(context);
+
+				repo.getAllAlarmsNow(alarms -> {
+
+					try
+					{
+						// Alarms were read
+						if (alarms != null)
+						{
+							NacScheduler.refreshAll(context, alarms);
+						}
+					}
+					finally
+					{
+						result.finish();
+					}
+
+				});
 			}
 		}
 	}
@@ -0,0 +1,259 @@
+package com.nfcalarmclock.scheduler;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.alarm.NacNextAlarmIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decide which alarms should be registered with the system, when only the
+ * next alarm is scheduled.
+ *
+ * This keeps the index of all enabled alarms, and the changes that were made
+ * before the index was loaded, but it does not register or cancel anything
+ * itself. The scheduler carries out the plan that it returns, which means the
+ * decisions can be checked without a context.
+ *
+ * This is not thread safe, so access from more than one thread must be
+ * synchronized.
+ */
+public class NacNextAlarmPlanner
+{
+
+	/**
+	 * Alarms that should be cancelled and registered.
+	 */
+	public static class Plan
+	{
+
+		/**
+		 * IDs of the alarms that should be cancelled.
+		 */
+		private final List<Long> mCancelIds;
+
+		/**
+		 * Alarms that should be registered.
+		 */
+		private final List<NacAlarm> mAlarms;
+
+		/**
+		 * Time at which the alarms should be registered to run.
+		 */
+		private final long mMillis;
+
+		/**
+		 */
+		public Plan(List<Long> cancelIds, List<NacAlarm> alarms, long millis)
+		{
+			this.mCancelIds = cancelIds;
+			this.mAlarms = alarms;
+			this.mMillis = millis;
+		}
+
+		/**
+		 * @return The alarms that should be registered, which is empty if no
+		 *     alarms are enabled.
+		 */
+		public List<NacAlarm> getAlarms()
+		{
+			return this.mAlarms;
+		}
+
+		/**
+		 * @return The IDs of the alarms that should be cancelled.
+		 */
+		public List<Long> getCancelIds()
+		{
+			return this.mCancelIds;
+		}
+
+		/**
+		 * @return The time at which the alarms should be registered to run, in
+		 *     epoch milliseconds, or -1 if no alarms are enabled.
+		 */
+		public long getMillis()
+		{
+			return this.mMillis;
+		}
+
+	}
+
+	/**
+	 * The change was applied to the index, and the alarms should be planned
+	 * again.
+	 */
+	public static final int CHANGE_APPLIED = 0;
+
+	/**
+	 * The change was kept until the index is loaded, and the alarm should be
+	 * scheduled as usual until then.
+	 */
+	public static final int CHANGE_PENDING = 1;
+
+	/**
+	 * The change was kept until the index is loaded, and the index should
+	 * start loading.
+	 */
+	public static final int CHANGE_LOAD = 2;
+
+	/**
+	 * Trigger time of a change that removes an alarm.
+	 */
+	public static final long REMOVE = -2;
+
+	/**
+	 * Index of all enabled alarms.
+	 */
+	private final NacNextAlarmIndex mIndex;
+
+	/**
+	 * Alarms that changed before the index was loaded, keyed by ID.
+	 */
+	private final Map<Long, NacAlarm> mPendingAlarms;
+
+	/**
+	 * Trigger times of the alarms that changed before the index was loaded,
+	 * keyed by ID. This is -1 to compute the trigger time from the alarm, or
+	 * REMOVE to remove the alarm.
+	 */
+	private final Map<Long, Long> mPendingMillis;
+
+	/**
+	 * Whether the index has been loaded with all alarms.
+	 */
+	private boolean mIsLoaded;
+
+	/**
+	 * Whether the index is being loaded.
+	 */
+	private boolean mIsLoading;
+
+	/**
+	 */
+	public NacNextAlarmPlanner()
+	{
+		this.mIndex = new NacNextAlarmIndex(true);
+		this.mPendingAlarms = new LinkedHashMap<>();
+		this.mPendingMillis = new LinkedHashMap<>();
+		this.mIsLoaded = false;
+		this.mIsLoading = false;
+	}
+
+	/**
+	 * Apply a change to an alarm to the index.
+	 */
+	private void applyToIndex(NacAlarm alarm, long millis, long now)
+	{
+		if (millis == REMOVE)
+		{
+			this.mIndex.remove(alarm.getId());
+		}
+		else
+		{
+			this.mIndex.update(alarm, millis, now);
+		}
+	}
+
+	/**
+	 * Apply a change to an alarm.
+	 *
+	 * If the index has not been loaded yet, the change is kept until it is.
+	 *
+	 * @param  alarm  Alarm that changed.
+	 * @param  millis  Time at which the alarm should run, -1 to compute it
+	 *     from the alarm, or REMOVE if the alarm should be removed.
+	 * @param  now  The current time, in epoch milliseconds.
+	 *
+	 * @return CHANGE_APPLIED, CHANGE_PENDING, or CHANGE_LOAD.
+	 */
+	public int change(NacAlarm alarm, long millis, long now)
+	{
+		if (this.mIsLoaded)
+		{
+			this.applyToIndex(alarm, millis, now);
+			return CHANGE_APPLIED;
+		}
+
+		this.mPendingAlarms.put(alarm.getId(), alarm);
+		this.mPendingMillis.put(alarm.getId(), millis);
+
+		if (this.mIsLoading)
+		{
+			return CHANGE_PENDING;
+		}
+
+		this.mIsLoading = true;
+		return CHANGE_LOAD;
+	}
+
+	/**
+	 * @return True if the index has been loaded with all alarms, and False
+	 *     otherwise.
+	 */
+	public boolean isLoaded()
+	{
+		return this.mIsLoaded;
+	}
+
+	/**
+	 * Load the index with all alarms, along with any changes that were made
+	 * while it was being loaded.
+	 *
+	 * @param  alarms  List of all enabled alarms.
+	 * @param  now  The current time, in epoch milliseconds.
+	 */
+	public void load(List<NacAlarm> alarms, long now)
+	{
+		this.mIndex.apply(alarms, now);
+
+		for (long id : this.mPendingAlarms.keySet())
+		{
+			this.applyToIndex(this.mPendingAlarms.get(id),
+				this.mPendingMillis.get(id), now);
+		}
+
+		this.mPendingAlarms.clear();
+		this.mPendingMillis.clear();
+		this.mIsLoaded = true;
+		this.mIsLoading = false;
+	}
+
+	/**
+	 * Plan which alarms should be registered, so that only the alarms that
+	 * will run next are registered.
+	 *
+	 * @param  registeredIds  IDs of the alarms that are registered.
+	 * @param  now  The current time, in epoch milliseconds.
+	 *
+	 * @return The plan.
+	 */
+	public Plan plan(long[] registeredIds, long now)
+	{
+		List<NacAlarm> next = this.mIndex.getNextAlarms(now);
+		long millis = this.mIndex.getNextMillis(now);
+		Set<Long> nextIds = new HashSet<>();
+		List<Long> cancelIds = new ArrayList<>();
+
+		for (NacAlarm a : next)
+		{
+			nextIds.add(a.getId());
+		}
+
+		// Cancel alarms that are no longer next
+		for (long id : registeredIds)
+		{
+			if (!nextIds.contains(id))
+			{
+				cancelIds.add(id);
+			}
+		}
+
+		return new Plan(cancelIds, next, millis);
+	}
+
+}
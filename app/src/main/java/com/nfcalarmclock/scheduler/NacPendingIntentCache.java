@@ -0,0 +1,226 @@
+package com.nfcalarmclock.scheduler;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.util.LongSparseArray;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+
+import java.util.Locale;
+
+/**
+ * Cache of the pending intents that alarms are registered with.
+ *
+ * Building the pending intent that starts an alarm puts the whole alarm in
+ * a bundle, which is then marshalled and sent to the system. The pending
+ * intent only needs to be built again when the alarm itself changes, so the
+ * pending intent is kept, along with a hash of the alarm it was built with,
+ * and reused for as long as the alarm stays the same. This also holds for the
+ * pending intent that shows the main activity, which does not change at all.
+ *
+ * The time the alarm goes off at is not part of the intent, so moving an
+ * alarm to another day reuses the same pending intent.
+ */
+public class NacPendingIntentCache
+{
+
+	/**
+	 * A pending intent that starts an alarm.
+	 */
+	private static class Entry
+	{
+
+		/**
+		 * Hash of the alarm that the pending intent was built with.
+		 */
+		long hash;
+
+		/**
+		 * Generation of the cache that the pending intent was built in.
+		 */
+		int generation;
+
+		/**
+		 * Pending intent.
+		 */
+		PendingIntent operation;
+
+	}
+
+	/**
+	 * Singleton instance of the cache.
+	 */
+	private static NacPendingIntentCache sInstance;
+
+	/**
+	 * Pending intents that start an alarm, keyed by alarm ID.
+	 */
+	private final LongSparseArray<Entry> mOperations;
+
+	/**
+	 * Pending intents that show the main activity, keyed by alarm ID.
+	 */
+	private final LongSparseArray<PendingIntent> mShowIntents;
+
+	/**
+	 * Generation of the cache. Pending intents that were built in an older
+	 * generation are built again.
+	 */
+	private int mGeneration;
+
+	/**
+	 * Number of pending intents that were reused.
+	 */
+	private int mHitCount;
+
+	/**
+	 * Number of pending intents that were built.
+	 */
+	private int mMissCount;
+
+	/**
+	 */
+	private NacPendingIntentCache()
+	{
+		this.mOperations = new LongSparseArray<>();
+		this.mShowIntents = new LongSparseArray<>();
+		this.mGeneration = 0;
+		this.mHitCount = 0;
+		this.mMissCount = 0;
+	}
+
+	/**
+	 * Get the pending intent to cancel an alarm with.
+	 *
+	 * Pending intents are matched without their extras, so the cached pending
+	 * intent of the alarm is the same one the system would look up.
+	 *
+	 * @param  context  Context.
+	 * @param  id  Alarm ID.
+	 *
+	 * @return The pending intent, or null if the alarm has no pending intent.
+	 */
+	public PendingIntent getCancelOperation(Context context, int id)
+	{
+		synchronized (this)
+		{
+			Entry entry = this.mOperations.get(id);
+
+			if (entry != null)
+			{
+				this.mHitCount++;
+				return entry.operation;
+			}
+
+			this.mMissCount++;
+		}
+
+		return NacScheduler.buildAlarmPendingIntent(context, id,
+			PendingIntent.FLAG_NO_CREATE);
+	}
+
+	/**
+	 * Get the cache instance.
+	 *
+	 * @return The cache instance.
+	 */
+	public static synchronized NacPendingIntentCache getInstance()
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacPendingIntentCache();
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * Get the pending intent that starts an alarm.
+	 *
+	 * The pending intent is only built if the alarm changed since it was last
+	 * built, in which case the old one is cancelled.
+	 *
+	 * @param  context  Context.
+	 * @param  alarm  Alarm.
+	 *
+	 * @return The pending intent.
+	 */
+	public synchronized PendingIntent getOperation(Context context,
+		NacAlarm alarm)
+	{
+		long id = alarm.getId();
+		long hash = NacScheduleRecord.hash(alarm);
+		Entry entry = this.mOperations.get(id);
+
+		if ((entry != null) && (entry.hash == hash)
+			&& (entry.generation == this.mGeneration))
+		{
+			this.mHitCount++;
+			return entry.operation;
+		}
+
+		if (entry == null)
+		{
+			entry = new Entry();
+			this.mOperations.put(id, entry);
+		}
+
+		entry.hash = hash;
+		entry.generation = this.mGeneration;
+		entry.operation = NacScheduler.buildAlarmPendingIntent(context, alarm,
+			PendingIntent.FLAG_CANCEL_CURRENT);
+		this.mMissCount++;
+
+		return entry.operation;
+	}
+
+	/**
+	 * Get the pending intent that shows the main activity for an alarm.
+	 *
+	 * @param  context  Context.
+	 * @param  alarm  Alarm.
+	 *
+	 * @return The pending intent.
+	 */
+	public synchronized PendingIntent getShowIntent(Context context,
+		NacAlarm alarm)
+	{
+		long id = alarm.getId();
+		PendingIntent pending = this.mShowIntents.get(id);
+
+		if (pending != null)
+		{
+			this.mHitCount++;
+			return pending;
+		}
+
+		pending = NacScheduler.buildMainActivityPendingIntent(context, alarm);
+		this.mMissCount++;
+
+		this.mShowIntents.put(id, pending);
+		return pending;
+	}
+
+	/**
+	 * Build every pending intent that starts an alarm again, the next time it
+	 * is needed.
+	 */
+	public synchronized void invalidate()
+	{
+		this.mGeneration++;
+	}
+
+	/**
+	 * @return The counts of pending intents that were reused and built, as
+	 *     text.
+	 */
+	public synchronized String toText()
+	{
+		Locale locale = Locale.getDefault();
+
+		return String.format(locale,
+			"  pending intents reused %1$d, built %2$d\n",
+			this.mHitCount, this.mMissCount);
+	}
+
+}
@@ -0,0 +1,311 @@
+package com.nfcalarmclock.scheduler;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.LongSparseArray;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.system.NacAlarmCodec;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Record of the alarms that were last registered with the AlarmManager.
+ *
+ * For each alarm, the time it was registered to go off at, and a hash of the
+ * alarm that was put in the intent, are saved, so that an alarm that has not
+ * changed does not need to be cancelled and registered again.
+ *
+ * The record is saved in its own shared preferences file, so that it
+ * survives the process being killed. Alarms registered with the AlarmManager
+ * do not survive a reboot or the app being force stopped, so the first time
+ * the record is loaded in a process, it checks that the intent of an alarm
+ * in the record still exists. If it does not, the record is cleared.
+ */
+public class NacScheduleRecord
+{
+
+	/**
+	 * Name of the shared preferences file.
+	 */
+	public static final String PREFERENCES_NAME = "schedule_record";
+
+	/**
+	 * Key that is set once every alarm the AlarmManager knows about is in the
+	 * record.
+	 */
+	private static final String KEY_COMPLETE = "complete";
+
+	/**
+	 * Singleton instance of the record.
+	 */
+	private static NacScheduleRecord sInstance;
+
+	/**
+	 * Shared preferences that the record is saved in.
+	 */
+	private final SharedPreferences mPreferences;
+
+	/**
+	 * Registered alarms, keyed by ID, as the trigger time and the alarm hash.
+	 */
+	private final LongSparseArray<long[]> mAlarms;
+
+	/**
+	 * Whether every alarm the AlarmManager knows about is in the record. If
+	 * not, an alarm that is not in the record may still need to be cancelled.
+	 */
+	private boolean mIsComplete;
+
+	/**
+	 * Number of alarms that were registered with the AlarmManager.
+	 */
+	private int mAddCount;
+
+	/**
+	 * Number of alarms that were cancelled with the AlarmManager.
+	 */
+	private int mCancelCount;
+
+	/**
+	 * Number of calls to the AlarmManager that were not needed.
+	 */
+	private int mSkipCount;
+
+	/**
+	 */
+	private NacScheduleRecord(Context context)
+	{
+		Context appContext = context.getApplicationContext();
+
+		this.mPreferences = appContext.getSharedPreferences(PREFERENCES_NAME,
+			Context.MODE_PRIVATE);
+		this.mAlarms = new LongSparseArray<>();
+		this.mIsComplete = false;
+		this.mAddCount = 0;
+		this.mCancelCount = 0;
+		this.mSkipCount = 0;
+
+		this.load(appContext);
+	}
+
+	/**
+	 * Check if an alarm is already registered with the same trigger time and
+	 * the same alarm, in which case it does not need to be registered again.
+	 *
+	 * @param  alarm  Alarm to register.
+	 * @param  millis  Time at which the alarm should go off.
+	 *
+	 * @return True if the alarm is already registered, and False otherwise.
+	 */
+	public synchronized boolean isRegistered(NacAlarm alarm, long millis)
+	{
+		long[] record = this.mAlarms.get(alarm.getId());
+
+		return (record != null)
+			&& (record[0] == millis)
+			&& (record[1] == NacScheduleRecord.hash(alarm))
+			&& (millis > System.currentTimeMillis());
+	}
+
+	/**
+	 * Check if an alarm is known to not be registered, in which case it does
+	 * not need to be cancelled.
+	 *
+	 * @param  id  Alarm ID.
+	 *
+	 * @return True if the alarm is not registered, and False if it is, or it
+	 *     may be.
+	 */
+	public synchronized boolean isUnregistered(long id)
+	{
+		return this.mIsComplete && (this.mAlarms.get(id) == null);
+	}
+
+	/**
+	 * Remove all alarms from the record.
+	 */
+	private void clear()
+	{
+		this.mAlarms.clear();
+		this.mIsComplete = false;
+		this.mPreferences.edit().clear().apply();
+	}
+
+	/**
+	 * Get the record instance.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The record instance.
+	 */
+	public static synchronized NacScheduleRecord getInstance(Context context)
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacScheduleRecord(context);
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * @return The IDs of all alarms in the record.
+	 */
+	public synchronized long[] getIds()
+	{
+		long[] ids = new long[this.mAlarms.size()];
+
+		for (int i=0; i < ids.length; i++)
+		{
+			ids[i] = this.mAlarms.keyAt(i);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * @return Hash of the alarm that is put in the intent.
+	 */
+	static long hash(NacAlarm alarm)
+	{
+		return Arrays.hashCode(NacAlarmCodec.encode(alarm));
+	}
+
+	/**
+	 * Load the record, and clear it if the alarms in it are no longer
+	 * registered.
+	 */
+	private void load(Context context)
+	{
+		long now = System.currentTimeMillis();
+		long probeId = -1;
+
+		for (Map.Entry<String,?> e : this.mPreferences.getAll().entrySet())
+		{
+			String key = e.getKey();
+			Object value = e.getValue();
+
+			if (key.equals(KEY_COMPLETE))
+			{
+				this.mIsComplete = Boolean.TRUE.equals(value);
+				continue;
+			}
+
+			String[] parts = String.valueOf(value).split(":");
+
+			try
+			{
+				long id = Long.parseLong(key);
+				long millis = Long.parseLong(parts[0]);
+				long hash = Long.parseLong(parts[1]);
+
+				this.mAlarms.put(id, new long[] { millis, hash });
+
+				if (millis > now)
+				{
+					probeId = id;
+				}
+			}
+			catch (RuntimeException ignored)
+			{
+			}
+		}
+
+		if (probeId < 0)
+		{
+			return;
+		}
+
+		// Check that an alarm that should still be registered has an intent
+		PendingIntent pending = NacScheduler.buildAlarmPendingIntent(context,
+			(int)probeId, PendingIntent.FLAG_NO_CREATE);
+
+		if (pending == null)
+		{
+			this.clear();
+		}
+	}
+
+	/**
+	 * Called when an alarm was registered with the AlarmManager.
+	 *
+	 * @param  alarm  Alarm that was registered.
+	 * @param  millis  Time at which the alarm will go off.
+	 */
+	public synchronized void onAdded(NacAlarm alarm, long millis)
+	{
+		long id = alarm.getId();
+		long hash = NacScheduleRecord.hash(alarm);
+
+		this.mAlarms.put(id, new long[] { millis, hash });
+		this.mAddCount++;
+		this.mPreferences.edit()
+			.putString(String.valueOf(id), millis + ":" + hash)
+			.apply();
+	}
+
+	/**
+	 * Called when an alarm was cancelled with the AlarmManager.
+	 *
+	 * @param  id  ID of the alarm that was cancelled.
+	 */
+	public synchronized void onCancelled(long id)
+	{
+		this.mCancelCount++;
+
+		if (this.mAlarms.get(id) == null)
+		{
+			return;
+		}
+
+		this.mAlarms.remove(id);
+		this.mPreferences.edit()
+			.remove(String.valueOf(id))
+			.apply();
+	}
+
+	/**
+	 * Called when every alarm has been reconciled with the AlarmManager, so
+	 * that every alarm that is registered is in the record.
+	 */
+	public synchronized void onComplete()
+	{
+		if (this.mIsComplete)
+		{
+			return;
+		}
+
+		this.mIsComplete = true;
+		this.mPreferences.edit()
+			.putBoolean(KEY_COMPLETE, true)
+			.apply();
+	}
+
+	/**
+	 * Called when calls to the AlarmManager were skipped, because they were
+	 * not needed.
+	 *
+	 * @param  count  Number of calls that were skipped.
+	 */
+	public synchronized void onSkipped(int count)
+	{
+		this.mSkipCount += count;
+	}
+
+	/**
+	 * @return The counts of calls to the AlarmManager, as text.
+	 */
+	public synchronized String toText()
+	{
+		Locale locale = Locale.getDefault();
+
+		return String.format(locale,
+			"\nScheduler\n  added %1$d, cancelled %2$d, skipped %3$d\n",
+			this.mAddCount, this.mCancelCount, this.mSkipCount);
+	}
+
+}
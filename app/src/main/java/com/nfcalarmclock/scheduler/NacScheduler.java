@@ -9,11 +9,19 @@ import android.os.Build;
 
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.alarm.NacAlarmRepository;
+import com.nfcalarmclock.alarm.NacAlarmSchedule;
+import com.nfcalarmclock.alarm.NacAlarmTime;
 import com.nfcalarmclock.activealarm.NacActiveAlarmBroadcastReceiver;
+import com.nfcalarmclock.activealarm.NacPrepareAlarmBroadcastReceiver;
+import com.nfcalarmclock.activealarm.NacPreparedWakeup;
+import com.nfcalarmclock.db.NacDatabaseWarmer;
+import com.nfcalarmclock.db.NacRepository;
 import com.nfcalarmclock.main.NacMainActivity;
-import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.shared.NacSharedPreferences;
 import com.nfcalarmclock.system.NacIntent;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
@@ -23,6 +31,24 @@ import java.util.List;
 public class NacScheduler
 {
 
+	/**
+	 * Version of the cleanup of alarms that were scheduled by old versions of
+	 * the app.
+	 *
+	 * Increase this when the way alarms are scheduled changes again, and add
+	 * the cleanup for the previous way to cleanupLegacyAlarms().
+	 */
+	public static final int LEGACY_CLEANUP_VERSION = 1;
+
+	/**
+	 * Planner of the alarms that are registered, used when only the next
+	 * alarm is scheduled.
+	 *
+	 * This is also the lock for scheduling only the next alarm.
+	 */
+	private static final NacNextAlarmPlanner sPlanner =
+		new NacNextAlarmPlanner();
+
 	/**
 	 * Add an alarm day to the scheduler.
 	 */
@@ -35,20 +61,36 @@ public class NacScheduler
 
 		// Time at which the alarm should go off
 		long millis = day.getTimeInMillis();
+		NacScheduleRecord record = NacScheduleRecord.getInstance(context);
+
+		// Alarm is already registered to go off at this time
+		if (record.isRegistered(alarm, millis))
+		{
+			record.onSkipped(1);
+			return;
+		}
+
+		NacPendingIntentCache cache = NacPendingIntentCache.getInstance();
 
 		// Show the main activity
-		PendingIntent showPendingIntent = NacScheduler.buildMainActivityPendingIntent(
-			context, alarm);
+		PendingIntent showPendingIntent = cache.getShowIntent(context, alarm);
 
 		// Operation to perform when the alarm goes off
-		PendingIntent operationPendingIntent = NacScheduler.buildAlarmPendingIntent(
-			context, alarm, PendingIntent.FLAG_CANCEL_CURRENT);
+		PendingIntent operationPendingIntent = cache.getOperation(context, alarm);
 
 		// Set the alarm
 		AlarmClockInfo clock = new AlarmClockInfo(millis, showPendingIntent);
 		AlarmManager manager = NacScheduler.getAlarmManager(context);
 
 		manager.setAlarmClock(clock, operationPendingIntent);
+		record.onAdded(alarm, millis);
+
+		// Open the database in the background, so that it is already warm if
+		// the alarm goes off while this process is alive
+		NacDatabaseWarmer.warm(context);
+
+		// Prepare the alarm shortly before it goes off
+		NacScheduler.addPrepareAlarm(context, alarm, millis);
 	}
 
 	/**
@@ -61,10 +103,57 @@ public class NacScheduler
 			return;
 		}
 
-		Calendar day = NacCalendar.getNextAlarmDay(alarm);
+		Calendar day = NacScheduler.getNextAlarmDay(alarm);
 		NacScheduler.add(context, alarm, day);
 	}
 
+	/**
+	 * Add the alarm that prepares an alarm shortly before it goes off, if
+	 * that is enabled.
+	 *
+	 * @param  context  Context.
+	 * @param  alarm  Alarm.
+	 * @param  millis  Time at which the alarm will go off.
+	 */
+	public static void addPrepareAlarm(Context context, NacAlarm alarm,
+		long millis)
+	{
+		NacSharedPreferences shared = new NacSharedPreferences(context);
+
+		if (!shared.getPrepareAlarm())
+		{
+			return;
+		}
+
+		AlarmManager manager = NacScheduler.getAlarmManager(context);
+		long prepareMillis = millis - shared.getPrepareAlarmSeconds()*1000L;
+
+		// Too late to prepare the alarm, or unable to prepare it on time
+		if ((prepareMillis <= System.currentTimeMillis())
+			|| ((Build.VERSION.SDK_INT >= Build.VERSION_CODES.S)
+				&& !manager.canScheduleExactAlarms()))
+		{
+			return;
+		}
+
+		// Build the pending intent
+		int id = (int) alarm.getId();
+		Intent intent = NacIntent.createPrepareAlarm(context, alarm, millis);
+		PendingIntent pending = NacScheduler.buildPrepareAlarmPendingIntent(
+			context, id, intent, PendingIntent.FLAG_CANCEL_CURRENT);
+
+		// Set the alarm
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+		{
+			manager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP,
+				prepareMillis, pending);
+		}
+		else
+		{
+			manager.setExact(AlarmManager.RTC_WAKEUP, prepareMillis, pending);
+		}
+	}
+
 	/**
 	 * @return Build the pending intent for an alarm.
 	 */
@@ -88,6 +177,17 @@ public class NacScheduler
 		}
 	}
 
+	/**
+	 * @return Build the pending intent for an alarm, without the alarm in it.
+	 */
+	public static PendingIntent buildAlarmPendingIntent(Context context, int id,
+		int flags)
+	{
+		Intent intent = NacIntent.createForegroundService(context, (NacAlarm)null);
+
+		return NacScheduler.buildAlarmPendingIntent(context, id, intent, flags);
+	}
+
 	/**
 	 * @return Build the pending intent for an alarm.
 	 */
@@ -140,6 +240,21 @@ public class NacScheduler
 		return PendingIntent.getActivity(context, (int)id, intent , flags);
 	}
 
+	/**
+	 * @return Build the pending intent that prepares an alarm.
+	 */
+	public static PendingIntent buildPrepareAlarmPendingIntent(Context context,
+		int id, Intent intent, int flags)
+	{
+		// Prepare the flags
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+		{
+			flags |= PendingIntent.FLAG_IMMUTABLE;
+		}
+
+		return PendingIntent.getBroadcast(context, id, intent, flags);
+	}
+
 	/**
 	 * Cancel the alarm with a given ID.
 	 *
@@ -148,16 +263,32 @@ public class NacScheduler
 	 */
 	public static void cancel(Context context, int id)
 	{
-		// Build the pending intent for the new type
-		Intent intent = NacIntent.createForegroundService(context, (NacAlarm)null);
-		PendingIntent pending = NacScheduler.buildAlarmPendingIntent(context, id,
-			intent, PendingIntent.FLAG_NO_CREATE);
+		NacScheduleRecord record = NacScheduleRecord.getInstance(context);
+
+		// Drop anything that was prepared for the alarm
+		NacPreparedWakeup.getInstance(context).release(id);
+
+		// Alarm is not registered, so there is nothing to cancel
+		if (record.isUnregistered(id))
+		{
+			record.onSkipped(1);
+			return;
+		}
+
+		// Cancel the alarm that prepares the alarm
+		NacScheduler.cancelPrepareAlarm(context, id);
+
+		// Get the pending intent for the new type
+		PendingIntent pending = NacPendingIntentCache.getInstance()
+			.getCancelOperation(context, id);
 
 		// Cancel the alarm
 		if (pending != null)
 		{
 			NacScheduler.getAlarmManager(context).cancel(pending);
 		}
+
+		record.onCancelled(id);
 	}
 
 	/**
@@ -170,23 +301,58 @@ public class NacScheduler
 			return;
 		}
 
+		NacTriggerTimeline.getInstance().remove(alarm.getId());
+
+		if (NacScheduler.scheduleNextAlarmOnly(context, alarm,
+			NacNextAlarmPlanner.REMOVE))
+		{
+			return;
+		}
+
 		NacScheduler.cancel(context, (int)alarm.getId());
 	}
 
 	/**
-	 * Cancel all active alarms.
+	 * Cancel all active alarms, without blocking the calling thread.
+	 *
+	 * @param  context  Context.
+	 * @param  listener  Called with the number of active alarms once they have
+	 *     all been updated in the database, or with null or -1 if the database
+	 *     could not be read or written. This is always called.
 	 */
-	public static void cancelAllActive(Context context)
+	public static void cancelAllActive(Context context,
+		NacRepository.OnResultListener<Integer> listener)
 	{
 		NacAlarmRepository repo = new NacAlarmRepository(context);
-		List<NacAlarm> activeAlarms = repo.getActiveAlarmsNow();
 
-		for (NacAlarm a : activeAlarms)
-		{
-			a.dismiss();
-			repo.update(a);
-			NacScheduler.cancel(context, a);
-		}
+		repo.getActiveAlarmsNow(activeAlarms -> {
+
+			// Unable to read the active alarms, or there are none
+			if ((activeAlarms == null) || activeAlarms.isEmpty())
+			{
+				if (listener != null)
+				{
+					listener.onResult((activeAlarms == null) ? -1 : 0);
+				}
+
+				return;
+			}
+
+			try
+			{
+				for (NacAlarm a : activeAlarms)
+				{
+					a.dismiss();
+					NacScheduler.cancel(context, a);
+				}
+			}
+			finally
+			{
+				// Update all the alarms in a single transaction
+				repo.update(activeAlarms, listener);
+			}
+
+		});
 	}
 
 	/**
@@ -244,22 +410,46 @@ public class NacScheduler
 	}
 
 	/**
-	 * @return The AlarmManager.
+	 * Cancel the alarm that prepares the alarm with a given ID.
+	 *
+	 * @param  context  Context.
+	 * @param  id  Alarm ID.
 	 */
-	public static AlarmManager getAlarmManager(Context context)
+	public static void cancelPrepareAlarm(Context context, int id)
 	{
-		return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+		Intent intent = NacIntent.createPrepareAlarm(context, null, 0);
+		PendingIntent pending = NacScheduler.buildPrepareAlarmPendingIntent(
+			context, id, intent, PendingIntent.FLAG_NO_CREATE);
+
+		// Cancel the alarm
+		if (pending != null)
+		{
+			NacScheduler.getAlarmManager(context).cancel(pending);
+			pending.cancel();
+		}
 	}
 
 	/**
-	 * Refresh all alarms.
+	 * Cancel alarms that were scheduled by old versions of the app, if that
+	 * has not been done yet.
+	 *
+	 * This is only done once, and is then recorded in the shared preferences,
+	 * so that refreshing alarms does not look up the old intents every time.
+	 *
+	 * @param  context  Context.
+	 * @param  alarms  All alarms.
 	 */
-	public static void refreshAll(Context context)
+	public static void cleanupLegacyAlarms(Context context,
+		List<? extends NacAlarmTime> alarms)
 	{
-		NacAlarmRepository repo = new NacAlarmRepository(context);
-		List<NacAlarm> alarms = repo.getAllAlarmsNow();
+		NacSharedPreferences shared = new NacSharedPreferences(context);
 
-		for (NacAlarm a : alarms)
+		if (shared.getLegacyAlarmCleanupVersion() >= LEGACY_CLEANUP_VERSION)
+		{
+			return;
+		}
+
+		for (NacAlarmTime a : alarms)
 		{
 			int id = (int) a.getId();
 
@@ -268,13 +458,212 @@ public class NacScheduler
 
 			// Clear out the old alarms (Use IMMUTABLE flag)
 			NacScheduler.cancelOld(context, id);
+		}
+
+		shared.editLegacyAlarmCleanupVersion(LEGACY_CLEANUP_VERSION);
+	}
+
+	/**
+	 * @return The AlarmManager.
+	 */
+	public static AlarmManager getAlarmManager(Context context)
+	{
+		return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+	}
+
+	/**
+	 * @return The next day that an alarm will run on, from the trigger
+	 *     timeline.
+	 */
+	private static Calendar getNextAlarmDay(NacAlarm alarm)
+	{
+		NacTriggerTimeline timeline = NacTriggerTimeline.getInstance();
+		long millis = timeline.getNext(alarm.getId(), alarm,
+			System.currentTimeMillis());
+		Calendar day = Calendar.getInstance();
+
+		day.setTimeInMillis(millis);
+		return day;
+	}
+
+	/**
+	 * @return True if only the next alarm should be scheduled with the system,
+	 *     and False if every enabled alarm should be.
+	 */
+	public static boolean isNextAlarmOnly(Context context)
+	{
+		NacSharedPreferences shared = new NacSharedPreferences(context);
+
+		return shared.getScheduleNextAlarmOnly();
+	}
+
+	/**
+	 * Register only the alarms that will run next, and cancel every other
+	 * alarm that is registered.
+	 *
+	 * The caller must hold the lock on the planner.
+	 */
+	private static void rearm(Context context)
+	{
+		NacScheduleRecord record = NacScheduleRecord.getInstance(context);
+		NacNextAlarmPlanner.Plan plan = sPlanner.plan(record.getIds(),
+			System.currentTimeMillis());
+
+		for (long id : plan.getCancelIds())
+		{
+			NacScheduler.cancel(context, (int)id);
+		}
+
+		if (plan.getAlarms().isEmpty())
+		{
+			return;
+		}
+
+		Calendar day = Calendar.getInstance();
 
+		day.setTimeInMillis(plan.getMillis());
+
+		for (NacAlarm a : plan.getAlarms())
+		{
+			NacScheduler.add(context, a, day);
+		}
+	}
+
+	/**
+	 * Refresh all alarms.
+	 *
+	 * This does not block the calling thread while the alarms are read from the
+	 * database.
+	 */
+	public static void refreshAll(Context context)
+	{
+		NacAlarmRepository repo = new NacAlarmRepository(context);
+
+		repo.getAllAlarmsNow(alarms -> {
+
+			// Unable to read the alarms
+			if (alarms == null)
+			{
+				return;
+			}
+
+			NacScheduler.refreshAll(context, alarms);
+
+		});
+	}
+
+	/**
+	 * Refresh a list of alarms.
+	 */
+	public static void refreshAll(Context context, List<NacAlarm> alarms)
+	{
+		NacScheduler.cleanupLegacyAlarms(context, alarms);
+		NacPendingIntentCache.getInstance().invalidate();
+
+		if (NacScheduler.isNextAlarmOnly(context))
+		{
+			synchronized (sPlanner)
+			{
+				// Clear out any new alarms, just in case
+				for (NacAlarm a : alarms)
+				{
+					NacScheduler.cancel(context, (int)a.getId());
+				}
+
+				NacScheduleRecord.getInstance(context).onComplete();
+				sPlanner.load(alarms, System.currentTimeMillis());
+				NacScheduler.rearm(context);
+			}
+
+			return;
+		}
+
+		for (NacAlarm a : alarms)
+		{
 			// Clear out any new alarms, just in case
-			NacScheduler.cancel(context, a);
+			NacScheduler.cancel(context, (int)a.getId());
 
 			// Add each alarm
 			NacScheduler.add(context, a);
 		}
+
+		NacScheduleRecord.getInstance(context).onComplete();
+		NacTriggerTimeline.getInstance().onComplete();
+	}
+
+	/**
+	 * Register the alarms that will run next, when only the next alarm is
+	 * scheduled.
+	 *
+	 * This should be called when an alarm goes off, so that the alarm after it
+	 * is registered, even if the alarm that went off is never dismissed or
+	 * snoozed.
+	 */
+	public static void scheduleNextAlarm(Context context)
+	{
+		if (!NacScheduler.isNextAlarmOnly(context))
+		{
+			return;
+		}
+
+		synchronized (sPlanner)
+		{
+			if (sPlanner.isLoaded())
+			{
+				NacScheduler.rearm(context);
+				return;
+			}
+		}
+
+		NacScheduler.updateAll(context);
+	}
+
+	/**
+	 * Apply a change to an alarm, when only the next alarm is scheduled.
+	 *
+	 * If the index has not been loaded yet, the change is kept until it is,
+	 * and the index starts loading. Until then, the alarm should be scheduled
+	 * as usual, so that it is not missed.
+	 *
+	 * @param  context  Context.
+	 * @param  alarm  Alarm that changed.
+	 * @param  millis  Time at which the alarm should run, -1 to compute it
+	 *     from the alarm, or NacNextAlarmPlanner.REMOVE if the alarm should be
+	 *     removed.
+	 *
+	 * @return True if the change was handled, and False if the alarm should be
+	 *     scheduled as usual.
+	 */
+	private static boolean scheduleNextAlarmOnly(Context context, NacAlarm alarm,
+		long millis)
+	{
+		if (!NacScheduler.isNextAlarmOnly(context))
+		{
+			return false;
+		}
+
+		int result;
+
+		synchronized (sPlanner)
+		{
+			result = sPlanner.change(alarm, millis, System.currentTimeMillis());
+
+			if (result == NacNextAlarmPlanner.CHANGE_APPLIED)
+			{
+				NacScheduler.rearm(context);
+				return true;
+			}
+		}
+
+		if (result == NacNextAlarmPlanner.CHANGE_LOAD)
+		{
+			NacScheduler.updateAll(context);
+		}
+
+		synchronized (sPlanner)
+		{
+			return sPlanner.isLoaded();
+		}
 	}
 
 	/**
@@ -282,39 +671,244 @@ public class NacScheduler
 	 */
 	public static void update(Context context, NacAlarm alarm)
 	{
-		NacScheduler.cancel(context, alarm);
-		NacScheduler.add(context, alarm);
+		if ((alarm == null) || !alarm.isEnabled())
+		{
+			NacScheduler.cancel(context, alarm);
+			return;
+		}
+
+		if (NacScheduler.scheduleNextAlarmOnly(context, alarm, -1))
+		{
+			return;
+		}
+
+		Calendar day = NacScheduler.getNextAlarmDay(alarm);
+		NacScheduler.updateDay(context, alarm, day);
 	}
 
 	/**
 	 * Update a single day in a given alarm.
+	 *
+	 * If the alarm is already registered to go off at the same time, with the
+	 * same alarm, nothing is cancelled or registered.
 	 */
 	public static void update(Context context, NacAlarm alarm, Calendar day)
 	{
-		NacScheduler.cancel(context, alarm);
-		NacScheduler.add(context, alarm, day);
+		if ((alarm != null) && alarm.isEnabled()
+			&& NacScheduler.scheduleNextAlarmOnly(context, alarm,
+				day.getTimeInMillis()))
+		{
+			return;
+		}
+
+		NacScheduler.updateDay(context, alarm, day);
+	}
+
+	/**
+	 * Update the alarms whose trigger time moved because the time, date, or
+	 * time zone changed.
+	 *
+	 * If every enabled alarm is in the trigger timeline, only the alarms whose
+	 * next trigger time moved are read and registered again. Otherwise, all
+	 * alarms are updated.
+	 *
+	 * @param  context  Context.
+	 * @param  listener  Called with the number of alarms that were updated, or
+	 *     -1 if the alarms could not be read. This is always called.
+	 */
+	public static void updateAfterTimeChange(Context context,
+		NacRepository.OnResultListener<Integer> listener)
+	{
+		NacTriggerTimeline timeline = NacTriggerTimeline.getInstance();
+
+		if (!timeline.isComplete() || NacScheduler.isNextAlarmOnly(context))
+		{
+			NacScheduler.updateAll(context, listener);
+			return;
+		}
+
+		long[] ids = timeline.onTimeChanged(System.currentTimeMillis());
+
+		if (ids.length == 0)
+		{
+			NacRepository.postResult(listener, 0);
+			return;
+		}
+
+		NacAlarmRepository repo = new NacAlarmRepository(context);
+
+		repo.findAlarms(ids, alarms -> {
+
+			int count = -1;
+
+			try
+			{
+				if (alarms != null)
+				{
+					NacScheduler.updateAll(context, alarms);
+					count = alarms.size();
+				}
+			}
+			finally
+			{
+				NacRepository.postResult(listener, count);
+			}
+
+		});
 	}
 
 	/**
 	 * Update all alarms.
+	 *
+	 * This does not block the calling thread while the alarms are read from the
+	 * database.
 	 */
 	public static void updateAll(Context context)
+	{
+		NacScheduler.updateAll(context,
+			(NacRepository.OnResultListener<Integer>) null);
+	}
+
+	/**
+	 * Update all alarms.
+	 *
+	 * If the alarm cache is not loaded, only the schedule of each alarm is read
+	 * at first. Disabled alarms are cancelled by ID, and only the enabled alarms
+	 * are read in full, since those are the only ones that need an intent.
+	 *
+	 * Alarms that are already registered to go off at the right time are left
+	 * alone, and alarms that are known to not be registered are not cancelled.
+	 *
+	 * @param  context  Context.
+	 * @param  listener  Called with the number of alarms that were scheduled,
+	 *     or -1 if the alarms could not be read. This is always called.
+	 */
+	public static void updateAll(Context context,
+		NacRepository.OnResultListener<Integer> listener)
 	{
 		NacAlarmRepository repo = new NacAlarmRepository(context);
-		List<NacAlarm> alarms = repo.getAllAlarmsNow();
+		NacScheduleRecord record = NacScheduleRecord.getInstance(context);
+		NacTriggerTimeline timeline = NacTriggerTimeline.getInstance();
+		List<NacAlarm> cachedAlarms = repo.getAlarmCache().getAllAlarms();
 
-		NacScheduler.updateAll(context, alarms);
+		// All alarms are already in memory
+		if (cachedAlarms != null)
+		{
+			NacScheduler.cleanupLegacyAlarms(context, cachedAlarms);
+			NacScheduler.updateAll(context, cachedAlarms);
+			record.onComplete();
+			timeline.onComplete();
+			NacRepository.postResult(listener, cachedAlarms.size());
+			return;
+		}
+
+		repo.getAllSchedulesNow(schedules -> {
+
+			// Unable to read the schedules
+			if (schedules == null)
+			{
+				NacRepository.postResult(listener, -1);
+				return;
+			}
+
+			NacScheduler.cleanupLegacyAlarms(context, schedules);
+
+			long[] ids = new long[schedules.size()];
+			int count = 0;
+
+			for (NacAlarmSchedule s : schedules)
+			{
+				if (s.isEnabled())
+				{
+					ids[count++] = s.getId();
+				}
+				else
+				{
+					NacScheduler.cancel(context, (int)s.getId());
+				}
+			}
+
+			if (count == 0)
+			{
+				NacScheduler.updateAll(context, new ArrayList<>());
+				record.onComplete();
+				timeline.onComplete();
+				NacRepository.postResult(listener, 0);
+				return;
+			}
+
+			repo.findAlarms(Arrays.copyOf(ids, count), alarms -> {
+
+				int size = -1;
+
+				try
+				{
+					if (alarms != null)
+					{
+						NacScheduler.updateAll(context, alarms);
+						record.onComplete();
+						timeline.onComplete();
+						size = alarms.size();
+					}
+				}
+				finally
+				{
+					NacRepository.postResult(listener, size);
+				}
+
+			});
+
+		});
 	}
 
 	/**
 	 * Update a list of alarms.
+	 *
+	 * When only the next alarm is scheduled, the list must hold all enabled
+	 * alarms.
 	 */
 	public static void updateAll(Context context, List<NacAlarm> alarms)
 	{
+		if (NacScheduler.isNextAlarmOnly(context))
+		{
+			synchronized (sPlanner)
+			{
+				sPlanner.load(alarms, System.currentTimeMillis());
+				NacScheduler.rearm(context);
+			}
+
+			return;
+		}
+
 		for (NacAlarm a : alarms)
 		{
 			NacScheduler.update(context, a);
 		}
 	}
 
+	/**
+	 * Register a single day in a given alarm with the AlarmManager.
+	 *
+	 * If the alarm is already registered to go off at the same time, with the
+	 * same alarm, nothing is cancelled or registered.
+	 */
+	private static void updateDay(Context context, NacAlarm alarm, Calendar day)
+	{
+		NacScheduleRecord record = NacScheduleRecord.getInstance(context);
+
+		if ((alarm != null) && alarm.isEnabled()
+			&& record.isRegistered(alarm, day.getTimeInMillis()))
+		{
+			record.onSkipped(2);
+			return;
+		}
+
+		if (alarm != null)
+		{
+			NacScheduler.cancel(context, (int)alarm.getId());
+		}
+
+		NacScheduler.add(context, alarm, day);
+	}
+
 }
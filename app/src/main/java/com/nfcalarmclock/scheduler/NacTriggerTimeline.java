@@ -0,0 +1,358 @@
+package com.nfcalarmclock.scheduler;
+
+import com.nfcalarmclock.alarm.NacAlarmTime;
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Timeline of the times at which each alarm will run, over a rolling window
+ * of days.
+ *
+ * Each alarm keeps the wall times of its occurrences in the window, along
+ * with those same times in epoch milliseconds. Wall times do not depend on
+ * the time zone, so when the time zone changes, only the epoch times are
+ * converted again. Alarms whose next trigger time did not move do not need to
+ * be registered again.
+ *
+ * The wall time of each occurrence is converted with NacCalendar.Trigger, the
+ * same as everywhere else that computes when an alarm runs, so an alarm that
+ * falls in a daylight saving gap is only moved on the day of the gap, and an
+ * alarm that falls in an overlap runs at the first of the two times.
+ *
+ * This only uses java.util, so that it can be benchmarked on a plain JVM.
+ */
+public class NacTriggerTimeline
+{
+
+	/**
+	 * Number of days in the window.
+	 */
+	public static final int WINDOW_DAYS = 28;
+
+	/**
+	 * Minimum number of days that the window must extend past today, so that
+	 * an alarm that runs once a week always has an occurrence left.
+	 */
+	private static final int MIN_DAYS_AHEAD = 8;
+
+	/**
+	 * Occurrences of a single alarm.
+	 */
+	private static class Schedule
+	{
+
+		/**
+		 * Hour the alarm runs at.
+		 */
+		int hour;
+
+		/**
+		 * Minute the alarm runs at.
+		 */
+		int minute;
+
+		/**
+		 * Days the alarm runs on, as a value of Days.
+		 */
+		int days;
+
+		/**
+		 * Wall time of each occurrence, in milliseconds since the epoch, as if
+		 * the wall time were in UTC.
+		 */
+		long[] walls;
+
+		/**
+		 * Time of each occurrence, in epoch milliseconds.
+		 */
+		long[] millis;
+
+		/**
+		 * The next trigger time that was last handed out.
+		 */
+		long next;
+
+	}
+
+	/**
+	 * Singleton instance of the timeline.
+	 */
+	private static NacTriggerTimeline sInstance;
+
+	/**
+	 * Occurrences of each alarm, keyed by ID.
+	 */
+	private final Map<Long, Schedule> mSchedules;
+
+	/**
+	 * Time zone that the epoch times were converted with.
+	 */
+	private TimeZone mZone;
+
+	/**
+	 * First day in the window, as the number of days since the epoch, in wall
+	 * time.
+	 */
+	private long mStartDay;
+
+	/**
+	 * Whether every enabled alarm is in the timeline.
+	 */
+	private boolean mIsComplete;
+
+	/**
+	 */
+	private NacTriggerTimeline()
+	{
+		this.mSchedules = new HashMap<>();
+		this.mZone = null;
+		this.mStartDay = 0;
+		this.mIsComplete = false;
+	}
+
+	/**
+	 * Fill in the occurrences of an alarm in the window.
+	 */
+	private void compute(Schedule schedule)
+	{
+		TimeZone zone = this.mZone;
+		long timeOfDay = schedule.hour*NacCalendar.Trigger.HOUR_MILLIS
+			+ schedule.minute*NacCalendar.Trigger.MINUTE_MILLIS;
+
+		// An alarm that only runs once runs on the next day that it can
+		int days = (schedule.days != 0) ? schedule.days : 0x7f;
+		long[] walls = new long[WINDOW_DAYS];
+		int count = 0;
+
+		for (int i=0; i < WINDOW_DAYS; i++)
+		{
+			long day = this.mStartDay + i;
+
+			if ((days & NacCalendar.Trigger.getDayValue(day)) != 0)
+			{
+				walls[count++] = day*NacCalendar.Trigger.DAY_MILLIS + timeOfDay;
+			}
+		}
+
+		schedule.walls = Arrays.copyOf(walls, count);
+		schedule.millis = new long[count];
+
+		for (int i=0; i < count; i++)
+		{
+			schedule.millis[i] = NacCalendar.Trigger.toMillis(zone,
+				schedule.walls[i]);
+		}
+	}
+
+	/**
+	 * Make sure the window covers today, and that the time zone is the current
+	 * one.
+	 */
+	private void ensureWindow(long now)
+	{
+		TimeZone zone = NacCalendar.Trigger.getTimeZone();
+
+		// Time zone changed, only the epoch times need to be converted again
+		if ((this.mZone != null) && !this.isSameZone(this.mZone, zone))
+		{
+			this.mZone = zone;
+
+			for (Schedule schedule : this.mSchedules.values())
+			{
+				this.shift(schedule);
+			}
+		}
+
+		this.mZone = zone;
+
+		long today = NacCalendar.Trigger.floorDiv(now + zone.getOffset(now),
+			NacCalendar.Trigger.DAY_MILLIS);
+
+		// Window still covers today, and enough days after it
+		if ((today > this.mStartDay)
+			&& (today + MIN_DAYS_AHEAD <= this.mStartDay + WINDOW_DAYS))
+		{
+			return;
+		}
+
+		// Start the window the day before today, so that a clock that is set
+		// back a little does not need the window to be moved again
+		this.mStartDay = today - 1;
+
+		for (Schedule schedule : this.mSchedules.values())
+		{
+			this.compute(schedule);
+		}
+	}
+
+	/**
+	 * Get the timeline instance.
+	 *
+	 * @return The timeline instance.
+	 */
+	public static synchronized NacTriggerTimeline getInstance()
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacTriggerTimeline();
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * Get the time at which an alarm will run next.
+	 *
+	 * The occurrences of the alarm are computed if the alarm is not in the
+	 * timeline yet, or if its time or days changed.
+	 *
+	 * @param  id     Alarm ID.
+	 * @param  alarm  Alarm time.
+	 * @param  now    The current time, in epoch milliseconds.
+	 *
+	 * @return The time at which the alarm will run next, in epoch milliseconds.
+	 */
+	public synchronized long getNext(long id, NacAlarmTime alarm, long now)
+	{
+		this.ensureWindow(now);
+
+		int hour = alarm.getHour();
+		int minute = alarm.getMinute();
+		int days = NacCalendar.Days.daysToValue(alarm.getDays());
+		Schedule schedule = this.mSchedules.get(id);
+
+		if ((schedule == null) || (schedule.hour != hour)
+			|| (schedule.minute != minute) || (schedule.days != days))
+		{
+			schedule = new Schedule();
+			schedule.hour = hour;
+			schedule.minute = minute;
+			schedule.days = days;
+
+			this.compute(schedule);
+			this.mSchedules.put(id, schedule);
+		}
+
+		schedule.next = this.getNext(schedule, hour, minute, days, now);
+
+		return schedule.next;
+	}
+
+	/**
+	 * @return The first occurrence of an alarm that is not in the past.
+	 */
+	private long getNext(Schedule schedule, int hour, int minute, int days,
+		long now)
+	{
+		long[] millis = schedule.millis;
+
+		for (long m : millis)
+		{
+			if (m >= now)
+			{
+				return m;
+			}
+		}
+
+		// The window always extends past the next week, so this should not
+		// happen, but compute it without the window just in case
+		return NacCalendar.Trigger.getNext(hour, minute, days, now);
+	}
+
+	/**
+	 * @return True if every enabled alarm is in the timeline, and False
+	 *     otherwise.
+	 */
+	public synchronized boolean isComplete()
+	{
+		return this.mIsComplete;
+	}
+
+	/**
+	 * @return True if two time zones convert times the same way, and False
+	 *     otherwise.
+	 */
+	private boolean isSameZone(TimeZone a, TimeZone b)
+	{
+		return (a == b) || (a.getID().equals(b.getID()) && a.hasSameRules(b));
+	}
+
+	/**
+	 * Called once every enabled alarm has been added to the timeline.
+	 */
+	public synchronized void onComplete()
+	{
+		this.mIsComplete = true;
+	}
+
+	/**
+	 * Called when the time, date, or time zone changed.
+	 *
+	 * Only the epoch times of the occurrences are converted again, and the
+	 * window is moved if today is no longer in it.
+	 *
+	 * @param  now  The current time, in epoch milliseconds.
+	 *
+	 * @return The IDs of the alarms whose next trigger time moved.
+	 */
+	public synchronized long[] onTimeChanged(long now)
+	{
+		this.ensureWindow(now);
+
+		long[] ids = new long[this.mSchedules.size()];
+		int count = 0;
+
+		for (Map.Entry<Long, Schedule> entry : this.mSchedules.entrySet())
+		{
+			Schedule schedule = entry.getValue();
+			long next = this.getNext(schedule, schedule.hour, schedule.minute,
+				schedule.days, now);
+
+			if (next != schedule.next)
+			{
+				schedule.next = next;
+				ids[count++] = entry.getKey();
+			}
+		}
+
+		return Arrays.copyOf(ids, count);
+	}
+
+	/**
+	 * Remove an alarm from the timeline.
+	 *
+	 * @param  id  Alarm ID.
+	 */
+	public synchronized void remove(long id)
+	{
+		this.mSchedules.remove(id);
+	}
+
+	/**
+	 * Convert the epoch times of an alarm again, with the current time zone.
+	 */
+	private void shift(Schedule schedule)
+	{
+		TimeZone zone = this.mZone;
+		long[] walls = schedule.walls;
+		long[] millis = schedule.millis;
+
+		for (int i=0; i < walls.length; i++)
+		{
+			millis[i] = NacCalendar.Trigger.toMillis(zone, walls[i]);
+		}
+	}
+
+	/**
+	 * @return The number of alarms in the timeline.
+	 */
+	public synchronized int size()
+	{
+		return this.mSchedules.size();
+	}
+
+}
@@ -1,9 +1,19 @@
 package com.nfcalarmclock.settings;
 
+import android.app.AlertDialog;
+import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceManager;
 
 import com.nfcalarmclock.R;
+import com.nfcalarmclock.db.NacDatabaseTimings;
+import com.nfcalarmclock.scheduler.NacPendingIntentCache;
+import com.nfcalarmclock.scheduler.NacScheduleRecord;
+import com.nfcalarmclock.scheduler.NacScheduler;
+import com.nfcalarmclock.shared.NacSharedConstants;
+import com.nfcalarmclock.shared.NacSharedKeys;
 
 /**
  * Miscellaneous fragment.
@@ -22,4 +32,65 @@ public class NacMiscellaneousSettingsFragment
 			R.xml.miscellaneous_preferences, false);
 	}
 
+	/**
+	 */
+	@Override
+	public boolean onPreferenceTreeClick(Preference preference)
+	{
+		NacSharedKeys keys = this.getSharedKeys();
+		String preferenceKey = preference.getKey();
+
+		if ((preferenceKey != null)
+			&& preferenceKey.equals(keys.getViewDatabaseTimings()))
+		{
+			this.showDatabaseTimings();
+		}
+		else if ((preferenceKey != null)
+			&& preferenceKey.equals(keys.getScheduleNextAlarmOnly()))
+		{
+			// Register or cancel alarms to match the new scheduling mode
+			NacScheduler.refreshAll(getContext());
+		}
+		else if ((preferenceKey != null)
+			&& preferenceKey.equals(keys.getPrepareAlarm()))
+		{
+			// Register or cancel the alarms that prepare each alarm
+			NacScheduler.refreshAll(getContext());
+		}
+
+		return super.onPreferenceTreeClick(preference);
+	}
+
+	/**
+	 * Share the database timings as text.
+	 */
+	private void shareDatabaseTimings(String text)
+	{
+		Intent intent = new Intent(Intent.ACTION_SEND);
+
+		intent.setType("text/plain");
+		intent.putExtra(Intent.EXTRA_TEXT, text);
+		startActivity(Intent.createChooser(intent, null));
+	}
+
+	/**
+	 * Show the database timings, with the option to share them.
+	 */
+	private void showDatabaseTimings()
+	{
+		Context context = getContext();
+		NacSharedConstants cons = new NacSharedConstants(context);
+		String text = NacDatabaseTimings.toText()
+			+ NacScheduleRecord.getInstance(context).toText()
+			+ NacPendingIntentCache.getInstance().toText();
+
+		new AlertDialog.Builder(context)
+			.setTitle(R.string.view_database_timings)
+			.setMessage(text)
+			.setPositiveButton(cons.getActionShare(),
+				(dialog, which) -> this.shareDatabaseTimings(text))
+			.setNegativeButton(cons.getActionOk(), null)
+			.show();
+	}
+
 }
@@ -3,7 +3,7 @@ package com.nfcalarmclock.shared;
 import android.content.Context;
 import android.content.res.Resources;
 
-import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.R;
 
 import java.util.Calendar;
@@ -113,6 +113,14 @@ public class NacSharedConstants
 		return this.getString(R.string.action_rate_now);
 	}
 
+	/**
+	 * @return Share action.
+	 */
+	public String getActionShare()
+	{
+		return this.getString(R.string.action_share);
+	}
+
 	/**
 	 * @return Snooze action.
 	 */
@@ -643,7 +651,7 @@ public class NacSharedConstants
 		Calendar calendar = Calendar.getInstance();
 		int hour = calendar.get(Calendar.HOUR_OF_DAY);
 		int minute = calendar.get(Calendar.MINUTE);
-		String meridian = NacCalendar.Time.getMeridian(context, hour);
+		String meridian = NacCalendarFormat.Time.getMeridian(context, hour);
 
 		if (lang.equals("es"))
 		{
@@ -666,7 +674,7 @@ public class NacSharedConstants
 
 		if ((meridian != null) && !meridian.isEmpty())
 		{
-			hour = NacCalendar.Time.to12HourFormat(hour);
+			hour = NacCalendarFormat.Time.to12HourFormat(hour);
 		}
 
 		return String.format(locale,
@@ -690,7 +698,7 @@ public class NacSharedConstants
 		}
 		else
 		{
-			hour = NacCalendar.Time.to12HourFormat(hour);
+			hour = NacCalendarFormat.Time.to12HourFormat(hour);
 			String theTimeIs = (hour == 1) ? "Es, la," : "Son, las,";
 			String showMinute = minute == 0 ? "" : String.valueOf(minute);
 
@@ -156,6 +156,22 @@ public class NacSharedDefaults
 		return this.getBoolean(R.bool.default_expand_new_alarm);
 	}
 
+	/**
+	 * @return The curve that the volume gradually increases along.
+	 */
+	public int getGraduallyIncreaseVolumeCurve()
+	{
+		return this.getInteger(R.integer.default_gradually_increase_volume_curve);
+	}
+
+	/**
+	 * @return The number of seconds it takes the volume to gradually increase.
+	 */
+	public int getGraduallyIncreaseVolumeSeconds()
+	{
+		return this.getInteger(R.integer.default_gradually_increase_volume_seconds);
+	}
+
 	/**
 	 * @return The max snooze index.
 	 */
@@ -199,6 +215,22 @@ public class NacSharedDefaults
 		return this.getInteger(R.integer.default_pm_color);
 	}
 
+	/**
+	 * @return Whether alarms should be prepared before they run.
+	 */
+	public boolean getPrepareAlarm()
+	{
+		return this.getBoolean(R.bool.default_prepare_alarm);
+	}
+
+	/**
+	 * @return The number of seconds before an alarm runs, to prepare it.
+	 */
+	public int getPrepareAlarmSeconds()
+	{
+		return this.getInteger(R.integer.default_prepare_alarm_seconds);
+	}
+
 	/**
 	 * @return The prevent app from closing.
 	 */
@@ -223,6 +255,14 @@ public class NacSharedDefaults
 		return this.getInteger(R.integer.default_rate_my_app_counter);
 	}
 
+	/**
+	 * @return Whether database timings should be recorded.
+	 */
+	public boolean getRecordDatabaseTimings()
+	{
+		return this.getBoolean(R.bool.default_database_timings);
+	}
+
 	/**
 	 * @return Rate my app limit.
 	 */
@@ -247,6 +287,14 @@ public class NacSharedDefaults
 		return this.getBoolean(R.bool.default_repeat);
 	}
 
+	/**
+	 * @return Whether only the next alarm should be scheduled.
+	 */
+	public boolean getScheduleNextAlarmOnly()
+	{
+		return this.getBoolean(R.bool.default_schedule_next_alarm_only);
+	}
+
 	/**
 	 * @return Should gradually increase volume.
 	 */
@@ -331,6 +379,15 @@ public class NacSharedDefaults
 		return this.getInteger(R.integer.default_start_week_on_index);
 	}
 
+	/**
+	 * @return The number of days to keep each statistic, before it is rolled
+	 *     up into daily totals.
+	 */
+	public int getStatisticsRetentionDays()
+	{
+		return this.getInteger(R.integer.default_statistics_retention_days);
+	}
+
 	/**
 	 * @return The theme color.
 	 */
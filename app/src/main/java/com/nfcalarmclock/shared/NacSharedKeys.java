@@ -206,6 +206,30 @@ public class NacSharedKeys
 		return this.getString(R.string.general_setting);
 	}
 
+	/**
+	 * @return The gradually increase volume curve key.
+	 */
+	public String getGraduallyIncreaseVolumeCurve()
+	{
+		return this.getString(R.string.gradually_increase_volume_curve_key);
+	}
+
+	/**
+	 * @return The gradually increase volume seconds key.
+	 */
+	public String getGraduallyIncreaseVolumeSeconds()
+	{
+		return this.getString(R.string.gradually_increase_volume_seconds_key);
+	}
+
+	/**
+	 * @return The legacy alarm cleanup version key.
+	 */
+	public String getLegacyAlarmCleanupVersion()
+	{
+		return this.getString(R.string.legacy_alarm_cleanup_version);
+	}
+
 	/**
 	 * @return The max snooze key.
 	 */
@@ -278,6 +302,22 @@ public class NacSharedKeys
 		return this.getString(R.string.pm_color_key);
 	}
 
+	/**
+	 * @return The prepare alarm key.
+	 */
+	public String getPrepareAlarm()
+	{
+		return this.getString(R.string.prepare_alarm_key);
+	}
+
+	/**
+	 * @return The prepare alarm seconds key.
+	 */
+	public String getPrepareAlarmSeconds()
+	{
+		return this.getString(R.string.prepare_alarm_seconds_key);
+	}
+
 	/**
 	 * @return The previous version of the app key.
 	 */
@@ -303,6 +343,14 @@ public class NacSharedKeys
 		return this.getString(R.string.app_rating_counter);
 	}
 
+	/**
+	 * @return The record database timings key.
+	 */
+	public String getRecordDatabaseTimings()
+	{
+		return this.getString(R.string.database_timings_key);
+	}
+
 	/**
 	 * @return The repeat key.
 	 */
@@ -311,6 +359,14 @@ public class NacSharedKeys
 		return this.getString(R.string.alarm_repeat_key);
 	}
 
+	/**
+	 * @return The schedule next alarm only key.
+	 */
+	public String getScheduleNextAlarmOnly()
+	{
+		return this.getString(R.string.schedule_next_alarm_only_key);
+	}
+
 	/**
 	 * @return The should gradually increase volume key.
 	 */
@@ -399,6 +455,14 @@ public class NacSharedKeys
 		return this.getString(R.string.stats_setting_key);
 	}
 
+	/**
+	 * @return The statistics retention days key.
+	 */
+	public String getStatisticsRetentionDays()
+	{
+		return this.getString(R.string.stats_retention_days_key);
+	}
+
 	/**
 	 * @return The statistics setting title.
 	 */
@@ -455,6 +519,14 @@ public class NacSharedKeys
 		return this.getString(R.string.alarm_vibrate_key);
 	}
 
+	/**
+	 * @return The view database timings key.
+	 */
+	public String getViewDatabaseTimings()
+	{
+		return this.getString(R.string.view_database_timings_key);
+	}
+
 	/**
 	 * @return The volume key.
 	 */
@@ -4,7 +4,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import androidx.preference.PreferenceManager;
 
-import com.nfcalarmclock.system.NacCalendar;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.util.file.NacFile;
 import com.nfcalarmclock.media.NacMedia;
 
@@ -196,6 +196,17 @@ public class NacSharedPreferences
 		this.saveBoolean(key, easy, false);
 	}
 
+	/**
+	 * Edit the version of the cleanup of alarms from old versions of the app,
+	 * that was last done.
+	 */
+	public void editLegacyAlarmCleanupVersion(int version)
+	{
+		String key = this.getKeys().getLegacyAlarmCleanupVersion();
+
+		this.saveInt(key, version, true);
+	}
+
 	/**
 	 * Edit the max number of times a user is able to snooze an alarm.
 	 */
@@ -675,7 +686,7 @@ public class NacSharedPreferences
 		NacSharedConstants cons = this.getConstants();
 		int value = this.getDays();
 		int start = this.getStartWeekOn();
-		String days = NacCalendar.Days.toString(cons, value, start);
+		String days = NacCalendarFormat.Days.toString(cons, value, start);
 
 		return !days.isEmpty() ? days : cons.getNone();
 	}
@@ -710,6 +721,34 @@ public class NacSharedPreferences
 		return this.getBoolean(key, value);
 	}
 
+	/**
+	 * Get the curve that the volume gradually increases along.
+	 *
+	 * @return The curve that the volume gradually increases along. This is one
+	 *     of the curves in NacGainRamp.
+	 */
+	public int getGraduallyIncreaseVolumeCurve()
+	{
+		String key = this.getKeys().getGraduallyIncreaseVolumeCurve();
+		int value = this.getDefaults().getGraduallyIncreaseVolumeCurve();
+
+		return this.getInt(key, value);
+	}
+
+	/**
+	 * Get the number of seconds it takes the volume to gradually increase to
+	 * the alarm volume.
+	 *
+	 * @return The number of seconds it takes the volume to gradually increase.
+	 */
+	public int getGraduallyIncreaseVolumeSeconds()
+	{
+		String key = this.getKeys().getGraduallyIncreaseVolumeSeconds();
+		int value = this.getDefaults().getGraduallyIncreaseVolumeSeconds();
+
+		return this.getInt(key, value);
+	}
+
 	/**
 	 * @return The SharedPreferences instance.
 	 */
@@ -734,6 +773,17 @@ public class NacSharedPreferences
 		return this.mKeys;
 	}
 
+	/**
+	 * @return The version of the cleanup of alarms from old versions of the
+	 *     app, that was last done.
+	 */
+	public int getLegacyAlarmCleanupVersion()
+	{
+		String key = this.getKeys().getLegacyAlarmCleanupVersion();
+
+		return this.getInt(key, 0);
+	}
+
 	/**
 	 * @return The max number of snoozes.
 	 */
@@ -941,6 +991,31 @@ public class NacSharedPreferences
 		return this.getInt(key, value);
 	}
 
+	/**
+	 * @return Whether alarms should be prepared shortly before they run, so
+	 *     that sound starts as soon as they do.
+	 */
+	public boolean getPrepareAlarm()
+	{
+		String key = this.getKeys().getPrepareAlarm();
+		boolean value = this.getDefaults().getPrepareAlarm();
+
+		return this.getBoolean(key, value);
+	}
+
+	/**
+	 * Get the number of seconds before an alarm runs, to prepare it.
+	 *
+	 * @return The number of seconds before an alarm runs, to prepare it.
+	 */
+	public int getPrepareAlarmSeconds()
+	{
+		String key = this.getKeys().getPrepareAlarmSeconds();
+		int value = this.getDefaults().getPrepareAlarmSeconds();
+
+		return this.getInt(key, value);
+	}
+
 	/**
 	 * @return The previous version of the app.
 	 *
@@ -976,6 +1051,17 @@ public class NacSharedPreferences
 		return this.getInt(key, value);
 	}
 
+	/**
+	 * @return Whether database timings should be recorded or not.
+	 */
+	public boolean getRecordDatabaseTimings()
+	{
+		String key = this.getKeys().getRecordDatabaseTimings();
+		boolean value = this.getDefaults().getRecordDatabaseTimings();
+
+		return this.getBoolean(key, value);
+	}
+
 	/**
 	 * @return Whether the alarm should be repeated or not.
 	 */
@@ -987,6 +1073,18 @@ public class NacSharedPreferences
 		return this.getBoolean(key, value);
 	}
 
+	/**
+	 * @return Whether only the next alarm should be scheduled with the system,
+	 *     or every enabled alarm.
+	 */
+	public boolean getScheduleNextAlarmOnly()
+	{
+		String key = this.getKeys().getScheduleNextAlarmOnly();
+		boolean value = this.getDefaults().getScheduleNextAlarmOnly();
+
+		return this.getBoolean(key, value);
+	}
+
 	/**
 	 * @return Whether volume should be gradually increased or not.
 	 */
@@ -1138,6 +1236,22 @@ public class NacSharedPreferences
 		return this.getInt(key, value);
 	}
 
+	/**
+	 * Get the number of days to keep each statistic, before it is rolled up
+	 * into daily totals.
+	 *
+	 * A value of 0, or less, keeps every statistic forever.
+	 *
+	 * @return The number of days to keep each statistic.
+	 */
+	public int getStatisticsRetentionDays()
+	{
+		String key = this.getKeys().getStatisticsRetentionDays();
+		int value = this.getDefaults().getStatisticsRetentionDays();
+
+		return this.getInt(key, value);
+	}
+
 	/**
 	 * @return A string value from the SharedPreferences instance.
 	 */
@@ -26,7 +26,9 @@ public class NacShutdownBroadcastReceiver
 
 		if (action.equals(Intent.ACTION_SHUTDOWN))
 		{
-			NacScheduler.cancelAllActive(context);
+			PendingResult result = goAsync();
+
+			NacScheduler.cancelAllActive(context, count -> result.finish());
 		}
 	}
 
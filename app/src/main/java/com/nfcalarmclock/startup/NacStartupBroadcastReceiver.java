@@ -4,6 +4,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
+import com.nfcalarmclock.db.NacDatabaseWarmer;
 import com.nfcalarmclock.scheduler.NacScheduler;
 
 /**
@@ -26,7 +27,11 @@ public class NacStartupBroadcastReceiver
 
 		if (action.equals(Intent.ACTION_BOOT_COMPLETED))
 		{
-			NacScheduler.updateAll(context);
+			PendingResult result = goAsync();
+
+			NacDatabaseWarmer.warm(context);
+
+			NacScheduler.updateAll(context, count -> result.finish());
 		}
 	}
 
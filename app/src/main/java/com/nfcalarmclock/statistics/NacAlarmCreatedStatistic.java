@@ -1,12 +1,14 @@
 package com.nfcalarmclock.statistics;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 
 /**
  * Statistics for when an alarm is created.
  */
 @Entity(tableName="alarm_created_statistic",
-	ignoredColumns={"alarm_id", "hour", "minute", "name"})
+	ignoredColumns={"alarm_id", "hour", "minute", "name"},
+	indices={@Index(value={"timestamp"})})
 public class NacAlarmCreatedStatistic
 	extends NacAlarmStatistic
 {
@@ -30,17 +30,24 @@ public interface NacAlarmCreatedStatisticDao
 	/**
 	 * Get the date when the first alarm was created.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The date when the first alarm was created.
 	 */
-	@Query("SELECT MIN(timestamp) FROM alarm_created_statistic LIMIT 1")
+	@Query("SELECT IFNULL(MIN(t), 0) FROM ("
+		+ "SELECT MIN(timestamp) AS t FROM alarm_created_statistic UNION ALL "
+		+ "SELECT MIN(day) AS t FROM alarm_daily_statistic WHERE type='created')")
 	long getFirstCreatedDate();
 
 	/**
 	 * Count the number of created alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of created alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_created_statistic")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_created_statistic) + "
+		+ "(SELECT IFNULL(SUM(count), 0) FROM alarm_daily_statistic WHERE type='created')")
 	long getCount();
 
 }
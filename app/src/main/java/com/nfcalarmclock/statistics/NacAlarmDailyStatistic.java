@@ -0,0 +1,210 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Daily totals of an alarm statistic, for one alarm.
+ *
+ * Old rows in the other statistics tables are rolled up into these, so that
+ * the statistics tables do not grow forever.
+ */
+@Entity(tableName="alarm_daily_statistic",
+	indices={@Index(value={"type", "day", "alarm_id"}, unique=true)})
+public class NacAlarmDailyStatistic
+{
+
+	/**
+	 * Type of a created alarm statistic.
+	 */
+	public static final String TYPE_CREATED = "created";
+
+	/**
+	 * Type of a deleted alarm statistic.
+	 */
+	public static final String TYPE_DELETED = "deleted";
+
+	/**
+	 * Type of a dismissed alarm statistic.
+	 */
+	public static final String TYPE_DISMISSED = "dismissed";
+
+	/**
+	 * Type of a missed alarm statistic.
+	 */
+	public static final String TYPE_MISSED = "missed";
+
+	/**
+	 * Type of a snoozed alarm statistic.
+	 */
+	public static final String TYPE_SNOOZED = "snoozed";
+
+	/**
+	 * Unique ID.
+	 */
+	@PrimaryKey(autoGenerate=true)
+	@ColumnInfo(name="id")
+	private long mId;
+
+	/**
+	 * Type of statistic.
+	 */
+	@ColumnInfo(name="type")
+	@NonNull
+	private String mType;
+
+	/**
+	 * Timestamp of the start of the day, in local time.
+	 */
+	@ColumnInfo(name="day")
+	private long mDay;
+
+	/**
+	 * The ID of the alarm, or 0 if the statistic is not for an alarm.
+	 */
+	@ColumnInfo(name="alarm_id")
+	private long mAlarmId;
+
+	/**
+	 * Number of times the statistic happened on this day.
+	 */
+	@ColumnInfo(name="count", defaultValue="0")
+	private long mCount;
+
+	/**
+	 * Number of times NFC was used to dismiss the alarm on this day.
+	 */
+	@ColumnInfo(name="nfc_count", defaultValue="0")
+	private long mNfcCount;
+
+	/**
+	 * Total duration the alarm was snoozed for on this day.
+	 */
+	@ColumnInfo(name="duration", defaultValue="0")
+	private long mDuration;
+
+	/**
+	 */
+	public NacAlarmDailyStatistic()
+	{
+		this.mType = "";
+	}
+
+	/**
+	 * @return The ID of the alarm.
+	 */
+	public long getAlarmId()
+	{
+		return this.mAlarmId;
+	}
+
+	/**
+	 * @return The number of times the statistic happened on this day.
+	 */
+	public long getCount()
+	{
+		return this.mCount;
+	}
+
+	/**
+	 * @return The timestamp of the start of the day.
+	 */
+	public long getDay()
+	{
+		return this.mDay;
+	}
+
+	/**
+	 * @return The total duration the alarm was snoozed for on this day.
+	 */
+	public long getDuration()
+	{
+		return this.mDuration;
+	}
+
+	/**
+	 * @return The unique ID.
+	 */
+	public long getId()
+	{
+		return this.mId;
+	}
+
+	/**
+	 * @return The number of times NFC was used to dismiss the alarm on this
+	 *     day.
+	 */
+	public long getNfcCount()
+	{
+		return this.mNfcCount;
+	}
+
+	/**
+	 * @return The type of statistic.
+	 */
+	@NonNull
+	public String getType()
+	{
+		return this.mType;
+	}
+
+	/**
+	 * Set the ID of the alarm.
+	 */
+	public void setAlarmId(long alarmId)
+	{
+		this.mAlarmId = alarmId;
+	}
+
+	/**
+	 * Set the number of times the statistic happened on this day.
+	 */
+	public void setCount(long count)
+	{
+		this.mCount = count;
+	}
+
+	/**
+	 * Set the timestamp of the start of the day.
+	 */
+	public void setDay(long day)
+	{
+		this.mDay = day;
+	}
+
+	/**
+	 * Set the total duration the alarm was snoozed for on this day.
+	 */
+	public void setDuration(long duration)
+	{
+		this.mDuration = duration;
+	}
+
+	/**
+	 * Set the unique ID.
+	 */
+	public void setId(long id)
+	{
+		this.mId = id;
+	}
+
+	/**
+	 * Set the number of times NFC was used to dismiss the alarm on this day.
+	 */
+	public void setNfcCount(long count)
+	{
+		this.mNfcCount = count;
+	}
+
+	/**
+	 * Set the type of statistic.
+	 */
+	public void setType(@NonNull String type)
+	{
+		this.mType = type;
+	}
+
+}
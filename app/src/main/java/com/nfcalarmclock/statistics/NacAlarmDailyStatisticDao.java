@@ -0,0 +1,183 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import java.util.List;
+
+/**
+ * Data access object for the daily totals of alarm statistics.
+ *
+ * Rolling up the rows of a statistics table is done in three steps, which
+ * should all be run in the same transaction:
+ *
+ *     1. Find the largest ID of a chunk of rows that are older than the
+ *        horizon.
+ *     2. Get the daily totals of those rows, and add them to this table.
+ *     3. Delete those rows.
+ */
+@Dao
+@SuppressWarnings("UnnecessaryInterfaceModifier")
+public interface NacAlarmDailyStatisticDao
+{
+
+	/**
+	 * SQL expression for the timestamp of the start of the local day that a
+	 * statistic happened on.
+	 */
+	public static final String DAY = "(CAST(strftime('%s', date(timestamp/1000, "
+		+ "'unixepoch', 'localtime'), 'utc') AS INTEGER)*1000)";
+
+	/**
+	 * Add to the totals of a day, if the day already exists.
+	 *
+	 * @return The number of rows updated.
+	 */
+	@Query("UPDATE alarm_daily_statistic SET count=count+:count, "
+		+ "nfc_count=nfc_count+:nfcCount, duration=duration+:duration "
+		+ "WHERE type=:type AND day=:day AND alarm_id=:alarmId")
+	int add(String type, long day, long alarmId, long count, long nfcCount,
+		long duration);
+
+	/**
+	 * Delete all daily totals of a type of statistic.
+	 *
+	 * @return The number of rows deleted.
+	 */
+	@Query("DELETE FROM alarm_daily_statistic WHERE type=:type")
+	int deleteAll(String type);
+
+	/**
+	 * Delete created alarm statistics that have been rolled up.
+	 */
+	@Query("DELETE FROM alarm_created_statistic WHERE id<=:maxId AND timestamp<:horizon")
+	int deleteCreated(long maxId, long horizon);
+
+	/**
+	 * Delete deleted alarm statistics that have been rolled up.
+	 */
+	@Query("DELETE FROM alarm_deleted_statistic WHERE id<=:maxId AND timestamp<:horizon")
+	int deleteDeleted(long maxId, long horizon);
+
+	/**
+	 * Delete dismissed alarm statistics that have been rolled up.
+	 */
+	@Query("DELETE FROM alarm_dismissed_statistic WHERE id<=:maxId AND timestamp<:horizon")
+	int deleteDismissed(long maxId, long horizon);
+
+	/**
+	 * Delete missed alarm statistics that have been rolled up.
+	 */
+	@Query("DELETE FROM alarm_missed_statistic WHERE id<=:maxId AND timestamp<:horizon")
+	int deleteMissed(long maxId, long horizon);
+
+	/**
+	 * Delete snoozed alarm statistics that have been rolled up.
+	 */
+	@Query("DELETE FROM alarm_snoozed_statistic WHERE id<=:maxId AND timestamp<:horizon")
+	int deleteSnoozed(long maxId, long horizon);
+
+	/**
+	 * Get the largest ID of a chunk of created alarm statistics that are older
+	 * than the horizon.
+	 *
+	 * @return The largest ID, or 0 if there are no rows to roll up.
+	 */
+	@Query("SELECT IFNULL(MAX(id), 0) FROM (SELECT id FROM alarm_created_statistic "
+		+ "WHERE timestamp<:horizon ORDER BY id LIMIT :limit)")
+	long getCreatedChunkId(long horizon, int limit);
+
+	/**
+	 * Get the daily totals of created alarm statistics.
+	 */
+	@Query("SELECT 0 AS id, '" + NacAlarmDailyStatistic.TYPE_CREATED + "' AS type, "
+		+ DAY + " AS day, 0 AS alarm_id, COUNT(id) AS count, 0 AS nfc_count, "
+		+ "0 AS duration FROM alarm_created_statistic "
+		+ "WHERE id<=:maxId AND timestamp<:horizon GROUP BY day")
+	List<NacAlarmDailyStatistic> getCreatedDaily(long maxId, long horizon);
+
+	/**
+	 * Get the largest ID of a chunk of deleted alarm statistics that are older
+	 * than the horizon.
+	 *
+	 * @return The largest ID, or 0 if there are no rows to roll up.
+	 */
+	@Query("SELECT IFNULL(MAX(id), 0) FROM (SELECT id FROM alarm_deleted_statistic "
+		+ "WHERE timestamp<:horizon ORDER BY id LIMIT :limit)")
+	long getDeletedChunkId(long horizon, int limit);
+
+	/**
+	 * Get the daily totals of deleted alarm statistics.
+	 */
+	@Query("SELECT 0 AS id, '" + NacAlarmDailyStatistic.TYPE_DELETED + "' AS type, "
+		+ DAY + " AS day, 0 AS alarm_id, COUNT(id) AS count, 0 AS nfc_count, "
+		+ "0 AS duration FROM alarm_deleted_statistic "
+		+ "WHERE id<=:maxId AND timestamp<:horizon GROUP BY day")
+	List<NacAlarmDailyStatistic> getDeletedDaily(long maxId, long horizon);
+
+	/**
+	 * Get the largest ID of a chunk of dismissed alarm statistics that are
+	 * older than the horizon.
+	 *
+	 * @return The largest ID, or 0 if there are no rows to roll up.
+	 */
+	@Query("SELECT IFNULL(MAX(id), 0) FROM (SELECT id FROM alarm_dismissed_statistic "
+		+ "WHERE timestamp<:horizon ORDER BY id LIMIT :limit)")
+	long getDismissedChunkId(long horizon, int limit);
+
+	/**
+	 * Get the daily totals of dismissed alarm statistics, for each alarm.
+	 */
+	@Query("SELECT 0 AS id, '" + NacAlarmDailyStatistic.TYPE_DISMISSED + "' AS type, "
+		+ DAY + " AS day, IFNULL(alarm_id, 0) AS alarm_id, COUNT(id) AS count, "
+		+ "SUM(used_nfc) AS nfc_count, 0 AS duration FROM alarm_dismissed_statistic "
+		+ "WHERE id<=:maxId AND timestamp<:horizon GROUP BY day, alarm_id")
+	List<NacAlarmDailyStatistic> getDismissedDaily(long maxId, long horizon);
+
+	/**
+	 * Get the largest ID of a chunk of missed alarm statistics that are older
+	 * than the horizon.
+	 *
+	 * @return The largest ID, or 0 if there are no rows to roll up.
+	 */
+	@Query("SELECT IFNULL(MAX(id), 0) FROM (SELECT id FROM alarm_missed_statistic "
+		+ "WHERE timestamp<:horizon ORDER BY id LIMIT :limit)")
+	long getMissedChunkId(long horizon, int limit);
+
+	/**
+	 * Get the daily totals of missed alarm statistics, for each alarm.
+	 */
+	@Query("SELECT 0 AS id, '" + NacAlarmDailyStatistic.TYPE_MISSED + "' AS type, "
+		+ DAY + " AS day, IFNULL(alarm_id, 0) AS alarm_id, COUNT(id) AS count, "
+		+ "0 AS nfc_count, 0 AS duration FROM alarm_missed_statistic "
+		+ "WHERE id<=:maxId AND timestamp<:horizon GROUP BY day, alarm_id")
+	List<NacAlarmDailyStatistic> getMissedDaily(long maxId, long horizon);
+
+	/**
+	 * Get the largest ID of a chunk of snoozed alarm statistics that are older
+	 * than the horizon.
+	 *
+	 * @return The largest ID, or 0 if there are no rows to roll up.
+	 */
+	@Query("SELECT IFNULL(MAX(id), 0) FROM (SELECT id FROM alarm_snoozed_statistic "
+		+ "WHERE timestamp<:horizon ORDER BY id LIMIT :limit)")
+	long getSnoozedChunkId(long horizon, int limit);
+
+	/**
+	 * Get the daily totals of snoozed alarm statistics, for each alarm.
+	 */
+	@Query("SELECT 0 AS id, '" + NacAlarmDailyStatistic.TYPE_SNOOZED + "' AS type, "
+		+ DAY + " AS day, IFNULL(alarm_id, 0) AS alarm_id, COUNT(id) AS count, "
+		+ "0 AS nfc_count, SUM(duration) AS duration FROM alarm_snoozed_statistic "
+		+ "WHERE id<=:maxId AND timestamp<:horizon GROUP BY day, alarm_id")
+	List<NacAlarmDailyStatistic> getSnoozedDaily(long maxId, long horizon);
+
+	/**
+	 * Insert the totals of a day.
+	 *
+	 * @return The row ID of the row that was inserted.
+	 */
+	@Insert
+	long insert(NacAlarmDailyStatistic stat);
+
+}
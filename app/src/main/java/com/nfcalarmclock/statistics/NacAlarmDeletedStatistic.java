@@ -1,6 +1,7 @@
 package com.nfcalarmclock.statistics;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 
 import com.nfcalarmclock.alarm.NacAlarm;
 
@@ -8,7 +9,8 @@ import com.nfcalarmclock.alarm.NacAlarm;
  * Statistics for when an alarm is deleted.
  */
 @Entity(tableName="alarm_deleted_statistic",
-	ignoredColumns={"alarm_id"})
+	ignoredColumns={"alarm_id"},
+	indices={@Index(value={"timestamp"})})
 public class NacAlarmDeletedStatistic
 	extends NacAlarmStatistic
 {
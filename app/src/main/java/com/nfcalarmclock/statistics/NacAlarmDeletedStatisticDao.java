@@ -30,9 +30,12 @@ public interface NacAlarmDeletedStatisticDao
 	/**
 	 * Count the number of deleted alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of deleted alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_deleted_statistic")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_deleted_statistic) + "
+		+ "(SELECT IFNULL(SUM(count), 0) FROM alarm_daily_statistic WHERE type='deleted')")
 	long getCount();
 
 }
@@ -30,17 +30,23 @@ public interface NacAlarmDismissedStatisticDao
 	/**
 	 * Count the number of dismissed alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of dismissed alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_dismissed_statistic")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_dismissed_statistic) + "
+		+ "(SELECT IFNULL(SUM(count), 0) FROM alarm_daily_statistic WHERE type='dismissed')")
 	long getCount();
 
 	/**
 	 * Count the number of dismissed with NFC alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of dismissed with NFC alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_dismissed_statistic WHERE used_nfc=1")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_dismissed_statistic WHERE used_nfc=1) + "
+		+ "(SELECT IFNULL(SUM(nfc_count), 0) FROM alarm_daily_statistic WHERE type='dismissed')")
 	long getNfcCount();
 
 }
@@ -30,9 +30,12 @@ public interface NacAlarmMissedStatisticDao
 	/**
 	 * Count the number of missed alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of missed alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_missed_statistic")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_missed_statistic) + "
+		+ "(SELECT IFNULL(SUM(count), 0) FROM alarm_daily_statistic WHERE type='missed')")
 	long getCount();
 
 }
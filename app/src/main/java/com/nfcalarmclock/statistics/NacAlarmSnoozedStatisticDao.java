@@ -30,17 +30,23 @@ public interface NacAlarmSnoozedStatisticDao
 	/**
 	 * Count the number of snoozed alarm statistics.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The number of snoozed alarm statistics.
 	 */
-	@Query("SELECT COUNT(id) FROM alarm_snoozed_statistic")
+	@Query("SELECT (SELECT COUNT(id) FROM alarm_snoozed_statistic) + "
+		+ "(SELECT IFNULL(SUM(count), 0) FROM alarm_daily_statistic WHERE type='snoozed')")
 	long getCount();
 
 	/**
 	 * Get the total snooze duration.
 	 *
+	 * This includes statistics that were rolled up into daily totals.
+	 *
 	 * @return The total snooze duration.
 	 */
-	@Query("SELECT SUM(duration) FROM alarm_snoozed_statistic")
+	@Query("SELECT (SELECT IFNULL(SUM(duration), 0) FROM alarm_snoozed_statistic) + "
+		+ "(SELECT IFNULL(SUM(duration), 0) FROM alarm_daily_statistic WHERE type='snoozed')")
 	long getTotalDuration();
 
 }
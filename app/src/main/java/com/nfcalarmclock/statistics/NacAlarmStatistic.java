@@ -25,7 +25,7 @@ public abstract class NacAlarmStatistic
 	/**
 	 * Timestamp of when an alarm was snoozed.
 	 */
-	@ColumnInfo(name="timestamp")
+	@ColumnInfo(name="timestamp", index=true)
 	@NonNull
 	private Date mTimestamp;
 
@@ -0,0 +1,56 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * Number of statistics that fall into a single bucket of a histogram, such
+ * as an hour of the day, a day of the week, or an alarm.
+ */
+public class NacAlarmStatisticBucket
+{
+
+	/**
+	 * The bucket.
+	 */
+	@ColumnInfo(name="bucket")
+	private long mBucket;
+
+	/**
+	 * Number of statistics in the bucket.
+	 */
+	@ColumnInfo(name="count")
+	private long mCount;
+
+	/**
+	 * @return The bucket.
+	 */
+	public long getBucket()
+	{
+		return this.mBucket;
+	}
+
+	/**
+	 * @return The number of statistics in the bucket.
+	 */
+	public long getCount()
+	{
+		return this.mCount;
+	}
+
+	/**
+	 * Set the bucket.
+	 */
+	public void setBucket(long bucket)
+	{
+		this.mBucket = bucket;
+	}
+
+	/**
+	 * Set the number of statistics in the bucket.
+	 */
+	public void setCount(long count)
+	{
+		this.mCount = count;
+	}
+
+}
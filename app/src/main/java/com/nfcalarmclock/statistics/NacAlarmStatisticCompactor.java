@@ -0,0 +1,282 @@
+package com.nfcalarmclock.statistics;
+
+import android.content.Context;
+
+import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.db.NacDatabaseExecutor;
+import com.nfcalarmclock.shared.NacSharedPreferences;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Roll up statistics that are older than the retention horizon into daily
+ * totals, for each alarm.
+ *
+ * Each chunk of rows is rolled up and deleted in its own transaction, and
+ * each chunk is a separate task on the write executor, so that alarm writes
+ * are not held up behind a large compaction. If the process is killed part
+ * of the way through, the rows that were not rolled up yet are simply picked
+ * up the next time the compaction is run.
+ */
+public class NacAlarmStatisticCompactor
+{
+
+	/**
+	 * Maximum number of rows to roll up in a single transaction.
+	 */
+	public static final int CHUNK_SIZE = 500;
+
+	/**
+	 * Number of milliseconds in a day.
+	 */
+	private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
+	/**
+	 * Order in which the statistics tables are rolled up.
+	 */
+	private static final String[] TYPES = {
+		NacAlarmDailyStatistic.TYPE_CREATED,
+		NacAlarmDailyStatistic.TYPE_DELETED,
+		NacAlarmDailyStatistic.TYPE_DISMISSED,
+		NacAlarmDailyStatistic.TYPE_MISSED,
+		NacAlarmDailyStatistic.TYPE_SNOOZED };
+
+	/**
+	 * Whether a compaction is already running or not.
+	 */
+	private static final AtomicBoolean sIsRunning = new AtomicBoolean(false);
+
+	/**
+	 * Alarm database.
+	 */
+	private final NacAlarmDatabase mDatabase;
+
+	/**
+	 * Data access object for the daily totals of alarm statistics.
+	 */
+	private final NacAlarmDailyStatisticDao mDailyStatisticDao;
+
+	/**
+	 * Statistics older than this timestamp are rolled up.
+	 */
+	private final long mHorizon;
+
+	/**
+	 */
+	public NacAlarmStatisticCompactor(Context context)
+	{
+		NacAlarmDatabase db = NacAlarmDatabase.getInstance(context);
+		NacSharedPreferences shared = new NacSharedPreferences(context);
+		int days = shared.getStatisticsRetentionDays();
+
+		this.mDatabase = db;
+		this.mDailyStatisticDao = db.alarmDailyStatisticDao();
+		this.mHorizon = (days > 0)
+			? System.currentTimeMillis() - days*DAY_MILLIS
+			: 0;
+	}
+
+	/**
+	 * Roll up a single chunk of a statistics table.
+	 *
+	 * @param  type  Type of statistic to roll up.
+	 *
+	 * @return The number of rows that were rolled up.
+	 */
+	private int compactChunk(String type)
+	{
+		NacAlarmDailyStatisticDao dao = this.getDailyStatisticDao();
+		long horizon = this.getHorizon();
+
+		return this.getDatabase().runInTransaction(() -> {
+
+			long maxId = this.getChunkId(type);
+
+			if (maxId == 0)
+			{
+				return 0;
+			}
+
+			List<NacAlarmDailyStatistic> totals = this.getDaily(type, maxId);
+
+			for (NacAlarmDailyStatistic t : totals)
+			{
+				int updated = dao.add(t.getType(), t.getDay(), t.getAlarmId(),
+					t.getCount(), t.getNfcCount(), t.getDuration());
+
+				if (updated == 0)
+				{
+					dao.insert(t);
+				}
+			}
+
+			return this.delete(type, maxId, horizon);
+
+		});
+	}
+
+	/**
+	 * Delete rows that were rolled up.
+	 */
+	private int delete(String type, long maxId, long horizon)
+	{
+		NacAlarmDailyStatisticDao dao = this.getDailyStatisticDao();
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_CREATED:
+				return dao.deleteCreated(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_DELETED:
+				return dao.deleteDeleted(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				return dao.deleteDismissed(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				return dao.deleteMissed(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				return dao.deleteSnoozed(maxId, horizon);
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * @return The largest ID of the next chunk of rows to roll up.
+	 */
+	private long getChunkId(String type)
+	{
+		NacAlarmDailyStatisticDao dao = this.getDailyStatisticDao();
+		long horizon = this.getHorizon();
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_CREATED:
+				return dao.getCreatedChunkId(horizon, CHUNK_SIZE);
+			case NacAlarmDailyStatistic.TYPE_DELETED:
+				return dao.getDeletedChunkId(horizon, CHUNK_SIZE);
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				return dao.getDismissedChunkId(horizon, CHUNK_SIZE);
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				return dao.getMissedChunkId(horizon, CHUNK_SIZE);
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				return dao.getSnoozedChunkId(horizon, CHUNK_SIZE);
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * @return The daily totals of the rows to roll up.
+	 */
+	private List<NacAlarmDailyStatistic> getDaily(String type, long maxId)
+	{
+		NacAlarmDailyStatisticDao dao = this.getDailyStatisticDao();
+		long horizon = this.getHorizon();
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_CREATED:
+				return dao.getCreatedDaily(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_DELETED:
+				return dao.getDeletedDaily(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				return dao.getDismissedDaily(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				return dao.getMissedDaily(maxId, horizon);
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				return dao.getSnoozedDaily(maxId, horizon);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * @return The data access object for the daily totals of alarm statistics.
+	 */
+	private NacAlarmDailyStatisticDao getDailyStatisticDao()
+	{
+		return this.mDailyStatisticDao;
+	}
+
+	/**
+	 * @return The alarm database.
+	 */
+	private NacAlarmDatabase getDatabase()
+	{
+		return this.mDatabase;
+	}
+
+	/**
+	 * @return The timestamp before which statistics are rolled up.
+	 */
+	public long getHorizon()
+	{
+		return this.mHorizon;
+	}
+
+	/**
+	 * @return True if a compaction is running, and False otherwise.
+	 */
+	public static boolean isRunning()
+	{
+		return sIsRunning.get();
+	}
+
+	/**
+	 * Roll up the next chunk of a statistics table, and queue the chunk after
+	 * that.
+	 *
+	 * @param  index  Index of the type of statistic to roll up.
+	 */
+	private void next(int index)
+	{
+		if (index >= TYPES.length)
+		{
+			sIsRunning.set(false);
+			return;
+		}
+
+		NacAlarmDatabase.getWriteExecutor().submit(() -> {
+
+			int count;
+
+			try
+			{
+				count = this.compactChunk(TYPES[index]);
+			}
+			catch (RuntimeException e)
+			{
+				NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH COMPACT exception!");
+				NacUtility.printf("String  : %s!", e.toString());
+				NacUtility.printf("Message : %s!", e.getMessage());
+				e.printStackTrace();
+				sIsRunning.set(false);
+				return null;
+			}
+
+			// There may be more rows in this table, otherwise move on to the
+			// next table
+			this.next((count >= CHUNK_SIZE) ? index : index+1);
+			return null;
+
+		}, NacDatabaseExecutor.PRIORITY_STATISTIC);
+	}
+
+	/**
+	 * Start rolling up old statistics in the background.
+	 *
+	 * This does nothing if a compaction is already running, or if statistics
+	 * should be kept forever.
+	 */
+	public void start()
+	{
+		if ((this.getHorizon() <= 0) || !sIsRunning.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		this.next(0);
+	}
+
+}
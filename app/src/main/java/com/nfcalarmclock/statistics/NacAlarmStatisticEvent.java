@@ -0,0 +1,224 @@
+package com.nfcalarmclock.statistics;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * An alarm statistic that has been logged, but not yet saved to the database.
+ *
+ * This only holds what is needed to build the statistic, so that it can be
+ * written to, and read back from, the event log file.
+ */
+public class NacAlarmStatisticEvent
+{
+
+	/**
+	 * Type of statistic.
+	 */
+	private final String mType;
+
+	/**
+	 * Time at which the statistic happened.
+	 */
+	private final long mTimestamp;
+
+	/**
+	 * The ID of the alarm, or 0 if there is no alarm.
+	 */
+	private final long mAlarmId;
+
+	/**
+	 * The hour the alarm ran at.
+	 */
+	private final int mHour;
+
+	/**
+	 * The minute the alarm ran at.
+	 */
+	private final int mMinute;
+
+	/**
+	 * The name of the alarm.
+	 */
+	private final String mName;
+
+	/**
+	 * Whether NFC was used to dismiss the alarm or not.
+	 */
+	private final boolean mUsedNfc;
+
+	/**
+	 * Duration of the snooze.
+	 */
+	private final long mDuration;
+
+	/**
+	 */
+	private NacAlarmStatisticEvent(String type, long timestamp, long alarmId,
+		int hour, int minute, String name, boolean usedNfc, long duration)
+	{
+		this.mType = type;
+		this.mTimestamp = timestamp;
+		this.mAlarmId = alarmId;
+		this.mHour = hour;
+		this.mMinute = minute;
+		this.mName = name;
+		this.mUsedNfc = usedNfc;
+		this.mDuration = duration;
+	}
+
+	/**
+	 */
+	public NacAlarmStatisticEvent(String type, NacAlarm alarm, boolean usedNfc,
+		long duration)
+	{
+		this(type, System.currentTimeMillis(),
+			(alarm != null) ? alarm.getId() : 0,
+			(alarm != null) ? alarm.getHour() : 0,
+			(alarm != null) ? alarm.getMinute() : 0,
+			((alarm != null) && (alarm.getName() != null)) ? alarm.getName() : "",
+			usedNfc, duration);
+	}
+
+	/**
+	 */
+	public NacAlarmStatisticEvent(String type, NacAlarm alarm)
+	{
+		this(type, alarm, false, 0);
+	}
+
+	/**
+	 * @return The ID of the alarm, or 0 if there is no alarm.
+	 */
+	public long getAlarmId()
+	{
+		return this.mAlarmId;
+	}
+
+	/**
+	 * @return The duration of the snooze.
+	 */
+	public long getDuration()
+	{
+		return this.mDuration;
+	}
+
+	/**
+	 * @return The time at which the statistic happened.
+	 */
+	public long getTimestamp()
+	{
+		return this.mTimestamp;
+	}
+
+	/**
+	 * @return The type of statistic.
+	 */
+	public String getType()
+	{
+		return this.mType;
+	}
+
+	/**
+	 * Read an event from a stream.
+	 *
+	 * @param  input  Stream to read from.
+	 *
+	 * @return The event.
+	 */
+	public static NacAlarmStatisticEvent read(DataInputStream input)
+		throws IOException
+	{
+		String type = input.readUTF();
+		long timestamp = input.readLong();
+		long alarmId = input.readLong();
+		int hour = input.readInt();
+		int minute = input.readInt();
+		String name = input.readUTF();
+		boolean usedNfc = input.readBoolean();
+		long duration = input.readLong();
+
+		return new NacAlarmStatisticEvent(type, timestamp, alarmId, hour, minute,
+			name, usedNfc, duration);
+	}
+
+	/**
+	 * Build the statistic to save to the database.
+	 *
+	 * @param  alarmExists  Whether the alarm still exists or not. If it does
+	 *     not, the alarm ID is not saved, the same as if the alarm had been
+	 *     deleted after the statistic was saved.
+	 *
+	 * @return The statistic, or null if the type is not known.
+	 */
+	public NacAlarmStatistic toStatistic(boolean alarmExists)
+	{
+		NacAlarmStatistic stat;
+
+		switch (this.getType())
+		{
+			case NacAlarmDailyStatistic.TYPE_CREATED:
+				stat = new NacAlarmCreatedStatistic();
+				break;
+			case NacAlarmDailyStatistic.TYPE_DELETED:
+				stat = new NacAlarmDeletedStatistic();
+				break;
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				NacAlarmDismissedStatistic dismissed = new NacAlarmDismissedStatistic();
+				dismissed.setUsedNfc(this.mUsedNfc);
+				stat = dismissed;
+				break;
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				stat = new NacAlarmMissedStatistic();
+				break;
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				NacAlarmSnoozedStatistic snoozed = new NacAlarmSnoozedStatistic();
+				snoozed.setDuration(this.mDuration);
+				stat = snoozed;
+				break;
+			default:
+				return null;
+		}
+
+		long alarmId = this.getAlarmId();
+
+		stat.setTimestamp(new Date(this.getTimestamp()));
+		stat.setAlarmId((alarmExists && (alarmId > 0)) ? alarmId : null);
+		stat.setHour(this.mHour);
+		stat.setMinute(this.mMinute);
+		stat.setName(this.mName);
+
+		return stat;
+	}
+
+	/**
+	 * @return True if NFC was used to dismiss the alarm, and False otherwise.
+	 */
+	public boolean usedNfc()
+	{
+		return this.mUsedNfc;
+	}
+
+	/**
+	 * Write the event to a stream.
+	 *
+	 * @param  output  Stream to write to.
+	 */
+	public void write(DataOutputStream output)
+		throws IOException
+	{
+		output.writeUTF(this.mType);
+		output.writeLong(this.mTimestamp);
+		output.writeLong(this.mAlarmId);
+		output.writeInt(this.mHour);
+		output.writeInt(this.mMinute);
+		output.writeUTF(this.mName);
+		output.writeBoolean(this.mUsedNfc);
+		output.writeLong(this.mDuration);
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.nfcalarmclock.statistics;
+
+import java.util.List;
+
+/**
+ * Histogram of alarm statistics over a fixed number of buckets, such as the
+ * hours of the day, or the days of the week.
+ */
+public class NacAlarmStatisticHistogram
+{
+
+	/**
+	 * Number of buckets for a histogram over the hours of the day.
+	 */
+	public static final int HOURS_PER_DAY = 24;
+
+	/**
+	 * Number of buckets for a histogram over the days of the week.
+	 */
+	public static final int DAYS_PER_WEEK = 7;
+
+	/**
+	 * Number of statistics in each bucket.
+	 */
+	private final long[] mCounts;
+
+	/**
+	 * @param  buckets  Buckets returned by a histogram query. Buckets that are
+	 *     out of range are ignored.
+	 * @param  size  Number of buckets in the histogram.
+	 */
+	public NacAlarmStatisticHistogram(List<NacAlarmStatisticBucket> buckets,
+		int size)
+	{
+		this.mCounts = new long[size];
+
+		if (buckets == null)
+		{
+			return;
+		}
+
+		for (NacAlarmStatisticBucket b : buckets)
+		{
+			long index = b.getBucket();
+
+			if ((index >= 0) && (index < size))
+			{
+				this.mCounts[(int)index] += b.getCount();
+			}
+		}
+	}
+
+	/**
+	 * @return The number of statistics in a bucket.
+	 */
+	public long getCount(int index)
+	{
+		return this.mCounts[index];
+	}
+
+	/**
+	 * @return The index of the bucket with the most statistics, or -1 if there
+	 *     are no statistics.
+	 */
+	public int getMaxIndex()
+	{
+		int maxIndex = -1;
+		long max = 0;
+
+		for (int i=0; i < this.mCounts.length; i++)
+		{
+			if (this.mCounts[i] > max)
+			{
+				max = this.mCounts[i];
+				maxIndex = i;
+			}
+		}
+
+		return maxIndex;
+	}
+
+	/**
+	 * @return The number of buckets.
+	 */
+	public int getSize()
+	{
+		return this.mCounts.length;
+	}
+
+	/**
+	 * @return The total number of statistics in all buckets.
+	 */
+	public long getTotal()
+	{
+		long total = 0;
+
+		for (long c : this.mCounts)
+		{
+			total += c;
+		}
+
+		return total;
+	}
+
+}
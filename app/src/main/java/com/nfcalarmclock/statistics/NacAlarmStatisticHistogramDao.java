@@ -0,0 +1,160 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import java.util.List;
+
+/**
+ * Data access object for histograms of alarm statistics.
+ *
+ * Each histogram is computed in SQL, so that the rows do not have to be
+ * loaded into memory. Only statistics on or after the given timestamp are
+ * counted, which uses the index on the timestamp column.
+ *
+ * The day of the week and per alarm histograms also count the daily totals
+ * of statistics that were rolled up. The hour of the day histograms cannot,
+ * since the daily totals do not keep the time of day.
+ */
+@Dao
+@SuppressWarnings("UnnecessaryInterfaceModifier")
+public interface NacAlarmStatisticHistogramDao
+{
+
+	/**
+	 * SQL expression for the local hour of the day, 0-23, of a statistic.
+	 */
+	public static final String HOUR = "CAST(strftime('%H', timestamp/1000, "
+		+ "'unixepoch', 'localtime') AS INTEGER)";
+
+	/**
+	 * SQL expression for the local day of the week, 0-6 with Sunday as 0, of a
+	 * statistic.
+	 */
+	public static final String DAY = "CAST(strftime('%w', timestamp/1000, "
+		+ "'unixepoch', 'localtime') AS INTEGER)";
+
+	/**
+	 * SQL expression for the local day of the week, 0-6 with Sunday as 0, of
+	 * the daily totals of a statistic.
+	 */
+	public static final String DAILY_DAY = "CAST(strftime('%w', day/1000, "
+		+ "'unixepoch', 'localtime') AS INTEGER)";
+
+	/**
+	 * Get the number of dismissed alarms in each hour of the day.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT " + HOUR + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_dismissed_statistic WHERE timestamp>=:since GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getDismissedByHour(long since);
+
+	/**
+	 * Get the number of dismissed alarms on each day of the week.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT " + DAY + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_dismissed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT " + DAILY_DAY + " AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='dismissed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getDismissedByDay(long since);
+
+	/**
+	 * Get the number of dismissed alarms for each alarm ID.
+	 *
+	 * Statistics whose alarm was deleted are counted under 0.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT IFNULL(alarm_id, 0) AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_dismissed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT alarm_id AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='dismissed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getDismissedByAlarm(long since);
+
+	/**
+	 * Get the number of missed alarms in each hour of the day.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT " + HOUR + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_missed_statistic WHERE timestamp>=:since GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getMissedByHour(long since);
+
+	/**
+	 * Get the number of missed alarms on each day of the week.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT " + DAY + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_missed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT " + DAILY_DAY + " AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='missed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getMissedByDay(long since);
+
+	/**
+	 * Get the number of missed alarms for each alarm ID.
+	 *
+	 * Statistics whose alarm was deleted are counted under 0.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT IFNULL(alarm_id, 0) AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_missed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT alarm_id AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='missed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getMissedByAlarm(long since);
+
+	/**
+	 * Get the number of snoozed alarms in each hour of the day.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT " + HOUR + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_snoozed_statistic WHERE timestamp>=:since GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getSnoozedByHour(long since);
+
+	/**
+	 * Get the number of snoozed alarms on each day of the week.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT " + DAY + " AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_snoozed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT " + DAILY_DAY + " AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='snoozed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getSnoozedByDay(long since);
+
+	/**
+	 * Get the number of snoozed alarms for each alarm ID.
+	 *
+	 * Statistics whose alarm was deleted are counted under 0.
+	 *
+	 * @param  since  Only count statistics on or after this timestamp.
+	 */
+	@Query("SELECT bucket, SUM(count) AS count FROM ("
+		+ "SELECT IFNULL(alarm_id, 0) AS bucket, COUNT(id) AS count "
+		+ "FROM alarm_snoozed_statistic WHERE timestamp>=:since GROUP BY bucket "
+		+ "UNION ALL "
+		+ "SELECT alarm_id AS bucket, SUM(count) AS count "
+		+ "FROM alarm_daily_statistic WHERE type='snoozed' AND day>=:since "
+		+ "GROUP BY bucket) GROUP BY bucket")
+	List<NacAlarmStatisticBucket> getSnoozedByAlarm(long since);
+
+}
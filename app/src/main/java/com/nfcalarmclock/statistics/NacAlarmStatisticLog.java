@@ -0,0 +1,473 @@
+package com.nfcalarmclock.statistics;
+
+import android.content.Context;
+
+import com.nfcalarmclock.db.NacRepository;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of alarm statistics that have not been saved to the
+ * database yet.
+ *
+ * Logging a statistic appends it to a file on the calling thread, so that it
+ * is not lost if the process dies right after. The statistics are then saved
+ * to the database in the background, in batches, each in a single
+ * transaction. Once a batch is saved, it is removed from the file. If the
+ * process dies before a batch is saved, the statistics in the file are saved
+ * the next time the log is created.
+ *
+ * A batch that could not be saved is retried a few times. After that, each
+ * statistic in the batch is saved on its own, and the ones that still cannot
+ * be saved are moved to a separate file, so that they do not hold up the
+ * statistics after them.
+ *
+ * Saving is done on a single background thread. The file and the statistics
+ * that have not been saved yet are only changed while holding the lock on
+ * the log, so the file always holds exactly those statistics.
+ */
+public class NacAlarmStatisticLog
+{
+
+	/**
+	 * Name of the log file.
+	 */
+	public static final String FILE_NAME = "statistic_events.log";
+
+	/**
+	 * Name of the file that statistics which could not be saved are moved to.
+	 */
+	public static final String FAILED_FILE_NAME = "statistic_events_failed.log";
+
+	/**
+	 * Amount of time, in milliseconds, to wait for more statistics before
+	 * saving a batch.
+	 */
+	public static final long FLUSH_DELAY = 2000L;
+
+	/**
+	 * Number of statistics at which a batch is saved right away.
+	 */
+	public static final int MAX_BATCH_SIZE = 64;
+
+	/**
+	 * Number of times a batch is tried before each statistic in it is saved on
+	 * its own.
+	 */
+	public static final int MAX_FLUSH_ATTEMPTS = 3;
+
+	/**
+	 * Singleton instance of the log.
+	 */
+	private static NacAlarmStatisticLog sInstance;
+
+	/**
+	 * Thread that statistics are saved on.
+	 */
+	private final ScheduledExecutorService mExecutor;
+
+	/**
+	 * Statistic repository.
+	 */
+	private final NacAlarmStatisticRepository mRepository;
+
+	/**
+	 * Log file.
+	 */
+	private final File mFile;
+
+	/**
+	 * File that statistics which could not be saved are moved to.
+	 */
+	private final File mFailedFile;
+
+	/**
+	 * Statistics that have not been saved yet, in the order they are in the
+	 * log file.
+	 */
+	private final List<NacAlarmStatisticEvent> mEvents;
+
+	/**
+	 * Stream to append to the log file, or null if it is not open.
+	 */
+	private DataOutputStream mOutput;
+
+	/**
+	 * Whether a flush has been scheduled or not.
+	 */
+	private boolean mIsFlushScheduled;
+
+	/**
+	 * Number of times in a row that a batch could not be saved.
+	 *
+	 * This is only used on the background thread.
+	 */
+	private int mFailedFlushCount;
+
+	/**
+	 */
+	private NacAlarmStatisticLog(Context context)
+	{
+		Context appContext = context.getApplicationContext();
+
+		this.mExecutor = Executors.newSingleThreadScheduledExecutor();
+		this.mRepository = new NacAlarmStatisticRepository(appContext);
+		this.mFile = new File(appContext.getFilesDir(), FILE_NAME);
+		this.mFailedFile = new File(appContext.getFilesDir(), FAILED_FILE_NAME);
+		this.mEvents = new ArrayList<>();
+		this.mOutput = null;
+		this.mIsFlushScheduled = false;
+		this.mFailedFlushCount = 0;
+
+		// Recover before anything is appended, so that nothing is appended after
+		// a partial statistic
+		this.recover();
+	}
+
+	/**
+	 * Add a statistic to the log.
+	 *
+	 * The statistic is written to the log file before this returns, and is
+	 * saved to the database in the background.
+	 *
+	 * @param  event  Statistic to add.
+	 */
+	public void add(NacAlarmStatisticEvent event)
+	{
+		if (event == null)
+		{
+			return;
+		}
+
+		boolean isFull;
+
+		synchronized (this)
+		{
+			this.write(event);
+			this.mEvents.add(event);
+
+			isFull = (this.mEvents.size() >= MAX_BATCH_SIZE);
+		}
+
+		if (isFull)
+		{
+			this.mExecutor.execute(this::flush);
+		}
+		else
+		{
+			this.scheduleFlush();
+		}
+	}
+
+	/**
+	 * Close the stream to the log file, if it is open.
+	 *
+	 * The caller must hold the lock on the log.
+	 */
+	private void closeOutput()
+	{
+		if (this.mOutput == null)
+		{
+			return;
+		}
+
+		try
+		{
+			this.mOutput.close();
+		}
+		catch (IOException ignored)
+		{
+		}
+
+		this.mOutput = null;
+	}
+
+	/**
+	 * Save all statistics in the batch to the database, and remove them from
+	 * the log file.
+	 *
+	 * If the batch could not be saved, it is kept, and is retried after a
+	 * delay. Once it has been tried MAX_FLUSH_ATTEMPTS times, each statistic
+	 * is saved on its own, and the ones that cannot be saved are moved aside.
+	 */
+	private void flush()
+	{
+		List<NacAlarmStatisticEvent> batch;
+
+		synchronized (this)
+		{
+			this.mIsFlushScheduled = false;
+
+			if (this.mEvents.isEmpty())
+			{
+				return;
+			}
+
+			batch = new ArrayList<>(this.mEvents);
+		}
+
+		if (this.getRepository().insertAll(batch) >= 0)
+		{
+			this.mFailedFlushCount = 0;
+		}
+		else if (++this.mFailedFlushCount < MAX_FLUSH_ATTEMPTS)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG flush failed %d times!",
+				this.mFailedFlushCount);
+			this.scheduleFlush();
+			return;
+		}
+		else
+		{
+			this.mFailedFlushCount = 0;
+			this.saveEach(batch);
+		}
+
+		synchronized (this)
+		{
+			// Statistics are only ever added to the end, so the batch is still at
+			// the start, and anything after it was added while it was saved
+			this.mEvents.subList(0, batch.size()).clear();
+			this.rewrite();
+		}
+	}
+
+	/**
+	 * Save all statistics that have been logged, without blocking the calling
+	 * thread.
+	 *
+	 * @param  listener  Called on the main thread once the statistics have
+	 *     been saved, or could not be saved. This is always called.
+	 */
+	public void flush(NacRepository.OnResultListener<Void> listener)
+	{
+		this.mExecutor.execute(() -> {
+
+			try
+			{
+				this.flush();
+			}
+			finally
+			{
+				NacRepository.postResult(listener, null);
+			}
+
+		});
+	}
+
+	/**
+	 * Get the log instance.
+	 *
+	 * @param  context  Context.
+	 *
+	 * @return The log instance.
+	 */
+	public static synchronized NacAlarmStatisticLog getInstance(Context context)
+	{
+		if (sInstance == null)
+		{
+			sInstance = new NacAlarmStatisticLog(context);
+		}
+
+		return sInstance;
+	}
+
+	/**
+	 * @return The stream to append to the log file.
+	 */
+	private DataOutputStream getOutput()
+		throws IOException
+	{
+		if (this.mOutput == null)
+		{
+			FileOutputStream file = new FileOutputStream(this.mFile, true);
+			this.mOutput = new DataOutputStream(new BufferedOutputStream(file));
+		}
+
+		return this.mOutput;
+	}
+
+	/**
+	 * @return The statistic repository.
+	 */
+	private NacAlarmStatisticRepository getRepository()
+	{
+		return this.mRepository;
+	}
+
+	/**
+	 * Move a statistic that could not be saved to the failed file.
+	 */
+	private void moveAside(NacAlarmStatisticEvent event)
+	{
+		NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG moving aside %s for alarm %d!",
+			event.getType(), event.getAlarmId());
+
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(this.mFailedFile, true))))
+		{
+			event.write(output);
+		}
+		catch (IOException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG move aside exception!");
+			NacUtility.printf("Message : %s!", e.getMessage());
+		}
+	}
+
+	/**
+	 * Read any statistics that were left in the log file by a previous
+	 * process, and save them.
+	 *
+	 * A statistic that was only partly written, when the process died, is
+	 * dropped.
+	 */
+	private void recover()
+	{
+		if (!this.mFile.exists())
+		{
+			return;
+		}
+
+		List<NacAlarmStatisticEvent> events = new ArrayList<>();
+
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(this.mFile))))
+		{
+			while (true)
+			{
+				events.add(NacAlarmStatisticEvent.read(input));
+			}
+		}
+		catch (EOFException ignored)
+		{
+			// Reached the end of the log file
+		}
+		catch (IOException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG recover exception!");
+			NacUtility.printf("Message : %s!", e.getMessage());
+		}
+
+		synchronized (this)
+		{
+			// Rewrite the log file so that it does not end with a partial
+			// statistic
+			this.mEvents.addAll(events);
+			this.rewrite();
+		}
+
+		if (!events.isEmpty())
+		{
+			this.mExecutor.execute(this::flush);
+		}
+	}
+
+	/**
+	 * Write the log file again, with only the statistics that have not been
+	 * saved yet.
+	 *
+	 * The caller must hold the lock on the log.
+	 */
+	private void rewrite()
+	{
+		this.closeOutput();
+
+		if (this.mEvents.isEmpty())
+		{
+			if (!this.mFile.delete() && this.mFile.exists())
+			{
+				NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG unable to clear!");
+			}
+
+			return;
+		}
+
+		try
+		{
+			FileOutputStream file = new FileOutputStream(this.mFile, false);
+			this.mOutput = new DataOutputStream(new BufferedOutputStream(file));
+		}
+		catch (IOException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG rewrite exception!");
+			NacUtility.printf("Message : %s!", e.getMessage());
+			return;
+		}
+
+		for (NacAlarmStatisticEvent e : this.mEvents)
+		{
+			this.write(e);
+		}
+	}
+
+	/**
+	 * Save each statistic in a batch on its own, and move the ones that cannot
+	 * be saved aside.
+	 */
+	private void saveEach(List<NacAlarmStatisticEvent> batch)
+	{
+		for (NacAlarmStatisticEvent e : batch)
+		{
+			if (this.getRepository().insertAll(Collections.singletonList(e)) < 0)
+			{
+				this.moveAside(e);
+			}
+		}
+	}
+
+	/**
+	 * Save the batch after a delay, if it is not already scheduled.
+	 */
+	private void scheduleFlush()
+	{
+		synchronized (this)
+		{
+			if (this.mIsFlushScheduled)
+			{
+				return;
+			}
+
+			this.mIsFlushScheduled = true;
+		}
+
+		this.mExecutor.schedule(this::flush, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Append a statistic to the log file.
+	 *
+	 * The caller must hold the lock on the log.
+	 */
+	private void write(NacAlarmStatisticEvent event)
+	{
+		try
+		{
+			DataOutputStream output = this.getOutput();
+
+			event.write(output);
+			output.flush();
+		}
+		catch (IOException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH STATISTIC_LOG append exception!");
+			NacUtility.printf("Message : %s!", e.getMessage());
+		}
+	}
+
+}
@@ -2,13 +2,18 @@ package com.nfcalarmclock.statistics;
 
 import android.app.Application;
 import android.content.Context;
+import android.util.LongSparseArray;
 
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.db.NacAlarmDatabase;
+import com.nfcalarmclock.db.NacDatabaseExecutor;
 import com.nfcalarmclock.db.NacRepository;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Alarm statistic repository.
@@ -23,6 +28,11 @@ public class NacAlarmStatisticRepository
 	 */
 	private final NacAlarmCreatedStatisticDao mAlarmCreatedStatisticDao;
 
+	/**
+	 * Data access object for the daily totals of alarm statistics.
+	 */
+	private final NacAlarmDailyStatisticDao mAlarmDailyStatisticDao;
+
 	/**
 	 * Data access object for deleted alarm statistic.
 	 */
@@ -43,6 +53,26 @@ public class NacAlarmStatisticRepository
 	 */
 	private final NacAlarmSnoozedStatisticDao mAlarmSnoozedStatisticDao;
 
+	/**
+	 * Data access object for histograms of alarm statistics.
+	 */
+	private final NacAlarmStatisticHistogramDao mAlarmStatisticHistogramDao;
+
+	/**
+	 * Data access object for the running totals of all alarm statistics.
+	 */
+	private final NacAlarmStatisticSummaryDao mAlarmStatisticSummaryDao;
+
+	/**
+	 * Alarm database.
+	 */
+	private final NacAlarmDatabase mDatabase;
+
+	/**
+	 * Application context.
+	 */
+	private final Context mContext;
+
 	/**
 	 */
 	public NacAlarmStatisticRepository(Application app)
@@ -50,10 +80,15 @@ public class NacAlarmStatisticRepository
 		NacAlarmDatabase db = NacAlarmDatabase.getInstance(app);
 
 		this.mAlarmCreatedStatisticDao = db.alarmCreatedStatisticDao();
+		this.mAlarmDailyStatisticDao = db.alarmDailyStatisticDao();
 		this.mAlarmDeletedStatisticDao = db.alarmDeletedStatisticDao();
 		this.mAlarmDismissedStatisticDao = db.alarmDismissedStatisticDao();
 		this.mAlarmMissedStatisticDao = db.alarmMissedStatisticDao();
 		this.mAlarmSnoozedStatisticDao = db.alarmSnoozedStatisticDao();
+		this.mAlarmStatisticHistogramDao = db.alarmStatisticHistogramDao();
+		this.mAlarmStatisticSummaryDao = db.alarmStatisticSummaryDao();
+		this.mDatabase = db;
+		this.mContext = app;
 	}
 
 	/**
@@ -63,6 +98,33 @@ public class NacAlarmStatisticRepository
 		this((Application)context.getApplicationContext());
 	}
 
+	/**
+	 * Delete all rows from a statistics table, along with its daily totals,
+	 * and reset its running totals, in a single transaction.
+	 *
+	 * @param  type  Type of statistic.
+	 * @param  delete  Delete all rows from the statistics table.
+	 * @param  reset  Reset the totals of the statistics table.
+	 *
+	 * @return The number of rows deleted.
+	 */
+	private int doDeleteAll(String type, Callable<Integer> delete,
+		Runnable reset)
+	{
+		NacAlarmDatabase db = this.getDatabase();
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
+		NacAlarmDailyStatisticDao dailyDao = this.getAlarmDailyStatisticDao();
+		Future<?> future = NacAlarmDatabase.getWriteExecutor().submit(() ->
+			db.runInTransaction(() -> {
+				summaryDao.createIfMissing();
+				reset.run();
+				dailyDao.deleteAll(type);
+				return delete.call();
+			}), NacDatabaseExecutor.PRIORITY_STATISTIC);
+
+		return NacRepository.getIntegerFromFuture(future);
+	}
+
 	/**
 	 * Delete all rows from the created alarm statistics table.
 	 *
@@ -71,9 +133,10 @@ public class NacAlarmStatisticRepository
 	public int deleteAllCreated()
 	{
 		NacAlarmCreatedStatisticDao dao = this.getAlarmCreatedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::deleteAll);
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
 
-		return NacRepository.getIntegerFromFuture(future);
+		return this.doDeleteAll(NacAlarmDailyStatistic.TYPE_CREATED, dao::deleteAll,
+			summaryDao::resetCreated);
 	}
 
 	/**
@@ -84,9 +147,10 @@ public class NacAlarmStatisticRepository
 	public int deleteAllDeleted()
 	{
 		NacAlarmDeletedStatisticDao dao = this.getAlarmDeletedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::deleteAll);
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
 
-		return NacRepository.getIntegerFromFuture(future);
+		return this.doDeleteAll(NacAlarmDailyStatistic.TYPE_DELETED, dao::deleteAll,
+			summaryDao::resetDeleted);
 	}
 
 	/**
@@ -97,9 +161,10 @@ public class NacAlarmStatisticRepository
 	public int deleteAllDismissed()
 	{
 		NacAlarmDismissedStatisticDao dao = this.getAlarmDismissedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::deleteAll);
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
 
-		return NacRepository.getIntegerFromFuture(future);
+		return this.doDeleteAll(NacAlarmDailyStatistic.TYPE_DISMISSED, dao::deleteAll,
+			summaryDao::resetDismissed);
 	}
 
 	/**
@@ -110,9 +175,10 @@ public class NacAlarmStatisticRepository
 	public int deleteAllMissed()
 	{
 		NacAlarmMissedStatisticDao dao = this.getAlarmMissedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::deleteAll);
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
 
-		return NacRepository.getIntegerFromFuture(future);
+		return this.doDeleteAll(NacAlarmDailyStatistic.TYPE_MISSED, dao::deleteAll,
+			summaryDao::resetMissed);
 	}
 
 	/**
@@ -123,9 +189,10 @@ public class NacAlarmStatisticRepository
 	public int deleteAllSnoozed()
 	{
 		NacAlarmSnoozedStatisticDao dao = this.getAlarmSnoozedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::deleteAll);
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
 
-		return NacRepository.getIntegerFromFuture(future);
+		return this.doDeleteAll(NacAlarmDailyStatistic.TYPE_SNOOZED, dao::deleteAll,
+			summaryDao::resetSnoozed);
 	}
 
 	/**
@@ -138,6 +205,16 @@ public class NacAlarmStatisticRepository
 		return this.mAlarmCreatedStatisticDao;
 	}
 
+	/**
+	 * Get the data access object for the daily totals of alarm statistics.
+	 *
+	 * @return The data access object for the daily totals of alarm statistics.
+	 */
+	public NacAlarmDailyStatisticDao getAlarmDailyStatisticDao()
+	{
+		return this.mAlarmDailyStatisticDao;
+	}
+
 	/**
 	 * Get the data access object for a deleted alarm statistic.
 	 *
@@ -178,6 +255,36 @@ public class NacAlarmStatisticRepository
 		return this.mAlarmSnoozedStatisticDao;
 	}
 
+	/**
+	 * Get the data access object for histograms of alarm statistics.
+	 *
+	 * @return The data access object for histograms of alarm statistics.
+	 */
+	public NacAlarmStatisticHistogramDao getAlarmStatisticHistogramDao()
+	{
+		return this.mAlarmStatisticHistogramDao;
+	}
+
+	/**
+	 * Get the data access object for the running totals of all alarm
+	 * statistics.
+	 *
+	 * @return The data access object for the running totals of all alarm
+	 *     statistics.
+	 */
+	public NacAlarmStatisticSummaryDao getAlarmStatisticSummaryDao()
+	{
+		return this.mAlarmStatisticSummaryDao;
+	}
+
+	/**
+	 * @return The application context.
+	 */
+	private Context getContext()
+	{
+		return this.mContext;
+	}
+
 	/**
 	 * Get the number of created alarm statistics.
 	 *
@@ -186,7 +293,8 @@ public class NacAlarmStatisticRepository
 	public long getCreatedCount()
 	{
 		NacAlarmCreatedStatisticDao dao = this.getAlarmCreatedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
@@ -199,12 +307,23 @@ public class NacAlarmStatisticRepository
 	public Date getCreatedFirstDate()
 	{
 		NacAlarmCreatedStatisticDao dao = this.getAlarmCreatedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getFirstCreatedDate);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getFirstCreatedDate,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 		long timestamp = NacRepository.getLongFromFuture(future);
 
 		return new Date(timestamp);
 	}
 
+	/**
+	 * Get the alarm database.
+	 *
+	 * @return The alarm database.
+	 */
+	public NacAlarmDatabase getDatabase()
+	{
+		return this.mDatabase;
+	}
+
 	/**
 	 * Get the number of deleted alarm statistics.
 	 *
@@ -213,7 +332,8 @@ public class NacAlarmStatisticRepository
 	public long getDeletedCount()
 	{
 		NacAlarmDeletedStatisticDao dao = this.getAlarmDeletedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
@@ -226,7 +346,8 @@ public class NacAlarmStatisticRepository
 	public long getDismissedCount()
 	{
 		NacAlarmDismissedStatisticDao dao = this.getAlarmDismissedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
@@ -239,11 +360,133 @@ public class NacAlarmStatisticRepository
 	public long getDismissedWithNfcCount()
 	{
 		NacAlarmDismissedStatisticDao dao = this.getAlarmDismissedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getNfcCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getNfcCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
 
+	/**
+	 * Get the number of statistics of a type for each alarm.
+	 *
+	 * Statistics whose alarm was deleted are counted under the alarm ID 0.
+	 *
+	 * @param  type  Type of statistic. Only dismissed, missed, and snoozed
+	 *     statistics have an alarm.
+	 * @param  since  Only count statistics on or after this timestamp.
+	 *
+	 * @return The number of statistics of a type for each alarm.
+	 */
+	public List<NacAlarmStatisticBucket> getHistogramByAlarm(String type,
+		long since)
+	{
+		NacAlarmStatisticHistogramDao dao = this.getAlarmStatisticHistogramDao();
+		Callable<List<NacAlarmStatisticBucket>> query;
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				query = () -> dao.getDismissedByAlarm(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				query = () -> dao.getMissedByAlarm(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				query = () -> dao.getSnoozedByAlarm(since);
+				break;
+			default:
+				return new ArrayList<>();
+		}
+
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(query,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
+
+		return NacRepository.getStatisticBucketListFromFuture(future);
+	}
+
+	/**
+	 * Get the number of statistics of a type on each day of the week, without
+	 * blocking the calling thread.
+	 *
+	 * @param  type  Type of statistic. Only dismissed, missed, and snoozed
+	 *     statistics are supported.
+	 * @param  since  Only count statistics on or after this timestamp.
+	 * @param  listener  Called with the number of statistics of a type on each
+	 *     day of the week, or null if they could not be read.
+	 */
+	public void getHistogramByDay(String type, long since,
+		OnResultListener<NacAlarmStatisticHistogram> listener)
+	{
+		NacAlarmStatisticHistogramDao dao = this.getAlarmStatisticHistogramDao();
+		Callable<List<NacAlarmStatisticBucket>> query;
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				query = () -> dao.getDismissedByDay(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				query = () -> dao.getMissedByDay(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				query = () -> dao.getSnoozedByDay(since);
+				break;
+			default:
+				query = ArrayList::new;
+				break;
+		}
+
+		Callable<NacAlarmStatisticHistogram> task = () ->
+			new NacAlarmStatisticHistogram(query.call(),
+				NacAlarmStatisticHistogram.DAYS_PER_WEEK);
+
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(), task,
+			NacDatabaseExecutor.PRIORITY_STATISTIC, listener);
+	}
+
+	/**
+	 * Get the number of statistics of a type in each hour of the day, without
+	 * blocking the calling thread.
+	 *
+	 * Statistics that were rolled up into daily totals are not counted, since
+	 * the daily totals do not keep the time of day.
+	 *
+	 * @param  type  Type of statistic. Only dismissed, missed, and snoozed
+	 *     statistics are supported.
+	 * @param  since  Only count statistics on or after this timestamp.
+	 * @param  listener  Called with the number of statistics of a type in each
+	 *     hour of the day, or null if they could not be read.
+	 */
+	public void getHistogramByHour(String type, long since,
+		OnResultListener<NacAlarmStatisticHistogram> listener)
+	{
+		NacAlarmStatisticHistogramDao dao = this.getAlarmStatisticHistogramDao();
+		Callable<List<NacAlarmStatisticBucket>> query;
+
+		switch (type)
+		{
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				query = () -> dao.getDismissedByHour(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				query = () -> dao.getMissedByHour(since);
+				break;
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				query = () -> dao.getSnoozedByHour(since);
+				break;
+			default:
+				query = ArrayList::new;
+				break;
+		}
+
+		Callable<NacAlarmStatisticHistogram> task = () ->
+			new NacAlarmStatisticHistogram(query.call(),
+				NacAlarmStatisticHistogram.HOURS_PER_DAY);
+
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(), task,
+			NacDatabaseExecutor.PRIORITY_STATISTIC, listener);
+	}
+
 	/**
 	 * Get the number of missed alarm statistics.
 	 *
@@ -252,7 +495,8 @@ public class NacAlarmStatisticRepository
 	public long getMissedCount()
 	{
 		NacAlarmMissedStatisticDao dao = this.getAlarmMissedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
@@ -265,7 +509,8 @@ public class NacAlarmStatisticRepository
 	public long getSnoozedCount()
 	{
 		NacAlarmSnoozedStatisticDao dao = this.getAlarmSnoozedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getCount);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getCount,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
@@ -278,114 +523,233 @@ public class NacAlarmStatisticRepository
 	public long getSnoozedTotalDuration()
 	{
 		NacAlarmSnoozedStatisticDao dao = this.getAlarmSnoozedStatisticDao();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(dao::getTotalDuration);
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(dao::getTotalDuration,
+			NacDatabaseExecutor.PRIORITY_STATISTIC);
 
 		return NacRepository.getLongFromFuture(future);
 	}
 
 	/**
-	 * Insert a created alarm statistic, asynchronously, into the database.
+	 * Get the running totals of all alarm statistics.
 	 *
-	 * @return The row ID of the inserted statistic.
+	 * This is a single row, so it is much faster than counting each table.
+	 *
+	 * @return The running totals of all alarm statistics.
 	 */
-	public long insertCreated()
+	public NacAlarmStatisticSummary getSummary()
 	{
-		NacAlarmCreatedStatisticDao dao = this.getAlarmCreatedStatisticDao();
-		NacAlarmCreatedStatistic stat = new NacAlarmCreatedStatistic();
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(() ->
-			dao.insert(stat));
+		Future<?> future = NacAlarmDatabase.getReadExecutor().submit(
+			this.getSummaryTask(), NacDatabaseExecutor.PRIORITY_STATISTIC);
+		NacAlarmStatisticSummary summary =
+			NacRepository.getStatisticSummaryFromFuture(future);
 
-		return NacRepository.getLongFromFuture(future);
+		return (summary != null) ? summary : new NacAlarmStatisticSummary();
 	}
 
 	/**
-	 * Insert a deleted alarm statistic, asynchronously, into the database.
+	 * Get the running totals of all alarm statistics, without blocking the
+	 * calling thread.
 	 *
-	 * @param  alarm  Alarm that was deleted.
+	 * @param  listener  Called with the running totals of all alarm
+	 *     statistics, or null if they could not be read.
+	 */
+	public void getSummary(OnResultListener<NacAlarmStatisticSummary> listener)
+	{
+		NacRepository.doAsync(NacAlarmDatabase.getReadExecutor(),
+			this.getSummaryTask(), NacDatabaseExecutor.PRIORITY_STATISTIC,
+			listener);
+	}
+
+	/**
+	 * @return The task to read the running totals of all alarm statistics, with
+	 *     all totals at zero if there are none yet.
+	 */
+	private Callable<NacAlarmStatisticSummary> getSummaryTask()
+	{
+		NacAlarmStatisticSummaryDao dao = this.getAlarmStatisticSummaryDao();
+
+		return () -> {
+			NacAlarmStatisticSummary summary = dao.get();
+			return (summary != null) ? summary : new NacAlarmStatisticSummary();
+		};
+	}
+
+	/**
+	 * Save a batch of logged statistics, and add them to the totals, in a
+	 * single transaction.
+	 *
+	 * This will wait until all statistics are saved.
+	 *
+	 * @param  events  Statistics to save.
+	 *
+	 * @return The number of statistics saved, or -1 if they could not be
+	 *     saved.
+	 */
+	public int insertAll(List<NacAlarmStatisticEvent> events)
+	{
+		NacAlarmDatabase db = this.getDatabase();
+		Future<?> future = NacAlarmDatabase.getWriteExecutor().submit(() ->
+			db.runInTransaction(() -> {
+				LongSparseArray<Boolean> alarmExists = new LongSparseArray<>();
+
+				this.getAlarmStatisticSummaryDao().createIfMissing();
+
+				for (NacAlarmStatisticEvent e : events)
+				{
+					long id = e.getAlarmId();
+					Boolean exists = alarmExists.get(id);
+
+					if (exists == null)
+					{
+						exists = (id > 0) && (db.alarmDao().findAlarm(id) != null);
+						alarmExists.put(id, exists);
+					}
+
+					this.insertEvent(e, exists);
+				}
+
+				return events.size();
+			}), NacDatabaseExecutor.PRIORITY_STATISTIC);
+
+		return NacRepository.getIntegerFromFuture(future);
+	}
+
+	/**
+	 * Log a created alarm statistic.
+	 *
+	 * This does not block, and the statistic is saved in the background.
+	 */
+	public void insertCreated()
+	{
+		this.log(new NacAlarmStatisticEvent(NacAlarmDailyStatistic.TYPE_CREATED,
+			null));
+	}
+
+	/**
+	 * Log a deleted alarm statistic.
+	 *
+	 * This does not block, and the statistic is saved in the background.
 	 *
-	 * @return The row ID of the inserted statistic.
+	 * @param  alarm  Alarm that was deleted.
 	 */
-	public long insertDeleted(NacAlarm alarm)
+	public void insertDeleted(NacAlarm alarm)
 	{
 		if (alarm == null)
 		{
-			return -1;
+			return;
 		}
 
-		NacAlarmDeletedStatisticDao dao = this.getAlarmDeletedStatisticDao();
-		NacAlarmDeletedStatistic stat = new NacAlarmDeletedStatistic(alarm);
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(() ->
-			dao.insert(stat));
-
-		return NacRepository.getLongFromFuture(future);
+		this.log(new NacAlarmStatisticEvent(NacAlarmDailyStatistic.TYPE_DELETED,
+			alarm));
 	}
 
 	/**
-	 * Insert a dismissed alarm statistic, asynchronously, into the database.
+	 * Log a dismissed alarm statistic.
+	 *
+	 * This does not block, and the statistic is saved in the background.
 	 *
 	 * @param  alarm  Alarm that was dismissed.
 	 * @param  usedNfc  Whether NFC was used to dismiss the alarm or not.
-	 *
-	 * @return The row ID of the inserted statistic.
 	 */
-	public long insertDismissed(NacAlarm alarm, boolean usedNfc)
+	public void insertDismissed(NacAlarm alarm, boolean usedNfc)
 	{
 		if (alarm == null)
 		{
-			return -1;
+			return;
 		}
 
-		NacAlarmDismissedStatisticDao dao = this.getAlarmDismissedStatisticDao();
-		NacAlarmDismissedStatistic stat = new NacAlarmDismissedStatistic(alarm, usedNfc);
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(() ->
-			dao.insert(stat));
+		this.log(new NacAlarmStatisticEvent(NacAlarmDailyStatistic.TYPE_DISMISSED,
+			alarm, usedNfc, 0));
+	}
 
-		return NacRepository.getLongFromFuture(future);
+	/**
+	 * Save a single logged statistic, and add it to the totals.
+	 *
+	 * This must be called from inside a transaction.
+	 *
+	 * @param  event  Statistic to save.
+	 * @param  alarmExists  Whether the alarm of the statistic still exists.
+	 */
+	private void insertEvent(NacAlarmStatisticEvent event, boolean alarmExists)
+	{
+		NacAlarmStatisticSummaryDao summaryDao = this.getAlarmStatisticSummaryDao();
+		NacAlarmStatistic stat = event.toStatistic(alarmExists);
+
+		switch (event.getType())
+		{
+			case NacAlarmDailyStatistic.TYPE_CREATED:
+				this.getAlarmCreatedStatisticDao().insert(
+					(NacAlarmCreatedStatistic) stat);
+				summaryDao.incrementCreated(event.getTimestamp());
+				break;
+			case NacAlarmDailyStatistic.TYPE_DELETED:
+				this.getAlarmDeletedStatisticDao().insert(
+					(NacAlarmDeletedStatistic) stat);
+				summaryDao.incrementDeleted();
+				break;
+			case NacAlarmDailyStatistic.TYPE_DISMISSED:
+				this.getAlarmDismissedStatisticDao().insert(
+					(NacAlarmDismissedStatistic) stat);
+				summaryDao.incrementDismissed(event.usedNfc() ? 1 : 0);
+				break;
+			case NacAlarmDailyStatistic.TYPE_MISSED:
+				this.getAlarmMissedStatisticDao().insert(
+					(NacAlarmMissedStatistic) stat);
+				summaryDao.incrementMissed();
+				break;
+			case NacAlarmDailyStatistic.TYPE_SNOOZED:
+				this.getAlarmSnoozedStatisticDao().insert(
+					(NacAlarmSnoozedStatistic) stat);
+				summaryDao.incrementSnoozed(event.getDuration());
+				break;
+			default:
+				break;
+		}
 	}
 
 	/**
-	 * Insert a missed alarm statistic, asynchronously, into the database.
+	 * Log a missed alarm statistic.
 	 *
-	 * @param  alarm  Alarm that was missed.
+	 * This does not block, and the statistic is saved in the background.
 	 *
-	 * @return The row ID of the inserted statistic.
+	 * @param  alarm  Alarm that was missed.
 	 */
-	public long insertMissed(NacAlarm alarm)
+	public void insertMissed(NacAlarm alarm)
 	{
 		if (alarm == null)
 		{
-			return -1;
+			return;
 		}
 
-		NacAlarmMissedStatisticDao dao = this.getAlarmMissedStatisticDao();
-		NacAlarmMissedStatistic stat = new NacAlarmMissedStatistic(alarm);
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(() ->
-			dao.insert(stat));
-
-		return NacRepository.getLongFromFuture(future);
+		this.log(new NacAlarmStatisticEvent(NacAlarmDailyStatistic.TYPE_MISSED,
+			alarm));
 	}
 
 	/**
-	 * Insert a snoozed alarm statistic, asynchronously, into the database.
+	 * Log a snoozed alarm statistic.
+	 *
+	 * This does not block, and the statistic is saved in the background.
 	 *
 	 * @param  alarm  Alarm that was snoozed.
 	 * @param  duration  The duration the alarm was snoozed for.
-	 *
-	 * @return The row ID of the inserted statistic.
 	 */
-	public long insertSnoozed(NacAlarm alarm, long duration)
+	public void insertSnoozed(NacAlarm alarm, long duration)
 	{
 		if (alarm == null)
 		{
-			return -1;
+			return;
 		}
 
-		NacAlarmSnoozedStatisticDao dao = this.getAlarmSnoozedStatisticDao();
-		NacAlarmSnoozedStatistic stat = new NacAlarmSnoozedStatistic(alarm, duration);
-		Future<?> future = NacAlarmDatabase.getExecutor().submit(() ->
-			dao.insert(stat));
+		this.log(new NacAlarmStatisticEvent(NacAlarmDailyStatistic.TYPE_SNOOZED,
+			alarm, false, duration));
+	}
 
-		return NacRepository.getLongFromFuture(future);
+	/**
+	 * Add a statistic to the event log.
+	 */
+	private void log(NacAlarmStatisticEvent event)
+	{
+		NacAlarmStatisticLog.getInstance(this.getContext()).add(event);
 	}
 
 }
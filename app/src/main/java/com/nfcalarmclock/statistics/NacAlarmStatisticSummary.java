@@ -0,0 +1,229 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Running totals of all alarm statistics.
+ *
+ * There is only ever one row in this table. It is updated in the same
+ * transaction as each statistic that is inserted, so that the totals do not
+ * have to be counted each time they are shown.
+ */
+@Entity(tableName="alarm_statistic_summary")
+public class NacAlarmStatisticSummary
+{
+
+	/**
+	 * ID of the only row in the table.
+	 */
+	public static final long ID = 1;
+
+	/**
+	 * Unique ID.
+	 */
+	@PrimaryKey
+	@ColumnInfo(name="id")
+	private long mId;
+
+	/**
+	 * Number of alarms created.
+	 */
+	@ColumnInfo(name="created_count", defaultValue="0")
+	private long mCreatedCount;
+
+	/**
+	 * Timestamp of when the first alarm was created.
+	 */
+	@ColumnInfo(name="first_created_timestamp", defaultValue="0")
+	private long mFirstCreatedTimestamp;
+
+	/**
+	 * Number of alarms deleted.
+	 */
+	@ColumnInfo(name="deleted_count", defaultValue="0")
+	private long mDeletedCount;
+
+	/**
+	 * Number of alarms dismissed.
+	 */
+	@ColumnInfo(name="dismissed_count", defaultValue="0")
+	private long mDismissedCount;
+
+	/**
+	 * Number of alarms dismissed with NFC.
+	 */
+	@ColumnInfo(name="dismissed_with_nfc_count", defaultValue="0")
+	private long mDismissedWithNfcCount;
+
+	/**
+	 * Number of alarms missed.
+	 */
+	@ColumnInfo(name="missed_count", defaultValue="0")
+	private long mMissedCount;
+
+	/**
+	 * Number of alarms snoozed.
+	 */
+	@ColumnInfo(name="snoozed_count", defaultValue="0")
+	private long mSnoozedCount;
+
+	/**
+	 * Total duration that alarms were snoozed for.
+	 */
+	@ColumnInfo(name="snoozed_total_duration", defaultValue="0")
+	private long mSnoozedTotalDuration;
+
+	/**
+	 */
+	public NacAlarmStatisticSummary()
+	{
+		this.setId(ID);
+	}
+
+	/**
+	 * @return The number of alarms created.
+	 */
+	public long getCreatedCount()
+	{
+		return this.mCreatedCount;
+	}
+
+	/**
+	 * @return The number of alarms deleted.
+	 */
+	public long getDeletedCount()
+	{
+		return this.mDeletedCount;
+	}
+
+	/**
+	 * @return The number of alarms dismissed.
+	 */
+	public long getDismissedCount()
+	{
+		return this.mDismissedCount;
+	}
+
+	/**
+	 * @return The number of alarms dismissed with NFC.
+	 */
+	public long getDismissedWithNfcCount()
+	{
+		return this.mDismissedWithNfcCount;
+	}
+
+	/**
+	 * @return The timestamp of when the first alarm was created.
+	 */
+	public long getFirstCreatedTimestamp()
+	{
+		return this.mFirstCreatedTimestamp;
+	}
+
+	/**
+	 * @return The unique ID.
+	 */
+	public long getId()
+	{
+		return this.mId;
+	}
+
+	/**
+	 * @return The number of alarms missed.
+	 */
+	public long getMissedCount()
+	{
+		return this.mMissedCount;
+	}
+
+	/**
+	 * @return The number of alarms snoozed.
+	 */
+	public long getSnoozedCount()
+	{
+		return this.mSnoozedCount;
+	}
+
+	/**
+	 * @return The total duration that alarms were snoozed for.
+	 */
+	public long getSnoozedTotalDuration()
+	{
+		return this.mSnoozedTotalDuration;
+	}
+
+	/**
+	 * Set the number of alarms created.
+	 */
+	public void setCreatedCount(long count)
+	{
+		this.mCreatedCount = count;
+	}
+
+	/**
+	 * Set the number of alarms deleted.
+	 */
+	public void setDeletedCount(long count)
+	{
+		this.mDeletedCount = count;
+	}
+
+	/**
+	 * Set the number of alarms dismissed.
+	 */
+	public void setDismissedCount(long count)
+	{
+		this.mDismissedCount = count;
+	}
+
+	/**
+	 * Set the number of alarms dismissed with NFC.
+	 */
+	public void setDismissedWithNfcCount(long count)
+	{
+		this.mDismissedWithNfcCount = count;
+	}
+
+	/**
+	 * Set the timestamp of when the first alarm was created.
+	 */
+	public void setFirstCreatedTimestamp(long timestamp)
+	{
+		this.mFirstCreatedTimestamp = timestamp;
+	}
+
+	/**
+	 * Set the unique ID.
+	 */
+	public void setId(long id)
+	{
+		this.mId = id;
+	}
+
+	/**
+	 * Set the number of alarms missed.
+	 */
+	public void setMissedCount(long count)
+	{
+		this.mMissedCount = count;
+	}
+
+	/**
+	 * Set the number of alarms snoozed.
+	 */
+	public void setSnoozedCount(long count)
+	{
+		this.mSnoozedCount = count;
+	}
+
+	/**
+	 * Set the total duration that alarms were snoozed for.
+	 */
+	public void setSnoozedTotalDuration(long duration)
+	{
+		this.mSnoozedTotalDuration = duration;
+	}
+
+}
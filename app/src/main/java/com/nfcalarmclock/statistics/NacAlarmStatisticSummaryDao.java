@@ -0,0 +1,103 @@
+package com.nfcalarmclock.statistics;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * Data access object for the running totals of all alarm statistics.
+ */
+@Dao
+public interface NacAlarmStatisticSummaryDao
+{
+
+	/**
+	 * Create the summary row, if it does not already exist.
+	 */
+	@Query("INSERT OR IGNORE INTO alarm_statistic_summary (id) VALUES (1)")
+	void createIfMissing();
+
+	/**
+	 * Get the running totals of all alarm statistics.
+	 *
+	 * @return The running totals of all alarm statistics, or null if no
+	 *     statistics have been saved yet.
+	 */
+	@Query("SELECT * FROM alarm_statistic_summary WHERE id=1")
+	NacAlarmStatisticSummary get();
+
+	/**
+	 * Add a created alarm to the totals.
+	 *
+	 * @param  timestamp  Time at which the alarm was created.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET created_count=created_count+1, "
+		+ "first_created_timestamp=CASE WHEN first_created_timestamp=0 "
+		+ "THEN :timestamp ELSE first_created_timestamp END WHERE id=1")
+	void incrementCreated(long timestamp);
+
+	/**
+	 * Add a deleted alarm to the totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET deleted_count=deleted_count+1 "
+		+ "WHERE id=1")
+	void incrementDeleted();
+
+	/**
+	 * Add a dismissed alarm to the totals.
+	 *
+	 * @param  nfc  1 if NFC was used to dismiss the alarm, and 0 otherwise.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET dismissed_count=dismissed_count+1, "
+		+ "dismissed_with_nfc_count=dismissed_with_nfc_count+:nfc WHERE id=1")
+	void incrementDismissed(int nfc);
+
+	/**
+	 * Add a missed alarm to the totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET missed_count=missed_count+1 "
+		+ "WHERE id=1")
+	void incrementMissed();
+
+	/**
+	 * Add a snoozed alarm to the totals.
+	 *
+	 * @param  duration  The duration the alarm was snoozed for.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET snoozed_count=snoozed_count+1, "
+		+ "snoozed_total_duration=snoozed_total_duration+:duration WHERE id=1")
+	void incrementSnoozed(long duration);
+
+	/**
+	 * Reset the created alarm totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET created_count=0, "
+		+ "first_created_timestamp=0 WHERE id=1")
+	void resetCreated();
+
+	/**
+	 * Reset the deleted alarm totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET deleted_count=0 WHERE id=1")
+	void resetDeleted();
+
+	/**
+	 * Reset the dismissed alarm totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET dismissed_count=0, "
+		+ "dismissed_with_nfc_count=0 WHERE id=1")
+	void resetDismissed();
+
+	/**
+	 * Reset the missed alarm totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET missed_count=0 WHERE id=1")
+	void resetMissed();
+
+	/**
+	 * Reset the snoozed alarm totals.
+	 */
+	@Query("UPDATE alarm_statistic_summary SET snoozed_count=0, "
+		+ "snoozed_total_duration=0 WHERE id=1")
+	void resetSnoozed();
+
+}
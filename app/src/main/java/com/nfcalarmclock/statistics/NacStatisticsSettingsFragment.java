@@ -10,10 +10,13 @@ import androidx.fragment.app.Fragment;
 import com.nfcalarmclock.R;
 import com.nfcalarmclock.shared.NacSharedConstants;
 import com.nfcalarmclock.shared.NacSharedPreferences;
+import com.nfcalarmclock.system.NacCalendarFormat;
 import com.nfcalarmclock.statistics.NacAlarmStatisticRepository;
 
 import java.text.DateFormat;
+import java.text.DateFormatSymbols;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 
@@ -41,25 +44,28 @@ public class NacStatisticsSettingsFragment
 		super.onViewCreated(root, savedInstanceState);
 
 		Context context = getContext();
-		NacAlarmStatisticRepository repo = new NacAlarmStatisticRepository(context);
-		NacSharedPreferences shared = new NacSharedPreferences(context);
 
-		this.setupDismissedAlarms(repo, root);
-		this.setupSnoozedAlarms(repo, root);
-		this.setupMissedAlarms(repo, root);
-		this.setupCreatedAlarms(repo, root);
-		this.setupDeletedAlarms(repo, root);
-		this.setupCurrentAlarms(repo, root);
-		this.setupStartedOnDate(repo, shared, root);
-		this.setupThemeColor(shared, root);
+		// Save any statistics that are still in the event log, and then show
+		// the statistics
+		NacAlarmStatisticLog.getInstance(context).flush(result -> {
+
+			// The fragment was closed before the statistics were saved
+			if (!isAdded())
+			{
+				return;
+			}
+
+			this.setupStatistics(context, root);
+
+		});
 	}
 
 	/**
 	 * Setup the created alarm statistics.
 	 */
-	private void setupCreatedAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupCreatedAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numCreated = repo.getCreatedCount();
+		long numCreated = summary.getCreatedCount();
 		String text = String.valueOf(numCreated);
 
 		TextView textview = root.findViewById(R.id.created_alarms_number);
@@ -69,10 +75,10 @@ public class NacStatisticsSettingsFragment
 	/**
 	 * Setup the current alarm statistics.
 	 */
-	private void setupCurrentAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupCurrentAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numCreated = repo.getCreatedCount();
-		long numDeleted = repo.getDeletedCount();
+		long numCreated = summary.getCreatedCount();
+		long numDeleted = summary.getDeletedCount();
 		long numCurrent = numCreated - numDeleted;
 		String text = String.valueOf(numCurrent);
 
@@ -83,9 +89,9 @@ public class NacStatisticsSettingsFragment
 	/**
 	 * Setup the deleted alarm statistics.
 	 */
-	private void setupDeletedAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupDeletedAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numDeleted = repo.getDeletedCount();
+		long numDeleted = summary.getDeletedCount();
 		String text = String.valueOf(numDeleted);
 
 		TextView textview = root.findViewById(R.id.deleted_alarms_number);
@@ -95,10 +101,10 @@ public class NacStatisticsSettingsFragment
 	/**
 	 * Setup the dismissed alarm statistics.
 	 */
-	private void setupDismissedAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupDismissedAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numDismissedTotal = repo.getDismissedCount();
-		long numDismissedWithNfc = repo.getDismissedWithNfcCount();
+		long numDismissedTotal = summary.getDismissedCount();
+		long numDismissedWithNfc = summary.getDismissedWithNfcCount();
 
 		Locale locale = Locale.getDefault();
 		String text = String.format(locale, "%1$s (%2$s NFC)", numDismissedTotal,
@@ -111,22 +117,42 @@ public class NacStatisticsSettingsFragment
 	/**
 	 * Setup the missed alarm statistics.
 	 */
-	private void setupMissedAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupMissedAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numMissed = repo.getMissedCount();
+		long numMissed = summary.getMissedCount();
 		String text = String.valueOf(numMissed);
 
 		TextView textview = root.findViewById(R.id.missed_alarms_number);
 		textview.setText(text);
 	}
 
+	/**
+	 * Setup the day of the week that alarms are snoozed on the most.
+	 */
+	private void setupMostSnoozedDay(NacAlarmStatisticHistogram histogram,
+		View root)
+	{
+		int day = histogram.getMaxIndex();
+		String text = "-";
+
+		if (day >= 0)
+		{
+			// Calendar days start at 1 for Sunday, while the histogram starts at 0
+			String[] weekdays = new DateFormatSymbols().getWeekdays();
+			text = weekdays[Calendar.SUNDAY + day];
+		}
+
+		TextView textview = root.findViewById(R.id.most_snoozed_day_number);
+		textview.setText(text);
+	}
+
 	/**
 	 * Setup the snoozed alarm statistics.
 	 */
-	private void setupSnoozedAlarms(NacAlarmStatisticRepository repo, View root)
+	private void setupSnoozedAlarms(NacAlarmStatisticSummary summary, View root)
 	{
-		long numSnoozed = repo.getSnoozedCount();
-		long snoozeDuration = repo.getSnoozedTotalDuration() / 60;
+		long numSnoozed = summary.getSnoozedCount();
+		long snoozeDuration = summary.getSnoozedTotalDuration() / 60;
 
 		Locale locale = Locale.getDefault();
 		String text = String.format(locale, "%1$s (%2$s min)", numSnoozed,
@@ -139,13 +165,13 @@ public class NacStatisticsSettingsFragment
 	/**
 	 * Setup the date that statistics started on.
 	 */
-	private void setupStartedOnDate(NacAlarmStatisticRepository repo,
+	private void setupStartedOnDate(NacAlarmStatisticSummary summary,
 		NacSharedPreferences shared, View root)
 	{
 		NacSharedConstants cons = shared.getConstants();
 		String startedOnText = cons.getMessageStatisticsStartedOn();
 
-		Date dateStarted = repo.getCreatedFirstDate();
+		Date dateStarted = new Date(summary.getFirstCreatedTimestamp());
 		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm z");
 		String dateText = dateFormat.format(dateStarted);
 
@@ -156,6 +182,73 @@ public class NacStatisticsSettingsFragment
 		textview.setText(text);
 	}
 
+	/**
+	 * Setup all statistics.
+	 *
+	 * The statistics are read in the background, and each view is filled in
+	 * once the statistics it shows have been read.
+	 */
+	private void setupStatistics(Context context, View root)
+	{
+		NacAlarmStatisticRepository repo = new NacAlarmStatisticRepository(context);
+		NacSharedPreferences shared = new NacSharedPreferences(context);
+
+		this.setupThemeColor(shared, root);
+
+		repo.getSummary(summary -> {
+
+			// Unable to read the statistics, or the fragment was closed
+			if ((summary == null) || !isAdded())
+			{
+				return;
+			}
+
+			this.setupDismissedAlarms(summary, root);
+			this.setupSnoozedAlarms(summary, root);
+			this.setupMissedAlarms(summary, root);
+			this.setupCreatedAlarms(summary, root);
+			this.setupDeletedAlarms(summary, root);
+			this.setupCurrentAlarms(summary, root);
+			this.setupStartedOnDate(summary, shared, root);
+
+		});
+
+		repo.getHistogramByHour(NacAlarmDailyStatistic.TYPE_DISMISSED, 0,
+			histogram -> {
+
+				if ((histogram != null) && isAdded())
+				{
+					this.setupUsualDismissTime(histogram, context, root);
+				}
+
+			});
+
+		repo.getHistogramByDay(NacAlarmDailyStatistic.TYPE_SNOOZED, 0,
+			histogram -> {
+
+				if ((histogram != null) && isAdded())
+				{
+					this.setupMostSnoozedDay(histogram, root);
+				}
+
+			});
+	}
+
+	/**
+	 * Setup the hour of the day that alarms are usually dismissed in.
+	 */
+	private void setupUsualDismissTime(NacAlarmStatisticHistogram histogram,
+		Context context, View root)
+	{
+		int hour = histogram.getMaxIndex();
+		String text = (hour >= 0)
+			? NacCalendarFormat.Time.getClockTime(context, hour, 0)
+			: "-";
+
+		TextView textview = root.findViewById(R.id.usual_dismiss_time_number);
+		textview.setText(text);
+	}
+
 	/**
 	 * Setup theme color.
 	 */
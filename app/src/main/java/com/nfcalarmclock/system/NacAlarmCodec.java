@@ -0,0 +1,277 @@
+package com.nfcalarmclock.system;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.util.NacUtility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of an alarm, for passing it through intents and
+ * bundles.
+ *
+ * This holds the same fields as the Parcelable, but booleans are packed into
+ * a single set of flags, numbers are written as variable length integers, and
+ * strings are written as UTF-8 instead of UTF-16. The first byte is the
+ * version of the encoding, so that an intent that was created by an older
+ * version of the app, and is still held by AlarmManager, can still be read.
+ */
+public class NacAlarmCodec
+{
+
+	/**
+	 * Version of the encoding.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Flag for whether the alarm is active or not.
+	 */
+	private static final int FLAG_ACTIVE = 1;
+
+	/**
+	 * Flag for whether the alarm is enabled or not.
+	 */
+	private static final int FLAG_ENABLED = 1 << 1;
+
+	/**
+	 * Flag for whether the alarm repeats or not.
+	 */
+	private static final int FLAG_REPEAT = 1 << 2;
+
+	/**
+	 * Flag for whether the alarm vibrates or not.
+	 */
+	private static final int FLAG_VIBRATE = 1 << 3;
+
+	/**
+	 * Flag for whether the alarm uses NFC or not.
+	 */
+	private static final int FLAG_USE_NFC = 1 << 4;
+
+	/**
+	 * Flag for whether the alarm uses text-to-speech or not.
+	 */
+	private static final int FLAG_USE_TTS = 1 << 5;
+
+	/**
+	 * Flag for whether the alarm gradually increases the volume or not.
+	 */
+	private static final int FLAG_GRADUALLY_INCREASE_VOLUME = 1 << 6;
+
+	/**
+	 * Flag for whether the alarm restricts the volume or not.
+	 */
+	private static final int FLAG_RESTRICT_VOLUME = 1 << 7;
+
+	/**
+	 * Decode an alarm.
+	 *
+	 * @param  bytes  Encoded alarm.
+	 *
+	 * @return The alarm, or null if it could not be decoded, because it is
+	 *     from an unknown version, or it is truncated or corrupt.
+	 */
+	public static NacAlarm decode(byte[] bytes)
+	{
+		if (bytes == null)
+		{
+			return null;
+		}
+
+		try (DataInputStream input = new DataInputStream(
+				new ByteArrayInputStream(bytes)))
+		{
+			int version = input.readUnsignedByte();
+
+			if (version != VERSION)
+			{
+				return null;
+			}
+
+			NacAlarm alarm = new NacAlarm();
+			int flags = input.readUnsignedByte();
+
+			alarm.setId(readVarLong(input));
+			alarm.setIsActive((flags & FLAG_ACTIVE) != 0);
+			alarm.setTimeActive(readVarLong(input));
+			alarm.setSnoozeCount((int)readVarLong(input));
+			alarm.setIsEnabled((flags & FLAG_ENABLED) != 0);
+			alarm.setHour(input.readUnsignedByte());
+			alarm.setMinute(input.readUnsignedByte());
+			alarm.setDays(input.readUnsignedByte());
+			alarm.setRepeat((flags & FLAG_REPEAT) != 0);
+			alarm.setVibrate((flags & FLAG_VIBRATE) != 0);
+			alarm.setUseNfc((flags & FLAG_USE_NFC) != 0);
+			alarm.setNfcTagId(readString(input));
+			alarm.setMediaType((int)readVarLong(input));
+			alarm.setMediaPath(readString(input));
+			alarm.setMediaTitle(readString(input));
+			alarm.setVolume((int)readVarLong(input));
+			alarm.setAudioSource(readString(input));
+			alarm.setName(readString(input));
+			alarm.setUseTts((flags & FLAG_USE_TTS) != 0);
+			alarm.setTtsFrequency((int)readVarLong(input));
+			alarm.setShouldGraduallyIncreaseVolume(
+				(flags & FLAG_GRADUALLY_INCREASE_VOLUME) != 0);
+			alarm.setShouldRestrictVolume((flags & FLAG_RESTRICT_VOLUME) != 0);
+
+			return alarm;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			NacUtility.printf("AHHHHHHHHHHHHHHHHHHHH DECODE_ALARM exception!");
+			NacUtility.printf("Message : %s!", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Encode an alarm.
+	 *
+	 * @param  alarm  Alarm to encode.
+	 *
+	 * @return The encoded alarm, or null if the alarm is null.
+	 */
+	public static byte[] encode(NacAlarm alarm)
+	{
+		if (alarm == null)
+		{
+			return null;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		int flags = 0;
+
+		flags |= alarm.isActive() ? FLAG_ACTIVE : 0;
+		flags |= alarm.isEnabled() ? FLAG_ENABLED : 0;
+		flags |= alarm.shouldRepeat() ? FLAG_REPEAT : 0;
+		flags |= alarm.shouldVibrate() ? FLAG_VIBRATE : 0;
+		flags |= alarm.shouldUseNfc() ? FLAG_USE_NFC : 0;
+		flags |= alarm.shouldUseTts() ? FLAG_USE_TTS : 0;
+		flags |= alarm.getShouldGraduallyIncreaseVolume()
+			? FLAG_GRADUALLY_INCREASE_VOLUME : 0;
+		flags |= alarm.getShouldRestrictVolume() ? FLAG_RESTRICT_VOLUME : 0;
+
+		try (DataOutputStream output = new DataOutputStream(bytes))
+		{
+			output.writeByte(VERSION);
+			output.writeByte(flags);
+			writeVarLong(output, alarm.getId());
+			writeVarLong(output, alarm.getTimeActive());
+			writeVarLong(output, alarm.getSnoozeCount());
+			output.writeByte(alarm.getHour());
+			output.writeByte(alarm.getMinute());
+			output.writeByte(NacCalendar.Days.daysToValue(alarm.getDays()));
+			writeString(output, alarm.getNfcTagId());
+			writeVarLong(output, alarm.getMediaType());
+			writeString(output, alarm.getMediaPath());
+			writeString(output, alarm.getMediaTitle());
+			writeVarLong(output, alarm.getVolume());
+			writeString(output, alarm.getAudioSource());
+			writeString(output, alarm.getName());
+			writeVarLong(output, alarm.getTtsFrequency());
+		}
+		catch (IOException e)
+		{
+			// Writing to a byte array does not throw
+			return null;
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Read a string that may be null.
+	 *
+	 * The length is checked against the number of bytes that are left, before
+	 * anything is allocated, so that a corrupt length cannot ask for a huge or
+	 * negative array.
+	 */
+	private static String readString(DataInputStream input)
+		throws IOException
+	{
+		long length = readVarLong(input);
+
+		// A length of 0 is a null string
+		if (length == 0)
+		{
+			return null;
+		}
+
+		if ((length < 0) || (length-1 > input.available()))
+		{
+			throw new IOException("String length is out of range");
+		}
+
+		byte[] utf8 = new byte[(int)(length-1)];
+
+		input.readFully(utf8);
+		return new String(utf8, "UTF-8");
+	}
+
+	/**
+	 * Read a variable length, unsigned integer.
+	 */
+	private static long readVarLong(DataInputStream input)
+		throws IOException
+	{
+		long value = 0;
+		int shift = 0;
+		int b;
+
+		do
+		{
+			if (shift >= 64)
+			{
+				throw new IOException("Variable length integer is too long");
+			}
+
+			b = input.readUnsignedByte();
+			value |= (long)(b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	/**
+	 * Write a string that may be null.
+	 */
+	private static void writeString(DataOutputStream output, String string)
+		throws IOException
+	{
+		if (string == null)
+		{
+			writeVarLong(output, 0);
+			return;
+		}
+
+		byte[] utf8 = string.getBytes("UTF-8");
+
+		writeVarLong(output, utf8.length+1);
+		output.write(utf8);
+	}
+
+	/**
+	 * Write a variable length, unsigned integer.
+	 *
+	 * Negative numbers are written as unsigned, and so take the full 10 bytes.
+	 */
+	private static void writeVarLong(DataOutputStream output, long value)
+		throws IOException
+	{
+		while ((value & ~0x7fL) != 0)
+		{
+			output.writeByte((int)((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+
+		output.writeByte((int)value);
+	}
+
+}
@@ -17,6 +17,11 @@ public class NacBundle
 	 */
 	public static final String ALARM_PARCEL_NAME = "NacAlarmParcel";
 
+	/**
+	 * Tag name associated with an encoded alarm.
+	 */
+	public static final String ALARM_BYTES_NAME = "NacAlarmBytes";
+
 	/**
 	 * Tag name associated with a media path.
 	 */
@@ -24,10 +29,22 @@ public class NacBundle
 
 	/**
 	 * @return The alarm contained in the bundle.
+	 *
+	 * An alarm that was put in the bundle as a Parcelable, by an older version
+	 * of the app, can still be read. The Parcelable is also tried if the
+	 * encoded alarm could not be decoded.
 	 */
 	public static NacAlarm getAlarm(Bundle bundle)
 	{
-		if (bundle != null)
+		byte[] bytes = (bundle != null) ? bundle.getByteArray(ALARM_BYTES_NAME)
+			: null;
+		NacAlarm alarm = NacAlarmCodec.decode(bytes);
+
+		if (alarm != null)
+		{
+			return alarm;
+		}
+		else if (bundle != null)
 		{
 			try
 			{
@@ -63,12 +80,15 @@ public class NacBundle
 
 	/**
 	 * @return A bundle that contains the alarm.
+	 *
+	 * The alarm is encoded with NacAlarmCodec, which is much smaller than the
+	 * Parcelable.
 	 */
 	public static Bundle toBundle(NacAlarm alarm)
 	{
 		Bundle bundle = new Bundle();
 
-		bundle.putParcelable(ALARM_PARCEL_NAME, alarm);
+		bundle.putByteArray(ALARM_BYTES_NAME, NacAlarmCodec.encode(alarm));
 		return bundle;
 	}
 
@@ -92,10 +112,8 @@ public class NacBundle
 		Bundle bundle = new Bundle();
 
 		bundle.putInt(TextToSpeech.Engine.KEY_PARAM_STREAM, attrs.getStream());
+		bundle.putFloat(TextToSpeech.Engine.KEY_PARAM_VOLUME, attrs.getGain());
 		return bundle;
-
-		//float value = attrs.getVolumeLevel() / 100.0f;
-		//bundle.putFloat(TextToSpeech.Engine.KEY_PARAM_VOLUME, value);
 	}
 
 }
@@ -1,12 +1,6 @@
 package com.nfcalarmclock.system;
 
-import android.content.Context;
-import android.text.format.DateFormat;
-
-import com.nfcalarmclock.alarm.NacAlarm;
-import com.nfcalarmclock.util.NacUtility;
-import com.nfcalarmclock.shared.NacSharedConstants;
-import com.nfcalarmclock.shared.NacSharedPreferences;
+import com.nfcalarmclock.alarm.NacAlarmTime;
 
 import java.lang.System;
 import java.text.SimpleDateFormat;
@@ -17,11 +11,14 @@ import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * A list of possible days the alarm can run on.
  *
- * TODO Fix getNextMessage and getMessage so that they're language compliant.
+ * This only uses java.util, so that the day and trigger time logic can be
+ * compiled and benchmarked on a plain JVM. Anything that needs a Context or
+ * resources goes in NacCalendarFormat.
  */
 public class NacCalendar
 {
@@ -88,161 +85,29 @@ public class NacCalendar
 	 */
 	public static final int WEEK_LENGTH = WEEK.size();
 
-	/**
-	 * @return A message to display.
-	 */
-	public static String getMessage(NacSharedPreferences shared,
-                                    NacAlarm alarm, String prefix)
-	{
-		NacSharedConstants cons = shared.getConstants();
-		Calendar calendar = NacCalendar.getNextAlarmDay(alarm);
-		Locale locale = Locale.getDefault();
-
-		if ((shared == null) || (alarm == null) || (calendar == null))
-		{
-			return String.format(locale, "%1$s.",
-				cons.getMessageNoAlarmsScheduled());
-		}
-		else if (!alarm.isEnabled())
-		{
-			int length = cons.getMessageNameLength();
-			String name = alarm.getNameNormalizedForMessage(length);
-			String isDisabled = cons.getIsDisabled();
-			String alarmWord = NacUtility.capitalize(cons.getAlarm(1));
-
-			return name.isEmpty()
-				? String.format(locale, "%1$s %2$s.", alarmWord, isDisabled)
-				: String.format(locale, "\"%1$s\" %2$s.", name, isDisabled);
-		}
-		else
-		{
-			Context context = shared.getContext();
-			int messageFormat = shared.getNextAlarmFormat();
-
-			if (messageFormat == 0)
-			{
-				return NacCalendar.getMessageTimeIn(context, calendar, prefix);
-			}
-			else
-			{
-				return NacCalendar.getMessageTimeOn(context, calendar, prefix);
-			}
-		}
-	}
-
-	/**
-	 * @return The message to display when the next alarm will occur.
-	 */
-	public static String getMessageNextAlarm(NacSharedPreferences shared,
-                                             NacAlarm alarm)
-	{
-		NacSharedConstants cons = shared.getConstants();
-		String prefix = cons.getNextAlarm();
-		return NacCalendar.getMessage(shared, alarm, prefix);
-	}
-
-	/**
-	 * @return The message to display when an alarm will run IN some amount of
-	 * time.
-	 */
-	public static String getMessageTimeIn(Context context, Calendar calendar,
-		String prefix)
-	{
-		NacSharedConstants cons = new NacSharedConstants(context);
-		long millis = calendar.getTimeInMillis();
-		long time = (millis - System.currentTimeMillis()) / 1000;
-		long day = (time / (60*60*24)) % 365;
-		long hr = (time / (60*60)) % 24;
-		long min = (time / 60) % 60;
-		long sec = time % 60;
-		String dayunit = cons.getUnitDay((int)day);
-		String hrunit  = cons.getUnitHour((int)hr);
-		String minunit = cons.getUnitMinute((int)min);
-		String secunit = cons.getUnitSecond((int)sec);
-		String timeRemaining;
-		String format = "%1$d %2$s %3$d %4$s";
-		Locale locale = Locale.getDefault();
-
-		if (day > 0)
-		{
-			timeRemaining = String.format(locale, format, day, dayunit, hr,
-				hrunit);
-		}
-		else
-		{
-			if (hr > 0)
-			{
-				timeRemaining = String.format(locale, format, hr, hrunit, min,
-					minunit);
-			}
-			else
-			{
-				format = (min > 0) ? format : format.substring(10, 19);
-				timeRemaining = String.format(locale, format, min, minunit,
-					sec, secunit);
-			}
-		}
-
-		return String.format(locale, "%1$s %2$s %3$s", prefix,
-			cons.getTimeIn(), timeRemaining);
-	}
-
-	/**
-	 * @return The message to display when an alarm will run ON some date and
-	 * time.
-	 */
-	public static String getMessageTimeOn(Context context, Calendar calendar,
-		String prefix)
-	{
-		NacSharedConstants cons = new NacSharedConstants(context);
-		String time = NacCalendar.Time.getFullTime(context, calendar);
-		Locale locale = Locale.getDefault();
-
-		return String.format(locale, "%1$s %2$s %3$s", prefix,
-			cons.getTimeOn(), time);
-	}
-
-	/**
-	 * @return The message to display when the alarm will run.
-	 */
-	public static String getMessageWillRun(NacSharedPreferences shared,
-		NacAlarm alarm)
-	{
-		NacSharedConstants cons = shared.getConstants();
-		int length = cons.getMessageNameLength();
-		Locale locale = Locale.getDefault();
-		String willRun = cons.getWillRun();
-		String name = alarm.getNameNormalizedForMessage(length);
-		String prefix = name.isEmpty() ? willRun
-			: String.format(locale, "\"%1$s\" %2$s", name,
-				willRun.toLowerCase(locale));
-
-		return NacCalendar.getMessage(shared, alarm, prefix);
-	}
-
 	/**
 	 * @return The alarm that will run next.
 	 *
 	 * @param  alarms  List of alarms to check.
 	 */
-	public static NacAlarm getNextAlarm(List<NacAlarm> alarms)
+	public static <T extends NacAlarmTime> T getNextAlarm(List<T> alarms)
 	{
-		Calendar nextCalendar = null;
-		NacAlarm nextAlarm = null;
+		long now = System.currentTimeMillis();
+		long nextMillis = 0;
+		T nextAlarm = null;
 
-		for (NacAlarm a : alarms)
+		for (T a : alarms)
 		{
 			if (!a.isEnabled())
 			{
 				continue;
 			}
 
-			Calendar calendar = NacCalendar.getNextAlarmDay(a);
+			long millis = NacCalendar.Trigger.getNext(a, now);
 
-			if ((nextCalendar == null)
-				|| ((calendar != null) && calendar.before(nextCalendar)))
+			if ((nextAlarm == null) || (millis < nextMillis))
 			{
-				nextCalendar = calendar;
+				nextMillis = millis;
 				nextAlarm = a;
 			}
 		}
@@ -255,10 +120,18 @@ public class NacCalendar
 	 *
 	 * @param  alarm  The alarm who's days to check.
 	 */
-	public static Calendar getNextAlarmDay(NacAlarm alarm)
+	public static Calendar getNextAlarmDay(NacAlarmTime alarm)
 	{
-		List<Calendar> calendars = NacCalendar.toCalendars(alarm);
-		return NacCalendar.getNextDay(calendars);
+		if (alarm == null)
+		{
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		Calendar calendar = Calendar.getInstance();
+
+		calendar.setTimeInMillis(NacCalendar.Trigger.getNext(alarm, now));
+		return calendar;
 	}
 
 	/**
@@ -279,7 +152,7 @@ public class NacCalendar
 	/**
 	 * @return Today's day, with the alarm hour and minute, if supplied.
 	 */
-	public static Calendar getToday(NacAlarm alarm)
+	public static Calendar getToday(NacAlarmTime alarm)
 	{
 		Calendar today = Calendar.getInstance();
 
@@ -302,7 +175,7 @@ public class NacCalendar
 	 *
 	 * @return A Calendar.
 	 */
-	public static Calendar toCalendar(NacAlarm alarm, Day day)
+	public static Calendar toCalendar(NacAlarmTime alarm, Day day)
 	{
 		int dow = NacCalendar.Days.toCalendarDay(day);
 		int hour = alarm.getHour();
@@ -325,7 +198,7 @@ public class NacCalendar
 	 *
 	 * @return A list of Calendars.
 	 */
-	public static List<Calendar> toCalendars(NacAlarm alarm)
+	public static List<Calendar> toCalendars(NacAlarmTime alarm)
 	{
 		List<Calendar> calendars = new ArrayList<>();
 
@@ -359,7 +232,7 @@ public class NacCalendar
 	 *
 	 * @return A Calendar.
 	 */
-	public static Calendar toNextCalendar(NacAlarm alarm, Day day)
+	public static Calendar toNextCalendar(NacAlarmTime alarm, Day day)
 	{
 		Calendar calendar = NacCalendar.toCalendar(alarm, day);
 		Calendar now = Calendar.getInstance();
@@ -376,7 +249,7 @@ public class NacCalendar
 	/**
 	 * Convert the one time alarm to the next calendar.
 	 */
-	public static Calendar toNextOneTimeCalendar(NacAlarm alarm)
+	public static Calendar toNextOneTimeCalendar(NacAlarmTime alarm)
 	{
 		Calendar today = NacCalendar.getToday(alarm);
 		Calendar now = Calendar.getInstance();
@@ -540,54 +413,17 @@ public class NacCalendar
 		}
 
 		/**
-		 * Convert an alarm to a string of days.
-		 *
-		 * If no days are specified and the alarm is enable.
-		 */
-		public static String toString(NacSharedConstants cons, NacAlarm alarm,
-			int start)
-		{
-			EnumSet<Day> days = alarm.getDays();
-			String string = NacCalendar.Days.toString(cons, days, start);
-
-			if (string.isEmpty() || !alarm.areDaysSelected())
-			{
-				int now = Calendar.getInstance().get(Calendar.DAY_OF_MONTH);
-				int next = NacCalendar.toNextOneTimeCalendar(alarm)
-					.get(Calendar.DAY_OF_MONTH);
-
-				return (now == next) ? cons.getToday() : cons.getTomorrow();
-			}
-
-			return string;
-		}
-
-		/**
-		 * Convert a set of days to a comma separate string of days.
+		 * Convert a set of days to a separated string of days.
 		 *
 		 * @return A string of the days.
 		 *
-		 * @param  cons  Shared constants.
+		 * @param  dow  Name of each day of the week, starting on Sunday.
 		 * @param  daysToConvert  The set of days to convert.
 		 * @param  start  The day to start the week on.
 		 */
-		public static String toString(NacSharedConstants cons,
+		public static String toString(List<String> dow,
 			EnumSet<Day> daysToConvert, int start)
 		{
-			if (NacCalendar.Days.isEveryday(daysToConvert))
-			{
-				return cons.getEveryday();
-			}
-			else if (NacCalendar.Days.isWeekday(daysToConvert))
-			{
-				return cons.getWeekdays();
-			}
-			else if (NacCalendar.Days.isWeekend(daysToConvert))
-			{
-				return cons.getWeekend();
-			}
-
-			List<String> dow = cons.getDaysOfWeekAbbr();
 			List<Day> days = Arrays.asList(Day.values());
 			StringBuilder summary = new StringBuilder(32);
 
@@ -609,15 +445,6 @@ public class NacCalendar
 			return summary.toString();
 		}
 
-		/**
-		 * @see #toString(NacSharedConstants, EnumSet, int)
-		 */
-		public static String toString(NacSharedConstants cons, int value, int start)
-		{
-			EnumSet<Day> days = NacCalendar.Days.valueToDays(value);
-			return NacCalendar.Days.toString(cons, days, start);
-		}
-
 		/**
 		 * Convert from a Calendar day to a Day.
 		 *
@@ -688,101 +515,268 @@ public class NacCalendar
 	}
 
 	/**
-	 * Time static class.
+	 * Compute the time at which an alarm will run next, in epoch milliseconds.
+	 *
+	 * This is the one place that converts the wall time of an alarm to epoch
+	 * milliseconds, and it does so without allocating any objects. The wall
+	 * time on each date is converted on its own. A wall time that falls in a
+	 * daylight saving gap is moved forward by the length of the gap, only on
+	 * that date. A wall time that happens twice, because the clocks were
+	 * turned back, is converted to the first of the two times, so that the
+	 * alarm does not run an hour late, or twice.
+	 *
+	 * The time zone is cached, and must be reset with reset() when it changes.
 	 */
-	public static class Time
+	public static class Trigger
 	{
 
 		/**
-		 * @param  context  The application context.
-		 * @param  hour  The hour.
-		 * @param  minute  The minutes.
-		 *
-		 * @return The time.
+		 * Number of milliseconds in a minute.
+		 */
+		public static final long MINUTE_MILLIS = 60L * 1000L;
+
+		/**
+		 * Number of milliseconds in an hour.
+		 */
+		public static final long HOUR_MILLIS = 60L * MINUTE_MILLIS;
+
+		/**
+		 * Number of milliseconds in a day.
+		 */
+		public static final long DAY_MILLIS = 24L * HOUR_MILLIS;
+
+		/**
+		 * Day of the week of the epoch, 1970-01-01, as a Calendar day, minus
+		 * Calendar.SUNDAY.
+		 */
+		private static final int EPOCH_DAY_OF_WEEK = Calendar.THURSDAY
+			- Calendar.SUNDAY;
+
+		/**
+		 * All the days in a week, so that looping over them does not allocate.
 		 */
-		public static String getClockTime(Context context, int hour, int minute)
+		private static final Day[] DAYS = Day.values();
+
+		/**
+		 * Value of each Calendar day, as a value of Days, indexed by the
+		 * Calendar day minus Calendar.SUNDAY.
+		 */
+		private static final int[] DAY_VALUES = new int[7];
+
+		static
 		{
-			boolean format = NacCalendar.Time.is24HourFormat(context);
-			return NacCalendar.Time.getClockTime(hour, minute, format);
+			for (Day d : DAYS)
+			{
+				int index = Days.toCalendarDay(d) - Calendar.SUNDAY;
+				DAY_VALUES[index] = d.getValue();
+			}
 		}
 
 		/**
-		 * @return The time.
-		 *
-		 * @param  hour    The hour.
-		 * @param  minute  The minutes.
-		 * @param  format  The 24 hour format, to determine how to interpret the
-		 *                 hour.
+		 * Cached time zone.
+		 */
+		private static volatile TimeZone sTimeZone;
+
+		/**
+		 * Number of times the cached time zone has been reset.
 		 */
-		public static String getClockTime(int hour, int minute, boolean format)
+		private static volatile int sGeneration;
+
+		/**
+		 * @return The floor of x divided by y.
+		 */
+		public static long floorDiv(long x, long y)
 		{
-			if (!format)
+			long q = x / y;
+
+			if (((x % y) != 0) && ((x < 0) != (y < 0)))
 			{
-				hour = NacCalendar.Time.to12HourFormat(hour);
+				q--;
 			}
 
-			Locale locale = Locale.getDefault();
-			return String.format(locale, "%1$d:%2$02d", hour, minute);
+			return q;
+		}
+
+		/**
+		 * @return The floor modulus of x and y.
+		 */
+		public static long floorMod(long x, long y)
+		{
+			return x - NacCalendar.Trigger.floorDiv(x, y)*y;
+		}
+
+		/**
+		 * Get the day of the week of a day.
+		 *
+		 * @param  day  Number of days since the epoch, in wall time.
+		 *
+		 * @return The day of the week, as a Calendar day.
+		 */
+		public static int getDayOfWeek(long day)
+		{
+			return (int) NacCalendar.Trigger.floorMod(day + EPOCH_DAY_OF_WEEK, 7)
+				+ Calendar.SUNDAY;
+		}
+
+		/**
+		 * Get the day of the week of a day, as a value of Days.
+		 *
+		 * @param  day  Number of days since the epoch, in wall time.
+		 *
+		 * @return The day of the week, as a value of Days.
+		 */
+		public static int getDayValue(long day)
+		{
+			int dayOfWeek = NacCalendar.Trigger.getDayOfWeek(day);
+
+			return DAY_VALUES[dayOfWeek-Calendar.SUNDAY];
+		}
+
+		/**
+		 * Get the number of times the cache has been reset.
+		 *
+		 * Trigger times that were computed before the most recent reset may no
+		 * longer be correct, and should be computed again.
+		 *
+		 * @return The number of times the cache has been reset.
+		 */
+		public static int getGeneration()
+		{
+			return sGeneration;
 		}
 
 		/**
-		 * @return The full time string, EEE, HH:MM AM/PM.
+		 * @see #getNext(int, int, int, long)
 		 */
-		public static String getFullTime(Context context, Calendar calendar)
+		public static long getNext(NacAlarmTime alarm, long now)
 		{
-			String format = NacCalendar.Time.is24HourFormat(context)
-				? "EEE HH:mm" : "EEE hh:mm a";
-			int hour = calendar.get(Calendar.HOUR_OF_DAY);
-			int convertedHour = NacCalendar.Time.to12HourFormat(hour);
+			EnumSet<Day> days = alarm.getDays();
+			int value = 0;
 
-			if (convertedHour < 10)
+			for (Day d : DAYS)
 			{
-				format = format.replaceFirst("h", " ");
+				if (days.contains(d))
+				{
+					value |= d.getValue();
+				}
 			}
 
-			return NacCalendar.toString(calendar, format);
+			return NacCalendar.Trigger.getNext(alarm.getHour(), alarm.getMinute(),
+				value, now);
 		}
 
 		/**
-		 * @return The time meridian.
+		 * Compute the time at which an alarm will run next.
+		 *
+		 * This is the first date, starting today, that the alarm runs on, whose
+		 * wall time is not in the past.
+		 *
+		 * @param  hour    The hour the alarm runs at.
+		 * @param  minute  The minute the alarm runs at.
+		 * @param  days    The days the alarm runs on, as a value of Days, or 0
+		 *     if the alarm only runs once.
+		 * @param  now     The current time, in epoch milliseconds.
 		 *
-		 * @param  hour  The hour.
+		 * @return The time at which the alarm will run next, in epoch
+		 *     milliseconds, or Long.MAX_VALUE if it does not run on any day.
 		 */
-		public static String getMeridian(Context context, int hour)
+		public static long getNext(int hour, int minute, int days, long now)
 		{
-			NacSharedConstants cons = new NacSharedConstants(context);
-			boolean format = NacCalendar.Time.is24HourFormat(context);
-			if (format)
+			TimeZone zone = NacCalendar.Trigger.getTimeZone();
+			long today = NacCalendar.Trigger.floorDiv(now + zone.getOffset(now),
+				DAY_MILLIS);
+			long timeOfDay = hour*HOUR_MILLIS + minute*MINUTE_MILLIS;
+
+			// Today, and the same day next week, in case the alarm already ran
+			// today. A one time alarm runs on the first of these that it can
+			for (long day=today; day <= today+7; day++)
 			{
-				return "";
+				if ((days != 0)
+					&& ((days & NacCalendar.Trigger.getDayValue(day)) == 0))
+				{
+					continue;
+				}
+
+				long millis = NacCalendar.Trigger.toMillis(zone,
+					day*DAY_MILLIS + timeOfDay);
+
+				if (millis >= now)
+				{
+					return millis;
+				}
 			}
-			else
+
+			return Long.MAX_VALUE;
+		}
+
+		/**
+		 * @return The cached time zone.
+		 */
+		public static TimeZone getTimeZone()
+		{
+			TimeZone zone = sTimeZone;
+
+			if (zone == null)
 			{
-				return (hour < 12) ? cons.getAm() : cons.getPm();
+				NacCalendar.Trigger.reset();
+				zone = sTimeZone;
 			}
+
+			return zone;
 		}
 
 		/**
-		 * @return True if the locale is in 24 hour time format, and False
-		 *         otherwise.
+		 * Reset the cached time zone.
+		 *
+		 * This should be called when the time zone changes.
 		 */
-		public static boolean is24HourFormat(Context context)
+		public static synchronized void reset()
 		{
-			return DateFormat.is24HourFormat(context);
+			sTimeZone = TimeZone.getDefault();
+			sGeneration++;
 		}
 
 		/**
-		 * Convert an hour to 12 hour format.
+		 * Convert a wall time to epoch milliseconds.
+		 *
+		 * The wall time is converted with the zone offset from a day before it,
+		 * and from a day after it, and a result is only kept if the zone has
+		 * that same offset at that time. A wall time that happens twice,
+		 * because the clocks were turned back, has two results, and the first
+		 * of them is used. A wall time in a daylight saving gap has none, and
+		 * it is converted with the offset from before the gap, which moves it
+		 * forward by the length of the gap.
+		 *
+		 * @param  zone  Time zone.
+		 * @param  wall  Wall time, in milliseconds since the epoch, as if the
+		 *     wall time were in UTC.
+		 *
+		 * @return The time in epoch milliseconds.
 		 */
-		public static int to12HourFormat(int hour)
+		public static long toMillis(TimeZone zone, long wall)
 		{
-			if (hour > 12)
+			long utc = wall - zone.getRawOffset();
+			int offsetBefore = zone.getOffset(utc - DAY_MILLIS);
+			int offsetAfter = zone.getOffset(utc + DAY_MILLIS);
+			long before = wall - offsetBefore;
+			long after = wall - offsetAfter;
+			boolean isBeforeValid = (zone.getOffset(before) == offsetBefore);
+			boolean isAfterValid = (zone.getOffset(after) == offsetAfter);
+
+			// Happens once, or twice, in which case the first one is used
+			if (isBeforeValid && isAfterValid)
+			{
+				return Math.min(before, after);
+			}
+			// Happens once, after a transition
+			else if (isAfterValid)
 			{
-				return hour % 12;
+				return after;
 			}
+			// Happens once, before a transition, or is in a gap
 			else
 			{
-				return (hour == 0) ? 12 : hour;
+				return before;
 			}
 		}
 
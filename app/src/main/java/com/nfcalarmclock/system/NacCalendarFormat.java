@@ -0,0 +1,328 @@
+package com.nfcalarmclock.system;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.util.NacUtility;
+import com.nfcalarmclock.shared.NacSharedConstants;
+import com.nfcalarmclock.shared.NacSharedPreferences;
+
+import java.lang.System;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Format the days and times that alarms run on, as text to display.
+ *
+ * TODO Fix getNextMessage and getMessage so that they're language compliant.
+ */
+public class NacCalendarFormat
+{
+
+	/**
+	 * @return A message to display.
+	 */
+	public static String getMessage(NacSharedPreferences shared,
+                                    NacAlarm alarm, String prefix)
+	{
+		NacSharedConstants cons = shared.getConstants();
+		Calendar calendar = NacCalendar.getNextAlarmDay(alarm);
+		Locale locale = Locale.getDefault();
+
+		if ((shared == null) || (alarm == null) || (calendar == null))
+		{
+			return String.format(locale, "%1$s.",
+				cons.getMessageNoAlarmsScheduled());
+		}
+		else if (!alarm.isEnabled())
+		{
+			int length = cons.getMessageNameLength();
+			String name = alarm.getNameNormalizedForMessage(length);
+			String isDisabled = cons.getIsDisabled();
+			String alarmWord = NacUtility.capitalize(cons.getAlarm(1));
+
+			return name.isEmpty()
+				? String.format(locale, "%1$s %2$s.", alarmWord, isDisabled)
+				: String.format(locale, "\"%1$s\" %2$s.", name, isDisabled);
+		}
+		else
+		{
+			Context context = shared.getContext();
+			int messageFormat = shared.getNextAlarmFormat();
+
+			if (messageFormat == 0)
+			{
+				return NacCalendarFormat.getMessageTimeIn(context, calendar, prefix);
+			}
+			else
+			{
+				return NacCalendarFormat.getMessageTimeOn(context, calendar, prefix);
+			}
+		}
+	}
+
+	/**
+	 * @return The message to display when the next alarm will occur.
+	 */
+	public static String getMessageNextAlarm(NacSharedPreferences shared,
+                                             NacAlarm alarm)
+	{
+		NacSharedConstants cons = shared.getConstants();
+		String prefix = cons.getNextAlarm();
+		return NacCalendarFormat.getMessage(shared, alarm, prefix);
+	}
+
+	/**
+	 * @return The message to display when an alarm will run IN some amount of
+	 * time.
+	 */
+	public static String getMessageTimeIn(Context context, Calendar calendar,
+		String prefix)
+	{
+		NacSharedConstants cons = new NacSharedConstants(context);
+		long millis = calendar.getTimeInMillis();
+		long time = (millis - System.currentTimeMillis()) / 1000;
+		long day = (time / (60*60*24)) % 365;
+		long hr = (time / (60*60)) % 24;
+		long min = (time / 60) % 60;
+		long sec = time % 60;
+		String dayunit = cons.getUnitDay((int)day);
+		String hrunit  = cons.getUnitHour((int)hr);
+		String minunit = cons.getUnitMinute((int)min);
+		String secunit = cons.getUnitSecond((int)sec);
+		String timeRemaining;
+		String format = "%1$d %2$s %3$d %4$s";
+		Locale locale = Locale.getDefault();
+
+		if (day > 0)
+		{
+			timeRemaining = String.format(locale, format, day, dayunit, hr,
+				hrunit);
+		}
+		else
+		{
+			if (hr > 0)
+			{
+				timeRemaining = String.format(locale, format, hr, hrunit, min,
+					minunit);
+			}
+			else
+			{
+				format = (min > 0) ? format : format.substring(10, 19);
+				timeRemaining = String.format(locale, format, min, minunit,
+					sec, secunit);
+			}
+		}
+
+		return String.format(locale, "%1$s %2$s %3$s", prefix,
+			cons.getTimeIn(), timeRemaining);
+	}
+
+	/**
+	 * @return The message to display when an alarm will run ON some date and
+	 * time.
+	 */
+	public static String getMessageTimeOn(Context context, Calendar calendar,
+		String prefix)
+	{
+		NacSharedConstants cons = new NacSharedConstants(context);
+		String time = NacCalendarFormat.Time.getFullTime(context, calendar);
+		Locale locale = Locale.getDefault();
+
+		return String.format(locale, "%1$s %2$s %3$s", prefix,
+			cons.getTimeOn(), time);
+	}
+
+	/**
+	 * @return The message to display when the alarm will run.
+	 */
+	public static String getMessageWillRun(NacSharedPreferences shared,
+		NacAlarm alarm)
+	{
+		NacSharedConstants cons = shared.getConstants();
+		int length = cons.getMessageNameLength();
+		Locale locale = Locale.getDefault();
+		String willRun = cons.getWillRun();
+		String name = alarm.getNameNormalizedForMessage(length);
+		String prefix = name.isEmpty() ? willRun
+			: String.format(locale, "\"%1$s\" %2$s", name,
+				willRun.toLowerCase(locale));
+
+		return NacCalendarFormat.getMessage(shared, alarm, prefix);
+	}
+
+	/**
+	 * Days static class.
+	 */
+	public static class Days
+	{
+
+		/**
+		 * Convert an alarm to a string of days.
+		 *
+		 * If no days are specified and the alarm is enable.
+		 */
+		public static String toString(NacSharedConstants cons, NacAlarm alarm,
+			int start)
+		{
+			EnumSet<NacCalendar.Day> days = alarm.getDays();
+			String string = NacCalendarFormat.Days.toString(cons, days, start);
+
+			if (string.isEmpty() || !alarm.areDaysSelected())
+			{
+				int now = Calendar.getInstance().get(Calendar.DAY_OF_MONTH);
+				int next = NacCalendar.toNextOneTimeCalendar(alarm)
+					.get(Calendar.DAY_OF_MONTH);
+
+				return (now == next) ? cons.getToday() : cons.getTomorrow();
+			}
+
+			return string;
+		}
+
+		/**
+		 * Convert a set of days to a comma separate string of days.
+		 *
+		 * @return A string of the days.
+		 *
+		 * @param  cons  Shared constants.
+		 * @param  daysToConvert  The set of days to convert.
+		 * @param  start  The day to start the week on.
+		 */
+		public static String toString(NacSharedConstants cons,
+			EnumSet<NacCalendar.Day> daysToConvert, int start)
+		{
+			if (NacCalendar.Days.isEveryday(daysToConvert))
+			{
+				return cons.getEveryday();
+			}
+			else if (NacCalendar.Days.isWeekday(daysToConvert))
+			{
+				return cons.getWeekdays();
+			}
+			else if (NacCalendar.Days.isWeekend(daysToConvert))
+			{
+				return cons.getWeekend();
+			}
+
+			List<String> dow = cons.getDaysOfWeekAbbr();
+
+			return NacCalendar.Days.toString(dow, daysToConvert, start);
+		}
+
+		/**
+		 * @see #toString(NacSharedConstants, EnumSet, int)
+		 */
+		public static String toString(NacSharedConstants cons, int value, int start)
+		{
+			EnumSet<NacCalendar.Day> days = NacCalendar.Days.valueToDays(value);
+			return NacCalendarFormat.Days.toString(cons, days, start);
+		}
+
+	}
+
+	/**
+	 * Time static class.
+	 */
+	public static class Time
+	{
+
+		/**
+		 * @param  context  The application context.
+		 * @param  hour  The hour.
+		 * @param  minute  The minutes.
+		 *
+		 * @return The time.
+		 */
+		public static String getClockTime(Context context, int hour, int minute)
+		{
+			boolean format = NacCalendarFormat.Time.is24HourFormat(context);
+			return NacCalendarFormat.Time.getClockTime(hour, minute, format);
+		}
+
+		/**
+		 * @return The time.
+		 *
+		 * @param  hour    The hour.
+		 * @param  minute  The minutes.
+		 * @param  format  The 24 hour format, to determine how to interpret the
+		 *                 hour.
+		 */
+		public static String getClockTime(int hour, int minute, boolean format)
+		{
+			if (!format)
+			{
+				hour = NacCalendarFormat.Time.to12HourFormat(hour);
+			}
+
+			Locale locale = Locale.getDefault();
+			return String.format(locale, "%1$d:%2$02d", hour, minute);
+		}
+
+		/**
+		 * @return The full time string, EEE, HH:MM AM/PM.
+		 */
+		public static String getFullTime(Context context, Calendar calendar)
+		{
+			String format = NacCalendarFormat.Time.is24HourFormat(context)
+				? "EEE HH:mm" : "EEE hh:mm a";
+			int hour = calendar.get(Calendar.HOUR_OF_DAY);
+			int convertedHour = NacCalendarFormat.Time.to12HourFormat(hour);
+
+			if (convertedHour < 10)
+			{
+				format = format.replaceFirst("h", " ");
+			}
+
+			return NacCalendar.toString(calendar, format);
+		}
+
+		/**
+		 * @return The time meridian.
+		 *
+		 * @param  hour  The hour.
+		 */
+		public static String getMeridian(Context context, int hour)
+		{
+			NacSharedConstants cons = new NacSharedConstants(context);
+			boolean format = NacCalendarFormat.Time.is24HourFormat(context);
+			if (format)
+			{
+				return "";
+			}
+			else
+			{
+				return (hour < 12) ? cons.getAm() : cons.getPm();
+			}
+		}
+
+		/**
+		 * @return True if the locale is in 24 hour time format, and False
+		 *         otherwise.
+		 */
+		public static boolean is24HourFormat(Context context)
+		{
+			return DateFormat.is24HourFormat(context);
+		}
+
+		/**
+		 * Convert an hour to 12 hour format.
+		 */
+		public static int to12HourFormat(int hour)
+		{
+			if (hour > 12)
+			{
+				return hour % 12;
+			}
+			else
+			{
+				return (hour == 0) ? 12 : hour;
+			}
+		}
+
+	}
+
+}
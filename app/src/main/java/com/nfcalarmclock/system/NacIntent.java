@@ -8,6 +8,7 @@ import android.provider.AlarmClock;
 import com.nfcalarmclock.alarm.NacAlarm;
 import com.nfcalarmclock.activealarm.NacActiveAlarmActivity;
 import com.nfcalarmclock.activealarm.NacActiveAlarmService;
+import com.nfcalarmclock.activealarm.NacPrepareAlarmBroadcastReceiver;
 import com.nfcalarmclock.main.NacMainActivity;
 import com.nfcalarmclock.nfc.NacNfc;
 import com.nfcalarmclock.nfc.NacNfcTag;
@@ -151,6 +152,28 @@ public class NacIntent
 		return NacIntent.createMainActivity(context, bundle);
 	}
 
+	/**
+	 * Create an intent that will be used to prepare an alarm shortly before it
+	 * runs.
+	 *
+	 * @param  context  A context.
+	 * @param  alarm  An alarm.
+	 * @param  millis  Time at which the alarm will run.
+	 *
+	 * @return The prepare alarm intent.
+	 */
+	public static Intent createPrepareAlarm(Context context, NacAlarm alarm,
+		long millis)
+	{
+		Intent intent = new Intent(
+			NacPrepareAlarmBroadcastReceiver.ACTION_PREPARE_ALARM, null,
+			context, NacPrepareAlarmBroadcastReceiver.class);
+
+		intent.putExtra(NacPrepareAlarmBroadcastReceiver.EXTRA_TRIGGER_TIME,
+			millis);
+		return NacIntent.addAlarm(intent, alarm);
+	}
+
 	/**
 	 * @return An intent that will be used to dismiss the alarm activity.
 	 */
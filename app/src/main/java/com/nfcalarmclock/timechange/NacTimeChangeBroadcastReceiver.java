@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.Intent;
 
 import com.nfcalarmclock.scheduler.NacScheduler;
+import com.nfcalarmclock.system.NacCalendar;
 
 /**
  * Receive this signal from AlarmManager and start the foreground service.
@@ -29,7 +30,12 @@ public class NacTimeChangeBroadcastReceiver
 			|| action.equals(Intent.ACTION_TIMEZONE_CHANGED)
 			|| action.equals(Intent.ACTION_LOCALE_CHANGED))
 		{
-			NacScheduler.updateAll(context);
+			PendingResult result = goAsync();
+
+			// The time zone may have changed
+			NacCalendar.Trigger.reset();
+
+			NacScheduler.updateAfterTimeChange(context, count -> result.finish());
 		}
 	}
 
@@ -0,0 +1,939 @@
+package com.nfcalarmclock.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check that scheduling only the next alarm never skips an alarm.
+ *
+ * The scheduler is simulated on top of the planner, the same way that
+ * NacScheduler uses it, with a fake alarm manager that only keeps track of
+ * which alarm is registered at what time. After each event, the alarms that
+ * are registered must be exactly the alarms that run next, and every alarm
+ * must go off at each time it runs, in order.
+ */
+public class NacNextAlarmPlannerTest
+{
+
+	/**
+	 * Alarm manager that keeps the time each alarm is registered at.
+	 */
+	private static class FakeAlarmManager
+	{
+
+		/**
+		 * Time each alarm is registered at, keyed by alarm ID.
+		 */
+		private final Map<Long, Long> mRegistered = new TreeMap<>();
+
+		/**
+		 * Cancel an alarm.
+		 */
+		void cancel(long id)
+		{
+			this.mRegistered.remove(id);
+		}
+
+		/**
+		 * Cancel and register the alarms in a plan.
+		 */
+		void carryOut(NacNextAlarmPlanner.Plan plan)
+		{
+			for (long id : plan.getCancelIds())
+			{
+				this.cancel(id);
+			}
+
+			for (NacAlarm a : plan.getAlarms())
+			{
+				this.register(a.getId(), plan.getMillis());
+			}
+		}
+
+		/**
+		 * Cancel every alarm, like a reboot does.
+		 */
+		void clear()
+		{
+			this.mRegistered.clear();
+		}
+
+		/**
+		 * @return The IDs of the registered alarms.
+		 */
+		long[] getIds()
+		{
+			long[] ids = new long[this.mRegistered.size()];
+			int i = 0;
+
+			for (long id : this.mRegistered.keySet())
+			{
+				ids[i++] = id;
+			}
+
+			return ids;
+		}
+
+		/**
+		 * @return The earliest time an alarm is registered at, or
+		 *     Long.MAX_VALUE if none are registered.
+		 */
+		long getNextMillis()
+		{
+			long next = Long.MAX_VALUE;
+
+			for (long millis : this.mRegistered.values())
+			{
+				next = Math.min(next, millis);
+			}
+
+			return next;
+		}
+
+		/**
+		 * @return The registered alarms, keyed by ID.
+		 */
+		Map<Long, Long> getRegistered()
+		{
+			return this.mRegistered;
+		}
+
+		/**
+		 * Register an alarm.
+		 */
+		void register(long id, long millis)
+		{
+			this.mRegistered.put(id, millis);
+		}
+
+	}
+
+	/**
+	 * The scheduler, the alarms in the database, and the clock.
+	 */
+	private static class Simulation
+	{
+
+		/**
+		 * The alarm manager, which outlives the process, but not a reboot.
+		 */
+		final FakeAlarmManager manager = new FakeAlarmManager();
+
+		/**
+		 * The alarms in the database, keyed by ID. An alarm is never changed,
+		 * only replaced, so that a list of alarms read from the database
+		 * earlier does not see a later change.
+		 */
+		final Map<Long, NacAlarm> alarms = new TreeMap<>();
+
+		/**
+		 * Time each snoozed alarm was snoozed to, keyed by alarm ID. This is
+		 * kept until the alarm is changed to not be snoozed.
+		 */
+		final Map<Long, Long> snoozes = new HashMap<>();
+
+		/**
+		 * Each time an alarm went off, as the time followed by the alarm ID.
+		 */
+		final List<long[]> fired = new ArrayList<>();
+
+		/**
+		 * The planner, which is lost when the process dies.
+		 */
+		NacNextAlarmPlanner planner = new NacNextAlarmPlanner();
+
+		/**
+		 * Alarms that are being read from the database to load the planner, or
+		 * null if the planner is not being loaded.
+		 */
+		List<NacAlarm> loading = null;
+
+		/**
+		 * The current time, in epoch milliseconds.
+		 */
+		long now;
+
+		/**
+		 */
+		Simulation(long now)
+		{
+			this.now = now;
+		}
+
+		/**
+		 * Check that the registered alarms are exactly the alarms that run
+		 * next, at the time they run.
+		 */
+		void assertNextRegistered()
+		{
+			Map<Long, Long> expected = new TreeMap<>();
+			long next = Long.MAX_VALUE;
+
+			for (NacAlarm a : this.alarms.values())
+			{
+				next = Math.min(next, this.getExpectedNext(a));
+			}
+
+			for (NacAlarm a : this.alarms.values())
+			{
+				if ((next != Long.MAX_VALUE) && (this.getExpectedNext(a) == next))
+				{
+					expected.put(a.getId(), next);
+				}
+			}
+
+			assertEquals("Now " + this.now, expected, this.manager.getRegistered());
+		}
+
+		/**
+		 * Start the device, which loads the planner with all alarms.
+		 */
+		void boot()
+		{
+			this.manager.clear();
+			this.planner = new NacNextAlarmPlanner();
+			this.planner.load(new ArrayList<>(this.alarms.values()), this.now);
+			this.rearm();
+		}
+
+		/**
+		 * Change an alarm, the same way NacScheduler.update() does.
+		 *
+		 * @param  alarm  The alarm after the change.
+		 * @param  millis  Time at which the alarm should run, or -1 to compute
+		 *     it from the alarm.
+		 */
+		void change(NacAlarm alarm, long millis)
+		{
+			long id = alarm.getId();
+			long change = alarm.isEnabled() ? millis : NacNextAlarmPlanner.REMOVE;
+			List<NacAlarm> before = new ArrayList<>(this.alarms.values());
+
+			this.alarms.put(id, alarm);
+
+			if (!alarm.isSnoozed())
+			{
+				this.snoozes.remove(id);
+			}
+
+			int result = this.planner.change(alarm, change, this.now);
+
+			if (result == NacNextAlarmPlanner.CHANGE_APPLIED)
+			{
+				this.rearm();
+				return;
+			}
+
+			// The database may be read before the change is saved
+			if (result == NacNextAlarmPlanner.CHANGE_LOAD)
+			{
+				this.loading = before;
+			}
+
+			// Schedule the alarm as usual until the planner is loaded
+			if (change == NacNextAlarmPlanner.REMOVE)
+			{
+				this.manager.cancel(id);
+			}
+			else
+			{
+				this.manager.register(id, (millis >= 0) ? millis
+					: NacCalendar.Trigger.getNext(alarm, this.now));
+			}
+		}
+
+		/**
+		 * Change the clock, which resets the trigger cache and updates all
+		 * alarms, the same way the time change receiver does.
+		 */
+		void changeTime(long now)
+		{
+			this.now = now;
+
+			NacCalendar.Trigger.reset();
+			this.updateAll();
+		}
+
+		/**
+		 * Dismiss an alarm that went off.
+		 */
+		void dismiss(long id)
+		{
+			NacAlarm alarm = this.alarms.get(id);
+			NacAlarm dismissed = createAlarm(id, alarm.getHour(), alarm.getMinute(),
+				NacCalendar.Days.daysToValue(alarm.getDays()),
+				alarm.isEnabled() && alarm.shouldRepeat());
+
+			this.change(dismissed, -1);
+		}
+
+		/**
+		 * Finish loading the planner with the alarms that were read from the
+		 * database, if it is being loaded.
+		 */
+		void finishLoading()
+		{
+			if (this.loading == null)
+			{
+				return;
+			}
+
+			this.planner.load(this.loading, this.now);
+			this.loading = null;
+			this.rearm();
+		}
+
+		/**
+		 * Have every alarm that is registered at or before a time go off.
+		 *
+		 * @param  millis  The time.
+		 * @param  now  The time at which the alarms ask for the next alarm to
+		 *     be registered.
+		 *
+		 * @return The IDs of the alarms that went off.
+		 */
+		List<Long> fire(long millis, long now)
+		{
+			List<Long> ids = new ArrayList<>();
+
+			for (Map.Entry<Long, Long> e : this.manager.getRegistered().entrySet())
+			{
+				if (e.getValue() <= millis)
+				{
+					ids.add(e.getKey());
+					this.fired.add(new long[] { e.getValue(), e.getKey() });
+				}
+			}
+
+			for (long id : ids)
+			{
+				this.manager.cancel(id);
+			}
+
+			this.now = now;
+
+			// The service asks for the alarm after it to be registered
+			if (this.planner.isLoaded())
+			{
+				this.rearm();
+			}
+			else
+			{
+				this.updateAll();
+			}
+
+			// Nothing is registered to go off again right away, even before the
+			// alarms are dismissed
+			for (long registered : this.manager.getRegistered().values())
+			{
+				assertTrue("Now " + now, registered >= now);
+			}
+
+			return ids;
+		}
+
+		/**
+		 * Go to the time of the next registered alarm, and have every alarm
+		 * registered at that time go off, shortly after that time.
+		 *
+		 * @return The IDs of the alarms that went off.
+		 */
+		List<Long> fireNext()
+		{
+			long millis = this.manager.getNextMillis();
+
+			return this.fire(millis, millis + FIRE_DELAY);
+		}
+
+		/**
+		 * @return The time at which an alarm should run next, or
+		 *     Long.MAX_VALUE if it does not run.
+		 */
+		long getExpectedNext(NacAlarm alarm)
+		{
+			Long snooze = this.snoozes.get(alarm.getId());
+
+			if (!alarm.isEnabled())
+			{
+				return Long.MAX_VALUE;
+			}
+			else if ((snooze != null) && (snooze >= this.now))
+			{
+				return snooze;
+			}
+
+			return NacCalendar.Trigger.getNext(alarm, this.now);
+		}
+
+		/**
+		 * Kill the process, which loses the planner, but not the alarms that
+		 * are registered.
+		 */
+		void killProcess()
+		{
+			this.planner = new NacNextAlarmPlanner();
+			this.loading = null;
+		}
+
+		/**
+		 * Register the alarms in the plan.
+		 */
+		void rearm()
+		{
+			this.manager.carryOut(this.planner.plan(this.manager.getIds(),
+				this.now));
+		}
+
+		/**
+		 * Snooze an alarm that went off.
+		 */
+		void snooze(long id, int minutes)
+		{
+			NacAlarm alarm = this.alarms.get(id);
+			long millis = this.now + minutes*NacCalendar.Trigger.MINUTE_MILLIS;
+
+			// A snooze is kept as a wall time, without the seconds
+			millis -= NacCalendar.Trigger.floorMod(millis,
+				NacCalendar.Trigger.MINUTE_MILLIS);
+
+			TimeZone zone = NacCalendar.Trigger.getTimeZone();
+			long minuteOfDay = NacCalendar.Trigger.floorMod(
+				millis + zone.getOffset(millis), NacCalendar.Trigger.DAY_MILLIS)
+				/ NacCalendar.Trigger.MINUTE_MILLIS;
+			NacAlarm snoozed = createAlarm(id, alarm.getHour(), alarm.getMinute(),
+				NacCalendar.Days.daysToValue(alarm.getDays()), alarm.isEnabled());
+
+			snoozed.setRepeat(alarm.shouldRepeat());
+			snoozed.setSnoozeCount(alarm.getSnoozeCount() + 1);
+			snoozed.setSnoozeHour((int) (minuteOfDay / 60));
+			snoozed.setSnoozeMinute((int) (minuteOfDay % 60));
+
+			this.snoozes.put(id, millis);
+			this.change(snoozed, millis);
+		}
+
+		/**
+		 * Update all alarms, the same way NacScheduler.updateAll() does.
+		 */
+		void updateAll()
+		{
+			this.planner.load(new ArrayList<>(this.alarms.values()), this.now);
+			this.loading = null;
+			this.rearm();
+		}
+
+	}
+
+	/**
+	 * Start of the simulation, 2021-01-01 UTC.
+	 */
+	private static final long START = 1609459200000L;
+
+	/**
+	 * End of the simulation, 2022-01-01 UTC.
+	 */
+	private static final long END = 1640995200000L;
+
+	/**
+	 * Time, in milliseconds, between when an alarm is registered to go off,
+	 * and when it asks for the next alarm to be registered.
+	 */
+	private static final long FIRE_DELAY = 1000L;
+
+	/**
+	 * Time zones to use, which include zones with daylight saving time in both
+	 * hemispheres.
+	 */
+	private static final String[] ZONES = new String[] { "America/New_York",
+		"Europe/Berlin", "Australia/Sydney", "Asia/Kolkata" };
+
+	/**
+	 * Number of events in each random simulation.
+	 */
+	private static final int STEPS = 4000;
+
+	/**
+	 * Seed for the random number generator, so that a failure can be
+	 * reproduced.
+	 */
+	private static final long SEED = 20L;
+
+	/**
+	 * Default time zone before the test.
+	 */
+	private TimeZone mDefaultZone;
+
+	/**
+	 * @return An alarm that is not snoozed.
+	 */
+	private static NacAlarm createAlarm(long id, int hour, int minute, int days,
+		boolean enabled)
+	{
+		NacAlarm alarm = new NacAlarm.Builder()
+			.setId(id)
+			.setIsEnabled(enabled)
+			.setHour(hour)
+			.setMinute(minute)
+			.setDays(NacCalendar.Days.valueToDays(days))
+			.setRepeat(days != 0)
+			.build();
+
+		return alarm;
+	}
+
+	/**
+	 * @return A random alarm, which runs once a quarter of the time.
+	 */
+	private static NacAlarm createRandomAlarm(Random random, long id)
+	{
+		int days = (random.nextInt(4) == 0) ? 0 : random.nextInt(0x7f) + 1;
+
+		return createAlarm(id, random.nextInt(24), random.nextInt(60), days,
+			true);
+	}
+
+	/**
+	 * @return Every time that each alarm runs, from a time until the end of
+	 *     the simulation, as the time followed by the alarm ID.
+	 */
+	private static List<long[]> getExpectedFired(List<NacAlarm> alarms,
+		long start)
+	{
+		List<long[]> expected = new ArrayList<>();
+
+		for (NacAlarm a : alarms)
+		{
+			long millis = NacCalendar.Trigger.getNext(a, start);
+
+			while (millis < END)
+			{
+				expected.add(new long[] { millis, a.getId() });
+
+				if (!a.shouldRepeat())
+				{
+					break;
+				}
+
+				millis = NacCalendar.Trigger.getNext(a, millis + FIRE_DELAY);
+			}
+		}
+
+		Collections.sort(expected, (x, y) -> (x[0] != y[0])
+			? Long.compare(x[0], y[0]) : Long.compare(x[1], y[1]));
+
+		return expected;
+	}
+
+	/**
+	 * Snooze or dismiss each alarm that went off, at random.
+	 */
+	private static void snoozeOrDismiss(Random random, Simulation sim,
+		List<Long> ids)
+	{
+		for (long id : ids)
+		{
+			if (random.nextBoolean())
+			{
+				sim.snooze(id, random.nextInt(30) + 1);
+			}
+			else
+			{
+				sim.dismiss(id);
+			}
+		}
+	}
+
+	/**
+	 * Use a time zone as the default, and reset the cache.
+	 */
+	private static void setDefault(String zone)
+	{
+		TimeZone.setDefault(TimeZone.getTimeZone(zone));
+		NacCalendar.Trigger.reset();
+	}
+
+	/**
+	 * Save the default time zone.
+	 */
+	@Before
+	public void setUp()
+	{
+		this.mDefaultZone = TimeZone.getDefault();
+	}
+
+	/**
+	 * Restore the default time zone.
+	 */
+	@After
+	public void tearDown()
+	{
+		TimeZone.setDefault(this.mDefaultZone);
+		NacCalendar.Trigger.reset();
+	}
+
+	/**
+	 * Changes that are made while the planner is being loaded are kept, even
+	 * when the alarms that were read from the database are older.
+	 */
+	@Test
+	public void testChangesBeforeLoadAreKept()
+	{
+		setDefault("America/New_York");
+
+		// 2021-06-01, 00:00 EDT
+		Simulation sim = new Simulation(1622520000000L);
+
+		sim.alarms.put(1L, createAlarm(1, 7, 0, 0x7f, true));
+		sim.alarms.put(2L, createAlarm(2, 6, 0, 0x7f, true));
+		sim.boot();
+		sim.killProcess();
+
+		// Moved earlier, and then disabled before the database is read
+		sim.change(createAlarm(1, 5, 0, 0x7f, true), -1);
+		sim.change(createAlarm(2, 6, 0, 0x7f, false), -1);
+
+		assertFalse(sim.planner.isLoaded());
+
+		sim.finishLoading();
+
+		assertTrue(sim.planner.isLoaded());
+		sim.assertNextRegistered();
+
+		// 2021-06-01, 05:00 EDT
+		assertEquals(Collections.singletonMap(1L, 1622538000000L),
+			sim.manager.getRegistered());
+	}
+
+	/**
+	 * Setting the clock back before an alarm that already went off today has
+	 * the alarm go off again today, and setting it forward registers the next
+	 * alarm after the new time.
+	 */
+	@Test
+	public void testClockChange()
+	{
+		setDefault("America/New_York");
+
+		// 2021-06-01, 06:00 EDT
+		Simulation sim = new Simulation(1622541600000L);
+
+		sim.alarms.put(1L, createAlarm(1, 7, 0, 0x7f, true));
+		sim.alarms.put(2L, createAlarm(2, 8, 0, 0x7f, true));
+		sim.boot();
+		sim.dismiss(sim.fireNext().get(0));
+		sim.assertNextRegistered();
+
+		// 2021-06-01, 06:30 EDT
+		sim.changeTime(1622543400000L);
+		sim.assertNextRegistered();
+		assertEquals(Collections.singletonMap(1L, 1622545200000L),
+			sim.manager.getRegistered());
+
+		// 2021-06-01, 07:30 EDT
+		sim.changeTime(1622547000000L);
+		sim.assertNextRegistered();
+		assertEquals(Collections.singletonMap(2L, 1622548800000L),
+			sim.manager.getRegistered());
+	}
+
+	/**
+	 * Every alarm goes off each time it should, in order, over a year that
+	 * has two daylight saving transitions, with reboots and process deaths
+	 * in between.
+	 */
+	@Test
+	public void testFiresEveryAlarmInOrder()
+	{
+		Random random = new Random(SEED);
+
+		for (String zone : ZONES)
+		{
+			setDefault(zone);
+
+			Simulation sim = new Simulation(START);
+
+			for (long id=1; id <= 8; id++)
+			{
+				sim.alarms.put(id, createRandomAlarm(random, id));
+			}
+
+			List<long[]> expected = getExpectedFired(
+				new ArrayList<>(sim.alarms.values()), START);
+
+			sim.boot();
+
+			while (sim.manager.getNextMillis() < END)
+			{
+				List<Long> ids = sim.fireNext();
+				int event = random.nextInt(10);
+
+				// Reboot shortly after the alarm went off
+				if (event == 0)
+				{
+					sim.now += 30L * 1000L;
+					sim.boot();
+				}
+				// Kill the process, so the dismiss is made before the planner is
+				// loaded again
+				else if (event == 1)
+				{
+					sim.killProcess();
+				}
+
+				for (long id : ids)
+				{
+					sim.dismiss(id);
+				}
+
+				sim.finishLoading();
+				sim.assertNextRegistered();
+			}
+
+			assertEquals(zone, expected.size(), sim.fired.size());
+
+			for (int i=0; i < expected.size(); i++)
+			{
+				assertEquals(zone + " " + i, expected.get(i)[0],
+					sim.fired.get(i)[0]);
+				assertEquals(zone + " " + i, expected.get(i)[1],
+					sim.fired.get(i)[1]);
+			}
+		}
+	}
+
+	/**
+	 * An alarm that was never snoozed is not taken to run at its snooze time,
+	 * which is midnight for an alarm that was just created.
+	 */
+	@Test
+	public void testNewAlarmIsNotSnoozed()
+	{
+		setDefault("America/New_York");
+
+		// 2021-06-01, 20:00 EDT
+		Simulation sim = new Simulation(1622592000000L);
+		NacAlarm alarm = createAlarm(1, 7, 0, 0x7f, true);
+
+		alarm.setSnoozeHour(0);
+		alarm.setSnoozeMinute(0);
+		sim.alarms.put(1L, alarm);
+		sim.boot();
+
+		// 2021-06-02, 07:00 EDT
+		assertEquals(Collections.singletonMap(1L, 1622631600000L),
+			sim.manager.getRegistered());
+	}
+
+	/**
+	 * The alarms that run next are always the ones that are registered, after
+	 * random alarms go off, are snoozed, dismissed, and changed, and the
+	 * device reboots, the process dies, and the time and time zone change.
+	 *
+	 * The device is only ever off in between alarms. Since a snooze is kept
+	 * as a wall time, the time zone only changes when no alarm is snoozed, and
+	 * the clock is never set forward past a snooze.
+	 */
+	@Test
+	public void testNextAlarmIsAlwaysRegistered()
+	{
+		Random random = new Random(SEED);
+
+		setDefault(ZONES[0]);
+
+		Simulation sim = new Simulation(START);
+
+		for (long id=1; id <= 6; id++)
+		{
+			sim.alarms.put(id, createRandomAlarm(random, id));
+		}
+
+		sim.boot();
+
+		for (int i=0; i < STEPS; i++)
+		{
+			int event = random.nextInt(12);
+			long id = random.nextInt(sim.alarms.size()) + 1;
+
+			// Go off, and then snooze or dismiss
+			if ((event < 5) && (sim.manager.getNextMillis() != Long.MAX_VALUE))
+			{
+				snoozeOrDismiss(random, sim, sim.fireNext());
+			}
+			// Reboot, while no alarm is registered to go off
+			else if (event == 5)
+			{
+				long off = random.nextInt(120) * NacCalendar.Trigger.MINUTE_MILLIS;
+
+				sim.now = Math.max(sim.now,
+					Math.min(sim.now + off, sim.manager.getNextMillis() - 1));
+				sim.boot();
+			}
+			// Kill the process, and change an alarm before it is loaded again
+			else if (event == 6)
+			{
+				sim.killProcess();
+				sim.change(createRandomAlarm(random, id), -1);
+				sim.finishLoading();
+			}
+			// Set the clock back up to two hours, or forward up to a day, which
+			// has the alarms that were skipped go off right away
+			else if (event == 7)
+			{
+				long minutes = random.nextInt(26*60) - 120;
+				long now = sim.now + minutes*NacCalendar.Trigger.MINUTE_MILLIS;
+
+				for (long snooze : sim.snoozes.values())
+				{
+					now = Math.min(now, snooze - 1);
+				}
+
+				if (now > sim.now)
+				{
+					snoozeOrDismiss(random, sim, sim.fire(now, now));
+				}
+
+				sim.changeTime(now);
+			}
+			// Change the time zone
+			else if ((event == 8) && sim.snoozes.isEmpty())
+			{
+				setDefault(ZONES[random.nextInt(ZONES.length)]);
+				sim.updateAll();
+			}
+			// Disable an alarm
+			else if (event == 9)
+			{
+				NacAlarm alarm = sim.alarms.get(id);
+
+				sim.change(createAlarm(id, alarm.getHour(), alarm.getMinute(),
+					NacCalendar.Days.daysToValue(alarm.getDays()), false), -1);
+			}
+			// Change an alarm
+			else
+			{
+				sim.change(createRandomAlarm(random, id), -1);
+			}
+
+			sim.assertNextRegistered();
+		}
+	}
+
+	/**
+	 * A snoozed alarm goes off at its snooze time, after the alarms before it,
+	 * and then goes back to its usual schedule, even if the device reboots
+	 * while it is snoozed.
+	 */
+	@Test
+	public void testSnooze()
+	{
+		setDefault("America/New_York");
+
+		for (boolean reboot : new boolean[] { false, true })
+		{
+			// 2021-06-01, 06:00 EDT
+			Simulation sim = new Simulation(1622541600000L);
+
+			sim.alarms.put(1L, createAlarm(1, 7, 0, 0x7f, true));
+			sim.alarms.put(2L, createAlarm(2, 7, 5, 0x7f, true));
+			sim.boot();
+
+			// 2021-06-01, 07:00 EDT, snoozed until 07:10
+			assertEquals(Collections.singletonList(1L), sim.fireNext());
+			sim.snooze(1, 10);
+			sim.assertNextRegistered();
+
+			if (reboot)
+			{
+				sim.now += 2L * NacCalendar.Trigger.MINUTE_MILLIS;
+				sim.boot();
+				sim.assertNextRegistered();
+			}
+
+			// 2021-06-01, 07:05 EDT
+			assertEquals(Collections.singletonList(2L), sim.fireNext());
+			sim.dismiss(2);
+			sim.assertNextRegistered();
+
+			// 2021-06-01, 07:10 EDT
+			assertEquals(Collections.singletonList(1L), sim.fireNext());
+			assertEquals(1622545800000L, sim.fired.get(2)[0]);
+			sim.dismiss(1);
+			sim.assertNextRegistered();
+
+			// 2021-06-02, 07:00 EDT
+			assertEquals(Collections.singletonMap(1L, 1622631600000L),
+				sim.manager.getRegistered());
+		}
+	}
+
+	/**
+	 * A snooze whose time passed when the clock was set forward is done, and
+	 * the alarm goes back to its usual schedule, even if the time change is
+	 * handled before the snooze goes off.
+	 */
+	@Test
+	public void testSnoozePassedByClockChange()
+	{
+		setDefault("America/New_York");
+
+		// 2021-06-01, 06:00 EDT
+		Simulation sim = new Simulation(1622541600000L);
+
+		sim.alarms.put(1L, createAlarm(1, 7, 0, 0x7f, true));
+		sim.boot();
+		sim.fireNext();
+		sim.snooze(1, 10);
+
+		// 2021-06-01, 20:00 EDT, when 07:10 is less than half a day away
+		sim.changeTime(1622592000000L);
+		sim.assertNextRegistered();
+
+		// 2021-06-02, 07:00 EDT
+		assertEquals(Collections.singletonMap(1L, 1622631600000L),
+			sim.manager.getRegistered());
+	}
+
+	/**
+	 * An alarm keeps its wall time when the time zone changes.
+	 */
+	@Test
+	public void testTimeZoneChange()
+	{
+		setDefault("America/New_York");
+
+		// 2021-06-01, 00:00 EDT
+		Simulation sim = new Simulation(1622520000000L);
+
+		sim.alarms.put(1L, createAlarm(1, 7, 0, 0x7f, true));
+		sim.boot();
+
+		// 2021-06-01, 07:00 EDT
+		assertEquals(Collections.singletonMap(1L, 1622545200000L),
+			sim.manager.getRegistered());
+
+		setDefault("Asia/Kolkata");
+		sim.updateAll();
+
+		// 2021-06-02, 07:00 IST
+		assertEquals(Collections.singletonMap(1L, 1622511000000L
+			+ NacCalendar.Trigger.DAY_MILLIS), sim.manager.getRegistered());
+	}
+
+}
@@ -0,0 +1,407 @@
+package com.nfcalarmclock.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.nfcalarmclock.alarm.NacAlarm;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trip and fuzz tests for the compact alarm encoding.
+ */
+public class NacAlarmCodecTest
+{
+
+	/**
+	 * Seed for the random number generator, so that a failure can be
+	 * reproduced.
+	 */
+	private static final long SEED = 0x4e4643L;
+
+	/**
+	 * Number of random inputs to decode in each fuzz test.
+	 */
+	private static final int FUZZ_ROUNDS = 20000;
+
+	/**
+	 * Number of bytes that an int takes up in a Parcel.
+	 */
+	private static final int PARCEL_INT_SIZE = 4;
+
+	/**
+	 * Number of bytes that a long takes up in a Parcel.
+	 */
+	private static final int PARCEL_LONG_SIZE = 8;
+
+	/**
+	 * @return An alarm with every field set to something other than its
+	 *     default.
+	 */
+	private static NacAlarm createAlarm()
+	{
+		NacAlarm alarm = new NacAlarm.Builder()
+			.setId(1234567L)
+			.setIsEnabled(true)
+			.setHour(23)
+			.setMinute(59)
+			.setDays(NacCalendar.Days.valueToDays(0x7f))
+			.setRepeat(true)
+			.setVibrate(true)
+			.setUseNfc(true)
+			.setNfcTagId("04:A2:3B:7C:11:22:80")
+			.setMediaType(2)
+			.setMediaPath("content://media/external/audio/media/42")
+			.setMediaTitle("Sonne ☀ über dem Meer")
+			.setAudioSource("Alarm")
+			.setName("起床 🔔")
+			.setUseTts(true)
+			.setTtsFrequency(5)
+			.setShouldGraduallyIncreaseVolume(true)
+			.setShouldRestrictVolume(true)
+			.build();
+
+		alarm.setIsActive(true);
+		alarm.setTimeActive(987654321L);
+		alarm.setSnoozeCount(3);
+		alarm.setVolume(75);
+
+		return alarm;
+	}
+
+	/**
+	 * Decode bytes, and fail the test if the decoder throws.
+	 */
+	private static NacAlarm decodeWithoutThrowing(byte[] bytes)
+	{
+		try
+		{
+			return NacAlarmCodec.decode(bytes);
+		}
+		catch (RuntimeException e)
+		{
+			throw new AssertionError("Decoder threw on "
+				+ Arrays.toString(bytes), e);
+		}
+	}
+
+	/**
+	 * Write the fields of an encoded alarm that come before the first string,
+	 * followed by the length of that string.
+	 */
+	private static byte[] encodeHeaderWithStringLength(byte[] length)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		bytes.write(NacAlarmCodec.VERSION);
+		bytes.write(0);
+		bytes.write(1);
+		bytes.write(0);
+		bytes.write(0);
+		bytes.write(7);
+		bytes.write(30);
+		bytes.write(0);
+		bytes.write(length, 0, length.length);
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @return The number of bytes that an encoded alarm takes up in a Bundle.
+	 *
+	 * The Bundle writes the key, the type of the value, the length of the
+	 * byte array, and the bytes, padded to a multiple of 4 bytes.
+	 */
+	private static int getBundleSizeOfBytes(byte[] bytes)
+	{
+		return getParcelSizeOfString(NacBundle.ALARM_BYTES_NAME)
+			+ PARCEL_INT_SIZE
+			+ PARCEL_INT_SIZE
+			+ ((bytes.length + 3) & ~3);
+	}
+
+	/**
+	 * @return The number of bytes that an alarm takes up in a Bundle, when it
+	 *     is put in as a Parcelable.
+	 *
+	 * Parcel is a stub in JVM tests, so this adds up what the Bundle writes,
+	 * which is the key, the type of the value, and the name of the Parcelable
+	 * class, followed by what NacAlarm.writeToParcel() writes, which is 2
+	 * longs, 15 ints, and 5 strings.
+	 */
+	private static int getBundleSizeOfParcelable(NacAlarm alarm)
+	{
+		return getParcelSizeOfString(NacBundle.ALARM_PARCEL_NAME)
+			+ PARCEL_INT_SIZE
+			+ getParcelSizeOfString(NacAlarm.class.getName())
+			+ 2*PARCEL_LONG_SIZE
+			+ 15*PARCEL_INT_SIZE
+			+ getParcelSizeOfString(alarm.getNfcTagId())
+			+ getParcelSizeOfString(alarm.getMediaPath())
+			+ getParcelSizeOfString(alarm.getMediaTitle())
+			+ getParcelSizeOfString(alarm.getAudioSource())
+			+ getParcelSizeOfString(alarm.getName());
+	}
+
+	/**
+	 * @return The number of bytes that a string takes up in a Parcel.
+	 *
+	 * The Parcel writes the length of the string, and then each UTF-16
+	 * character and a null terminator, padded to a multiple of 4 bytes. A
+	 * null string is only the length.
+	 */
+	private static int getParcelSizeOfString(String string)
+	{
+		if (string == null)
+		{
+			return PARCEL_INT_SIZE;
+		}
+
+		int size = 2*(string.length() + 1);
+
+		return PARCEL_INT_SIZE + ((size + 3) & ~3);
+	}
+
+	/**
+	 * A string length that is bigger than the rest of the input is rejected
+	 * before anything is allocated.
+	 */
+	@Test
+	public void testDecodeHugeStringLength()
+	{
+		byte[] maxLong = new byte[] { (byte)0xff, (byte)0xff, (byte)0xff,
+			(byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff,
+			(byte)0xff, 0x01 };
+		byte[] maxInt = new byte[] { (byte)0xff, (byte)0xff, (byte)0xff,
+			(byte)0xff, 0x07 };
+		byte[] moreThanLeft = new byte[] { 0x7f };
+
+		assertNull(decodeWithoutThrowing(encodeHeaderWithStringLength(maxLong)));
+		assertNull(decodeWithoutThrowing(encodeHeaderWithStringLength(maxInt)));
+		assertNull(decodeWithoutThrowing(
+			encodeHeaderWithStringLength(moreThanLeft)));
+	}
+
+	/**
+	 * A string length that wraps around to a negative int is rejected.
+	 */
+	@Test
+	public void testDecodeNegativeStringLength()
+	{
+		byte[] minInt = new byte[] { (byte)0x80, (byte)0x80, (byte)0x80,
+			(byte)0x80, 0x08 };
+		byte[] minLong = new byte[] { (byte)0x80, (byte)0x80, (byte)0x80,
+			(byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80,
+			(byte)0x80, 0x01 };
+
+		assertNull(decodeWithoutThrowing(encodeHeaderWithStringLength(minInt)));
+		assertNull(decodeWithoutThrowing(encodeHeaderWithStringLength(minLong)));
+	}
+
+	/**
+	 * Null and empty input is not an alarm.
+	 */
+	@Test
+	public void testDecodeNullAndEmpty()
+	{
+		assertNull(NacAlarmCodec.decode(null));
+		assertNull(decodeWithoutThrowing(new byte[0]));
+	}
+
+	/**
+	 * Random bytes, that start with the current version, never make the
+	 * decoder throw.
+	 */
+	@Test
+	public void testDecodeRandomBytes()
+	{
+		Random random = new Random(SEED);
+
+		for (int i=0; i < FUZZ_ROUNDS; i++)
+		{
+			byte[] bytes = new byte[random.nextInt(96)+1];
+
+			random.nextBytes(bytes);
+			bytes[0] = (byte) NacAlarmCodec.VERSION;
+
+			decodeWithoutThrowing(bytes);
+		}
+	}
+
+	/**
+	 * Valid encodings with a few random bytes changed never make the decoder
+	 * throw.
+	 */
+	@Test
+	public void testDecodeRandomlyChangedBytes()
+	{
+		Random random = new Random(SEED);
+		byte[] encoded = NacAlarmCodec.encode(createAlarm());
+
+		for (int i=0; i < FUZZ_ROUNDS; i++)
+		{
+			byte[] bytes = Arrays.copyOf(encoded, encoded.length);
+			int changes = random.nextInt(4) + 1;
+
+			for (int c=0; c < changes; c++)
+			{
+				bytes[random.nextInt(bytes.length)] = (byte) random.nextInt(256);
+			}
+
+			decodeWithoutThrowing(bytes);
+		}
+	}
+
+	/**
+	 * Every truncated encoding is rejected.
+	 */
+	@Test
+	public void testDecodeTruncated()
+	{
+		byte[] encoded = NacAlarmCodec.encode(createAlarm());
+
+		for (int length=0; length < encoded.length; length++)
+		{
+			byte[] bytes = Arrays.copyOf(encoded, length);
+
+			assertNull("Length " + length, decodeWithoutThrowing(bytes));
+		}
+	}
+
+	/**
+	 * An encoding from an unknown version is rejected.
+	 */
+	@Test
+	public void testDecodeUnknownVersion()
+	{
+		byte[] bytes = NacAlarmCodec.encode(createAlarm());
+
+		bytes[0] = (byte) (NacAlarmCodec.VERSION + 1);
+
+		assertNull(decodeWithoutThrowing(bytes));
+	}
+
+	/**
+	 * A null alarm is not encoded.
+	 */
+	@Test
+	public void testEncodeNull()
+	{
+		assertNull(NacAlarmCodec.encode(null));
+	}
+
+	/**
+	 * Encoding is deterministic, since the schedule record hashes it.
+	 */
+	@Test
+	public void testEncodeIsDeterministic()
+	{
+		assertArrayEquals(NacAlarmCodec.encode(createAlarm()),
+			NacAlarmCodec.encode(createAlarm()));
+	}
+
+	/**
+	 * An encoded alarm takes up less than half the space in a Bundle that the
+	 * Parcelable does, with every field set, and with default values.
+	 */
+	@Test
+	public void testEncodeSmallerThanParcelable()
+	{
+		NacAlarm[] alarms = new NacAlarm[] { createAlarm(),
+			new NacAlarm.Builder().build() };
+
+		for (NacAlarm a : alarms)
+		{
+			int encodedSize = getBundleSizeOfBytes(NacAlarmCodec.encode(a));
+			int parcelableSize = getBundleSizeOfParcelable(a);
+
+			assertTrue(encodedSize + " >= " + parcelableSize + "/2",
+				2*encodedSize < parcelableSize);
+		}
+	}
+
+	/**
+	 * An alarm with every field set is the same after it is encoded and
+	 * decoded.
+	 */
+	@Test
+	public void testRoundTrip()
+	{
+		NacAlarm alarm = createAlarm();
+		NacAlarm decoded = NacAlarmCodec.decode(NacAlarmCodec.encode(alarm));
+
+		assertNotNull(decoded);
+		assertTrue(alarm.equals(decoded));
+	}
+
+	/**
+	 * An alarm with default values is the same after it is encoded and
+	 * decoded.
+	 */
+	@Test
+	public void testRoundTripDefaults()
+	{
+		NacAlarm alarm = new NacAlarm.Builder().build();
+		NacAlarm decoded = NacAlarmCodec.decode(NacAlarmCodec.encode(alarm));
+
+		assertNotNull(decoded);
+		assertTrue(alarm.equals(decoded));
+	}
+
+	/**
+	 * Numbers at the edges of their range, including negative ones, which
+	 * take the longest encoding, are the same after they are encoded and
+	 * decoded.
+	 */
+	@Test
+	public void testRoundTripExtremeNumbers()
+	{
+		long[] values = new long[] { 0L, 1L, 127L, 128L, Integer.MAX_VALUE,
+			Long.MAX_VALUE, -1L, Long.MIN_VALUE };
+
+		for (long v : values)
+		{
+			NacAlarm alarm = createAlarm();
+
+			alarm.setId(v);
+			alarm.setTimeActive(v);
+			alarm.setSnoozeCount((int) v);
+			alarm.setVolume((int) v);
+
+			NacAlarm decoded = NacAlarmCodec.decode(NacAlarmCodec.encode(alarm));
+
+			assertNotNull(decoded);
+			assertEquals(v, decoded.getId());
+			assertEquals(v, decoded.getTimeActive());
+			assertEquals((int) v, decoded.getSnoozeCount());
+			assertEquals((int) v, decoded.getVolume());
+		}
+	}
+
+	/**
+	 * Every combination of days is the same after it is encoded and decoded.
+	 */
+	@Test
+	public void testRoundTripEveryDays()
+	{
+		for (int value=0; value <= 0x7f; value++)
+		{
+			NacAlarm alarm = createAlarm();
+
+			alarm.setDays(value);
+
+			NacAlarm decoded = NacAlarmCodec.decode(NacAlarmCodec.encode(alarm));
+
+			assertNotNull(decoded);
+			assertEquals(alarm.getDays(), decoded.getDays());
+		}
+	}
+
+}
@@ -0,0 +1,497 @@
+package com.nfcalarmclock.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Check the trigger time that is computed without allocating.
+ *
+ * Away from daylight saving transitions, it gives the same result as building
+ * a Calendar for each day that an alarm runs on. Around a transition, a wall
+ * time in a gap is moved forward by the length of the gap, only on that date,
+ * and a wall time that happens twice is converted to the first of the two
+ * times.
+ */
+public class NacCalendarTriggerTest
+{
+
+	/**
+	 * Time zones to check, which include zones with daylight saving time in
+	 * both hemispheres, a zone with a 30 minute shift, and zones without any
+	 * daylight saving time.
+	 */
+	private static final String[] ZONES = new String[] { "America/New_York",
+		"Europe/London", "Europe/Berlin", "America/Sao_Paulo",
+		"America/Santiago", "Australia/Lord_Howe", "Asia/Kolkata", "UTC" };
+
+	/**
+	 * Locales to check, whose weeks start on Sunday, Monday, and Saturday.
+	 */
+	private static final Locale[] LOCALES = new Locale[] { Locale.US,
+		Locale.GERMANY, new Locale("ar", "EG") };
+
+	/**
+	 * Start of the range of times to check, 2020-01-01 UTC.
+	 */
+	private static final long START = 1577836800000L;
+
+	/**
+	 * Length of the range of times to check, in milliseconds.
+	 */
+	private static final long RANGE = 6L * 365L * NacCalendar.Trigger.DAY_MILLIS;
+
+	/**
+	 * Length of the range of times in which to look for daylight saving
+	 * transitions, in milliseconds.
+	 */
+	private static final long TRANSITION_RANGE =
+		2L * 365L * NacCalendar.Trigger.DAY_MILLIS;
+
+	/**
+	 * Number of milliseconds in a week.
+	 */
+	private static final long WEEK_MILLIS = 7L * NacCalendar.Trigger.DAY_MILLIS;
+
+	/**
+	 * Number of random times to check for each time zone and locale.
+	 */
+	private static final int ROUNDS = 5000;
+
+	/**
+	 * Seed for the random number generator, so that a failure can be
+	 * reproduced.
+	 */
+	private static final long SEED = 1L;
+
+	/**
+	 * Default time zone before the test.
+	 */
+	private TimeZone mDefaultZone;
+
+	/**
+	 * Default locale before the test.
+	 */
+	private Locale mDefaultLocale;
+
+	/**
+	 * Time zone that hides the desktop ZoneInfo class from Calendar.
+	 *
+	 * On the desktop, GregorianCalendar converts a wall time with
+	 * ZoneInfo.getOffsetsByWall(), which resolves a daylight saving gap
+	 * differently than Android does. The time zones on Android are not a
+	 * ZoneInfo, so Calendar takes the generic path, and converts the wall time
+	 * with the raw offset. Wrapping the zone makes the desktop take that same
+	 * path.
+	 */
+	private static class AndroidLikeTimeZone
+		extends TimeZone
+	{
+
+		/**
+		 * Time zone that is wrapped.
+		 */
+		private final TimeZone mZone;
+
+		/**
+		 */
+		public AndroidLikeTimeZone(TimeZone zone)
+		{
+			this.mZone = zone;
+			this.setID(zone.getID());
+		}
+
+		/**
+		 */
+		@Override
+		public int getOffset(int era, int year, int month, int day,
+			int dayOfWeek, int millis)
+		{
+			return this.mZone.getOffset(era, year, month, day, dayOfWeek, millis);
+		}
+
+		/**
+		 */
+		@Override
+		public int getOffset(long date)
+		{
+			return this.mZone.getOffset(date);
+		}
+
+		/**
+		 */
+		@Override
+		public int getDSTSavings()
+		{
+			return this.mZone.getDSTSavings();
+		}
+
+		/**
+		 */
+		@Override
+		public int getRawOffset()
+		{
+			return this.mZone.getRawOffset();
+		}
+
+		/**
+		 */
+		@Override
+		public boolean inDaylightTime(Date date)
+		{
+			return this.mZone.inDaylightTime(date);
+		}
+
+		/**
+		 */
+		@Override
+		public void setRawOffset(int offset)
+		{
+		}
+
+		/**
+		 */
+		@Override
+		public boolean useDaylightTime()
+		{
+			return this.mZone.useDaylightTime();
+		}
+
+	}
+
+	/**
+	 * Compute the time at which an alarm will run next, by building a Calendar
+	 * for each day it runs on, the same way that toNextCalendar() and
+	 * toNextOneTimeCalendar() do, but at a given time instead of now.
+	 */
+	private static long getNextWithCalendar(int hour, int minute, int days,
+		long now)
+	{
+		Calendar nowCalendar = Calendar.getInstance();
+
+		nowCalendar.setTimeInMillis(now);
+
+		// One time alarm
+		if (days == 0)
+		{
+			Calendar calendar = Calendar.getInstance();
+
+			calendar.setTimeInMillis(now);
+			calendar.set(Calendar.HOUR_OF_DAY, hour);
+			calendar.set(Calendar.MINUTE, minute);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+
+			if (calendar.before(nowCalendar))
+			{
+				calendar.add(Calendar.DAY_OF_MONTH, 1);
+			}
+
+			return calendar.getTimeInMillis();
+		}
+
+		long next = Long.MAX_VALUE;
+
+		for (NacCalendar.Day d : NacCalendar.WEEK)
+		{
+			if ((days & d.getValue()) == 0)
+			{
+				continue;
+			}
+
+			Calendar calendar = Calendar.getInstance();
+
+			calendar.setTimeInMillis(now);
+			calendar.set(Calendar.DAY_OF_WEEK, NacCalendar.Days.toCalendarDay(d));
+			calendar.set(Calendar.HOUR_OF_DAY, hour);
+			calendar.set(Calendar.MINUTE, minute);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+
+			if (calendar.before(nowCalendar))
+			{
+				calendar.add(Calendar.DAY_OF_MONTH, 7);
+			}
+
+			next = Math.min(next, calendar.getTimeInMillis());
+		}
+
+		return next;
+	}
+
+	/**
+	 * @return The minute of the day of a time, in the default time zone.
+	 */
+	private static int getMinuteOfDay(long millis)
+	{
+		Calendar calendar = Calendar.getInstance();
+
+		calendar.setTimeInMillis(millis);
+
+		return calendar.get(Calendar.HOUR_OF_DAY)*60
+			+ calendar.get(Calendar.MINUTE);
+	}
+
+	/**
+	 * @return True if the zone offset changes within a week and a day of a
+	 *     time, before or after it, and False otherwise.
+	 *
+	 * A Calendar first sets the day of the week in the current week, which
+	 * can be up to a week before the time, and then adds a week, so both
+	 * directions matter.
+	 */
+	private static boolean isNearTransition(long millis)
+	{
+		TimeZone zone = TimeZone.getDefault();
+		long range = WEEK_MILLIS + NacCalendar.Trigger.DAY_MILLIS;
+		int offset = zone.getOffset(millis);
+
+		return (zone.getOffset(millis - range) != offset)
+			|| (zone.getOffset(millis + range) != offset);
+	}
+
+	/**
+	 * Use a time zone and locale as the default, and reset the cache.
+	 */
+	private static void setDefault(String zone, Locale locale)
+	{
+		TimeZone.setDefault(new AndroidLikeTimeZone(TimeZone.getTimeZone(zone)));
+		Locale.setDefault(locale);
+		NacCalendar.Trigger.reset();
+	}
+
+	/**
+	 * Save the default time zone and locale.
+	 */
+	@Before
+	public void setUp()
+	{
+		this.mDefaultZone = TimeZone.getDefault();
+		this.mDefaultLocale = Locale.getDefault();
+	}
+
+	/**
+	 * Restore the default time zone and locale.
+	 */
+	@After
+	public void tearDown()
+	{
+		TimeZone.setDefault(this.mDefaultZone);
+		Locale.setDefault(this.mDefaultLocale);
+		NacCalendar.Trigger.reset();
+	}
+
+	/**
+	 * An alarm keeps its wall time when the time zone changes, once the cache
+	 * is reset.
+	 */
+	@Test
+	public void testGetNextAfterTimeZoneChange()
+	{
+		long now = 1622505600000L;
+
+		setDefault("America/New_York", Locale.US);
+
+		int generation = NacCalendar.Trigger.getGeneration();
+
+		// 2021-06-01, 07:00 EDT
+		assertEquals(1622545200000L, NacCalendar.Trigger.getNext(7, 0, 0, now));
+
+		setDefault("Europe/Berlin", Locale.GERMANY);
+
+		// 2021-06-01, 07:00 CEST
+		assertEquals(1622523600000L, NacCalendar.Trigger.getNext(7, 0, 0, now));
+		assertTrue(NacCalendar.Trigger.getGeneration() != generation);
+	}
+
+	/**
+	 * Alarms around each daylight saving transition run at their wall time,
+	 * or, in a gap, at their wall time moved forward by the length of the gap.
+	 * They are never in the past, never run at the second of two times when
+	 * the first has not passed, and never skip the day they should run on.
+	 */
+	@Test
+	public void testGetNextAroundTransitions()
+	{
+		long step = 30L * NacCalendar.Trigger.MINUTE_MILLIS;
+
+		for (String zone : ZONES)
+		{
+			setDefault(zone, Locale.US);
+
+			TimeZone tz = TimeZone.getDefault();
+			int offset = tz.getOffset(START);
+
+			// Look for a transition every hour
+			for (long t=START; t < START+TRANSITION_RANGE;
+				t+=NacCalendar.Trigger.HOUR_MILLIS)
+			{
+				int nextOffset = tz.getOffset(t);
+
+				if (nextOffset == offset)
+				{
+					continue;
+				}
+
+				int shift = nextOffset - offset;
+
+				offset = nextOffset;
+
+				// From a day before the transition to a day after it, every half
+				// hour, check alarms every half hour of the day
+				for (long now=t-NacCalendar.Trigger.DAY_MILLIS;
+					now < t+NacCalendar.Trigger.DAY_MILLIS; now+=step)
+				{
+					for (int m=0; m < 24*60; m+=30)
+					{
+						int days = ((m / 30) % 2 == 0) ? 0 : 0x7f;
+						long next = NacCalendar.Trigger.getNext(m / 60, m % 60, days,
+							now);
+						int minuteOfDay = getMinuteOfDay(next);
+						String message = String.format(Locale.US,
+							"%s now=%d %02d:%02d days=%d next=%d", zone, now, m / 60,
+							m % 60, days, next);
+
+						assertTrue(message, next >= now);
+						assertTrue(message,
+							next - now <= NacCalendar.Trigger.DAY_MILLIS + Math.abs(shift));
+
+						// In a gap, moved forward by the length of the gap
+						if (minuteOfDay != m)
+						{
+							assertTrue(message, shift > 0);
+							assertEquals(message, (m + shift/60000) % (24*60),
+								minuteOfDay);
+						}
+
+						// In an overlap, the first of the two times is used
+						long earlier = next - Math.abs(shift);
+
+						if ((shift < 0) && (earlier >= now)
+							&& (getMinuteOfDay(earlier) == m))
+						{
+							fail(message + " earlier=" + earlier);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * An alarm in a daylight saving gap is moved forward by the length of the
+	 * gap, only on the day of the gap.
+	 */
+	@Test
+	public void testGetNextInGap()
+	{
+		setDefault("America/New_York", Locale.US);
+
+		// 2021-03-14, 00:00 EST, one time alarm at 02:30 runs at 03:30 EDT
+		assertEquals(1615707000000L,
+			NacCalendar.Trigger.getNext(2, 30, 0, 1615698000000L));
+
+		// 2021-03-14, 04:00 EDT, Sunday alarm at 02:30 runs a week later at
+		// 02:30 EDT, not at 03:30
+		assertEquals(1616308200000L,
+			NacCalendar.Trigger.getNext(2, 30, NacCalendar.Day.SUNDAY.getValue(),
+				1615708800000L));
+
+		setDefault("Australia/Lord_Howe", Locale.US);
+
+		// 2021-10-03, 00:30 LHST, the clocks move forward 30 minutes at 02:00,
+		// so an alarm at 02:15 runs at 02:45 LHDT
+		assertEquals(1633189500000L,
+			NacCalendar.Trigger.getNext(2, 15, 0, 1633183200000L));
+	}
+
+	/**
+	 * An alarm in a daylight saving overlap runs at the first of the two
+	 * times, and only once.
+	 */
+	@Test
+	public void testGetNextInOverlap()
+	{
+		setDefault("America/New_York", Locale.US);
+
+		// 2021-11-07, 00:00 EDT, alarm at 01:30 runs at 01:30 EDT, not EST
+		assertEquals(1636263000000L,
+			NacCalendar.Trigger.getNext(1, 30, 0, 1636257600000L));
+		assertEquals(1636263000000L,
+			NacCalendar.Trigger.getNext(1, 30, NacCalendar.Day.SUNDAY.getValue(),
+				1636257600000L));
+
+		// 2021-11-07, 01:45 EDT, after the first 01:30, a one time alarm does
+		// not run again at 01:30 EST, it runs the next day
+		assertEquals(1636353000000L,
+			NacCalendar.Trigger.getNext(1, 30, 0, 1636263900000L));
+	}
+
+	/**
+	 * Random alarms at random times, away from daylight saving transitions,
+	 * give the same trigger time as a Calendar.
+	 *
+	 * A third of the times are rounded to the minute, and moved by up to two
+	 * minutes, and a fifth of the alarms run at the current wall time, so that
+	 * alarms that are due right now are checked too.
+	 */
+	@Test
+	public void testGetNextMatchesCalendar()
+	{
+		Random random = new Random(SEED);
+
+		for (String zone : ZONES)
+		{
+			for (Locale locale : LOCALES)
+			{
+				setDefault(zone, locale);
+
+				for (int i=0; i < ROUNDS; i++)
+				{
+					long now = START + (long) (random.nextDouble() * RANGE);
+					int hour = random.nextInt(24);
+					int minute = random.nextInt(60);
+					int days = (i % 4 == 0) ? 0 : random.nextInt(128);
+
+					if (i % 3 == 0)
+					{
+						now = now - now % NacCalendar.Trigger.MINUTE_MILLIS
+							+ (random.nextInt(5) - 2) * NacCalendar.Trigger.MINUTE_MILLIS;
+					}
+
+					if (i % 5 == 0)
+					{
+						Calendar calendar = Calendar.getInstance();
+
+						calendar.setTimeInMillis(now);
+						hour = calendar.get(Calendar.HOUR_OF_DAY);
+						minute = calendar.get(Calendar.MINUTE);
+					}
+
+					if (isNearTransition(now))
+					{
+						continue;
+					}
+
+					String message = String.format(Locale.US,
+						"%s %s now=%d %02d:%02d days=%d", zone, locale, now, hour,
+						minute, days);
+
+					assertEquals(message, getNextWithCalendar(hour, minute, days, now),
+						NacCalendar.Trigger.getNext(hour, minute, days, now));
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.nfcalarmclock.benchmark;
+
+import com.nfcalarmclock.alarm.NacAlarmTime;
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.EnumSet;
+
+/**
+ * Alarm time that the benchmarks run on.
+ *
+ * NacAlarm is a Room entity and a Parcelable, so it cannot be used on a plain
+ * JVM. This only holds the parts of an alarm that are needed to figure out
+ * when it will run next.
+ */
+public class NacBenchmarkAlarm
+	implements NacAlarmTime
+{
+
+	/**
+	 * Alarm ID.
+	 */
+	private final long mId;
+
+	/**
+	 * Hour at which to run the alarm.
+	 */
+	private final int mHour;
+
+	/**
+	 * Minute at which to run the alarm.
+	 */
+	private final int mMinute;
+
+	/**
+	 * Days on which to run the alarm.
+	 */
+	private final EnumSet<NacCalendar.Day> mDays;
+
+	/**
+	 * Whether the alarm is enabled or not.
+	 */
+	private final boolean mIsEnabled;
+
+	/**
+	 */
+	public NacBenchmarkAlarm(long id, int hour, int minute, int days,
+		boolean isEnabled)
+	{
+		this.mId = id;
+		this.mHour = hour;
+		this.mMinute = minute;
+		this.mDays = NacCalendar.Days.valueToDays(days);
+		this.mIsEnabled = isEnabled;
+	}
+
+	/**
+	 */
+	@Override
+	public boolean areDaysSelected()
+	{
+		return !this.mDays.isEmpty();
+	}
+
+	/**
+	 */
+	@Override
+	public EnumSet<NacCalendar.Day> getDays()
+	{
+		return this.mDays;
+	}
+
+	/**
+	 */
+	@Override
+	public int getHour()
+	{
+		return this.mHour;
+	}
+
+	/**
+	 */
+	@Override
+	public long getId()
+	{
+		return this.mId;
+	}
+
+	/**
+	 */
+	@Override
+	public int getMinute()
+	{
+		return this.mMinute;
+	}
+
+	/**
+	 */
+	@Override
+	public boolean isEnabled()
+	{
+		return this.mIsEnabled;
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.nfcalarmclock.benchmark;
+
+import com.nfcalarmclock.scheduler.NacTriggerTimeline;
+import com.nfcalarmclock.system.NacCalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time the day and trigger time logic over a list of alarms.
+ *
+ * Each benchmark runs over every alarm in the list, so the time it takes
+ * shows how the logic scales from a single alarm to a very large list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NacCalendarBenchmark
+{
+
+	/**
+	 * Seed for the random alarms, so that every run uses the same alarms.
+	 */
+	private static final long SEED = 0x4e4643L;
+
+	/**
+	 * Abbreviated name of each day of the week, starting on Sunday.
+	 */
+	private static final List<String> DAYS_OF_WEEK = Arrays.asList("Sun",
+		"Mon", "Tue", "Wed", "Thu", "Fri", "Sat");
+
+	/**
+	 * Number of alarms.
+	 */
+	@Param({ "1", "100", "10000" })
+	public int mCount;
+
+	/**
+	 * Alarms.
+	 */
+	private List<NacBenchmarkAlarm> mAlarms;
+
+	/**
+	 * Days of each alarm, as a value of Days.
+	 */
+	private int[] mValues;
+
+	/**
+	 * Days of each alarm.
+	 */
+	private List<EnumSet<NacCalendar.Day>> mDays;
+
+	/**
+	 * The current time, in epoch milliseconds.
+	 */
+	private long mNow;
+
+	/**
+	 * Create the alarms.
+	 *
+	 * About a quarter of the alarms are disabled, and about one in every 128
+	 * only runs once.
+	 */
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(SEED);
+
+		this.mAlarms = new ArrayList<>(this.mCount);
+		this.mValues = new int[this.mCount];
+		this.mDays = new ArrayList<>(this.mCount);
+		this.mNow = System.currentTimeMillis();
+
+		for (int i=0; i < this.mCount; i++)
+		{
+			int hour = random.nextInt(24);
+			int minute = random.nextInt(60);
+			int days = random.nextInt(128);
+			boolean isEnabled = (random.nextInt(4) != 0);
+			NacBenchmarkAlarm alarm = new NacBenchmarkAlarm(i, hour, minute,
+				days, isEnabled);
+
+			this.mAlarms.add(alarm);
+			this.mValues[i] = days;
+			this.mDays.add(alarm.getDays());
+		}
+
+		NacCalendar.Trigger.reset();
+	}
+
+	/**
+	 * Sort the alarms by the next time they will run, the same way that
+	 * NacAlarm.compareDay() compares two alarms.
+	 */
+	@Benchmark
+	public List<NacBenchmarkAlarm> compareDay()
+	{
+		List<NacBenchmarkAlarm> alarms = new ArrayList<>(this.mAlarms);
+		long now = this.mNow;
+
+		Collections.sort(alarms, (a, b) -> Long.compare(
+			NacCalendar.Trigger.getNext(a, now),
+			NacCalendar.Trigger.getNext(b, now)));
+
+		return alarms;
+	}
+
+	/**
+	 * Convert each set of days to a string of days.
+	 */
+	@Benchmark
+	public void daysToString(Blackhole blackhole)
+	{
+		for (EnumSet<NacCalendar.Day> days : this.mDays)
+		{
+			blackhole.consume(NacCalendar.Days.toString(DAYS_OF_WEEK, days, 0));
+		}
+	}
+
+	/**
+	 * Convert each set of days to a value.
+	 */
+	@Benchmark
+	public void daysToValue(Blackhole blackhole)
+	{
+		for (EnumSet<NacCalendar.Day> days : this.mDays)
+		{
+			blackhole.consume(NacCalendar.Days.daysToValue(days));
+		}
+	}
+
+	/**
+	 * Find the alarm that will run next.
+	 */
+	@Benchmark
+	public NacBenchmarkAlarm getNextAlarm()
+	{
+		return NacCalendar.getNextAlarm(this.mAlarms);
+	}
+
+	/**
+	 * Look up the next time each alarm will run, in the trigger timeline.
+	 */
+	@Benchmark
+	public void getNextTimeline(Blackhole blackhole)
+	{
+		NacTriggerTimeline timeline = NacTriggerTimeline.getInstance();
+		long now = this.mNow;
+
+		for (NacBenchmarkAlarm a : this.mAlarms)
+		{
+			blackhole.consume(timeline.getNext(a.getId(), a, now));
+		}
+	}
+
+	/**
+	 * Compute the next time each alarm will run.
+	 */
+	@Benchmark
+	public void getNextTrigger(Blackhole blackhole)
+	{
+		long now = this.mNow;
+
+		for (NacBenchmarkAlarm a : this.mAlarms)
+		{
+			blackhole.consume(NacCalendar.Trigger.getNext(a, now));
+		}
+	}
+
+	/**
+	 * Convert each alarm to the Calendars that it runs on.
+	 */
+	@Benchmark
+	public void toCalendars(Blackhole blackhole)
+	{
+		for (NacBenchmarkAlarm a : this.mAlarms)
+		{
+			blackhole.consume(NacCalendar.toCalendars(a));
+		}
+	}
+
+	/**
+	 * Convert each value to a set of days.
+	 */
+	@Benchmark
+	public void valueToDays(Blackhole blackhole)
+	{
+		for (int v : this.mValues)
+		{
+			blackhole.consume(NacCalendar.Days.valueToDays(v));
+		}
+	}
+
+}